@@ -18,11 +18,13 @@
  */
 package edu.pitt.dbmi.data.reader;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
 
 /**
  *
@@ -38,6 +40,9 @@ public abstract class DataFileReader implements DataReader {
     protected static final byte CARRIAGE_RETURN = '\r';
     protected static final byte SPACE_CHAR = Delimiter.SPACE.getByteValue();
 
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
     protected byte quoteCharacter;
     protected String commentMarker;
 
@@ -51,6 +56,25 @@ public abstract class DataFileReader implements DataReader {
         this.commentMarker = "";
     }
 
+    /**
+     * Opens the data file for reading. Gzip-compressed files are detected by
+     * their magic number and decompressed transparently.
+     *
+     * @return an input stream over the (uncompressed) content of the data file
+     * @throws IOException
+     */
+    protected InputStream newDataFileInputStream() throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(dataFile, StandardOpenOption.READ));
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+
+        return (b1 == GZIP_MAGIC_1 && b2 == GZIP_MAGIC_2)
+                ? new GZIPInputStream(in, BUFFER_SIZE)
+                : in;
+    }
+
     /**
      * Counts number of column from the first non-blank line.
      *
@@ -60,7 +84,7 @@ public abstract class DataFileReader implements DataReader {
     protected int countNumberOfColumns() throws IOException {
         int count = 0;
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
             boolean hasQuoteChar = false;
@@ -158,7 +182,7 @@ public abstract class DataFileReader implements DataReader {
     protected int countNumberOfLines() throws IOException {
         int count = 0;
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
 
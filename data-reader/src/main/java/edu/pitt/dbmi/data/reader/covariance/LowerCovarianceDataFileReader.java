@@ -23,9 +23,7 @@ import edu.pitt.dbmi.data.reader.DataReaderException;
 import edu.pitt.dbmi.data.reader.Delimiter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.LinkedList;
 import java.util.List;
 import org.slf4j.Logger;
@@ -57,7 +55,7 @@ public class LowerCovarianceDataFileReader extends DataFileReader implements Cov
     private double[][] getCovarianceData(int matrixSize) throws IOException {
         double[][] data = new double[matrixSize][matrixSize];
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
             boolean hasQuoteChar = false;
@@ -260,7 +258,7 @@ public class LowerCovarianceDataFileReader extends DataFileReader implements Cov
     private List<String> getVariables() throws IOException {
         List<String> variables = new LinkedList<>();
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
             boolean hasQuoteChar = false;
@@ -413,7 +411,7 @@ public class LowerCovarianceDataFileReader extends DataFileReader implements Cov
     private int getNumberOfCases() throws IOException {
         int numOfCases = 0;
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
             boolean finished = false;
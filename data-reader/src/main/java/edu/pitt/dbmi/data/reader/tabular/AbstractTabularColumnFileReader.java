@@ -22,9 +22,7 @@ import edu.pitt.dbmi.data.reader.DataFileReader;
 import edu.pitt.dbmi.data.reader.Delimiter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -44,7 +42,7 @@ public abstract class AbstractTabularColumnFileReader extends DataFileReader {
     protected int[] toColumnNumbers(Set<String> columnNames) throws IOException {
         List<Integer> colNums = new LinkedList<>();
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
             boolean hasQuoteChar = false;
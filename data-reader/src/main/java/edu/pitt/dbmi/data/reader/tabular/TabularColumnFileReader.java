@@ -24,9 +24,7 @@ import edu.pitt.dbmi.data.reader.Delimiter;
 import edu.pitt.dbmi.data.reader.util.Columns;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -114,7 +112,7 @@ public final class TabularColumnFileReader extends AbstractTabularColumnFileRead
     private DataColumn[] getColumns(int[] columnsToExclude, boolean isDiscrete) throws IOException {
         List<DataColumn> columns = new LinkedList<>();
 
-        try (InputStream in = Files.newInputStream(dataFile, StandardOpenOption.READ)) {
+        try (InputStream in = newDataFileInputStream()) {
             boolean skip = false;
             boolean hasSeenNonblankChar = false;
             boolean hasQuoteChar = false;
@@ -18,10 +18,12 @@
  */
 package edu.cmu.tetradapp.app;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
+import java.util.zip.GZIPInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +44,27 @@ public class DecompressibleInputStream extends ObjectInputStream {
         super(in);
     }
 
+    /**
+     * Opens a session file stream. Sessions that SessionOutputStream wrote
+     * compressed are read through a GZIPInputStream; anything else, such as
+     * an uncompressed or legacy .tet file, is read directly. Either way the
+     * stream is buffered.
+     */
+    public static DecompressibleInputStream open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, SessionOutputStream.BUFFER_SIZE);
+
+        buffered.mark(2);
+        int b0 = buffered.read();
+        int b1 = buffered.read();
+        buffered.reset();
+
+        if (b0 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b1 == (GZIPInputStream.GZIP_MAGIC >>> 8)) {
+            return new DecompressibleInputStream(new GZIPInputStream(buffered, SessionOutputStream.BUFFER_SIZE));
+        }
+
+        return new DecompressibleInputStream(buffered);
+    }
+
     @Override
     protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
         ObjectStreamClass resultClassDescriptor = super.readClassDescriptor(); // initially streams descriptor
@@ -23,7 +23,6 @@ package edu.cmu.tetradapp.app;
 
 import edu.cmu.tetrad.session.Session;
 import edu.cmu.tetrad.util.JOptionUtils;
-import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Version;
 import edu.cmu.tetradapp.model.SessionWrapper;
 import edu.cmu.tetradapp.model.TetradMetadata;
@@ -106,7 +105,7 @@ final class LoadSessionAction extends AbstractAction {
             public void watch() {
                 try {
                     FileInputStream in = new FileInputStream(file);
-                    DecompressibleInputStream objIn = new DecompressibleInputStream(in);
+                    DecompressibleInputStream objIn = DecompressibleInputStream.open(in);
                     Object o = objIn.readObject();
 
                     TetradMetadata metadata = null;
@@ -166,40 +165,6 @@ final class LoadSessionAction extends AbstractAction {
             }
         };
     }
-
-
-    public class DecompressibleInputStream extends ObjectInputStream {
-
-        public DecompressibleInputStream(InputStream in) throws IOException {
-            super(in);
-        }
-
-        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
-            ObjectStreamClass resultClassDescriptor = super.readClassDescriptor(); // initially streams descriptor
-            Class localClass; // the class in the local JVM that this descriptor represents.
-            try {
-                localClass = Class.forName(resultClassDescriptor.getName());
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-                TetradLogger.getInstance().forceLogMessage("No local class for " + resultClassDescriptor.getName());
-                return resultClassDescriptor;
-            }
-            ObjectStreamClass localClassDescriptor = ObjectStreamClass.lookup(localClass);
-            if (localClassDescriptor != null) { // only if class implements serializable
-                final long localSUID = localClassDescriptor.getSerialVersionUID();
-                final long streamSUID = resultClassDescriptor.getSerialVersionUID();
-                if (streamSUID != localSUID) { // check for serialVersionUID mismatch.
-//                    final StringBuffer s = new StringBuffer("Overriding serialized class version mismatch: ");
-//                    s.append("local serialVersionUID = ").append(localSUID);
-//                    s.append(" stream serialVersionUID = ").append(streamSUID);
-//                    Exception e = new InvalidClassException(s.toString());
-//                    TetradLogger.getInstance().forceLogMessage("Potentially Fatal Deserialization Operation.");
-                    resultClassDescriptor = localClassDescriptor; // Use local class descriptor for deserialization
-                }
-            }
-            return resultClassDescriptor;
-        }
-    }
 }
 
 
@@ -85,7 +85,7 @@ final class SaveSessionAction extends AbstractAction {
             }
         }
 
-        try (ObjectOutputStream objOut = new ObjectOutputStream(Files.newOutputStream(outputFile))) {
+        try (ObjectOutputStream objOut = SessionOutputStream.open(Files.newOutputStream(outputFile))) {
             sessionWrapper.setNewSession(false);
             objOut.writeObject(metadata);
             objOut.writeObject(sessionWrapper);
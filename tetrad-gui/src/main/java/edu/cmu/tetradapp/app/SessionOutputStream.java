@@ -0,0 +1,86 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.app;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.prefs.Preferences;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes sessions to file. The serialized session is buffered and, if asked
+ * for, GZIP compressed at the fastest level; the session object graph is
+ * written with plain Java serialization either way, with no special encoding
+ * for data boxes or matrices. Read these back with
+ * DecompressibleInputStream.open, which tells the two apart.
+ * <p>
+ * Sessions are written uncompressed unless the "compressSessions" preference
+ * is set. Compression makes sessions full of rounded data several times
+ * smaller, but makes saving full-precision data about ten times slower, and
+ * compressed sessions are not readable by earlier versions of Tetrad, which
+ * expect a raw serialization stream and fail on the GZIP header with a
+ * StreamCorruptedException.
+ */
+public class SessionOutputStream extends ObjectOutputStream {
+
+    /**
+     * The buffer size used on both sides of the stream.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes an uncompressed session.
+     */
+    public SessionOutputStream(OutputStream out) throws IOException {
+        this(out, false);
+    }
+
+    /**
+     * Writes a session, GZIP compressed if <code>compressed</code> is true.
+     */
+    public SessionOutputStream(OutputStream out, boolean compressed) throws IOException {
+        super(compressed
+                ? new FastGZIPOutputStream(new BufferedOutputStream(out, BUFFER_SIZE))
+                : new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    /**
+     * Writes a session, compressed if the user has set the "compressSessions"
+     * preference.
+     */
+    public static SessionOutputStream open(OutputStream out) throws IOException {
+        return new SessionOutputStream(out, Preferences.userRoot().getBoolean("compressSessions", false));
+    }
+
+    /**
+     * A GZIPOutputStream that favors speed over compression.
+     */
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
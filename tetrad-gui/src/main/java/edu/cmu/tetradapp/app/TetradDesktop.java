@@ -146,7 +146,9 @@ public final class TetradDesktop extends JPanel implements DesktopControllable,
 
         // HPC Job Manager
         int processors = Runtime.getRuntime().availableProcessors();
-        this.hpcJobManager = new HpcJobManager(session, processors);
+        // Each local search may use several cores itself
+        int localJobs = Math.max(1, Preferences.userRoot().getInt("hpcLocalSimultaneousJobs", processors / 2));
+        this.hpcJobManager = new HpcJobManager(session, processors, localJobs);
 
         this.setupDesktop();
         Preferences.userRoot().putBoolean("displayLogging", false);
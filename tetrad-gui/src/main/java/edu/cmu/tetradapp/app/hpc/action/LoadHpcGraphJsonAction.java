@@ -6,7 +6,6 @@ import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.Vector;
 
 import javax.swing.AbstractAction;
@@ -34,14 +33,11 @@ import edu.cmu.tetrad.util.JsonUtils;
 import edu.cmu.tetradapp.app.TetradDesktop;
 import edu.cmu.tetradapp.app.hpc.editor.LoadHpcGraphJsonTableModel;
 import edu.cmu.tetradapp.app.hpc.manager.HpcAccountManager;
-import edu.cmu.tetradapp.app.hpc.manager.HpcAccountService;
 import edu.cmu.tetradapp.app.hpc.manager.HpcJobManager;
-import edu.cmu.tetradapp.app.hpc.util.HpcAccountUtils;
+import edu.cmu.tetradapp.app.hpc.manager.HpcResultFile;
 import edu.cmu.tetradapp.editor.GraphEditable;
 import edu.cmu.tetradapp.util.DesktopController;
 import edu.pitt.dbmi.ccd.commons.file.FilePrint;
-import edu.pitt.dbmi.ccd.rest.client.dto.algo.ResultFile;
-import edu.pitt.dbmi.ccd.rest.client.service.result.ResultService;
 import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
 
 /**
@@ -90,12 +86,7 @@ public class LoadHpcGraphJsonAction extends AbstractAction {
 		if (option == JOptionPane.OK_OPTION && jsonFileName != null && hpcAccount != null) {
 
 			try {
-				HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
-
-				ResultService resultService = hpcAccountService.getResultService();
-
-				String json = resultService.downloadAlgorithmResultFile(jsonFileName,
-						HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+				String json = hpcJobManager.downloadAlgorithmResultFile(hpcAccount, jsonFileName);
 
 				Graph graph = JsonUtils.parseJSONObjectToTetradGraph(json);
 				GraphUtils.circleLayout(graph, 300, 300, 150);
@@ -206,21 +197,14 @@ public class LoadHpcGraphJsonAction extends AbstractAction {
 					jsonResultTable.clearSelection();
 
 					try {
-						HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
-
-						ResultService resultService = hpcAccountService.getResultService();
-
-						Set<ResultFile> results = resultService.listAlgorithmResultFiles(
-								HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
-
 						Vector<Vector<String>> jsonFiles = new Vector<>();
 
-						for (ResultFile resultFile : results) {
+						for (HpcResultFile resultFile : hpcJobManager.listAlgorithmResultFiles(hpcAccount)) {
 							if (resultFile.getName().endsWith(".json")) {
 								Vector<String> rowData = new Vector<>();
 								rowData.addElement(resultFile.getName());
-								rowData.addElement(FilePrint.fileTimestamp(resultFile.getCreationTime().getTime()));
-								rowData.addElement(FilePrint.fileTimestamp(resultFile.getLastModifiedTime().getTime()));
+								rowData.addElement(FilePrint.fileTimestamp(resultFile.getCreationTime()));
+								rowData.addElement(FilePrint.fileTimestamp(resultFile.getLastModifiedTime()));
 								rowData.addElement(FilePrint.humanReadableSize(resultFile.getFileSize(), false));
 
 								jsonFiles.add(rowData);
@@ -22,6 +22,7 @@ import javax.swing.JRadioButton;
 import javax.swing.JTextField;
 
 import edu.cmu.tetradapp.app.hpc.manager.HpcAccountManager;
+import edu.cmu.tetradapp.app.hpc.manager.LocalHpcJobBackend;
 import edu.cmu.tetradapp.app.hpc.util.HpcAccountUtils;
 import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
 
@@ -161,17 +162,23 @@ public class HpcAccountEditor extends JPanel {
 
 		final JRadioButton httpRadioButton = new JRadioButton("http");
 		final JRadioButton httpsRadioButton = new JRadioButton("https");
+		// Runs the jobs on this machine instead of a remote node
+		final JRadioButton localRadioButton = new JRadioButton(LocalHpcJobBackend.SCHEME);
 		if (hpcAccount.getScheme().equalsIgnoreCase("https")) {
 			httpsRadioButton.setSelected(true);
+		} else if (HpcAccountUtils.isLocal(hpcAccount)) {
+			localRadioButton.setSelected(true);
 		} else {
 			httpRadioButton.setSelected(true);
 		}
 		ButtonGroup schemeGroup = new ButtonGroup();
 		schemeGroup.add(httpRadioButton);
 		schemeGroup.add(httpsRadioButton);
+		schemeGroup.add(localRadioButton);
 		Box schemeRadioBox = Box.createHorizontalBox();
 		schemeRadioBox.add(httpRadioButton);
 		schemeRadioBox.add(httpsRadioButton);
+		schemeRadioBox.add(localRadioButton);
 		schemeLabel.setLabelFor(schemeRadioBox);
 		ActionListener schemeActionListener = new ActionListener() {
 
@@ -179,6 +186,8 @@ public class HpcAccountEditor extends JPanel {
 			public void actionPerformed(ActionEvent e) {
 				if (httpRadioButton.isSelected()) {
 					hpcAccount.setScheme("http");
+				} else if (localRadioButton.isSelected()) {
+					hpcAccount.setScheme(LocalHpcJobBackend.SCHEME);
 				} else {
 					hpcAccount.setScheme("https");
 				}
@@ -186,6 +195,7 @@ public class HpcAccountEditor extends JPanel {
 		};
 		httpRadioButton.addActionListener(schemeActionListener);
 		httpsRadioButton.addActionListener(schemeActionListener);
+		localRadioButton.addActionListener(schemeActionListener);
 		schemePanel.add(schemeRadioBox, BorderLayout.CENTER);
 
 		contentBox.add(schemePanel);
@@ -0,0 +1,51 @@
+package edu.cmu.tetradapp.app.hpc.manager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
+import edu.pitt.dbmi.tetrad.db.entity.HpcJobInfo;
+import edu.pitt.dbmi.tetrad.db.entity.HpcJobLog;
+
+/**
+ *
+ * Where HpcJobManager sends its jobs. The remote backend talks to the CCD
+ * REST services; the local backend runs jobs on this machine. Status codes
+ * are the ones stored on HpcJobInfo (0 = Submitted; 1 = Running; 2 = Kill
+ * Request).
+ *
+ */
+public interface HpcJobBackend {
+
+	/**
+	 * Queues the job and fills in its pid and result file names.
+	 */
+	void submitJob(HpcJobInfo hpcJobInfo, HpcJobLog hpcJobLog) throws Exception;
+
+	/**
+	 * Returns pid to status for the jobs of this account that are still
+	 * active. A submitted job missing from the map has ended.
+	 */
+	Map<Long, Integer> getActiveJobs(HpcAccount hpcAccount) throws Exception;
+
+	Set<String> listResultFileNames(HpcAccount hpcAccount) throws Exception;
+
+	/**
+	 * Returns the account's result files with their times and sizes.
+	 */
+	List<HpcResultFile> listResultFiles(HpcAccount hpcAccount) throws Exception;
+
+	/**
+	 * Returns the content of the result file, or a message containing "not
+	 * found" if there is no such file (the way the REST service answers).
+	 */
+	String downloadResultFile(HpcAccount hpcAccount, String resultFileName) throws Exception;
+
+	/**
+	 * Returns the job's status after the request, or null if the job is
+	 * unknown.
+	 */
+	Integer requestJobKilled(HpcJobInfo hpcJobInfo) throws Exception;
+
+}
@@ -1,7 +1,5 @@
 package edu.cmu.tetradapp.app.hpc.manager;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -12,20 +10,13 @@ import java.util.Timer;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import org.apache.http.client.ClientProtocolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import edu.cmu.tetradapp.app.TetradDesktop;
 import edu.cmu.tetradapp.app.hpc.task.HpcJobPreProcessTask;
 import edu.cmu.tetradapp.app.hpc.task.HpcJobsScheduledTask;
 import edu.cmu.tetradapp.app.hpc.util.HpcAccountUtils;
 import edu.cmu.tetradapp.editor.GeneralAlgorithmEditor;
-import edu.cmu.tetradapp.util.DesktopController;
-import edu.pitt.dbmi.ccd.rest.client.dto.algo.JobInfo;
-import edu.pitt.dbmi.ccd.rest.client.dto.algo.ResultFile;
-import edu.pitt.dbmi.ccd.rest.client.service.jobqueue.JobQueueService;
-import edu.pitt.dbmi.ccd.rest.client.service.result.ResultService;
 import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
 import edu.pitt.dbmi.tetrad.db.entity.HpcJobInfo;
 import edu.pitt.dbmi.tetrad.db.entity.HpcJobLog;
@@ -69,7 +60,12 @@ public class HpcJobManager {
 
 	private final Map<HpcAccount, HpcAccountService> hpcAccountServiceMap;
 
-	public HpcJobManager(final org.hibernate.Session session, final int simultaneousUpload) {
+	private final HpcJobBackend remoteHpcJobBackend;
+
+	private final HpcJobBackend localHpcJobBackend;
+
+	public HpcJobManager(final org.hibernate.Session session, final int simultaneousUpload,
+			final int simultaneousLocalJobs) {
 		this.hpcJobLogService = new HpcJobLogService(session);
 		this.hpcJobLogDetailService = new HpcJobLogDetailService(session);
 		this.hpcJobInfoService = new HpcJobInfoService(session);
@@ -83,6 +79,9 @@ public class HpcJobManager {
 		hpcGraphResultMap = new HashMap<>();
 		hpcAccountServiceMap = new HashMap<>();
 
+		remoteHpcJobBackend = new RemoteHpcJobBackend(this);
+		localHpcJobBackend = new LocalHpcJobBackend(this, simultaneousLocalJobs);
+
 		resumePreProcessJobs();
 		resumeSubmittedHpcJobInfos();
 
@@ -387,20 +386,10 @@ public class HpcJobManager {
 	}
 
 	public HpcJobInfo requestHpcJobKilled(final HpcJobInfo hpcJobInfo) throws Exception {
-		final HpcAccount hpcAccount = hpcJobInfo.getHpcAccount();
-
-		HpcAccountService hpcAccountService = getHpcAccountService(hpcAccount);
+		Integer status = getHpcJobBackend(hpcJobInfo.getHpcAccount()).requestJobKilled(hpcJobInfo);
 
-		JobQueueService jobQueueService = hpcAccountService.getJobQueueService();
-		TetradDesktop desktop = (TetradDesktop) DesktopController.getInstance();
-		final HpcAccountManager hpcAccountManager = desktop.getHpcAccountManager();
-		JsonWebTokenManager jsonWebTokenManager = hpcAccountManager.getJsonWebTokenManager();
-		jobQueueService.requestJobKilled(hpcJobInfo.getPid(), jsonWebTokenManager.getJsonWebToken(hpcAccount));
-		JobInfo jobInfo = jobQueueService.getJobStatus(hpcJobInfo.getPid(),
-				jsonWebTokenManager.getJsonWebToken(hpcAccount));
-
-		if (jobInfo != null) {
-			hpcJobInfo.setStatus(jobInfo.getStatus());
+		if (status != null) {
+			hpcJobInfo.setStatus(status);
 			return hpcJobInfo;
 		}
 
@@ -408,27 +397,29 @@ public class HpcJobManager {
 
 	}
 
-	public List<JobInfo> getRemoteActiveJobs(final HpcAccountManager hpcAccountManager, final HpcAccount hpcAccount)
-			throws ClientProtocolException, URISyntaxException, IOException, Exception {
-		HpcAccountService hpcAccountService = getHpcAccountService(hpcAccount);
-		JobQueueService jobQueueService = hpcAccountService.getJobQueueService();
-		return jobQueueService.getActiveJobs(HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+	/**
+	 * Returns pid to status (0 = Submitted; 1 = Running; 2 = Kill Request) of
+	 * the account's jobs that have not ended yet.
+	 */
+	public Map<Long, Integer> getActiveJobs(final HpcAccount hpcAccount) throws Exception {
+		return getHpcJobBackend(hpcAccount).getActiveJobs(hpcAccount);
+	}
+
+	public Set<String> listAlgorithmResultFileNames(final HpcAccount hpcAccount) throws Exception {
+		return getHpcJobBackend(hpcAccount).listResultFileNames(hpcAccount);
+	}
+
+	public List<HpcResultFile> listAlgorithmResultFiles(final HpcAccount hpcAccount) throws Exception {
+		return getHpcJobBackend(hpcAccount).listResultFiles(hpcAccount);
 	}
 
-	public Set<ResultFile> listRemoteAlgorithmResultFiles(final HpcAccountManager hpcAccountManager,
-			final HpcAccount hpcAccount) throws ClientProtocolException, URISyntaxException, IOException, Exception {
-		HpcAccountService hpcAccountService = getHpcAccountService(hpcAccount);
-		ResultService resultService = hpcAccountService.getResultService();
-		return resultService.listAlgorithmResultFiles(HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+	public String downloadAlgorithmResultFile(final HpcAccount hpcAccount, final String resultFileName)
+			throws Exception {
+		return getHpcJobBackend(hpcAccount).downloadResultFile(hpcAccount, resultFileName);
 	}
 
-	public String downloadAlgorithmResultFile(final HpcAccountManager hpcAccountManager, final HpcAccount hpcAccount,
-			final String errorResultFileName)
-			throws ClientProtocolException, URISyntaxException, IOException, Exception {
-		HpcAccountService hpcAccountService = getHpcAccountService(hpcAccount);
-		ResultService resultService = hpcAccountService.getResultService();
-		return resultService.downloadAlgorithmResultFile(errorResultFileName,
-				HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+	public HpcJobBackend getHpcJobBackend(final HpcAccount hpcAccount) {
+		return HpcAccountUtils.isLocal(hpcAccount) ? localHpcJobBackend : remoteHpcJobBackend;
 	}
 
 	public synchronized void removeHpcJobInfoTransaction(final HpcJobInfo hpcJobInfo) {
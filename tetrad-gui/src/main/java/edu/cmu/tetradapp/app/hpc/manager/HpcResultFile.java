@@ -0,0 +1,43 @@
+package edu.cmu.tetradapp.app.hpc.manager;
+
+/**
+ *
+ * A result file of an HPC job as listed by an HpcJobBackend: its name,
+ * creation and last modified times in milliseconds, and size in bytes.
+ *
+ */
+public class HpcResultFile {
+
+	private final String name;
+
+	private final long creationTime;
+
+	private final long lastModifiedTime;
+
+	private final long fileSize;
+
+	public HpcResultFile(final String name, final long creationTime, final long lastModifiedTime,
+			final long fileSize) {
+		this.name = name;
+		this.creationTime = creationTime;
+		this.lastModifiedTime = lastModifiedTime;
+		this.fileSize = fileSize;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	public long getLastModifiedTime() {
+		return lastModifiedTime;
+	}
+
+	public long getFileSize() {
+		return fileSize;
+	}
+
+}
@@ -0,0 +1,411 @@
+package edu.cmu.tetradapp.app.hpc.manager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.pitt.dbmi.tetrad.db.entity.AlgorithmParamRequest;
+import edu.pitt.dbmi.tetrad.db.entity.AlgorithmParameter;
+import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
+import edu.pitt.dbmi.tetrad.db.entity.HpcJobInfo;
+import edu.pitt.dbmi.tetrad.db.entity.HpcJobLog;
+
+/**
+ *
+ * Runs jobs on this machine, each in its own JVM (see LocalHpcJobRunner),
+ * with at most a fixed number running at once, counting jobs still running
+ * from an earlier session. Everything about a job is kept in its directory
+ * under ~/.tetrad/hpc-local/&lt;connection&gt;/&lt;pid&gt;, so jobs queued or
+ * running when Tetrad exits are picked up again when it starts. An account
+ * whose scheme is "local" uses this backend.
+ *
+ */
+public class LocalHpcJobBackend implements HpcJobBackend {
+
+	public static final String SCHEME = "local";
+
+	/**
+	 * A job with no live process and a heartbeat older than this is dead.
+	 */
+	private static final long HEARTBEAT_TIMEOUT = 6 * LocalHpcJobRunner.HEARTBEAT_INTERVAL;
+
+	private final Logger LOGGER = LoggerFactory.getLogger(LocalHpcJobBackend.class);
+
+	private final HpcJobManager hpcJobManager;
+
+	private final File rootDir;
+
+	private final ExecutorService executorService;
+
+	private final Map<Long, Process> processMap = new ConcurrentHashMap<>();
+
+	private final Set<Long> queuedPids = ConcurrentHashMap.newKeySet();
+
+	public LocalHpcJobBackend(final HpcJobManager hpcJobManager, final int simultaneousJobs) {
+		this(hpcJobManager, new File(System.getProperty("user.home"), ".tetrad" + File.separator + "hpc-local"),
+				simultaneousJobs);
+	}
+
+	public LocalHpcJobBackend(final HpcJobManager hpcJobManager, final File rootDir, final int simultaneousJobs) {
+		this.hpcJobManager = hpcJobManager;
+		this.rootDir = rootDir;
+		this.executorService = Executors.newFixedThreadPool(simultaneousJobs, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			// The jobs are separate processes and carry on if Tetrad exits
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "local-hpc-job-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		resumeQueuedJobs();
+	}
+
+	@Override
+	public synchronized void submitJob(final HpcJobInfo hpcJobInfo, final HpcJobLog hpcJobLog) throws Exception {
+		HpcAccount hpcAccount = hpcJobInfo.getHpcAccount();
+		AlgorithmParamRequest algorParamReq = hpcJobInfo.getAlgorithmParamRequest();
+		String algoId = hpcJobInfo.getAlgoId();
+
+		File accountDir = getAccountDir(hpcAccount);
+		long pid = System.currentTimeMillis();
+		while (new File(accountDir, Long.toString(pid)).exists()) {
+			pid++;
+		}
+		File jobDir = new File(accountDir, Long.toString(pid));
+		if (!jobDir.mkdirs()) {
+			throw new IOException("Unable to create " + jobDir);
+		}
+
+		// The temp files may be gone by the time a resumed job runs
+		String datasetPath = algorParamReq.getDatasetPath();
+		Files.copy(Paths.get(datasetPath), new File(jobDir, LocalHpcJobRunner.DATASET).toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		hpcJobManager.updateUploadFileProgress(datasetPath, 100);
+
+		String priorKnowledgePath = algorParamReq.getPriorKnowledgePath();
+		if (priorKnowledgePath != null) {
+			Files.copy(Paths.get(priorKnowledgePath), new File(jobDir, LocalHpcJobRunner.PRIOR_KNOWLEDGE).toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			hpcJobManager.updateUploadFileProgress(priorKnowledgePath, 100);
+		}
+
+		String log = "Copied " + Paths.get(datasetPath).getFileName() + " to " + jobDir;
+		LOGGER.debug(log);
+		hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+		Properties job = new Properties();
+		job.setProperty("algoId", algoId);
+		if (algorParamReq.getTestId() != null) {
+			job.setProperty("testId", algorParamReq.getTestId());
+		}
+		if (algorParamReq.getScoreId() != null) {
+			job.setProperty("scoreId", algorParamReq.getScoreId());
+		}
+		if (algorParamReq.getVariableType() != null) {
+			job.setProperty("variableType", algorParamReq.getVariableType());
+		}
+		if (algorParamReq.getJvmOptions() != null) {
+			job.setProperty("maxHeapSize", String.valueOf(algorParamReq.getJvmOptions().getMaxHeapSize()));
+		}
+		for (AlgorithmParameter param : algorParamReq.getAlgorithmParameters()) {
+			job.setProperty(LocalHpcJobRunner.PARAMETER_PREFIX + param.getParameter(), param.getValue());
+		}
+
+		String resultFileName = algoId + "_" + pid;
+		job.setProperty("resultFileName", resultFileName + ".txt");
+		job.setProperty("resultJsonFileName", resultFileName + ".json");
+		job.setProperty("errorResultFileName", "error_" + resultFileName + ".txt");
+
+		// Renamed into place so the scheduler never reads half of it
+		File tmp = new File(jobDir, LocalHpcJobRunner.JOB_PROPERTIES + ".tmp");
+		try (OutputStream out = new FileOutputStream(tmp)) {
+			job.store(out, hpcAccount.getConnectionName());
+		}
+		Files.move(tmp.toPath(), new File(jobDir, LocalHpcJobRunner.JOB_PROPERTIES).toPath(),
+				StandardCopyOption.ATOMIC_MOVE);
+
+		hpcJobInfo.setSubmittedTime(new Date(System.currentTimeMillis()));
+		hpcJobInfo.setStatus(0); // Submitted
+		hpcJobInfo.setPid(pid);
+		hpcJobInfo.setResultFileName(job.getProperty("resultFileName"));
+		hpcJobInfo.setResultJsonFileName(job.getProperty("resultJsonFileName"));
+		hpcJobInfo.setErrorResultFileName(job.getProperty("errorResultFileName"));
+
+		queueJob(pid, jobDir);
+	}
+
+	@Override
+	public Map<Long, Integer> getActiveJobs(final HpcAccount hpcAccount) throws Exception {
+		Map<Long, Integer> activeJobs = new HashMap<>();
+
+		for (File jobDir : listJobDirs(getAccountDir(hpcAccount))) {
+			long pid = Long.parseLong(jobDir.getName());
+			Properties job = LocalHpcJobRunner.loadProperties(jobDir);
+
+			if (isFinished(jobDir, job)) {
+				continue;
+			}
+
+			boolean killRequested = new File(jobDir, LocalHpcJobRunner.KILL).exists();
+
+			if (queuedPids.contains(pid)) {
+				activeJobs.put(pid, killRequested ? 2 : 0);
+			} else if (isAlive(pid, jobDir)) {
+				activeJobs.put(pid, killRequested ? 2 : 1);
+			} else if (new File(jobDir, LocalHpcJobRunner.STARTED).exists()) {
+				// The JVM died without writing a result, e.g. out of memory
+				writeError(jobDir, job, killRequested ? "Job killed"
+						: "Job ended without a result; see " + new File(jobDir, LocalHpcJobRunner.OUTPUT));
+			} else {
+				activeJobs.put(pid, 0);
+			}
+		}
+
+		return activeJobs;
+	}
+
+	@Override
+	public Set<String> listResultFileNames(final HpcAccount hpcAccount) throws Exception {
+		Set<String> resultFileNames = new HashSet<>();
+
+		for (HpcResultFile resultFile : listResultFiles(hpcAccount)) {
+			resultFileNames.add(resultFile.getName());
+		}
+
+		return resultFileNames;
+	}
+
+	@Override
+	public List<HpcResultFile> listResultFiles(final HpcAccount hpcAccount) throws IOException {
+		List<HpcResultFile> resultFiles = new ArrayList<>();
+
+		for (File jobDir : listJobDirs(getAccountDir(hpcAccount))) {
+			Properties job = LocalHpcJobRunner.loadProperties(jobDir);
+
+			for (String key : new String[] { "resultFileName", "resultJsonFileName", "errorResultFileName" }) {
+				File resultFile = new File(jobDir, job.getProperty(key));
+				if (resultFile.isFile()) {
+					BasicFileAttributes attributes = Files.readAttributes(resultFile.toPath(),
+							BasicFileAttributes.class);
+					resultFiles.add(new HpcResultFile(resultFile.getName(), attributes.creationTime().toMillis(),
+							attributes.lastModifiedTime().toMillis(), attributes.size()));
+				}
+			}
+		}
+
+		return resultFiles;
+	}
+
+	@Override
+	public String downloadResultFile(final HpcAccount hpcAccount, final String resultFileName) throws Exception {
+		for (File jobDir : listJobDirs(getAccountDir(hpcAccount))) {
+			File file = new File(jobDir, resultFileName);
+			if (file.isFile()) {
+				return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			}
+		}
+
+		return resultFileName + " not found";
+	}
+
+	@Override
+	public Integer requestJobKilled(final HpcJobInfo hpcJobInfo) throws Exception {
+		File jobDir = new File(getAccountDir(hpcJobInfo.getHpcAccount()), hpcJobInfo.getPid().toString());
+		if (!jobDir.isDirectory()) {
+			return null;
+		}
+
+		// Seen by the runner's heartbeat and by a queued job when its turn comes
+		new File(jobDir, LocalHpcJobRunner.KILL).createNewFile();
+
+		Process process = processMap.get(hpcJobInfo.getPid());
+		if (process != null) {
+			process.destroy();
+		}
+
+		return 2; // Kill Request
+	}
+
+	/**
+	 * Jobs still running from an earlier Tetrad session are watched first, so
+	 * that they hold their places in the pool before any queued job starts.
+	 */
+	private void resumeQueuedJobs() {
+		File[] accountDirs = rootDir.listFiles();
+		if (accountDirs == null) {
+			return;
+		}
+
+		List<File> queuedJobDirs = new ArrayList<>();
+
+		for (File accountDir : accountDirs) {
+			for (File jobDir : listJobDirs(accountDir)) {
+				try {
+					Properties job = LocalHpcJobRunner.loadProperties(jobDir);
+					if (isFinished(jobDir, job)) {
+						continue;
+					}
+
+					long pid = Long.parseLong(jobDir.getName());
+
+					if (!new File(jobDir, LocalHpcJobRunner.STARTED).exists()) {
+						queuedJobDirs.add(jobDir);
+					} else if (isAlive(pid, jobDir)) {
+						LOGGER.debug("resumeQueuedJobs: watching " + jobDir);
+						watchJob(pid, jobDir, job);
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		for (File jobDir : queuedJobDirs) {
+			LOGGER.debug("resumeQueuedJobs: " + jobDir);
+			queueJob(Long.parseLong(jobDir.getName()), jobDir);
+		}
+	}
+
+	/**
+	 * Takes a place in the pool until a job started by an earlier Tetrad
+	 * session finishes or its heartbeat stops.
+	 */
+	private void watchJob(final long pid, final File jobDir, final Properties job) {
+		executorService.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!isFinished(jobDir, job) && isAlive(pid, jobDir)) {
+						Thread.sleep(LocalHpcJobRunner.HEARTBEAT_INTERVAL);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+	}
+
+	private void queueJob(final long pid, final File jobDir) {
+		queuedPids.add(pid);
+
+		executorService.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					runJob(pid, jobDir);
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					queuedPids.remove(pid);
+					processMap.remove(pid);
+				}
+			}
+		});
+	}
+
+	private void runJob(final long pid, final File jobDir) throws Exception {
+		Properties job = LocalHpcJobRunner.loadProperties(jobDir);
+
+		if (new File(jobDir, LocalHpcJobRunner.KILL).exists()) {
+			writeError(jobDir, job, "Job killed");
+			return;
+		}
+
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if (job.getProperty("maxHeapSize") != null) {
+			command.add("-Xmx" + job.getProperty("maxHeapSize") + "g");
+		}
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(LocalHpcJobRunner.class.getName());
+		command.add(jobDir.getAbsolutePath());
+
+		// Output goes to a file rather than a pipe so the job outlives Tetrad
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.redirectErrorStream(true);
+		processBuilder.redirectOutput(new File(jobDir, LocalHpcJobRunner.OUTPUT));
+
+		new File(jobDir, LocalHpcJobRunner.STARTED).createNewFile();
+		Process process = processBuilder.start();
+		processMap.put(pid, process);
+		queuedPids.remove(pid);
+
+		int exitValue = process.waitFor();
+
+		if (!isFinished(jobDir, job)) {
+			writeError(jobDir, job, new File(jobDir, LocalHpcJobRunner.KILL).exists() ? "Job killed"
+					: "Job exited with code " + exitValue + "; see " + new File(jobDir, LocalHpcJobRunner.OUTPUT));
+		}
+	}
+
+	private boolean isAlive(final long pid, final File jobDir) {
+		Process process = processMap.get(pid);
+		if (process != null) {
+			return process.isAlive();
+		}
+
+		// Started by an earlier Tetrad session
+		File heartbeat = new File(jobDir, LocalHpcJobRunner.HEARTBEAT);
+		return heartbeat.exists() && System.currentTimeMillis() - heartbeat.lastModified() < HEARTBEAT_TIMEOUT;
+	}
+
+	private static boolean isFinished(final File jobDir, final Properties job) {
+		return new File(jobDir, job.getProperty("resultJsonFileName")).exists()
+				|| new File(jobDir, job.getProperty("errorResultFileName")).exists();
+	}
+
+	private static void writeError(final File jobDir, final Properties job, final String error) throws IOException {
+		LocalHpcJobRunner.writeText(new File(jobDir, job.getProperty("errorResultFileName")), error);
+	}
+
+	private File getAccountDir(final HpcAccount hpcAccount) {
+		return new File(rootDir, hpcAccount.getConnectionName().replaceAll("[^A-Za-z0-9._-]", "_"));
+	}
+
+	private static List<File> listJobDirs(final File accountDir) {
+		List<File> jobDirs = new ArrayList<>();
+
+		File[] files = accountDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isDirectory() && file.getName().matches("\\d+")
+						&& new File(file, LocalHpcJobRunner.JOB_PROPERTIES).exists()) {
+					jobDirs.add(file);
+				}
+			}
+		}
+
+		return jobDirs;
+	}
+
+}
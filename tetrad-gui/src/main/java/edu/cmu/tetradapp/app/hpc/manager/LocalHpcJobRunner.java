@@ -0,0 +1,275 @@
+package edu.cmu.tetradapp.app.hpc.manager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import com.google.gson.Gson;
+
+import edu.cmu.tetrad.algcomparison.algorithm.Algorithm;
+import edu.cmu.tetrad.algcomparison.algorithm.AlgorithmFactory;
+import edu.cmu.tetrad.algcomparison.independence.IndependenceWrapper;
+import edu.cmu.tetrad.algcomparison.score.ScoreWrapper;
+import edu.cmu.tetrad.algcomparison.utils.HasKnowledge;
+import edu.cmu.tetrad.annotation.AlgorithmAnnotations;
+import edu.cmu.tetrad.annotation.AnnotatedClass;
+import edu.cmu.tetrad.annotation.Score;
+import edu.cmu.tetrad.annotation.ScoreAnnotations;
+import edu.cmu.tetrad.annotation.TestOfIndependence;
+import edu.cmu.tetrad.annotation.TestOfIndependenceAnnotations;
+import edu.cmu.tetrad.data.DataReader;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.util.DataConvertUtils;
+import edu.cmu.tetrad.util.ParamDescriptions;
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.data.reader.tabular.ContinuousTabularDatasetFileReader;
+import edu.pitt.dbmi.data.reader.tabular.MixedTabularDatasetFileReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularDatasetReader;
+import edu.pitt.dbmi.data.reader.tabular.VerticalDiscreteTabularDatasetFileReader;
+
+/**
+ *
+ * Runs one job of the local HPC backend in its own JVM. The job directory
+ * holds the job.properties written by LocalHpcJobBackend and a copy of the
+ * data and prior knowledge; the graph is written there as JSON, the same
+ * way the HPC nodes return it, or the stack trace as the error result.
+ * While the search runs the heartbeat file is touched so that a restarted
+ * Tetrad can tell the job is still alive, and a kill file ends the job.
+ *
+ */
+public class LocalHpcJobRunner {
+
+	static final String JOB_PROPERTIES = "job.properties";
+
+	static final String DATASET = "data.txt";
+
+	static final String PRIOR_KNOWLEDGE = "prior.txt";
+
+	static final String STARTED = "started";
+
+	static final String HEARTBEAT = "heartbeat";
+
+	static final String KILL = "kill";
+
+	static final String OUTPUT = "output.log";
+
+	static final String PARAMETER_PREFIX = "parameter.";
+
+	static final long HEARTBEAT_INTERVAL = 5000;
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.err.println("Usage: java " + LocalHpcJobRunner.class.getName() + " <job directory>");
+			System.exit(2);
+		}
+
+		final File jobDir = new File(args[0]);
+		Properties job;
+
+		try {
+			job = loadProperties(jobDir);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+			return;
+		}
+
+		final File errorFile = new File(jobDir, job.getProperty("errorResultFileName"));
+		startHeartbeat(jobDir, errorFile);
+
+		try {
+			Graph graph = search(jobDir, job);
+
+			writeText(new File(jobDir, job.getProperty("resultFileName")), graph.toString());
+			writeText(new File(jobDir, job.getProperty("resultJsonFileName")), new Gson().toJson(graph));
+		} catch (Throwable t) {
+			StringWriter trace = new StringWriter();
+			t.printStackTrace(new PrintWriter(trace));
+
+			try {
+				writeText(errorFile, trace.toString());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		System.exit(0);
+	}
+
+	static Properties loadProperties(final File jobDir) throws IOException {
+		Properties job = new Properties();
+		try (InputStream in = new FileInputStream(new File(jobDir, JOB_PROPERTIES))) {
+			job.load(in);
+		}
+		return job;
+	}
+
+	/**
+	 * Writes to a temporary file and renames it, so the backend never sees a
+	 * half written result.
+	 */
+	static void writeText(final File file, final String text) throws IOException {
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		Files.write(tmp.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void startHeartbeat(final File jobDir, final File errorFile) {
+		final File heartbeat = new File(jobDir, HEARTBEAT);
+		final File kill = new File(jobDir, KILL);
+
+		Thread thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				while (true) {
+					try {
+						if (kill.exists()) {
+							writeText(errorFile, "Job killed");
+							System.exit(1);
+						}
+
+						writeText(heartbeat, Long.toString(System.currentTimeMillis()));
+						Thread.sleep(HEARTBEAT_INTERVAL);
+					} catch (IOException e) {
+						e.printStackTrace();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "heartbeat");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static Graph search(final File jobDir, final Properties job) throws Exception {
+		Class<? extends Algorithm> algoClass = findAlgorithm(job.getProperty("algoId"));
+		Class<? extends IndependenceWrapper> testClass = null;
+		Class<? extends ScoreWrapper> scoreClass = null;
+
+		if (job.getProperty("testId") != null) {
+			testClass = findTest(job.getProperty("testId"));
+		}
+
+		if (job.getProperty("scoreId") != null) {
+			scoreClass = findScore(job.getProperty("scoreId"));
+		}
+
+		Algorithm algorithm = AlgorithmFactory.create(algoClass, testClass, scoreClass);
+
+		Parameters parameters = new Parameters();
+		for (String name : job.stringPropertyNames()) {
+			if (name.startsWith(PARAMETER_PREFIX)) {
+				String parameter = name.substring(PARAMETER_PREFIX.length());
+				parameters.set(parameter, parseValue(parameter, job.getProperty(name)));
+			}
+		}
+
+		Path dataFile = new File(jobDir, DATASET).toPath();
+		TabularDatasetReader reader;
+		String variableType = job.getProperty("variableType", "continuous");
+		if ("discrete".equals(variableType)) {
+			reader = new VerticalDiscreteTabularDatasetFileReader(dataFile, Delimiter.TAB);
+		} else if ("mixed".equals(variableType)) {
+			reader = new MixedTabularDatasetFileReader(dataFile, Delimiter.TAB,
+					parameters.getInt("maxDistinctValuesDiscrete", 10));
+		} else {
+			reader = new ContinuousTabularDatasetFileReader(dataFile, Delimiter.TAB);
+		}
+		DataSet dataSet = (DataSet) DataConvertUtils.toDataModel(reader.readInData());
+
+		// The data reader module has no knowledge reader, so the prior
+		// knowledge written by DataWriter.saveKnowledge is parsed here
+		File prior = new File(jobDir, PRIOR_KNOWLEDGE);
+		if (prior.exists() && algorithm instanceof HasKnowledge) {
+			((HasKnowledge) algorithm).setKnowledge(new DataReader().parseKnowledge(prior));
+		}
+
+		return algorithm.search(dataSet, parameters);
+	}
+
+	private static Class<? extends Algorithm> findAlgorithm(final String command) {
+		for (AnnotatedClass<edu.cmu.tetrad.annotation.Algorithm> annotatedClass : AlgorithmAnnotations.getInstance()
+				.getAnnotatedClasses()) {
+			if (annotatedClass.getAnnotation().command().equals(command)) {
+				Class<?> clazz = annotatedClass.getClazz();
+				return clazz.asSubclass(Algorithm.class);
+			}
+		}
+		throw new IllegalArgumentException("Unknown algorithm: " + command);
+	}
+
+	private static Class<? extends IndependenceWrapper> findTest(final String command) {
+		for (AnnotatedClass<TestOfIndependence> annotatedClass : TestOfIndependenceAnnotations.getInstance()
+				.getAnnotatedClasses()) {
+			if (annotatedClass.getAnnotation().command().equals(command)) {
+				Class<?> clazz = annotatedClass.getClazz();
+				return clazz.asSubclass(IndependenceWrapper.class);
+			}
+		}
+		throw new IllegalArgumentException("Unknown test of independence: " + command);
+	}
+
+	private static Class<? extends ScoreWrapper> findScore(final String command) {
+		for (AnnotatedClass<Score> annotatedClass : ScoreAnnotations.getInstance().getAnnotatedClasses()) {
+			if (annotatedClass.getAnnotation().command().equals(command)) {
+				Class<?> clazz = annotatedClass.getClazz();
+				return clazz.asSubclass(ScoreWrapper.class);
+			}
+		}
+		throw new IllegalArgumentException("Unknown score: " + command);
+	}
+
+	/**
+	 * Parameter values arrive as strings; they are given back the type of the
+	 * parameter's default value, or a guessed type if it has no description.
+	 */
+	private static Object parseValue(final String parameter, final String value) {
+		ParamDescriptions descriptions = ParamDescriptions.getInstance();
+
+		if (descriptions.getNames().contains(parameter)) {
+			Serializable defaultValue = descriptions.get(parameter).getDefaultValue();
+
+			if (defaultValue instanceof Integer) {
+				return Integer.parseInt(value);
+			} else if (defaultValue instanceof Long) {
+				return Long.parseLong(value);
+			} else if (defaultValue instanceof Double) {
+				return Double.parseDouble(value);
+			} else if (defaultValue instanceof Boolean) {
+				return Boolean.parseBoolean(value);
+			}
+
+			return value;
+		}
+
+		if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+			return Boolean.parseBoolean(value);
+		}
+
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+		}
+
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+		}
+
+		return value;
+	}
+
+}
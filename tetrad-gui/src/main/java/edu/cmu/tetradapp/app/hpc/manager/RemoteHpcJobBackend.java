@@ -0,0 +1,299 @@
+package edu.cmu.tetradapp.app.hpc.manager;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.tetradapp.app.TetradDesktop;
+import edu.cmu.tetradapp.app.hpc.util.HpcAccountUtils;
+import edu.cmu.tetradapp.util.DesktopController;
+import edu.pitt.dbmi.ccd.rest.client.dto.algo.AlgoParameter;
+import edu.pitt.dbmi.ccd.rest.client.dto.algo.JobInfo;
+import edu.pitt.dbmi.ccd.rest.client.dto.algo.JvmOptions;
+import edu.pitt.dbmi.ccd.rest.client.dto.algo.ResultFile;
+import edu.pitt.dbmi.ccd.rest.client.dto.data.DataFile;
+import edu.pitt.dbmi.ccd.rest.client.service.data.DataUploadService;
+import edu.pitt.dbmi.ccd.rest.client.service.data.RemoteDataFileService;
+import edu.pitt.dbmi.ccd.rest.client.service.jobqueue.JobQueueService;
+import edu.pitt.dbmi.ccd.rest.client.service.result.ResultService;
+import edu.pitt.dbmi.tetrad.db.entity.AlgorithmParamRequest;
+import edu.pitt.dbmi.tetrad.db.entity.AlgorithmParameter;
+import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
+import edu.pitt.dbmi.tetrad.db.entity.HpcJobInfo;
+import edu.pitt.dbmi.tetrad.db.entity.HpcJobLog;
+import edu.pitt.dbmi.tetrad.db.entity.HpcParameter;
+
+/**
+ *
+ * Runs jobs on a CCD HPC node through its REST services. The upload and
+ * submission steps used to live in HpcJobPreProcessTask.
+ *
+ */
+public class RemoteHpcJobBackend implements HpcJobBackend {
+
+	private final Logger LOGGER = LoggerFactory.getLogger(RemoteHpcJobBackend.class);
+
+	private final HpcJobManager hpcJobManager;
+
+	public RemoteHpcJobBackend(final HpcJobManager hpcJobManager) {
+		this.hpcJobManager = hpcJobManager;
+	}
+
+	@Override
+	public void submitJob(final HpcJobInfo hpcJobInfo, final HpcJobLog hpcJobLog) throws Exception {
+		final HpcAccountManager hpcAccountManager = getHpcAccountManager();
+		HpcAccount hpcAccount = hpcJobInfo.getHpcAccount();
+
+		AlgorithmParamRequest algorParamReq = hpcJobInfo.getAlgorithmParamRequest();
+		String datasetPath = algorParamReq.getDatasetPath();
+		String priorKnowledgePath = algorParamReq.getPriorKnowledgePath();
+
+		HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
+
+		String log = "Initiated connection to " + hpcAccount.getConnectionName();
+		LOGGER.debug(log);
+		hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+		log = "datasetPath: " + datasetPath;
+		System.out.println(log);
+		Path file = Paths.get(datasetPath);
+		// Get file's MD5 hash and use it as its identifier
+		String md5 = algorParamReq.getDatasetMd5();
+
+		// Initiate data uploading progress
+		hpcJobManager.updateUploadFileProgress(datasetPath, 0);
+
+		Path prior = null;
+		if (priorKnowledgePath != null) {
+			log = "priorKnowledgePath: " + priorKnowledgePath;
+			LOGGER.debug(log);
+			prior = Paths.get(priorKnowledgePath);
+
+			// Initiate prior knowledge uploading progress
+			hpcJobManager.updateUploadFileProgress(priorKnowledgePath, 0);
+		}
+
+		// Check if this dataset already exists with this md5 hash
+		RemoteDataFileService remoteDataService = hpcAccountService.getRemoteDataService();
+
+		DataFile dataFile = HpcAccountUtils.getRemoteDataFile(hpcAccountManager, remoteDataService, hpcAccount, md5);
+		DataUploadService dataUploadService = hpcAccountService.getDataUploadService();
+
+		// If not, upload the file
+		if (dataFile == null) {
+			log = "Started uploading " + file.getFileName().toString();
+			LOGGER.debug(log);
+			dataUploadService.startUpload(file, HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+			hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+			int progress;
+			while ((progress = dataUploadService.getUploadJobStatus(file.toAbsolutePath().toString())) < 100) {
+				hpcJobManager.updateUploadFileProgress(datasetPath, progress);
+				Thread.sleep(10);
+			}
+
+			hpcJobManager.updateUploadFileProgress(datasetPath, progress);
+
+			log = "Finished uploading " + file.getFileName().toString();
+			LOGGER.debug(log);
+			hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+			// Get remote datafile
+			dataFile = HpcAccountUtils.getRemoteDataFile(hpcAccountManager, remoteDataService, hpcAccount, md5);
+
+			HpcAccountUtils.summarizeDataset(remoteDataService, algorParamReq, dataFile.getId(),
+					HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+			log = "Summarized " + file.getFileName().toString();
+			LOGGER.debug(log);
+			hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+		} else {
+			log = "Skipped uploading " + file.getFileName().toString();
+			LOGGER.debug(log);
+
+			hpcJobManager.updateUploadFileProgress(datasetPath, -1);
+
+			hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+			if (dataFile.getFileSummary().getVariableType() == null) {
+				HpcAccountUtils.summarizeDataset(remoteDataService, algorParamReq, dataFile.getId(),
+						HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+				log = "Summarized " + file.getFileName().toString();
+				LOGGER.debug(log);
+				hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, "Summarized " + file.getFileName().toString());
+			}
+
+		}
+
+		DataFile priorKnowledgeFile = null;
+
+		// Prior Knowledge File
+		if (prior != null) {
+			// Get prior knowledge file Id
+			md5 = algorParamReq.getPriorKnowledgeMd5();
+
+			priorKnowledgeFile = HpcAccountUtils.getRemotePriorKnowledgeFile(hpcAccountManager, remoteDataService,
+					hpcAccount, md5);
+
+			if (priorKnowledgeFile == null) {
+				// Upload prior knowledge file
+				dataUploadService.startUpload(prior, HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+
+				log = "Started uploading Prior Knowledge File";
+				LOGGER.debug(log);
+				hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+				int progress;
+				while ((progress = dataUploadService.getUploadJobStatus(prior.toAbsolutePath().toString())) < 100) {
+					hpcJobManager.updateUploadFileProgress(priorKnowledgePath, progress);
+					Thread.sleep(10);
+				}
+
+				hpcJobManager.updateUploadFileProgress(priorKnowledgePath, progress);
+
+				priorKnowledgeFile = HpcAccountUtils.getRemotePriorKnowledgeFile(hpcAccountManager, remoteDataService,
+						hpcAccount, md5);
+
+				log = "Finished uploading Prior Knowledge File";
+				LOGGER.debug(log);
+				hpcJobManager.logHpcJobLogDetail(hpcJobLog, -1, log);
+
+			}
+
+		}
+
+		// Algorithm Job Preparation
+		edu.pitt.dbmi.ccd.rest.client.dto.algo.AlgorithmParamRequest paramRequest = new edu.pitt.dbmi.ccd.rest.client.dto.algo.AlgorithmParamRequest();
+		String algoId = hpcJobInfo.getAlgoId();
+		paramRequest.setAlgoId(algoId);
+		paramRequest.setDatasetFileId(dataFile.getId());
+		// Test
+		if (algorParamReq.getTestId() != null) {
+			paramRequest.setTestId(algorParamReq.getTestId());
+		}
+		// Score
+		if (algorParamReq.getScoreId() != null) {
+			paramRequest.setScoreId(algorParamReq.getScoreId());
+		}
+
+		Set<AlgoParameter> algorithmParameters = new HashSet<>();
+		for (AlgorithmParameter param : algorParamReq.getAlgorithmParameters()) {
+			algorithmParameters.add(new AlgoParameter(param.getParameter(), param.getValue()));
+			LOGGER.debug("AlgorithmParameter: " + param.getParameter() + " : " + param.getValue());
+		}
+
+		if (priorKnowledgeFile != null) {
+			paramRequest.setPriorKnowledgeFileId(priorKnowledgeFile.getId());
+			LOGGER.debug("priorKnowledgeFileId: " + priorKnowledgeFile.getId());
+		}
+		paramRequest.setAlgoParameters(algorithmParameters);
+
+		if (algorParamReq.getJvmOptions() != null) {
+			JvmOptions jvmOptions = new JvmOptions();
+			jvmOptions.setMaxHeapSize(algorParamReq.getJvmOptions().getMaxHeapSize());
+			paramRequest.setJvmOptions(jvmOptions);
+		}
+
+		Set<HpcParameter> hpcParameters = algorParamReq.getHpcParameters();
+		if (hpcParameters != null) {
+			Set<edu.pitt.dbmi.ccd.rest.client.dto.algo.HpcParameter> hpcParams = new HashSet<>();
+			for (HpcParameter param : hpcParameters) {
+				edu.pitt.dbmi.ccd.rest.client.dto.algo.HpcParameter hpcParam = new edu.pitt.dbmi.ccd.rest.client.dto.algo.HpcParameter();
+				hpcParam.setKey(param.getKey());
+				hpcParam.setValue(param.getValue());
+				hpcParams.add(hpcParam);
+				LOGGER.debug("HpcParameter: " + hpcParam.getKey() + " : " + hpcParam.getValue());
+			}
+			paramRequest.setHpcParameters(hpcParams);
+		}
+
+		// Submit a job
+		JobQueueService jobQueueService = hpcAccountService.getJobQueueService();
+		JobInfo jobInfo = jobQueueService.addToRemoteQueue(paramRequest,
+				HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount));
+
+		hpcJobInfo.setSubmittedTime(new Date(System.currentTimeMillis()));
+		hpcJobInfo.setStatus(0); // Submitted
+		hpcJobInfo.setPid(jobInfo.getId());
+		hpcJobInfo.setResultFileName(jobInfo.getResultFileName());
+		hpcJobInfo.setResultJsonFileName(jobInfo.getResultJsonFileName());
+		hpcJobInfo.setErrorResultFileName(jobInfo.getErrorResultFileName());
+	}
+
+	@Override
+	public Map<Long, Integer> getActiveJobs(final HpcAccount hpcAccount) throws Exception {
+		HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
+		JobQueueService jobQueueService = hpcAccountService.getJobQueueService();
+		List<JobInfo> jobInfos = jobQueueService
+				.getActiveJobs(HpcAccountUtils.getJsonWebToken(getHpcAccountManager(), hpcAccount));
+
+		Map<Long, Integer> activeJobs = new HashMap<>();
+		for (JobInfo jobInfo : jobInfos) {
+			LOGGER.debug("Remote pid: " + jobInfo.getId() + " : " + jobInfo.getAlgoId() + " : "
+					+ jobInfo.getResultFileName());
+			activeJobs.put(jobInfo.getId(), jobInfo.getStatus());
+		}
+		return activeJobs;
+	}
+
+	@Override
+	public Set<String> listResultFileNames(final HpcAccount hpcAccount) throws Exception {
+		Set<String> resultFileNames = new HashSet<>();
+		for (HpcResultFile resultFile : listResultFiles(hpcAccount)) {
+			resultFileNames.add(resultFile.getName());
+		}
+		return resultFileNames;
+	}
+
+	@Override
+	public List<HpcResultFile> listResultFiles(final HpcAccount hpcAccount) throws Exception {
+		HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
+		ResultService resultService = hpcAccountService.getResultService();
+		Set<ResultFile> resultFiles = resultService
+				.listAlgorithmResultFiles(HpcAccountUtils.getJsonWebToken(getHpcAccountManager(), hpcAccount));
+
+		List<HpcResultFile> hpcResultFiles = new ArrayList<>();
+		for (ResultFile resultFile : resultFiles) {
+			hpcResultFiles.add(new HpcResultFile(resultFile.getName(), resultFile.getCreationTime().getTime(),
+					resultFile.getLastModifiedTime().getTime(), resultFile.getFileSize()));
+		}
+		return hpcResultFiles;
+	}
+
+	@Override
+	public String downloadResultFile(final HpcAccount hpcAccount, final String resultFileName) throws Exception {
+		HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
+		ResultService resultService = hpcAccountService.getResultService();
+		return resultService.downloadAlgorithmResultFile(resultFileName,
+				HpcAccountUtils.getJsonWebToken(getHpcAccountManager(), hpcAccount));
+	}
+
+	@Override
+	public Integer requestJobKilled(final HpcJobInfo hpcJobInfo) throws Exception {
+		final HpcAccount hpcAccount = hpcJobInfo.getHpcAccount();
+
+		HpcAccountService hpcAccountService = hpcJobManager.getHpcAccountService(hpcAccount);
+
+		JobQueueService jobQueueService = hpcAccountService.getJobQueueService();
+		JsonWebTokenManager jsonWebTokenManager = getHpcAccountManager().getJsonWebTokenManager();
+		jobQueueService.requestJobKilled(hpcJobInfo.getPid(), jsonWebTokenManager.getJsonWebToken(hpcAccount));
+		JobInfo jobInfo = jobQueueService.getJobStatus(hpcJobInfo.getPid(),
+				jsonWebTokenManager.getJsonWebToken(hpcAccount));
+
+		return jobInfo == null ? null : jobInfo.getStatus();
+	}
+
+	private HpcAccountManager getHpcAccountManager() {
+		TetradDesktop desktop = (TetradDesktop) DesktopController.getInstance();
+		return desktop.getHpcAccountManager();
+	}
+
+}
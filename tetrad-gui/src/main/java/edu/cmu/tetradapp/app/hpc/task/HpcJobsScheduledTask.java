@@ -1,16 +1,12 @@
 package edu.cmu.tetradapp.app.hpc.task;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
 
-import org.apache.http.client.ClientProtocolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,8 +15,6 @@ import edu.cmu.tetradapp.app.hpc.manager.HpcAccountManager;
 import edu.cmu.tetradapp.app.hpc.manager.HpcJobManager;
 import edu.cmu.tetradapp.editor.GeneralAlgorithmEditor;
 import edu.cmu.tetradapp.util.DesktopController;
-import edu.pitt.dbmi.ccd.rest.client.dto.algo.JobInfo;
-import edu.pitt.dbmi.ccd.rest.client.dto.algo.ResultFile;
 import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
 import edu.pitt.dbmi.tetrad.db.entity.HpcJobInfo;
 import edu.pitt.dbmi.tetrad.db.entity.HpcJobLog;
@@ -98,19 +92,16 @@ public class HpcJobsScheduledTask extends TimerTask {
 			}
 
 			try {
-				List<JobInfo> jobInfos = hpcJobManager.getRemoteActiveJobs(hpcAccountManager, hpcAccount);
+				Map<Long, Integer> activeJobs = hpcJobManager.getActiveJobs(hpcAccount);
 
-				for (JobInfo jobInfo : jobInfos) {
-					LOGGER.debug("Remote pid: " + jobInfo.getId() + " : " + jobInfo.getAlgoId() + " : "
-							+ jobInfo.getResultFileName());
-
-					long pid = jobInfo.getId();
+				for (Map.Entry<Long, Integer> activeJob : activeJobs.entrySet()) {
+					long pid = activeJob.getKey();
 
 					if (finishedJobMap.containsKey(pid)) {
 						finishedJobMap.remove(pid);
 					}
 
-					int remoteStatus = jobInfo.getStatus();
+					int remoteStatus = activeJob.getValue();
 					String recentStatusText = (remoteStatus == 0 ? "Submitted"
 							: (remoteStatus == 1 ? "Running" : "Kill Request"));
 					HpcJobInfo hpcJobInfo = hpcJobInfoMap.get(pid);// Local job
@@ -137,15 +128,7 @@ public class HpcJobsScheduledTask extends TimerTask {
 
 				// Download finished jobs' results
 				if (finishedJobMap.size() > 0) {
-					Set<ResultFile> resultFiles = hpcJobManager.listRemoteAlgorithmResultFiles(hpcAccountManager,
-							hpcAccount);
-
-					Set<String> resultFileNames = new HashSet<>();
-					for (ResultFile resultFile : resultFiles) {
-						resultFileNames.add(resultFile.getName());
-						// LOGGER.debug(hpcAccount.getConnectionName()
-						// + " Result : " + resultFile.getName());
-					}
+					Set<String> resultFileNames = hpcJobManager.listAlgorithmResultFileNames(hpcAccount);
 
 					for (HpcJobInfo hpcJobInfo : finishedJobMap.values()) {// Job
 						// is
@@ -182,7 +165,7 @@ public class HpcJobsScheduledTask extends TimerTask {
 							if (resultFileNames.contains(resultJsonFileName)) {
 								recentStatus = 5; // Result Downloaded
 
-								String json = downloadAlgorithmResultFile(hpcAccountManager, hpcJobManager, hpcAccount,
+								String json = downloadAlgorithmResultFile(hpcJobManager, hpcAccount,
 										resultJsonFileName, editor);
 
 								if (!json.toLowerCase().contains("not found")) {
@@ -198,7 +181,7 @@ public class HpcJobsScheduledTask extends TimerTask {
 							} else if (resultFileNames.contains(errorResultFileName)) {
 								recentStatus = 6; // Error Result Downloaded
 
-								String error = downloadAlgorithmResultFile(hpcAccountManager, hpcJobManager, hpcAccount,
+								String error = downloadAlgorithmResultFile(hpcJobManager, hpcAccount,
 										errorResultFileName, editor);
 
 								if (!error.toLowerCase().contains("not found")) {
@@ -216,7 +199,7 @@ public class HpcJobsScheduledTask extends TimerTask {
 								// Try again
 								Thread.sleep(5000);
 
-								String json = downloadAlgorithmResultFile(hpcAccountManager, hpcJobManager, hpcAccount,
+								String json = downloadAlgorithmResultFile(hpcJobManager, hpcAccount,
 										resultJsonFileName, editor);
 
 								if (!json.toLowerCase().contains("not found")) {
@@ -230,8 +213,8 @@ public class HpcJobsScheduledTask extends TimerTask {
 									LOGGER.debug(hpcJobInfo.getAlgoId() + " : id : " + hpcJobInfo.getId()
 											+ " : " + log);
 								} else {
-									String error = downloadAlgorithmResultFile(hpcAccountManager, hpcJobManager,
-											hpcAccount, errorResultFileName, editor);
+									String error = downloadAlgorithmResultFile(hpcJobManager, hpcAccount,
+											errorResultFileName, editor);
 
 									if (!error.toLowerCase().contains("not found")) {
 										editor.setAlgorithmErrorResult(error);
@@ -274,15 +257,13 @@ public class HpcJobsScheduledTask extends TimerTask {
 
 	}
 
-	private String downloadAlgorithmResultFile(final HpcAccountManager hpcAccountManager,
-			final HpcJobManager hpcJobManager, final HpcAccount hpcAccount, final String resultFileName,
-			final GeneralAlgorithmEditor editor)
-			throws ClientProtocolException, URISyntaxException, IOException, Exception {
+	private String downloadAlgorithmResultFile(final HpcJobManager hpcJobManager, final HpcAccount hpcAccount,
+			final String resultFileName, final GeneralAlgorithmEditor editor) throws Exception {
 		int trial = 10;
-		String txt = hpcJobManager.downloadAlgorithmResultFile(hpcAccountManager, hpcAccount, resultFileName);
+		String txt = hpcJobManager.downloadAlgorithmResultFile(hpcAccount, resultFileName);
 		while (trial != 0 && txt.toLowerCase().contains("not found")) {
 			Thread.sleep(5000);
-			txt = hpcJobManager.downloadAlgorithmResultFile(hpcAccountManager, hpcAccount, resultFileName);
+			txt = hpcJobManager.downloadAlgorithmResultFile(hpcAccount, resultFileName);
 			trial--;
 		}
 
@@ -7,6 +7,7 @@ import java.util.Set;
 import org.apache.http.client.ClientProtocolException;
 
 import edu.cmu.tetradapp.app.hpc.manager.HpcAccountManager;
+import edu.cmu.tetradapp.app.hpc.manager.LocalHpcJobBackend;
 import edu.pitt.dbmi.ccd.rest.client.dto.data.DataFile;
 import edu.pitt.dbmi.ccd.rest.client.dto.user.JsonWebToken;
 import edu.pitt.dbmi.ccd.rest.client.service.data.RemoteDataFileService;
@@ -22,7 +23,15 @@ import edu.pitt.dbmi.tetrad.db.entity.HpcAccount;
  */
 public class HpcAccountUtils {
 
+	public static boolean isLocal(final HpcAccount hpcAccount) {
+		return LocalHpcJobBackend.SCHEME.equalsIgnoreCase(hpcAccount.getScheme());
+	}
+
 	public static boolean testConnection(final HpcAccountManager hpcAccountManager, final HpcAccount hpcAccount) {
+		if (isLocal(hpcAccount)) {
+			return true;
+		}
+
 		try {
 			getJsonWebToken(hpcAccountManager, hpcAccount);
 
@@ -27,12 +27,14 @@ import edu.cmu.tetrad.data.ContinuousVariable;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DiscreteVariable;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 import edu.cmu.tetrad.util.NumberFormatUtil;
-import edu.cmu.tetrad.util.StatUtils;
 import edu.cmu.tetrad.util.TextTable;
 
 import java.text.NumberFormat;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Contains some descriptive stats.
@@ -62,15 +64,28 @@ class DescriptiveStats {
             }
         }
         else {
-            try {
-                for (int i = 0; i < dataSet.getNumRows(); i++) {
-                    DiscreteVariable var = (DiscreteVariable) variable;
-                    String category = var.getCategory(dataSet.getInt(i, col));
-                    int value = Integer.parseInt(category);
-                    data[i] = value;
+            // Parse each category once rather than once per row.
+            DiscreteVariable var = (DiscreteVariable) variable;
+            int[] values = new int[var.getNumCategories()];
+            boolean[] numerical = new boolean[values.length];
+
+            for (int c = 0; c < values.length; c++) {
+                try {
+                    values[c] = Integer.parseInt(var.getCategory(c));
+                    numerical[c] = true;
+                } catch (NumberFormatException e) {
+                    numerical[c] = false;
                 }
-            } catch (NumberFormatException e) {
-                return "Not a numerical discrete column.";
+            }
+
+            for (int i = 0; i < dataSet.getNumRows(); i++) {
+                int category = dataSet.getInt(i, col);
+
+                if (category < 0 || category >= values.length || !numerical[category]) {
+                    return "Not a numerical discrete column.";
+                }
+
+                data[i] = values[category];
             }
         }
 
@@ -78,7 +93,7 @@ class DescriptiveStats {
 
         b.append("Descriptive Statistics for: " + variable.getName() + "\n\n");
 
-        double[] normalValues = normalParams(data);
+        double[] normalValues = moments(data);
         TextTable table;
 
         if (continuous) {
@@ -102,10 +117,10 @@ class DescriptiveStats {
         table.setToken(rowindex++, 1, nf.format(normalValues[2]));
 
         table.setToken(rowindex, 0, "Skewness:");
-        table.setToken(rowindex++, 1, nf.format(StatUtils.skewness(data)));
+        table.setToken(rowindex++, 1, nf.format(normalValues[3]));
 
         table.setToken(rowindex, 0, "Kurtosis:");
-        table.setToken(rowindex++, 1, nf.format(StatUtils.kurtosis(data)));
+        table.setToken(rowindex++, 1, nf.format(normalValues[4]));
 
 
         if (continuous) {
@@ -134,7 +149,7 @@ class DescriptiveStats {
      */
     private static double[] median(double[] data)
     {
-        Arrays.sort(data);
+        Arrays.parallelSort(data);
 
         double result[] = new double[3];
 
@@ -156,6 +171,83 @@ class DescriptiveStats {
         }
     }
 
+    /**
+     * Returns the mean, standard deviation, variance, skewness and kurtosis of
+     * the data, in that order, using the same formulas as normalParams and
+     * StatUtils. The sums are reduced in parallel chunks, two passes over
+     * the column in all.
+     */
+    private static double[] moments(double[] data) {
+        ForkJoinPool pool = ForkJoinPoolInstance.getInstance().getPool();
+        double n = data.length;
+
+        double mean = pool.invoke(new SumsTask(data, 0, data.length, 0.0))[0] / n;
+        double[] sums = pool.invoke(new SumsTask(data, 0, data.length, mean));
+
+        double variance = sums[1] / (n - 1.0);
+        double secondMoment = sums[1] / n;
+
+        double[] result = new double[5];
+        result[0] = mean;
+        result[1] = Math.sqrt(variance);
+        result[2] = variance;
+        result[3] = sums[1] == 0 ? Double.NaN : (sums[2] / n) / Math.pow(secondMoment, 1.5);
+        result[4] = (sums[3] / n) / (variance * variance) - 3.0;
+        return result;
+    }
+
+    /**
+     * Sums the first four powers of the deviations of data[from, to) from the
+     * given center, splitting the range in halves until it is small enough to
+     * sum directly.
+     */
+    private static class SumsTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 23L;
+        private static final int CHUNK = 50000;
+
+        private final double[] data;
+        private final int from;
+        private final int to;
+        private final double center;
+
+        private SumsTask(double[] data, int from, int to, double center) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.center = center;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= CHUNK) {
+                double[] sums = new double[4];
+
+                for (int i = from; i < to; i++) {
+                    double s = data[i] - center;
+                    double s2 = s * s;
+                    sums[0] += s;
+                    sums[1] += s2;
+                    sums[2] += s2 * s;
+                    sums[3] += s2 * s2;
+                }
+
+                return sums;
+            }
+
+            int mid = (from + to) >>> 1;
+            SumsTask left = new SumsTask(data, from, mid, center);
+            left.fork();
+            double[] right = new SumsTask(data, mid, to, center).compute();
+            double[] sums = left.join();
+
+            for (int k = 0; k < 4; k++) {
+                sums[k] += right[k];
+            }
+
+            return sums;
+        }
+    }
+
     /**
      * Generates an ideal Normal distribution for some variable.
      *
@@ -103,11 +103,11 @@ class DescriptiveStatsAction extends AbstractAction {
         }
         DescriptiveStatsEditorPanel editorPanel = new DescriptiveStatsEditorPanel(selected, dataSet);
 
-        JTextArea display = new JTextArea(DescriptiveStats.generateDescriptiveStats(dataSet,
-                selected), 20, 65);
+        JTextArea display = new JTextArea(20, 65);
         display.setEditable(false);
         display.setFont(new Font("Monospaced", Font.PLAIN, 12));
         editorPanel.addPropertyChangeListener(new DescriptiveStatsListener(display));
+        editorPanel.computeDescriptiveStats(selected);
 
         Box box = Box.createHorizontalBox();
         box.add(display);
@@ -30,6 +30,7 @@ import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Created by IntelliJ IDEA.
@@ -53,6 +54,12 @@ class DescriptiveStatsEditorPanel extends JPanel {
 
     private QQPlot qqPlot;
 
+    /**
+     * The computation of the statistics for the selected variable, if one has
+     * been started.
+     */
+    private SwingWorker<String, Void> statsWorker;
+
 
     /**
      * The discrete variables of the data set (may be empty).
@@ -83,7 +90,7 @@ class DescriptiveStatsEditorPanel extends JPanel {
             public void itemStateChanged(ItemEvent e) {
                 if (e.getStateChange() == ItemEvent.SELECTED) {
                     Node node = (Node) e.getItem();
-                    changeDescriptiveStats(DescriptiveStats.generateDescriptiveStats(DescriptiveStatsEditorPanel.this.dataSet, node));
+                    computeDescriptiveStats(node);
                 }
             }
         });
@@ -92,6 +99,43 @@ class DescriptiveStatsEditorPanel extends JPanel {
         this.add(buildEditArea(), BorderLayout.CENTER);
     }
 
+    /**
+     * Computes the descriptive statistics for the given variable in the
+     * background, so that a large column doesn't freeze the editor, and fires
+     * them once they're ready. A computation still running for the variable
+     * selected before is cancelled.
+     */
+    public void computeDescriptiveStats(final Node node) {
+        if (statsWorker != null) {
+            statsWorker.cancel(true);
+        }
+
+        changeDescriptiveStats("Computing descriptive statistics for " + node.getName() + "...");
+
+        statsWorker = new SwingWorker<String, Void>() {
+            protected String doInBackground() {
+                return DescriptiveStats.generateDescriptiveStats(dataSet, node);
+            }
+
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+
+                try {
+                    changeDescriptiveStats(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    changeDescriptiveStats("Could not compute descriptive statistics for " + node.getName()
+                            + ": " + e.getCause().getMessage());
+                }
+            }
+        };
+
+        statsWorker.execute();
+    }
+
     //========================== Private Methods ================================//
 
     private void changeDescriptiveStats(String test) {
@@ -430,8 +430,10 @@ public class GeneralAlgorithmEditor extends JPanel implements PropertyChangeList
 
             // Hpc parameters
             final HpcAccountManager hpcAccountManager = desktop.getHpcAccountManager();
-            JsonWebToken jsonWebToken = HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount);
-            if (jsonWebToken.getWallTime() != null) {
+            // A local account has no server to hand out a wall time
+            JsonWebToken jsonWebToken = HpcAccountUtils.isLocal(hpcAccount) ? null
+                    : HpcAccountUtils.getJsonWebToken(hpcAccountManager, hpcAccount);
+            if (jsonWebToken != null && jsonWebToken.getWallTime() != null) {
                 // User allowed to customize the job's wall time
                 String[] wallTime = jsonWebToken.getWallTime();
                 Object userwallTime = JOptionPane.showInputDialog(progressDialog, "Wall Time:",
@@ -29,7 +29,6 @@ import edu.cmu.tetrad.regression.RegressionDataset;
 import edu.cmu.tetrad.regression.RegressionResult;
 import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetrad.util.StatUtils;
-import edu.cmu.tetrad.util.Matrix;
 
 import java.awt.geom.Point2D;
 import java.util.*;
@@ -41,6 +40,12 @@ import static java.lang.Math.log;
  * This is the scatterplot model class holding the necessary information to
  * create a scatterplot. It uses Point2D to hold the pair of values need to
  * create the scatterplot.
+ * <p>
+ * Columns are copied out of the data set into primitive arrays once, and the
+ * sieved values, regression and correlation are remembered for each pair of
+ * variables and conditioning. Plots made from one another with shareCache
+ * share all of this, so changing the conditioning back and forth doesn't
+ * recompute anything.
  *
  * @author Adrian Tang
  * @author Joseph Ramsey
@@ -51,6 +56,7 @@ public class ScatterPlot {
     private final boolean includeLine;
     private final DataSet dataSet;
     private Map<Node, double[]> continuousIntervals;
+    private Cache cache = new Cache();
 
     /**
      * Constructor.
@@ -72,31 +78,50 @@ public class ScatterPlot {
         this.continuousIntervals = new HashMap<>();
     }
 
+    /**
+     * Shares the columns and results already computed by another plot of the
+     * same data set.
+     */
+    public void shareCache(ScatterPlot plot) {
+        if (plot.dataSet == dataSet) {
+            this.cache = plot.cache;
+        }
+    }
+
     private RegressionResult getRegressionResult() {
-        List<Node> regressors = new ArrayList<>();
-        regressors.add(dataSet.getVariable(x));
-        Node target = dataSet.getVariable(y);
-        Regression regression = new RegressionDataset(dataSet);
-        RegressionResult result = regression.regress(target, regressors);
-        System.out.println(result);
+        String key = x + " " + y;
+        RegressionResult result = cache.regressions.get(key);
+
+        if (result == null) {
+            List<Node> regressors = new ArrayList<>();
+            regressors.add(dataSet.getVariable(x));
+            Node target = dataSet.getVariable(y);
+            Regression regression = new RegressionDataset(dataSet);
+            result = regression.regress(target, regressors);
+            System.out.println(result);
+            cache.regressions.put(key, result);
+        }
+
         return result;
     }
 
     public double getCorrelationCoeff() {
-        DataSet dataSet = getDataSet();
-        Matrix data = dataSet.getDoubleData();
+        String key = x + " " + y;
+        Double cached = cache.correlations.get(key);
 
-        int _x = dataSet.getColumn(dataSet.getVariable(x));
-        int _y = dataSet.getColumn(dataSet.getVariable(y));
+        if (cached != null) {
+            return cached;
+        }
 
-        double[] xdata = data.getColumn(_x).toArray();
-        double[] ydata = data.getColumn(_y).toArray();
+        double[] xdata = getColumn(x);
+        double[] ydata = getColumn(y);
 
         double correlation = StatUtils.correlation(xdata, ydata);
 
         if (correlation > 1) correlation = 1;
         else if (correlation < -1) correlation = -1;
 
+        cache.correlations.put(key, correlation);
         return correlation;
     }
 
@@ -126,48 +151,28 @@ public class ScatterPlot {
      * @return the minimum x-axis value from the set of sample values.
      */
     public double getXmin() {
-        double min = Double.POSITIVE_INFINITY;
-        Vector<Point2D.Double> cleanedSampleValues = getSievedValues();
-        for (Point2D.Double cleanedSampleValue : cleanedSampleValues) {
-            min = Math.min(min, cleanedSampleValue.getX());
-        }
-        return min;
+        return getSieved().xmin;
     }
 
     /**
      * @return the minimum y-axis value from the set of sample values.
      */
     public double getYmin() {
-        double min = Double.POSITIVE_INFINITY;
-        Vector<Point2D.Double> cleanedSampleValues = getSievedValues();
-        for (Point2D.Double cleanedSampleValue : cleanedSampleValues) {
-            min = Math.min(min, cleanedSampleValue.getY());
-        }
-        return min;
+        return getSieved().ymin;
     }
 
     /**
      * @return the maximum x-axis value from the set of sample values.
      */
     public double getXmax() {
-        double max = Double.NEGATIVE_INFINITY;
-        Vector<Point2D.Double> cleanedSampleValues = getSievedValues();
-        for (Point2D.Double cleanedSampleValue : cleanedSampleValues) {
-            max = Math.max(max, cleanedSampleValue.getX());
-        }
-        return max;
+        return getSieved().xmax;
     }
 
     /**
      * @return the maximum y-axis value from the set of sample values.
      */
     public double getYmax() {
-        double max = Double.NEGATIVE_INFINITY;
-        Vector<Point2D.Double> cleanedSampleValues = getSievedValues();
-        for (Point2D.Double cleanedSampleValue : cleanedSampleValues) {
-            max = Math.max(max, cleanedSampleValue.getY());
-        }
-        return max;
+        return getSieved().ymax;
     }
 
     /**
@@ -177,15 +182,37 @@ public class ScatterPlot {
      * @return a vector containing the filtered values.
      */
     public Vector<Point2D.Double> getSievedValues() {
-        Vector<Point2D.Double> pairs = pairs(x, y);
+        Sieved sieved = getSieved();
+        Vector<Point2D.Double> pairs = new Vector<>(sieved.xs.length);
+
+        for (int i = 0; i < sieved.xs.length; i++) {
+            pairs.add(new Point2D.Double(sieved.xs[i], sieved.ys[i]));
+        }
+
         return pairs;
     }
 
+    /**
+     * @return the sieved x values, in the same order as getSievedYValues.
+     * The array is shared; don't modify it.
+     */
+    double[] getSievedXValues() {
+        return getSieved().xs;
+    }
+
+    /**
+     * @return the sieved y values, in the same order as getSievedXValues.
+     * The array is shared; don't modify it.
+     */
+    double[] getSievedYValues() {
+        return getSieved().ys;
+    }
+
     /**
      * @return size of the sample.
      */
     private int getSampleSize() {
-        return getSievedValues().size();
+        return getSieved().xs.length;
     }
 
     /**
@@ -271,8 +298,7 @@ public class ScatterPlot {
      * less than the sample size of the data set because of conditioning.
      */
     public int getN(String target) {
-        List<Double> conditionedDataContinuous = getConditionedDataContinuous(target);
-        return conditionedDataContinuous.size();
+        return getConditionedRows().length;
     }
 
     /**
@@ -282,90 +308,115 @@ public class ScatterPlot {
      * @param variable The name of the variable.
      */
     public double[] getContinuousData(String variable) {
-        int index = dataSet.getColumn(dataSet.getVariable(variable));
-        List<Double> _data = new ArrayList<>();
-
-        for (int i = 0; i < dataSet.getNumRows(); i++) {
-            _data.add(dataSet.getDouble(i, index));
-        }
-
-        return asDoubleArray(_data);
+        double[] data = getColumn(variable);
+        return Arrays.copyOf(data, data.length);
     }
 
     //======================================PRIVATE METHODS=======================================//
 
-    private double[] asDoubleArray(List<Double> data) {
-        double[] _data = new double[data.size()];
-        for (int i = 0; i < data.size(); i++) _data[i] = data.get(i);
-        return _data;
-    }
+    private double[] getColumn(String variable) {
+        double[] column = cache.columns.get(variable);
 
-    private List<Double> getUnconditionedDataContinuous(String target) {
-        int index = dataSet.getColumn(dataSet.getVariable(target));
+        if (column == null) {
+            int index = dataSet.getColumn(dataSet.getVariable(variable));
+            column = new double[dataSet.getNumRows()];
 
-        List<Double> _data = new ArrayList<>();
+            for (int i = 0; i < column.length; i++) {
+                column[i] = dataSet.getDouble(i, index);
+            }
 
-        for (int i = 0; i < dataSet.getNumRows(); i++) {
-            _data.add(dataSet.getDouble(i, index));
+            cache.columns.put(variable, column);
         }
 
-        return _data;
+        return column;
     }
 
-    private List<Double> getConditionedDataContinuous(String target) {
-        if (continuousIntervals == null) return getUnconditionedDataContinuous(target);
-
-        List<Integer> rows = getConditionedRows();
-
-        int index = dataSet.getColumn(dataSet.getVariable(target));
-
-        List<Double> _data = new ArrayList<>();
+    // Returns the rows in the data that satisfy the conditioning constraints.
+    private int[] getConditionedRows() {
+        List<double[]> ranges = new ArrayList<>();
+        List<double[]> rangeColumns = new ArrayList<>();
 
-        for (Integer row : rows) {
-            _data.add(dataSet.getDouble(row, index));
+        for (Node node : continuousIntervals.keySet()) {
+            ranges.add(continuousIntervals.get(node));
+            rangeColumns.add(getColumn(node.getName()));
         }
 
-        return _data;
-    }
-
-    // Returns the rows in the data that satisfy the conditioning constraints.
-    private List<Integer> getConditionedRows() {
-        List<Integer> rows = new ArrayList<>();
+        int[] rows = new int[dataSet.getNumRows()];
+        int numRows = 0;
 
         I:
-        for (int i = 0; i < dataSet.getNumRows(); i++) {
-            for (Node node : continuousIntervals.keySet()) {
-                double[] range = continuousIntervals.get(node);
-                int index = dataSet.getColumn(node);
-                double value = dataSet.getDouble(i, index);
+        for (int i = 0; i < rows.length; i++) {
+            for (int k = 0; k < ranges.size(); k++) {
+                double[] range = ranges.get(k);
+                double value = rangeColumns.get(k)[i];
                 if (!(value > range[0] && value < range[1])) {
                     continue I;
                 }
             }
 
-            rows.add(i);
+            rows[numRows++] = i;
         }
 
-        return rows;
+        return Arrays.copyOf(rows, numRows);
     }
 
-    private Vector<Point2D.Double> pairs(String x, String y) {
-        Point2D.Double pt;
-        Vector<Point2D.Double> cleanedVals = new Vector<>();
+    private Sieved getSieved() {
+        Map<String, String> conditioning = new TreeMap<>();
 
-        List<Double> _x = getConditionedDataContinuous(x);
-        List<Double> _y = getConditionedDataContinuous(y);
-
-        for (int row = 0; row < _x.size(); row++) {
-            pt = new Point2D.Double();
-            pt.setLocation(_x.get(row), _y.get(row));
-            cleanedVals.add(pt);
+        for (Node node : continuousIntervals.keySet()) {
+            conditioning.put(node.getName(), Arrays.toString(continuousIntervals.get(node)));
         }
 
-        return cleanedVals;
-    }
+        String key = x + " " + y + " " + conditioning;
+        Sieved sieved = cache.sieved.get(key);
 
-}
+        if (sieved == null) {
+            sieved = new Sieved(getColumn(x), getColumn(y), getConditionedRows());
+            cache.sieved.put(key, sieved);
+        }
 
+        return sieved;
+    }
 
+    /**
+     * The values of x and y in the conditioned rows, with their ranges.
+     */
+    private static class Sieved {
+        private final double[] xs;
+        private final double[] ys;
+        private double xmin = Double.POSITIVE_INFINITY;
+        private double xmax = Double.NEGATIVE_INFINITY;
+        private double ymin = Double.POSITIVE_INFINITY;
+        private double ymax = Double.NEGATIVE_INFINITY;
+
+        private Sieved(double[] x, double[] y, int[] rows) {
+            xs = new double[rows.length];
+            ys = new double[rows.length];
+
+            for (int i = 0; i < rows.length; i++) {
+                xs[i] = x[rows[i]];
+                ys[i] = y[rows[i]];
+                xmin = Math.min(xmin, xs[i]);
+                xmax = Math.max(xmax, xs[i]);
+                ymin = Math.min(ymin, ys[i]);
+                ymax = Math.max(ymax, ys[i]);
+            }
+        }
+    }
 
+    /**
+     * What's been computed for the data set so far.
+     */
+    private static class Cache {
+        private static final int MAX_SIEVED = 16;
+
+        private final Map<String, double[]> columns = new HashMap<>();
+        private final Map<String, RegressionResult> regressions = new HashMap<>();
+        private final Map<String, Double> correlations = new HashMap<>();
+        private final Map<String, Sieved> sieved = new LinkedHashMap<String, Sieved>(MAX_SIEVED, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Sieved> eldest) {
+                return size() > MAX_SIEVED;
+            }
+        };
+    }
+}
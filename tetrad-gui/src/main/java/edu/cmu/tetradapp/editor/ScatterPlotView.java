@@ -34,7 +34,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.awt.geom.Point2D;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
@@ -248,6 +247,7 @@ public class ScatterPlotView extends JPanel {
             ScatterPlot ScatterPlot = new ScatterPlot(ScatterPlotView.scatterPlot.getDataSet(),
                     includeLineCheckbox.isSelected(),
                     ScatterPlotView.x, ScatterPlotView.y);
+            ScatterPlot.shareCache(ScatterPlotView.scatterPlot);
             ScatterPlot.removeConditioningVariables();
             for (ConditioningPanel panel : conditioningPanels) {
                 if (panel instanceof ContinuousConditioningPanel) {
@@ -866,16 +866,27 @@ public class ScatterPlotView extends JPanel {
             g.rotate(Math.PI / 2.0);
             g.translate(-(xMin - 7), -(yMin + (yRange / 2) + 10));
 
-            /* draws ScatterPlot of the values */
-            Vector<Point2D.Double> pts = scatterPlot.getSievedValues();
+            /* draws ScatterPlot of the values. A point landing on a pixel
+               already drawn would draw the same oval again, so it's skipped;
+               with many rows most points are. */
+            double[] xs = scatterPlot.getSievedXValues();
+            double[] ys = scatterPlot.getSievedYValues();
             double _xRange = xmax - xmin;
             double _yRange = ymax - ymin;
+            boolean[] drawn = new boolean[(xRange + 1) * (yRange + 1)];
             int x, y;
 
             g.setColor(Color.red);
-            for (Point2D.Double _pt : pts) {
-                x = (int) (((_pt.getX() - xmin) / _xRange) * xRange + xMin);
-                y = (int) (((ymax - _pt.getY()) / _yRange) * yRange + yMin);
+            for (int i = 0; i < xs.length; i++) {
+                x = (int) (((xs[i] - xmin) / _xRange) * xRange + xMin);
+                y = (int) (((ymax - ys[i]) / _yRange) * yRange + yMin);
+
+                if (x >= xMin && x <= xMax && y >= yMin && y <= yMax) {
+                    int pixel = (y - yMin) * (xRange + 1) + (x - xMin);
+                    if (drawn[pixel]) continue;
+                    drawn[pixel] = true;
+                }
+
                 g.fillOval(x - 2, y - 2, 5, 5);
             }
 
@@ -58,6 +58,14 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
      */
     private boolean editable = true;
 
+    /**
+     * The renderers, shared by all cells rather than made anew for each one
+     * painted.
+     */
+    private final TableCellRenderer rowNumberRenderer = new RowNumberRenderer();
+    private final TableCellRenderer variableNameRenderer = new VariableNameRenderer();
+    private final TableCellRenderer dataCellRenderer = new DataCellRenderer(getNumLeadingCols());
+
     public TabularDataJTable(DataSet model, Map<String, String> columnToTooltip) {
         this(model);
 //		System.out.println("setting columnToTooltip " + columnToTooltip);
@@ -194,18 +202,16 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
 //		}
 //	 	System.out.println("columnToTooltip " + columnToTooltip);
         Component c = super.prepareRenderer(renderer, rowIndex, vColIndex);
-        if (c instanceof JComponent) {
+
+        // Only look the value up when there are tooltips to find. Renderers are
+        // shared across cells, so the tooltip is reset for each one.
+        if (c instanceof JComponent && columnToTooltip != null && !columnToTooltip.isEmpty()) {
             JComponent jc = (JComponent) c;
 
             Object o = getValueAt(rowIndex, vColIndex);
-
-            if (o != null) {
-                String tooltip = columnToTooltip.get(o.toString());
+            String tooltip = o == null ? null : columnToTooltip.get(o.toString());
 //				System.out.println("tooltip " + o + " "+ tooltip);
-                if (tooltip != null) {
-                    jc.setToolTipText(tooltip);
-                }
-            }
+            jc.setToolTipText(tooltip);
         }
         return c;
     }
@@ -241,16 +247,16 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
 
     public TableCellRenderer getCellRenderer(int row, int column) {
         if (column == 0) {
-            return new RowNumberRenderer();
+            return rowNumberRenderer;
         } //		else if (column == 1 && row >= 1) {
         //			return new MultiplierRenderer();
         //		}
         else {
             if (row == 0 || row == 1) {
-                return new VariableNameRenderer();
+                return variableNameRenderer;
             }
 
-            return new DataCellRenderer(this, getNumLeadingCols());
+            return dataCellRenderer;
         }
     }
 
@@ -628,14 +634,12 @@ class VariableNameEditor extends DefaultCellEditor {
 
 class DataCellRenderer extends DefaultTableCellRenderer {
 
-    private final NumberFormat nf;
-    private final DataSet dataSet;
+    private NumberFormat nf;
+    private DataSet dataSet;
     private final int numLeadingCols;
 
-    public DataCellRenderer(TabularDataJTable tableTabular, int numLeadingCols) {
-        this.dataSet = ((TabularDataTable) tableTabular.getModel()).getDataSet();
+    public DataCellRenderer(int numLeadingCols) {
         this.numLeadingCols = numLeadingCols;
-        this.nf = dataSet.getNumberFormat();
     }
 
     public void setValue(Object value) {
@@ -653,6 +657,10 @@ class DataCellRenderer extends DefaultTableCellRenderer {
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int col) {
 
+        // The renderer is shared, so pick up the table's current data set.
+        this.dataSet = ((TabularDataTable) table.getModel()).getDataSet();
+        this.nf = dataSet.getNumberFormat();
+
         // Have to set the alignment here, since this is the only place the col
         // index of the component is available...
         Component c = super.getTableCellRendererComponent(table, value,
@@ -20,7 +20,9 @@
 ///////////////////////////////////////////////////////////////////////////////
 package edu.cmu.tetradapp.editor;
 
+import edu.cmu.tetrad.data.BoxDataSet;
 import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataBox;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DiscreteVariable;
 import edu.cmu.tetrad.data.Variable;
@@ -29,6 +31,9 @@ import edu.cmu.tetrad.graph.NodeVariableType;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
 /**
@@ -64,7 +69,31 @@ class TabularDataTable extends AbstractTableModel {
     private final String columnHeaderNotationDiscrete = "-D";
     private final String columnHeaderNotationInterventionStatus = "-I_S";
     private final String columnHeaderNotationInterventionValue = "-I_V";
-    
+
+    /**
+     * Data cells are fetched from the data set a block at a time; this is the
+     * size of a block.
+     */
+    private static final int BLOCK_ROWS = 64;
+    private static final int BLOCK_COLS = 16;
+
+    /**
+     * The number of blocks kept; enough to cover a large visible window plus
+     * some scrolling on either side of it.
+     */
+    private static final int MAX_BLOCKS = 32;
+
+    /**
+     * The most recently used blocks of display values, keyed by block row and
+     * block column, each stored column by column. Cleared whenever the table
+     * fires a change.
+     */
+    private final Map<Long, Object[][]> blocks = new LinkedHashMap<Long, Object[][]>(MAX_BLOCKS, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Long, Object[][]> eldest) {
+            return size() > MAX_BLOCKS;
+        }
+    };
+
     /**
      * Constructs a new DisplayTableModel to wrap the given dataSet.
      *
@@ -149,18 +178,8 @@ class TabularDataTable extends AbstractTableModel {
             } else if (rowIndex >= dataSet.getNumRows()) {
                 return null;
             } else {
-                if (variable instanceof DiscreteVariable) {
-                    ((DiscreteVariable) variable).setCategoryNamesDisplayed(
-                            isCategoryNamesShown());
-                }
-
-                Object value = dataSet.getObject(rowIndex, columnIndex);
-
-                if (((Variable) variable).isMissingValue(value)) {
-                    return "*";
-                } else {
-                    return value;
-                }
+                return getBlock(rowIndex, columnIndex)
+                        [columnIndex % BLOCK_COLS][rowIndex % BLOCK_ROWS];
             }
         } else if (col >= dataSet.getNumColumns() + getNumLeadingCols()) {
             if (row == 0) {
@@ -171,6 +190,16 @@ class TabularDataTable extends AbstractTableModel {
         return null;
     }
 
+    /**
+     * Clears the cached blocks before passing the event on, since every change
+     * to the data set goes through here.
+     */
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        blocks.clear();
+        super.fireTableChanged(e);
+    }
+
     public boolean isCellEditable(int row, int col) {
         return row > 0 && col >= 1;
     }
@@ -184,6 +213,7 @@ class TabularDataTable extends AbstractTableModel {
      * given coordinates is returned.
      */
     public void setValueAt(Object value, int row, int col) {
+        blocks.clear();
         dataSet.ensureColumns(col - getNumLeadingCols() + 1, new ArrayList<>());
         dataSet.ensureRows(row - getNumLeadingRows() + 1);
 
@@ -362,6 +392,77 @@ class TabularDataTable extends AbstractTableModel {
             throw new NullPointerException("Data set was null.");
         }
         this.dataSet = data;
+        blocks.clear();
+    }
+
+    /**
+     * @return the block of display values containing the given data cell,
+     * loading it if it isn't cached. Box data sets are read straight from
+     * their data box, a column at a time.
+     */
+    private Object[][] getBlock(int rowIndex, int columnIndex) {
+        int blockRow = rowIndex / BLOCK_ROWS;
+        int blockCol = columnIndex / BLOCK_COLS;
+        Long key = ((long) blockRow << 32) | blockCol;
+
+        Object[][] block = blocks.get(key);
+
+        if (block != null) {
+            return block;
+        }
+
+        int row0 = blockRow * BLOCK_ROWS;
+        int col0 = blockCol * BLOCK_COLS;
+        int numRows = Math.min(BLOCK_ROWS, dataSet.getNumRows() - row0);
+        int numCols = Math.min(BLOCK_COLS, dataSet.getNumColumns() - col0);
+
+        DataBox box = dataSet instanceof BoxDataSet ? ((BoxDataSet) dataSet).getDataBox() : null;
+        block = new Object[numCols][numRows];
+
+        for (int j = 0; j < numCols; j++) {
+            Node variable = dataSet.getVariable(col0 + j);
+
+            if (variable instanceof DiscreteVariable) {
+                ((DiscreteVariable) variable).setCategoryNamesDisplayed(
+                        isCategoryNamesShown());
+            }
+
+            for (int i = 0; i < numRows; i++) {
+                Object value;
+
+                if (box != null) {
+                    value = getBoxValue(variable, box.get(row0 + i, col0 + j));
+                } else {
+                    value = dataSet.getObject(row0 + i, col0 + j);
+                }
+
+                block[j][i] = ((Variable) variable).isMissingValue(value) ? "*" : value;
+            }
+        }
+
+        blocks.put(key, block);
+        return block;
+    }
+
+    /**
+     * @return the value BoxDataSet.getObject would return for the given
+     * stored number.
+     */
+    private Object getBoxValue(Node variable, Number number) {
+        if (variable instanceof ContinuousVariable) {
+            return number == null ? ContinuousVariable.getDoubleMissingValue() : number.doubleValue();
+        } else if (variable instanceof DiscreteVariable) {
+            int value = number == null ? DiscreteVariable.MISSING_VALUE : number.intValue();
+
+            if (isCategoryNamesShown()) {
+                return ((DiscreteVariable) variable).getCategory(value);
+            } else {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Expecting either a continuous "
+                + "or a discrete variable.");
     }
 
     private int getNumLeadingRows() {
@@ -89,7 +89,7 @@ public class SessionFileTransferHandler extends TransferHandler {
                 }
 
                 try (InputStream in = Files.newInputStream(file.toPath())) {
-                    DecompressibleInputStream objIn = new DecompressibleInputStream(in);
+                    DecompressibleInputStream objIn = DecompressibleInputStream.open(in);
                     Object o = objIn.readObject();
 
                     TetradMetadata metadata = null;
@@ -56,8 +56,11 @@ import java.awt.event.MouseMotionAdapter;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -206,6 +209,34 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      */
     private final ComponentHandler compHandler = new ComponentHandler(this);
 
+    /**
+     * Workbenches with more components than this paint only the components in
+     * the clip, found using the component grid, and coalesce resizing.
+     */
+    private static final int LARGE_WORKBENCH = 500;
+
+    /**
+     * Indexes the bounds of all components on the workbench, so that painting
+     * and hit-testing large graphs need not look at every component.
+     */
+    private final ComponentGrid componentGrid = new ComponentGrid(200);
+
+    /**
+     * Keeps the component grid up to date as components move.
+     */
+    private final GridHandler gridHandler = new GridHandler(this);
+
+    /**
+     * The position of each component in the z-order, or null if components
+     * have been added or removed since it was last needed.
+     */
+    private Map<Component, Integer> zOrder = null;
+
+    /**
+     * True if an adjustment of the preferred size has been scheduled.
+     */
+    private boolean preferredSizeAdjustPending = false;
+
     /**
      * Handler for MouseEvents.
      */
@@ -875,6 +906,82 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         super.paint(g);
     }
 
+    /**
+     * Paints only the components whose bounds intersect the clip, in z-order,
+     * if there are many of them; otherwise paints as usual.
+     */
+    protected void paintChildren(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null || getComponentCount() <= LARGE_WORKBENCH) {
+            super.paintChildren(g);
+            return;
+        }
+
+        List<Component> visible = componentGrid.intersecting(clip);
+        final Map<Component, Integer> zOrder = getZOrder();
+
+        // Paint from the back to the front.
+        Collections.sort(visible, new Comparator<Component>() {
+            public int compare(Component c1, Component c2) {
+                return Integer.compare(zOrder.get(c2), zOrder.get(c1));
+            }
+        });
+
+        for (Component comp : visible) {
+            if (!comp.isVisible()) {
+                continue;
+            }
+
+            Rectangle bounds = comp.getBounds();
+            Graphics cg = g.create(bounds.x, bounds.y, bounds.width, bounds.height);
+
+            try {
+                comp.paint(cg);
+            } finally {
+                cg.dispose();
+            }
+        }
+    }
+
+    protected void addImpl(Component comp, Object constraints, int index) {
+        super.addImpl(comp, constraints, index);
+        componentGrid.put(comp);
+        comp.addComponentListener(gridHandler);
+        zOrder = null;
+    }
+
+    public void remove(int index) {
+        Component comp = getComponent(index);
+        super.remove(index);
+        componentGrid.remove(comp);
+        comp.removeComponentListener(gridHandler);
+        zOrder = null;
+    }
+
+    public void removeAll() {
+        for (Component comp : getComponents()) {
+            comp.removeComponentListener(gridHandler);
+        }
+
+        super.removeAll();
+        componentGrid.clear();
+        zOrder = null;
+    }
+
+    private Map<Component, Integer> getZOrder() {
+        if (zOrder == null) {
+            Component[] components = getComponents();
+            zOrder = new IdentityHashMap<>();
+
+            for (int i = 0; i < components.length; i++) {
+                zOrder.put(components[i], i);
+            }
+        }
+
+        return zOrder;
+    }
+
     /**
      * Scrolls the workbench image so that the given node is in view, then
      * selects that node.
@@ -1119,6 +1226,28 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         setSize(new Dimension(r.width, r.height));
     }
 
+    /**
+     * Adjusts the preferred size once after the current batch of events, if
+     * the workbench is large; otherwise adjusts it now.
+     */
+    private void adjustPreferredSizeLater() {
+        if (getComponentCount() <= LARGE_WORKBENCH) {
+            adjustPreferredSize();
+            return;
+        }
+
+        if (!preferredSizeAdjustPending) {
+            preferredSizeAdjustPending = true;
+
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    preferredSizeAdjustPending = false;
+                    adjustPreferredSize();
+                }
+            });
+        }
+    }
+
     /**
      * Adds a session node to the workbench centered at the specified location;
      * the type of node added is determined by the mode of the workbench.
@@ -1427,6 +1556,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * @return the nearest node to point p.
      */
     private DisplayNode findNearestNode(Point p) {
+        if (getComponentCount() > LARGE_WORKBENCH) {
+            return findNearestNodeInGrid(p);
+        }
+
         Component[] components = getComponents();
         double distance, leastDistance = Double.POSITIVE_INFINITY;
         int index = -1;
@@ -1451,6 +1584,44 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         }
     }
 
+    /**
+     * Finds the nearest node as above using the component grid, searching
+     * squares of doubling size around p. A node whose center is within r of p
+     * overlaps the square of radius r, so the nearest node within r is the
+     * nearest overall.
+     */
+    private DisplayNode findNearestNodeInGrid(Point p) {
+        Map<Component, Integer> zOrder = getZOrder();
+        Dimension size = getSize();
+        int maxRadius = Math.max(Math.max(size.width, size.height), getMaxX()) * 2;
+
+        for (int radius = 100; radius <= 2 * maxRadius; radius *= 2) {
+            Rectangle square = new Rectangle(p.x - radius, p.y - radius, 2 * radius, 2 * radius);
+            DisplayNode nearest = null;
+            double leastDistance = Double.POSITIVE_INFINITY;
+
+            for (Component comp : componentGrid.intersecting(square)) {
+                if (!(comp instanceof DisplayNode)) {
+                    continue;
+                }
+
+                double distance = distance(p, ((DisplayNode) comp).getCenterPoint());
+
+                if (distance < leastDistance || (distance == leastDistance
+                        && zOrder.get(comp) < zOrder.get(nearest))) {
+                    leastDistance = distance;
+                    nearest = (DisplayNode) comp;
+                }
+            }
+
+            if (nearest != null && leastDistance <= radius) {
+                return nearest;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Finishes drawing a rubberband.
      *
@@ -1757,8 +1928,16 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
 
         Shape rubberShape = rubberband.getShape();
         Point rubberLoc = rubberband.getLocation();
-        Component[] components = getComponents();
         List<DisplayNode> selectedNodes = new ArrayList<>();
+        List<Component> components;
+
+        if (getComponentCount() > LARGE_WORKBENCH) {
+            Rectangle region = rubberShape.getBounds();
+            region.translate(rubberLoc.x, rubberLoc.y);
+            components = componentGrid.intersecting(region);
+        } else {
+            components = Arrays.asList(getComponents());
+        }
 
         for (Component comp : components) {
             if (comp instanceof DisplayNode) {
@@ -2769,7 +2948,7 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
                 modelNode.setCenterX(centerX);
                 modelNode.setCenterY(centerY);
 
-                workbench.adjustPreferredSize();
+                workbench.adjustPreferredSizeLater();
 
                 // This causes wierdness when nodes are dragged off to the
                 // right. Replacing with a scroll to rect on mouseup.
@@ -2779,6 +2958,34 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         }
     }
 
+    /**
+     * Moves components in the component grid when their bounds change.
+     */
+    private static final class GridHandler extends ComponentAdapter {
+
+        private final AbstractWorkbench workbench;
+
+        public GridHandler(AbstractWorkbench workbench) {
+            this.workbench = workbench;
+        }
+
+        @Override
+        public final void componentMoved(ComponentEvent e) {
+            update(e.getComponent());
+        }
+
+        @Override
+        public final void componentResized(ComponentEvent e) {
+            update(e.getComponent());
+        }
+
+        private void update(Component comp) {
+            if (workbench.componentGrid.contains(comp)) {
+                workbench.componentGrid.put(comp);
+            }
+        }
+    }
+
     /**
      * Handles mouse events and mouse motion events.
      */
@@ -0,0 +1,158 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.workbench;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Indexes the bounds of the components in a workbench by a uniform grid, so
+ * that the components in a region of the workbench can be found without
+ * looking at all of them. Components whose bounds cover many cells (long
+ * edges, mostly) are kept in a separate list that is checked on every query.
+ */
+final class ComponentGrid {
+
+    /**
+     * Components covering more than this many cells are not put in cells.
+     */
+    private static final int MAX_CELLS = 64;
+
+    private final int cellSize;
+    private final Map<Long, List<Component>> cells = new HashMap<>();
+    private final Map<Component, Rectangle> bounds = new HashMap<>();
+    private final Set<Component> oversized = new LinkedHashSet<>();
+
+    ComponentGrid(int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds the component at its current bounds, or moves it there if it is
+     * already indexed.
+     */
+    void put(Component comp) {
+        remove(comp);
+
+        Rectangle r = comp.getBounds();
+        bounds.put(comp, r);
+
+        int x0 = cell(r.x), x1 = cell(r.x + r.width);
+        int y0 = cell(r.y), y1 = cell(r.y + r.height);
+
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS) {
+            oversized.add(comp);
+            return;
+        }
+
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                List<Component> list = cells.get(key(x, y));
+
+                if (list == null) {
+                    list = new ArrayList<>(4);
+                    cells.put(key(x, y), list);
+                }
+
+                list.add(comp);
+            }
+        }
+    }
+
+    void remove(Component comp) {
+        Rectangle r = bounds.remove(comp);
+
+        if (r == null || oversized.remove(comp)) {
+            return;
+        }
+
+        for (int x = cell(r.x); x <= cell(r.x + r.width); x++) {
+            for (int y = cell(r.y); y <= cell(r.y + r.height); y++) {
+                List<Component> list = cells.get(key(x, y));
+
+                if (list != null) {
+                    list.remove(comp);
+
+                    if (list.isEmpty()) {
+                        cells.remove(key(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        bounds.clear();
+        oversized.clear();
+    }
+
+    boolean contains(Component comp) {
+        return bounds.containsKey(comp);
+    }
+
+    /**
+     * @return the indexed components whose bounds intersect the given region,
+     * in no particular order.
+     */
+    List<Component> intersecting(Rectangle region) {
+        List<Component> found = new ArrayList<>();
+        Set<Component> seen = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
+
+        for (int x = cell(region.x); x <= cell(region.x + region.width); x++) {
+            for (int y = cell(region.y); y <= cell(region.y + region.height); y++) {
+                List<Component> list = cells.get(key(x, y));
+
+                if (list == null) {
+                    continue;
+                }
+
+                for (Component comp : list) {
+                    if (seen.add(comp) && bounds.get(comp).intersects(region)) {
+                        found.add(comp);
+                    }
+                }
+            }
+        }
+
+        for (Component comp : oversized) {
+            if (bounds.get(comp).intersects(region)) {
+                found.add(comp);
+            }
+        }
+
+        return found;
+    }
+
+    private int cell(int coord) {
+        return Math.floorDiv(coord, cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
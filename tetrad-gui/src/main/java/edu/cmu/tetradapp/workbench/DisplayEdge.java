@@ -103,6 +103,12 @@ public class DisplayEdge extends JComponent implements IDisplayEdge {
      */
     public static final int SESSION = 5;
 
+    /**
+     * How far endpoint decorations (arrowheads, circles) can reach from the
+     * end of the line.
+     */
+    private static final int ENDPOINT_MARGIN = 20;
+
     /**
      * The model edge that this display is is portraying.
      */
@@ -447,10 +453,20 @@ public class DisplayEdge extends JComponent implements IDisplayEdge {
             g2d.setColor(lineColor);
         }
 
-        g2d.drawLine(x1, y1, x2, y2);
+        // The bounds of a long diagonal edge cover much more than the edge, so
+        // skip drawing if the line and its endpoints miss the clip entirely.
+        Rectangle clip = g.getClipBounds();
 
-        if (!isShowAdjacenciesOnly()) {
-            drawEndpoints(getConnectedPoints(), g);
+        if (clip != null) {
+            clip.grow(ENDPOINT_MARGIN, ENDPOINT_MARGIN);
+        }
+
+        if (clip == null || clip.intersectsLine(x1, y1, x2, y2)) {
+            g2d.drawLine(x1, y1, x2, y2);
+
+            if (!isShowAdjacenciesOnly()) {
+                drawEndpoints(getConnectedPoints(), g);
+            }
         }
 
         firePropertyChange("newPointPair", null, getConnectedPoints());
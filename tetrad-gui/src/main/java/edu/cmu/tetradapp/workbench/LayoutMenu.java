@@ -198,6 +198,21 @@ public class LayoutMenu extends JMenu {
             }
         });
 
+        JMenuItem barnesHut = new JMenuItem("Barnes-Hut (Large Graphs)");
+        add(barnesHut);
+
+        barnesHut.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                LayoutUtils.barnesHutLayout(getLayoutEditable(), new Runnable() {
+                    public void run() {
+
+                        // Copy the laid out graph to the clipboard.
+                        getCopyLayoutAction().actionPerformed(null);
+                    }
+                });
+            }
+        });
+
         JMenuItem kamadaKawai = new JMenuItem("Kamada-Kawai");
         add(kamadaKawai);
 
@@ -45,7 +45,7 @@ public class LayoutUtils {
     public enum Layout {
         lag0TopToBottom, lag0BottomToTop, lag0LeftToRight, lag0RightToLeft,
         topToBottom, bottomToTop, leftToRight, rightToLeft, layered, source, knowledge, circle,
-        kamadaKawai, fruchtermReingold, distanceFromSelected
+        kamadaKawai, fruchtermReingold, barnesHut, distanceFromSelected
     }
 
     static Layout layout = Layout.topToBottom;
@@ -611,6 +611,49 @@ public class LayoutUtils {
         layout = Layout.fruchtermReingold;
     }
 
+    /**
+     * Lays out the graph with the Barnes-Hut force-directed layout in a
+     * background thread, showing a cancelable progress monitor. The new layout
+     * is applied, and then onFinish run (if not null), on the event thread.
+     */
+    public static void barnesHutLayout(final LayoutEditable layoutEditable, final Runnable onFinish) {
+        final Graph graph = layoutEditable.getGraph();
+
+        for (Node node : new ArrayList<>(graph.getNodes())) {
+            if (node.getNodeType() == NodeType.ERROR) {
+                ((SemGraph) graph).setShowErrorTerms(false);
+            }
+        }
+
+        final ProgressMonitor monitor = new ProgressMonitor(JOptionUtils.centeringComp(),
+                "Laying out " + graph.getNumNodes() + " nodes...", null, 0, 100);
+        monitor.setMillisToDecideToPopup(100);
+        monitor.setMillisToPopup(500);
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                BarnesHutLayout layout1 = new BarnesHutLayout(graph);
+                layout1.setProgressMonitor(monitor);
+                layout1.doLayout();
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        monitor.close();
+                        layoutEditable.layoutByGraph(graph);
+                        layout = Layout.barnesHut;
+
+                        if (onFinish != null) {
+                            onFinish.run();
+                        }
+                    }
+                });
+            }
+        };
+
+        Thread thread = new Thread(runnable);
+        thread.start();
+    }
+
     public static void distanceFromSelectedLayout(LayoutEditable layoutEditable) {
         Graph graph = layoutEditable.getGraph();
 
@@ -670,6 +713,9 @@ public class LayoutUtils {
             case fruchtermReingold:
                 fruchtermanReingoldLayout(layoutEditable);
                 break;
+            case barnesHut:
+                barnesHutLayout(layoutEditable, null);
+                break;
             default:
         }
     }
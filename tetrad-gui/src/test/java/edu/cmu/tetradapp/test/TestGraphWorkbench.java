@@ -21,10 +21,17 @@
 
 package edu.cmu.tetradapp.test;
 
-import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetradapp.workbench.GraphWorkbench;
 import org.junit.Test;
 
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -47,9 +54,57 @@ public class TestGraphWorkbench {
         // change the workbench.
         assertTrue("X1".equals(this.graphWorkbench.nextVariableName("X")));
     }
-}
 
+    /**
+     * Large workbenches paint only the components found in the clip; the
+     * result should be the same as painting every component.
+     */
+    @Test
+    public void testPaintLargeGraph() {
+        RandomUtil.getInstance().setSeed(4829382L);
+
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 400; i++) {
+            nodes.add(new GraphNode("X" + (i + 1)));
+        }
+
+        Graph graph = GraphUtils.randomGraph(nodes, 0, 800, 30, 15, 15, false);
+        GraphUtils.barnesHutLayout(graph);
 
+        GraphWorkbench workbench = new GraphWorkbench(graph);
+        Rectangle clip = new Rectangle(200, 150, 600, 400);
 
+        BufferedImage culled = new BufferedImage(1000, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics g1 = culled.getGraphics();
+        g1.setClip(clip);
+        workbench.paint(g1);
 
+        BufferedImage full = new BufferedImage(1000, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics g2 = full.getGraphics();
+        g2.setClip(clip);
+        g2.setColor(workbench.getBackground());
+        g2.fillRect(0, 0, workbench.getWidth(), workbench.getHeight());
 
+        Component[] components = workbench.getComponents();
+
+        for (int i = components.length - 1; i >= 0; i--) {
+            Rectangle bounds = components[i].getBounds();
+            Graphics cg = g2.create(bounds.x, bounds.y, bounds.width, bounds.height);
+            components[i].paint(cg);
+            cg.dispose();
+        }
+
+        int numDifferent = 0;
+
+        for (int x = 0; x < culled.getWidth(); x++) {
+            for (int y = 0; y < culled.getHeight(); y++) {
+                if (culled.getRGB(x, y) != full.getRGB(x, y)) {
+                    numDifferent++;
+                }
+            }
+        }
+
+        assertEquals(0, numDifferent);
+    }
+}
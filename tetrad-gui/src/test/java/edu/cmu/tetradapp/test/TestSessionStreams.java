@@ -0,0 +1,93 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetradapp.app.DecompressibleInputStream;
+import edu.cmu.tetradapp.app.SessionOutputStream;
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading and writing session streams.
+ */
+public class TestSessionStreams {
+
+    /**
+     * Uncompressed sessions, compressed ones and legacy ones written with a
+     * plain ObjectOutputStream should all read back what was written.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        RandomUtil.getInstance().setSeed(48382L);
+
+        Graph graph = GraphUtils.randomGraph(10, 0, 10, 30, 15, 15, false);
+        DataSet dataSet = new SemIm(new SemPm(graph)).simulateData(1000, false);
+
+        ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new SessionOutputStream(uncompressed)) {
+            write(out, dataSet, graph);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new SessionOutputStream(compressed, true)) {
+            write(out, dataSet, graph);
+        }
+
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(legacy)) {
+            write(out, dataSet, graph);
+        }
+
+        // Uncompressed sessions are byte for byte what earlier versions wrote.
+        assertArrayEquals(legacy.toByteArray(), uncompressed.toByteArray());
+        assertTrue(compressed.size() < legacy.size());
+
+        for (ByteArrayOutputStream bytes : new ByteArrayOutputStream[]{uncompressed, compressed, legacy}) {
+            try (ObjectInputStream in = DecompressibleInputStream.open(
+                    new ByteArrayInputStream(bytes.toByteArray()))) {
+                assertEquals("header", in.readObject());
+                assertEquals(dataSet, in.readObject());
+                assertEquals(graph, in.readObject());
+            }
+        }
+    }
+
+    private void write(ObjectOutputStream out, DataSet dataSet, Graph graph) throws IOException {
+        out.writeObject("header");
+        out.writeObject(dataSet);
+        out.writeObject(graph);
+    }
+}
@@ -0,0 +1,99 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetradapp.editor.TabularDataJTable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the TabularDataJTable class.
+ */
+public class TestTabularDataJTable {
+
+    /**
+     * The table reads cells a block at a time; every cell should still show
+     * what the data set holds, with "*" for missing values, and edits should
+     * show up at once.
+     */
+    @Test
+    public void testCellValues() {
+        RandomUtil.getInstance().setSeed(29384L);
+
+        List<Node> variables = new ArrayList<>();
+
+        for (int j = 0; j < 40; j++) {
+            if (j % 3 == 0) {
+                variables.add(new DiscreteVariable("X" + (j + 1), 3));
+            } else {
+                variables.add(new ContinuousVariable("X" + (j + 1)));
+            }
+        }
+
+        int numRows = 150;
+        DataSet dataSet = new BoxDataSet(new MixedDataBox(variables, numRows), variables);
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < variables.size(); j++) {
+                boolean missing = RandomUtil.getInstance().nextDouble() < 0.05;
+
+                if (variables.get(j) instanceof DiscreteVariable) {
+                    dataSet.setInt(i, j, missing ? DiscreteVariable.MISSING_VALUE
+                            : RandomUtil.getInstance().nextInt(3));
+                } else {
+                    dataSet.setDouble(i, j, missing ? Double.NaN
+                            : RandomUtil.getInstance().nextNormal(0, 1));
+                }
+            }
+        }
+
+        TabularDataJTable table = new TabularDataJTable(dataSet);
+        checkCells(table, dataSet);
+
+        table.setValueAt("2.5", 100, 20);
+        assertEquals(2.5, dataSet.getDouble(98, 19), 0.0);
+        checkCells(table, dataSet);
+
+        table.setValueAt("*", 3, 5);
+        assertEquals("*", table.getValueAt(3, 5));
+    }
+
+    private void checkCells(TabularDataJTable table, DataSet dataSet) {
+        for (int i = dataSet.getNumRows() - 1; i >= 0; i--) {
+            for (int j = 0; j < dataSet.getNumColumns(); j++) {
+                Object actual = table.getValueAt(i + 2, j + 1);
+
+                // The table has set discrete variables to display category names.
+                Object value = dataSet.getObject(i, j);
+                Object expected = ((Variable) dataSet.getVariable(j)).isMissingValue(value) ? "*" : value;
+                assertEquals(expected, actual);
+            }
+        }
+    }
+}
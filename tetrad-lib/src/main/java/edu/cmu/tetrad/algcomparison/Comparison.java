@@ -30,6 +30,7 @@ import edu.cmu.tetrad.algcomparison.score.BdeuScore;
 import edu.cmu.tetrad.algcomparison.score.ScoreWrapper;
 import edu.cmu.tetrad.algcomparison.simulation.Simulation;
 import edu.cmu.tetrad.algcomparison.simulation.Simulations;
+import edu.cmu.tetrad.algcomparison.simulation.StreamingSimulation;
 import edu.cmu.tetrad.algcomparison.statistic.ElapsedTime;
 import edu.cmu.tetrad.algcomparison.statistic.ParameterColumn;
 import edu.cmu.tetrad.algcomparison.statistic.Statistic;
@@ -39,11 +40,13 @@ import edu.cmu.tetrad.algcomparison.utils.HasParameterValues;
 import edu.cmu.tetrad.algcomparison.utils.HasParameters;
 import edu.cmu.tetrad.algcomparison.utils.TakesInitialGraph;
 import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.ColumnarDataSink;
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataSink;
 import edu.cmu.tetrad.data.DataType;
-import edu.cmu.tetrad.data.DataWriter;
 import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.data.TabularDataSink;
 import edu.cmu.tetrad.data.simulation.LoadDataAndGraphs;
 import edu.cmu.tetrad.graph.Edge;
 import edu.cmu.tetrad.graph.EdgeListGraph;
@@ -54,7 +57,6 @@ import edu.cmu.tetrad.search.DagToPag2;
 import edu.cmu.tetrad.search.SearchGraphUtils;
 import edu.cmu.tetrad.util.CombinationGenerator;
 import edu.cmu.tetrad.util.Experimental;
-import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 import edu.cmu.tetrad.util.ParamDescription;
 import edu.cmu.tetrad.util.ParamDescriptions;
 import edu.cmu.tetrad.util.Parameters;
@@ -65,14 +67,11 @@ import edu.cmu.tetrad.util.TextTable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -80,9 +79,8 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 
 import org.reflections.Reflections;
 
@@ -99,6 +97,10 @@ public class Comparison {
         true_DAG, Pattern_of_the_true_DAG, PAG_of_the_true_DAG
     }
 
+    public enum DataFileFormat {
+        tab_delimited, gzipped_tab_delimited, binary_columnar
+    }
+
     private boolean[] graphTypeUsed;
     private PrintStream out;
     private boolean tabDelimitedTables = false;
@@ -116,6 +118,13 @@ public class Comparison {
     //    private boolean saveTrueDags = false;
     private ArrayList<String> dirs = null;
     private ComparisonGraph comparisonGraph = ComparisonGraph.true_DAG;
+    private boolean streamData = false;
+    private int streamChunkSize = StreamingSimulation.DEFAULT_CHUNK_SIZE;
+    private DataFileFormat dataFileFormat = DataFileFormat.tab_delimited;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private long memoryBudget = Runtime.getRuntime().maxMemory();
+    private long timeout = 0;
+    private TimeUnit timeoutUnit = TimeUnit.MILLISECONDS;
 
     public void compareFromFiles(String filePath, Algorithms algorithms,
                                  Statistics statistics, Parameters parameters) {
@@ -543,8 +552,6 @@ public class Comparison {
                     parameters.set(param, simulationWrapper.getValue(param));
                 }
 
-                simulationWrapper.createData(simulationWrapper.getSimulationSpecificParameters());
-
                 File subdir = dir;
                 if (simulationWrappers.size() > 1) {
                     index++;
@@ -573,23 +580,38 @@ public class Comparison {
                     dir4.mkdirs();
                 }
 
+                // Streamed data goes straight to the data directory a chunk at a time
+                // and is never held in memory.
+                boolean streamed = isStreamData() && simulation instanceof StreamingSimulation;
+
+                if (streamed) {
+                    final File dataDir = dir2;
+                    simulationWrapper.createData(simulationWrapper.getSimulationSpecificParameters(),
+                            run -> getDataSink(dataDir, run), getStreamChunkSize());
+                } else {
+                    simulationWrapper.createData(simulationWrapper.getSimulationSpecificParameters());
+                }
+
 //                File dir5 = null;
 //
 //                if (isSaveTrueDags()) {
 //                    dir5 = new File(subdir, "truedags");
 //                    dir5.mkdirs();
 //                }
-                for (int j = 0; j < simulationWrapper.getNumDataModels(); j++) {
+                for (int j = 0; j < simulationWrapper.getNumTrueGraphs(); j++) {
                     File file2 = new File(dir1, "graph." + (j + 1) + ".txt");
                     Graph graph = simulationWrapper.getTrueGraph(j);
 
                     GraphUtils.saveGraph(graph, file2, false);
 
-                    File file = new File(dir2, "data." + (j + 1) + ".txt");
-                    Writer out = new FileWriter(file);
-                    DataModel dataModel = (DataModel) simulationWrapper.getDataModel(j);
-                    DataWriter.writeRectangularData((DataSet) dataModel, out, '\t');
-                    out.close();
+                    if (!streamed) {
+                        DataSet dataSet = (DataSet) simulationWrapper.getDataModel(j);
+
+                        try (DataSink sink = getDataSink(dir2, j)) {
+                            sink.open(dataSet.getVariables());
+                            sink.write(dataSet);
+                        }
+                    }
 
                     if (isSavePatterns()) {
                         File file3 = new File(dir3, "pattern." + (j + 1) + ".txt");
@@ -679,11 +701,12 @@ public class Comparison {
 
                 GraphUtils.saveGraph(graph, file2, false);
 
-                File file = new File(dir2, "data." + (j + 1) + ".txt");
-                Writer out = new FileWriter(file);
-                DataModel dataModel = simulation.getDataModel(j);
-                DataWriter.writeRectangularData((DataSet) dataModel, out, '\t');
-                out.close();
+                DataSet dataSet = (DataSet) simulation.getDataModel(j);
+
+                try (DataSink sink = getDataSink(dir2, j)) {
+                    sink.open(dataSet.getVariables());
+                    sink.write(dataSet);
+                }
 
                 if (isSavePatterns()) {
                     File file3 = new File(dir3, "pattern." + (j + 1) + ".txt");
@@ -934,6 +957,17 @@ public class Comparison {
         return new ArrayList<>(allClasses);
     }
 
+    private DataSink getDataSink(File dir, int index) {
+        switch (dataFileFormat) {
+            case gzipped_tab_delimited:
+                return new TabularDataSink(new File(dir, "data." + (index + 1) + ".txt.gz"), '\t', true);
+            case binary_columnar:
+                return new ColumnarDataSink(new File(dir, "data." + (index + 1) + ".tbc"));
+            default:
+                return new TabularDataSink(new File(dir, "data." + (index + 1) + ".txt"), '\t', false);
+        }
+    }
+
     private List<SimulationWrapper> getSimulationWrappers(Simulation simulation, Parameters parameters) {
         List<SimulationWrapper> simulationWrappers = new ArrayList<>();
 
@@ -1002,51 +1036,34 @@ public class Comparison {
             }
         }
 
-        if (!isParallelized()) {
+        if (!isParallelized() && timeout == 0) {
             for (AlgorithmTask task : tasks) {
-                task.compute();
+                task.call();
             }
         } else {
-            class Task extends RecursiveTask<Boolean> {
+            ComparisonScheduler scheduler = new ComparisonScheduler(isParallelized() ? numThreads : 1,
+                    memoryBudget, timeout, timeoutUnit);
 
-                List<AlgorithmTask> tasks;
+            scheduler.run(tasks, new ComparisonScheduler.Listener<Boolean>() {
+                private int numDone = 0;
 
-                public Task(List<AlgorithmTask> tasks) {
-                    this.tasks = tasks;
+                @Override
+                public synchronized void finished(int index, Boolean result) {
+                    stdout.println("Finished task " + (index + 1) + " (" + (++numDone) + " of " + tasks.size() + " done)");
                 }
 
                 @Override
-                protected Boolean compute() {
-                    Queue<AlgorithmTask> tasks = new ArrayDeque<>();
-
-                    for (AlgorithmTask task : this.tasks) {
-                        tasks.add(task);
-                        task.fork();
-
-                        for (AlgorithmTask _task : new ArrayList<>(tasks)) {
-                            if (_task.isDone()) {
-                                _task.join();
-                                tasks.remove(_task);
-                            }
-                        }
-
-                        while (tasks.size() > Runtime.getRuntime().availableProcessors()) {
-                            AlgorithmTask _task = tasks.poll();
-                            _task.join();
-                        }
-                    }
-
-                    for (AlgorithmTask task : tasks) {
-                        task.join();
-                    }
-
-                    return true;
+                public synchronized void failed(int index, Throwable e) {
+                    stdout.println("Task " + (index + 1) + " failed (" + (++numDone) + " of " + tasks.size() + " done)");
+                    e.printStackTrace();
                 }
-            }
-
-            Task task = new Task(tasks);
 
-            ForkJoinPoolInstance.getInstance().getPool().invoke(task);
+                @Override
+                public synchronized void timedOut(int index) {
+                    stdout.println("Task " + (index + 1) + " timed out (" + (++numDone) + " of " + tasks.size() + " done)");
+                    markTimedOut(tasks.get(index).run, allStats, statistics);
+                }
+            });
         }
 
         return allStats;
@@ -1102,9 +1119,78 @@ public class Comparison {
         return parallelized;
     }
 
-//    public void setParallelized(boolean parallelized) {
-//        this.parallelized = parallelized;
-//    }
+    /**
+     * @param parallelized True if algorithm runs should be done concurrently,
+     *                     on up to getNumThreads() threads.
+     */
+    public void setParallelized(boolean parallelized) {
+        this.parallelized = parallelized;
+    }
+
+    /**
+     * @return The maximum number of algorithm runs done at once when
+     * parallelized.
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * @param numThreads The maximum number of algorithm runs done at once when
+     *                   parallelized. The default is the number of
+     *                   processors.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * @return The memory, in bytes, that concurrent algorithm runs may be
+     * estimated to use together.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @param memoryBudget The memory, in bytes, that concurrent algorithm runs
+     *                     may be estimated to use together. A run is estimated
+     *                     to need the size of its data, twice over if the data
+     *                     is copied. The default is the maximum heap size.
+     *                     Must be at least 1 MB.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 1024L * 1024L) {
+            throw new IllegalArgumentException("Memory budget must be at least 1 MB: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets the time each algorithm run is allowed, or 0 for no limit. A run
+     * that times out is interrupted and its statistics are shown as "*".
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must be non-negative: " + timeout);
+        }
+        if (unit == null) {
+            throw new NullPointerException("Null time unit.");
+        }
+        this.timeout = timeout;
+        this.timeoutUnit = unit;
+    }
+
+    /**
+     * @return The time each algorithm run is allowed, in milliseconds, or 0
+     * for no limit.
+     */
+    public long getTimeoutMillis() {
+        return timeoutUnit.toMillis(timeout);
+    }
 
     /**
      * @return True if patterns should be saved out.
@@ -1209,7 +1295,59 @@ public class Comparison {
         this.comparisonGraph = comparisonGraph;
     }
 
-    private class AlgorithmTask extends RecursiveTask<Boolean> {
+    /**
+     * @return True if simulations that support it should stream their data to
+     * disk in saveToFiles instead of creating it in memory first.
+     */
+    public boolean isStreamData() {
+        return streamData;
+    }
+
+    /**
+     * @param streamData True if simulations that support it should stream
+     *                   their data to disk in saveToFiles instead of creating
+     *                   it in memory first.
+     */
+    public void setStreamData(boolean streamData) {
+        this.streamData = streamData;
+    }
+
+    /**
+     * @return The maximum number of rows simulated at a time when streaming.
+     */
+    public int getStreamChunkSize() {
+        return streamChunkSize;
+    }
+
+    /**
+     * @param streamChunkSize The maximum number of rows simulated at a time
+     *                        when streaming.
+     */
+    public void setStreamChunkSize(int streamChunkSize) {
+        if (streamChunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + streamChunkSize);
+        }
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    /**
+     * The format data files are saved in.
+     */
+    public DataFileFormat getDataFileFormat() {
+        return dataFileFormat;
+    }
+
+    /**
+     * The format data files are saved in.
+     */
+    public void setDataFileFormat(DataFileFormat dataFileFormat) {
+        if (dataFileFormat == null) {
+            throw new NullPointerException("Null data file format.");
+        }
+        this.dataFileFormat = dataFileFormat;
+    }
+
+    private class AlgorithmTask implements ComparisonScheduler.Task<Boolean> {
 
         private List<AlgorithmSimulationWrapper> algorithmSimulationWrappers;
         private List<AlgorithmWrapper> algorithmWrappers;
@@ -1234,11 +1372,41 @@ public class Comparison {
         }
 
         @Override
-        protected Boolean compute() {
+        public Boolean call() {
             doRun(algorithmSimulationWrappers, algorithmWrappers,
                     simulationWrappers, statistics, numGraphTypes, allStats, run, stdout);
             return true;
         }
+
+        @Override
+        public long getMemoryEstimate() {
+            DataModel data = run.getWrapper().getSimulationWrapper().getDataModel(run.getRunIndex());
+
+            if (!(data instanceof DataSet)) {
+                return 0;
+            }
+
+            DataSet dataSet = (DataSet) data;
+            long size = 8L * dataSet.getNumRows() * dataSet.getNumColumns();
+            return copyData ? 2 * size : size;
+        }
+    }
+
+    /**
+     * Records a run that ran out of time, so that its statistics show as
+     * missing rather than as zero, and so that nothing it reports later is
+     * counted.
+     */
+    private synchronized void markTimedOut(Run run, double[][][][] allStats, Statistics statistics) {
+        run.setTimedOut(true);
+
+        for (int u = 0; u < allStats.length; u++) {
+            for (int statIndex = 0; statIndex < statistics.size(); statIndex++) {
+                if (!(statistics.getStatistics().get(statIndex) instanceof ParameterColumn)) {
+                    allStats[u][run.getAlgSimIndex()][statIndex][run.getRunIndex()] = Double.NaN;
+                }
+            }
+        }
     }
 
     private void printParameters(List<String> names, Parameters parameters, PrintStream out) {
@@ -1371,49 +1539,77 @@ public class Comparison {
             elapsed = extAlg.getElapsedTime(data, simulationWrapper.getSimulationSpecificParameters());
         }
 
-        synchronized (this) {
+        Graph[] est = new Graph[numGraphTypes];
+        boolean[] used = new boolean[numGraphTypes];
 
-            Graph[] est = new Graph[numGraphTypes];
+        Graph comparisonGraph;
 
-            Graph comparisonGraph;
-
-            if (this.comparisonGraph == ComparisonGraph.true_DAG) {
-                comparisonGraph = new EdgeListGraph(trueGraph);
-            } else if (this.comparisonGraph == ComparisonGraph.Pattern_of_the_true_DAG) {
-                comparisonGraph = SearchGraphUtils.patternForDag(new EdgeListGraph(trueGraph));
-            } else if (this.comparisonGraph == ComparisonGraph.PAG_of_the_true_DAG) {
-                comparisonGraph = new DagToPag2(new EdgeListGraph(trueGraph)).convert();
-            } else {
-                throw new IllegalArgumentException("Unrecognized graph type.");
-            }
+        if (this.comparisonGraph == ComparisonGraph.true_DAG) {
+            comparisonGraph = new EdgeListGraph(trueGraph);
+        } else if (this.comparisonGraph == ComparisonGraph.Pattern_of_the_true_DAG) {
+            comparisonGraph = SearchGraphUtils.patternForDag(new EdgeListGraph(trueGraph));
+        } else if (this.comparisonGraph == ComparisonGraph.PAG_of_the_true_DAG) {
+            comparisonGraph = new DagToPag2(new EdgeListGraph(trueGraph)).convert();
+        } else {
+            throw new IllegalArgumentException("Unrecognized graph type.");
+        }
 
 //        Graph comparisonGraph = trueGraph == null ? null : algorithmSimulationWrapper.getComparisonGraph(trueGraph);
-            est[0] = new EdgeListGraph(graphOut);
-            graphTypeUsed[0] = true;
+        est[0] = new EdgeListGraph(graphOut);
+        used[0] = true;
+
+        if (data.isMixed()) {
+            est[1] = getSubgraph(est[0], true, true, simulationWrapper.getDataModel(run.getRunIndex()));
+            est[2] = getSubgraph(est[0], true, false, simulationWrapper.getDataModel(run.getRunIndex()));
+            est[3] = getSubgraph(est[0], false, false, simulationWrapper.getDataModel(run.getRunIndex()));
+
+            used[1] = true;
+            used[2] = true;
+            used[3] = true;
+        }
+
+        Graph[] truth = new Graph[numGraphTypes];
 
-            if (data.isMixed()) {
-                est[1] = getSubgraph(est[0], true, true, simulationWrapper.getDataModel(run.getRunIndex()));
-                est[2] = getSubgraph(est[0], true, false, simulationWrapper.getDataModel(run.getRunIndex()));
-                est[3] = getSubgraph(est[0], false, false, simulationWrapper.getDataModel(run.getRunIndex()));
+        truth[0] = new EdgeListGraph(comparisonGraph);
 
-                graphTypeUsed[1] = true;
-                graphTypeUsed[2] = true;
-                graphTypeUsed[3] = true;
+        if (data.isMixed() && comparisonGraph != null) {
+            truth[1] = getSubgraph(comparisonGraph, true, true, simulationWrapper.getDataModel(run.getRunIndex()));
+            truth[2] = getSubgraph(comparisonGraph, true, false, simulationWrapper.getDataModel(run.getRunIndex()));
+            truth[3] = getSubgraph(comparisonGraph, false, false, simulationWrapper.getDataModel(run.getRunIndex()));
+        }
+
+        // Calculate all of the statistics for all of the graph types at once,
+        // outside the lock, so that parallel runs do not wait on each other.
+        List<Graph> truths = new ArrayList<>();
+        List<Graph> ests = new ArrayList<>();
+        List<DataModel> datas = new ArrayList<>();
+
+        for (int u = 0; u < numGraphTypes; u++) {
+            if (used[u]) {
+                truths.add(truth[u]);
+                ests.add(est[u]);
+                datas.add(data);
             }
+        }
 
-            Graph[] truth = new Graph[numGraphTypes];
+        double[][] values = comparisonGraph == null ? null : statistics.getValues(truths, ests, datas);
 
-            truth[0] = new EdgeListGraph(comparisonGraph);
+        synchronized (this) {
+            if (run.isTimedOut()) {
+                return;
+            }
 
-            if (data.isMixed() && comparisonGraph != null) {
-                truth[1] = getSubgraph(comparisonGraph, true, true, simulationWrapper.getDataModel(run.getRunIndex()));
-                truth[2] = getSubgraph(comparisonGraph, true, false, simulationWrapper.getDataModel(run.getRunIndex()));
-                truth[3] = getSubgraph(comparisonGraph, false, false, simulationWrapper.getDataModel(run.getRunIndex()));
+            for (int u = 0; u < numGraphTypes; u++) {
+                if (used[u]) {
+                    graphTypeUsed[u] = true;
+                }
             }
 
-            if (comparisonGraph != null) {
+            if (values != null) {
+                int row = 0;
+
                 for (int u = 0; u < numGraphTypes; u++) {
-                    if (!graphTypeUsed[u]) {
+                    if (!used[u]) {
                         continue;
                     }
 
@@ -1431,14 +1627,15 @@ public class Comparison {
                         if (_stat instanceof ElapsedTime) {
                             stat = elapsed / 1000.0;
                         } else {
-                            stat = _stat.getValue(truth[u], est[u], data);
+                            stat = values[row][statIndex];
                         }
 
                         allStats[u][run.getAlgSimIndex()][statIndex][run.getRunIndex()] = stat;
                     }
+
+                    row++;
                 }
             }
-
         }
     }
 
@@ -1965,6 +2162,16 @@ public class Comparison {
             }
         }
 
+        public void createData(Parameters parameters, StreamingSimulation.SinkFactory sinks,
+                               int chunkSize) throws IOException {
+            ((StreamingSimulation) simulation).createData(parameters, sinks, chunkSize);
+            this.graphs = new ArrayList<>();
+            this.dataModels = new ArrayList<>();
+            for (int i = 0; i < parameters.getInt(Params.NUM_RUNS); i++) {
+                this.graphs.add(new EdgeListGraph(simulation.getTrueGraph(i)));
+            }
+        }
+
         @Override
         public int getNumDataModels() {
             if (dataModels == null) {
@@ -1973,6 +2180,13 @@ public class Comparison {
             return dataModels.size();
         }
 
+        public int getNumTrueGraphs() {
+            if (graphs == null) {
+                return 0;
+            }
+            return graphs.size();
+        }
+
         @Override
         public Graph getTrueGraph(int index) {
             if (graphs.get(index) == null) {
@@ -2039,6 +2253,7 @@ public class Comparison {
         private final int runIndex;
         private final int index;
         private final AlgorithmSimulationWrapper wrapper;
+        private volatile boolean timedOut = false;
 
         public Run(int algSimIndex, int runIndex, int index, AlgorithmSimulationWrapper wrapper) {
             this.runIndex = runIndex;
@@ -2062,5 +2277,13 @@ public class Comparison {
         public AlgorithmSimulationWrapper getWrapper() {
             return wrapper;
         }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public void setTimedOut(boolean timedOut) {
+            this.timedOut = timedOut;
+        }
     }
 }
@@ -0,0 +1,294 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+package edu.cmu.tetrad.algcomparison;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the (simulation, run, algorithm) tasks of a comparison concurrently.
+ * <p>
+ * At most <code>numThreads</code> tasks run at once, and tasks are only started
+ * while the sum of their memory estimates stays within the memory budget, so
+ * a grid of large data sets does not exhaust the heap. Each task may be given
+ * a timeout. When it runs out, the task's thread is interrupted--algorithms
+ * that check <code>Thread.interrupted()</code> stop there--and the task is
+ * reported as timed out at once. If the task ignores the interrupt it keeps
+ * its thread, but an extra thread is added to the pool until it returns, and
+ * its memory estimate is returned to the budget, so one slow algorithm does
+ * not stall the rest of the batch.
+ * <p>
+ * Results are handed to the listener as each task finishes, not at the end.
+ */
+public class ComparisonScheduler {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private final int numThreads;
+    private final long memoryBudget;
+    private final long timeout;
+    private final TimeUnit unit;
+
+    /**
+     * A unit of work for the scheduler.
+     */
+    public interface Task<T> extends Callable<T> {
+
+        /**
+         * @return roughly how many bytes of heap the task will need while it
+         * runs; 0 if unknown.
+         */
+        long getMemoryEstimate();
+    }
+
+    /**
+     * Receives results as tasks finish. Calls are made from the scheduler's
+     * threads, possibly concurrently.
+     */
+    public interface Listener<T> {
+
+        /**
+         * Called when the task at the given index returns normally.
+         */
+        void finished(int index, T result);
+
+        /**
+         * Called when the task at the given index throws an exception.
+         */
+        void failed(int index, Throwable e);
+
+        /**
+         * Called when the task at the given index runs past its timeout. It
+         * is not called again for that task, even if it later returns.
+         */
+        void timedOut(int index);
+    }
+
+    /**
+     * @param numThreads   The maximum number of tasks to run at once.
+     * @param memoryBudget The total memory, in bytes, that running tasks may
+     *                     be estimated to use; Long.MAX_VALUE for no limit.
+     * @param timeout      The time each task is allowed, or 0 for no limit.
+     * @param unit         The unit of the timeout.
+     */
+    public ComparisonScheduler(int numThreads, long memoryBudget, long timeout, TimeUnit unit) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        if (memoryBudget < MEGABYTE) {
+            throw new IllegalArgumentException("Memory budget must be at least 1 MB: " + memoryBudget);
+        }
+
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must be non-negative: " + timeout);
+        }
+
+        if (unit == null) {
+            throw new NullPointerException("Null time unit.");
+        }
+
+        this.numThreads = numThreads;
+        this.memoryBudget = memoryBudget;
+        this.timeout = timeout;
+        this.unit = unit;
+    }
+
+    /**
+     * Runs the given tasks, in order of submission, and returns when each has
+     * either finished, failed, or timed out.
+     *
+     * @throws IllegalStateException if the calling thread is interrupted first;
+     *                               the running tasks are interrupted as well.
+     */
+    public <T> void run(List<? extends Task<T>> tasks, Listener<T> listener) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        int budget = (int) Math.min(Integer.MAX_VALUE, memoryBudget / MEGABYTE);
+        Semaphore memory = new Semaphore(budget, true);
+        CountDownLatch done = new CountDownLatch(tasks.size());
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(numThreads, numThreads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "comparison-task");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comparison-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                Task<T> task = tasks.get(i);
+                int permits = (int) Math.min(budget, (task.getMemoryEstimate() + MEGABYTE - 1) / MEGABYTE);
+                memory.acquire(permits);
+
+                try {
+                    pool.execute(new Attempt<>(i, task, permits, memory, done, pool, watchdog, listener));
+                } catch (RuntimeException e) {
+                    memory.release(permits);
+                    throw e;
+                }
+            }
+
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the comparison tasks.", e);
+        } finally {
+            pool.shutdownNow();
+            watchdog.shutdownNow();
+        }
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public TimeUnit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Runs one task on a pool thread, arranging for it to be cancelled if it
+     * runs out of time, and reports exactly one outcome to the listener.
+     */
+    private class Attempt<T> implements Runnable {
+        private final int index;
+        private final Task<T> task;
+        private final int permits;
+        private final Semaphore memory;
+        private final CountDownLatch done;
+        private final ThreadPoolExecutor pool;
+        private final ScheduledExecutorService watchdog;
+        private final Listener<T> listener;
+        private final AtomicBoolean reported = new AtomicBoolean(false);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Attempt(int index, Task<T> task, int permits, Semaphore memory, CountDownLatch done,
+                ThreadPoolExecutor pool, ScheduledExecutorService watchdog, Listener<T> listener) {
+            this.index = index;
+            this.task = task;
+            this.permits = permits;
+            this.memory = memory;
+            this.done = done;
+            this.pool = pool;
+            this.watchdog = watchdog;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            Thread worker = Thread.currentThread();
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicBoolean abandoned = new AtomicBoolean(false);
+            ScheduledFuture<?> alarm = null;
+
+            if (timeout > 0) {
+                alarm = watchdog.schedule(() -> {
+                    if (report()) {
+                        worker.interrupt();
+
+                        // The task may not notice the interrupt; give the
+                        // pool a thread to replace this one until it does.
+                        synchronized (pool) {
+                            if (running.get()) {
+                                abandoned.set(true);
+                                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+                                pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+                            }
+                        }
+
+                        release();
+
+                        listener.timedOut(index);
+                        done.countDown();
+                    }
+                }, timeout, unit);
+            }
+
+            try {
+                T result = task.call();
+
+                if (report()) {
+                    listener.finished(index, result);
+                    done.countDown();
+                }
+            } catch (Throwable e) {
+                if (report()) {
+                    listener.failed(index, e);
+                    done.countDown();
+                }
+            } finally {
+                if (alarm != null) {
+                    alarm.cancel(false);
+                }
+
+                synchronized (pool) {
+                    running.set(false);
+
+                    if (abandoned.get()) {
+                        pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+                        pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+                    }
+                }
+
+                // Clear an interrupt that arrived too late to matter so it
+                // does not leak into the next task on this thread.
+                Thread.interrupted();
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                memory.release(permits);
+            }
+        }
+
+        private boolean report() {
+            return reported.compareAndSet(false, true);
+        }
+    }
+}
@@ -849,27 +849,27 @@ public class TimeoutComparison {
             }
         }
 
-        ExecutorService pool = Executors.newSingleThreadExecutor();
-        tasks.forEach(task -> {
-            Future<Void> future = pool.submit(task);
-            try {
-                future.get(timeout, unit);
-                this.out.printf("%s: Run %d: Task is successfully completed.%n", dateTimeNow(), task.run.index + 1);
-            } catch (ExecutionException exception) {
-                this.out.printf("%s: Run %d: Execution error.%n", dateTimeNow(), task.run.index + 1);
-            } catch (InterruptedException exception) {
-                this.out.printf("%s: Run %d: Task has been interrupted.%n", dateTimeNow(), task.run.index + 1);
-                Thread.currentThread().interrupt();
-            } catch (TimeoutException exception) {
-                this.out.printf("%s: Run %d: Task has been timed out.%n", dateTimeNow(), task.run.index + 1);
-            } finally {
-                if (!future.isDone()) {
-                    this.out.printf("%s: Run %d: Cancel task.%n", dateTimeNow(), task.run.index + 1);
-                    future.cancel(true);
-                }
+        ComparisonScheduler scheduler = new ComparisonScheduler(
+                isParallelized() ? Runtime.getRuntime().availableProcessors() : 1,
+                Runtime.getRuntime().maxMemory(), timeout, unit);
+
+        scheduler.run(tasks, new ComparisonScheduler.Listener<Void>() {
+            @Override
+            public void finished(int index, Void result) {
+                out.printf("%s: Run %d: Task is successfully completed.%n", dateTimeNow(), index + 1);
+            }
+
+            @Override
+            public void failed(int index, Throwable e) {
+                out.printf("%s: Run %d: Execution error.%n", dateTimeNow(), index + 1);
+            }
+
+            @Override
+            public void timedOut(int index) {
+                tasks.get(index).run.setTimedOut(true);
+                out.printf("%s: Run %d: Task has been timed out.%n", dateTimeNow(), index + 1);
             }
         });
-        shutdownAndAwaitTermination(pool);
 
         return allStats;
     }
@@ -878,25 +878,6 @@ public class TimeoutComparison {
         return DF.format(new Date(System.currentTimeMillis()));
     }
 
-    private void shutdownAndAwaitTermination(ExecutorService pool) {
-        pool.shutdown(); // Disable new tasks from being submitted
-        try {
-            // Wait a while for existing tasks to terminate
-            if (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
-                pool.shutdownNow(); // Cancel currently executing tasks
-                // Wait a while for tasks to respond to being cancelled
-                if (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
-                    System.err.println("Pool did not terminate");
-                }
-            }
-        } catch (InterruptedException ie) {
-            // (Re-)Cancel if current thread also interrupted
-            pool.shutdownNow();
-            // Preserve interrupt status
-            Thread.currentThread().interrupt();
-        }
-    }
-
     public boolean isShowSimulationIndices() {
         return showSimulationIndices;
     }
@@ -1040,7 +1021,7 @@ public class TimeoutComparison {
         this.comparisonGraph = comparisonGraph;
     }
 
-    private class AlgorithmTask implements Callable<Void> {
+    private class AlgorithmTask implements ComparisonScheduler.Task<Void> {
 
         private final List<AlgorithmSimulationWrapper> algorithmSimulationWrappers;
         private final List<AlgorithmWrapper> algorithmWrappers;
@@ -1069,6 +1050,11 @@ public class TimeoutComparison {
             return null;
         }
 
+        @Override
+        public long getMemoryEstimate() {
+            return 0;
+        }
+
     }
 
     private void printParameters(List<String> names, Parameters parameters, PrintStream out) {
@@ -1237,7 +1223,7 @@ public class TimeoutComparison {
             truth[3] = getSubgraph(comparisonGraph, false, false, data);
         }
 
-        if (comparisonGraph != null) {
+        if (comparisonGraph != null && !run.isTimedOut()) {
             for (int u = 0; u < numGraphTypes; u++) {
                 if (!graphTypeUsed[u]) {
                     continue;
@@ -1844,6 +1830,7 @@ public class TimeoutComparison {
         private final int runIndex;
         private final int index;
         private final AlgorithmSimulationWrapper wrapper;
+        private volatile boolean timedOut = false;
 
         public Run(int algSimIndex, int runIndex, int index, AlgorithmSimulationWrapper wrapper) {
             this.runIndex = runIndex;
@@ -1867,6 +1854,14 @@ public class TimeoutComparison {
         public AlgorithmSimulationWrapper getWrapper() {
             return wrapper;
         }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public void setTimedOut(boolean timedOut) {
+            this.timedOut = timedOut;
+        }
     }
 
 }
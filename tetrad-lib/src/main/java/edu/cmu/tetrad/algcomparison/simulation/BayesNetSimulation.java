@@ -7,19 +7,21 @@ import edu.cmu.tetrad.bayes.BayesPm;
 import edu.cmu.tetrad.bayes.MlBayesIm;
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataSink;
 import edu.cmu.tetrad.data.DataType;
 import edu.cmu.tetrad.data.DataUtils;
 import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * @author jdramsey
  */
-public class BayesNetSimulation implements Simulation {
+public class BayesNetSimulation implements StreamingSimulation {
 
     static final long serialVersionUID = 23L;
     private RandomGraph randomGraph;
@@ -76,6 +78,34 @@ public class BayesNetSimulation implements Simulation {
         }
     }
 
+    @Override
+    public void createData(Parameters parameters, SinkFactory sinks, int chunkSize) throws IOException {
+        Graph graph = randomGraph.createGraph(parameters);
+
+        dataSets = new ArrayList<>();
+        graphs = new ArrayList<>();
+        ims = new ArrayList<>();
+
+        for (int i = 0; i < parameters.getInt(Params.NUM_RUNS); i++) {
+            System.out.println("Streaming dataset #" + (i + 1));
+
+            if (parameters.getBoolean(Params.DIFFERENT_GRAPHS) && i > 0) {
+                graph = randomGraph.createGraph(parameters);
+            }
+
+            graphs.add(graph);
+
+            BayesIm im = createIm(graph, parameters);
+            boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
+
+            try (DataSink sink = sinks.getSink(i)) {
+                SimulationUtils.writeChunks(n -> im.simulateData(n, saveLatentVars),
+                        parameters.getInt(Params.SAMPLE_SIZE), chunkSize,
+                        parameters.getBoolean(Params.RANDOMIZE_COLUMNS), sink);
+            }
+        }
+    }
+
     @Override
     public DataModel getDataModel(int index) {
         return dataSets.get(index);
@@ -132,7 +162,18 @@ public class BayesNetSimulation implements Simulation {
 
     private DataSet simulate(Graph graph, Parameters parameters) {
         boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
+        BayesIm im = createIm(graph, parameters);
+
+        try {
+            return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new IllegalArgumentException("Sorry, I couldn't simulate from that Bayes IM; perhaps not all of\n"
+                    + "the parameters have been specified.");
+        }
+    }
 
+    private BayesIm createIm(Graph graph, Parameters parameters) {
         try {
             BayesIm im = this.im;
 
@@ -144,18 +185,14 @@ public class BayesNetSimulation implements Simulation {
                     int maxCategories = parameters.getInt(Params.MAX_CATEGORIES);
                     pm = new BayesPm(graph, minCategories, maxCategories);
                     im = new MlBayesIm(pm, MlBayesIm.RANDOM);
-                    ims.add(im);
-                    return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
                 } else {
                     im = new MlBayesIm(pm, MlBayesIm.RANDOM);
                     this.im = im;
-                    ims.add(im);
-                    return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
                 }
-            } else {
-                ims.add(im);
-                return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
             }
+
+            ims.add(im);
+            return im;
         } catch (Exception e) {
             e.printStackTrace();
             throw new IllegalArgumentException("Sorry, I couldn't simulate from that Bayes IM; perhaps not all of\n"
@@ -155,6 +155,7 @@ public class BooleanGlassSimulation implements Simulation {
         parameters.add("measuredDataSaved");
         parameters.add("initSync");
         parameters.add("antilogCalculated");
+        parameters.add("cellsSimulatedInParallel");
         parameters.add("dishDishVariability");
         parameters.add("sampleSampleVariability");
         parameters.add("chipChipVariability");
@@ -4,6 +4,7 @@ import edu.cmu.tetrad.algcomparison.graph.RandomGraph;
 import edu.cmu.tetrad.algcomparison.utils.HasParameters;
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataSink;
 import edu.cmu.tetrad.data.DataType;
 import edu.cmu.tetrad.data.DataUtils;
 import edu.cmu.tetrad.graph.Graph;
@@ -13,6 +14,7 @@ import edu.cmu.tetrad.sem.GeneralizedSemPm;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.pitt.csb.mgm.MixedUtils;
+import java.io.IOException;
 import java.util.*;
 import org.apache.commons.lang3.RandomUtils;
 
@@ -22,7 +24,7 @@ import org.apache.commons.lang3.RandomUtils;
  *
  * @author jdramsey
  */
-public class LeeHastieSimulation implements Simulation, HasParameters {
+public class LeeHastieSimulation implements StreamingSimulation, HasParameters {
 
     static final long serialVersionUID = 23L;
     private RandomGraph randomGraph;
@@ -39,25 +41,7 @@ public class LeeHastieSimulation implements Simulation, HasParameters {
     public void createData(Parameters parameters) {
         if (!dataSets.isEmpty()) return;
 
-        double percentDiscrete = parameters.getDouble(Params.PERCENT_DISCRETE);
-
-        boolean discrete = parameters.getString(Params.DATA_TYPE).equals("discrete");
-        boolean continuous = parameters.getString(Params.DATA_TYPE).equals("continuous");
-
-        if (discrete && percentDiscrete != 100.0) {
-            throw new IllegalArgumentException("To simulate discrete data, 'percentDiscrete' must be set to 0.0.");
-        } else if (continuous && percentDiscrete != 0.0) {
-            throw new IllegalArgumentException("To simulate continuoue data, 'percentDiscrete' must be set to 100.0.");
-        }
-
-        if (discrete) {
-            this.dataType = DataType.Discrete;
-        }
-        if (continuous) {
-            this.dataType = DataType.Continuous;
-        }
-
-        this.shuffledOrder = null;
+        initialize(parameters);
 
         Graph graph = randomGraph.createGraph(parameters);
 
@@ -84,6 +68,37 @@ public class LeeHastieSimulation implements Simulation, HasParameters {
         }
     }
 
+    @Override
+    public void createData(Parameters parameters, SinkFactory sinks, int chunkSize) throws IOException {
+        initialize(parameters);
+
+        Graph graph = randomGraph.createGraph(parameters);
+
+        dataSets = new ArrayList<>();
+        graphs = new ArrayList<>();
+
+        for (int i = 0; i < parameters.getInt(Params.NUM_RUNS); i++) {
+            System.out.println("Streaming dataset #" + (i + 1));
+
+            if (parameters.getBoolean(Params.DIFFERENT_GRAPHS) && i > 0) {
+                graph = randomGraph.createGraph(parameters);
+            }
+
+            graphs.add(graph);
+
+            HashMap<String, Integer> nd = new HashMap<>();
+            GeneralizedSemIm im = createIm(graph, parameters, nd);
+            boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
+
+            try (DataSink sink = sinks.getSink(i)) {
+                SimulationUtils.writeChunks(
+                        n -> MixedUtils.makeMixedData(im.simulateDataAvoidInfinity(n, saveLatentVars), nd),
+                        parameters.getInt(Params.SAMPLE_SIZE), chunkSize,
+                        parameters.getBoolean(Params.RANDOMIZE_COLUMNS), sink);
+            }
+        }
+    }
+
     @Override
     public Graph getTrueGraph(int index) {
         return graphs.get(index);
@@ -126,9 +141,43 @@ public class LeeHastieSimulation implements Simulation, HasParameters {
         return dataType;
     }
 
+    private void initialize(Parameters parameters) {
+        double percentDiscrete = parameters.getDouble(Params.PERCENT_DISCRETE);
+
+        boolean discrete = parameters.getString(Params.DATA_TYPE).equals("discrete");
+        boolean continuous = parameters.getString(Params.DATA_TYPE).equals("continuous");
+
+        if (discrete && percentDiscrete != 100.0) {
+            throw new IllegalArgumentException("To simulate discrete data, 'percentDiscrete' must be set to 0.0.");
+        } else if (continuous && percentDiscrete != 0.0) {
+            throw new IllegalArgumentException("To simulate continuoue data, 'percentDiscrete' must be set to 100.0.");
+        }
+
+        if (discrete) {
+            this.dataType = DataType.Discrete;
+        }
+        if (continuous) {
+            this.dataType = DataType.Continuous;
+        }
+
+        this.shuffledOrder = null;
+    }
+
     private DataSet simulate(Graph dag, Parameters parameters) {
         HashMap<String, Integer> nd = new HashMap<>();
+        GeneralizedSemIm im = createIm(dag, parameters, nd);
+
+        boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
+        DataSet ds = im.simulateDataAvoidInfinity(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
 
+        return MixedUtils.makeMixedData(ds, nd);
+    }
+
+    /**
+     * Picks the discrete variables and their numbers of categories, recording
+     * them in <code>nd</code>, and builds the model to simulate from.
+     */
+    private GeneralizedSemIm createIm(Graph dag, Parameters parameters, Map<String, Integer> nd) {
         List<Node> nodes = dag.getNodes();
 
         Collections.shuffle(nodes);
@@ -153,12 +202,7 @@ public class LeeHastieSimulation implements Simulation, HasParameters {
         Graph graph = MixedUtils.makeMixedGraph(dag, nd);
 
         GeneralizedSemPm pm = MixedUtils.GaussianCategoricalPm(graph, "Split(-1.5,-.5,.5,1.5)");
-        GeneralizedSemIm im = MixedUtils.GaussianCategoricalIm(pm);
-
-        boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
-        DataSet ds = im.simulateDataAvoidInfinity(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
-
-        return MixedUtils.makeMixedData(ds, nd);
+        return MixedUtils.GaussianCategoricalIm(pm);
     }
 
     private int pickNumCategories(int min, int max) {
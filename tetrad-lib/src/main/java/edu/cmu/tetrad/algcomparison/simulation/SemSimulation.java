@@ -4,22 +4,26 @@ import edu.cmu.tetrad.algcomparison.graph.RandomGraph;
 import edu.cmu.tetrad.algcomparison.graph.SingleGraph;
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataSink;
 import edu.cmu.tetrad.data.DataType;
 import edu.cmu.tetrad.data.DataUtils;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.graph.SemGraph;
 import edu.cmu.tetrad.sem.SemIm;
 import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.Matrix;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.cmu.tetrad.util.RandomUtil;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * @author jdramsey
  */
-public class SemSimulation implements Simulation {
+public class SemSimulation implements StreamingSimulation {
 
     static final long serialVersionUID = 23L;
     private RandomGraph randomGraph;
@@ -75,17 +79,7 @@ public class SemSimulation implements Simulation {
                 dataSet = DataUtils.standardizeData(dataSet);
             }
 
-            double variance = parameters.getDouble(Params.MEASUREMENT_VARIANCE);
-
-            if (variance > 0) {
-                for (int k = 0; k < dataSet.getNumRows(); k++) {
-                    for (int j = 0; j < dataSet.getNumColumns(); j++) {
-                        double d = dataSet.getDouble(k, j);
-                        double norm = RandomUtil.getInstance().nextNormal(0, Math.sqrt(variance));
-                        dataSet.setDouble(k, j, d + norm);
-                    }
-                }
-            }
+            addMeasurementNoise(dataSet, parameters.getDouble(Params.MEASUREMENT_VARIANCE));
 
             if (parameters.getBoolean(Params.RANDOMIZE_COLUMNS)) {
                 dataSet = DataUtils.reorderColumns(dataSet);
@@ -96,6 +90,49 @@ public class SemSimulation implements Simulation {
         }
     }
 
+    /**
+     * Streams the simulated data to the sinks. Since sample moments are not
+     * available until the whole data set has been simulated, standardization
+     * here uses the means and variances implied by the model instead.
+     */
+    @Override
+    public void createData(Parameters parameters, SinkFactory sinks, int chunkSize) throws IOException {
+        Graph graph = randomGraph.createGraph(parameters);
+
+        dataSets = new ArrayList<>();
+        graphs = new ArrayList<>();
+        ims = new ArrayList<>();
+
+        for (int i = 0; i < parameters.getInt(Params.NUM_RUNS); i++) {
+            System.out.println("Streaming dataset #" + (i + 1));
+
+            if (parameters.getBoolean(Params.DIFFERENT_GRAPHS) && i > 0) {
+                graph = randomGraph.createGraph(parameters);
+            }
+
+            graphs.add(graph);
+
+            SemIm im = createIm(graph, parameters);
+            boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
+            boolean standardize = parameters.getBoolean(Params.STANDARDIZE);
+            double variance = parameters.getDouble(Params.MEASUREMENT_VARIANCE);
+
+            try (DataSink sink = sinks.getSink(i)) {
+                SimulationUtils.writeChunks(n -> {
+                    DataSet chunk = im.simulateData(n, saveLatentVars);
+
+                    if (standardize) {
+                        standardizeByModel(chunk, im);
+                    }
+
+                    addMeasurementNoise(chunk, variance);
+                    return chunk;
+                }, parameters.getInt(Params.SAMPLE_SIZE), chunkSize,
+                        parameters.getBoolean(Params.RANDOMIZE_COLUMNS), sink);
+            }
+        }
+    }
+
     @Override
     public DataModel getDataModel(int index) {
         return dataSets.get(index);
@@ -149,7 +186,10 @@ public class SemSimulation implements Simulation {
 
     private DataSet simulate(Graph graph, Parameters parameters) {
         boolean saveLatentVars = parameters.getBoolean(Params.SAVE_LATENT_VARS);
+        return createIm(graph, parameters).simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+    }
 
+    private SemIm createIm(Graph graph, Parameters parameters) {
         SemIm im = this.im;
 
         if (im == null) {
@@ -157,17 +197,40 @@ public class SemSimulation implements Simulation {
 
             if (pm == null) {
                 pm = new SemPm(graph);
-                im = new SemIm(pm, parameters);
-                ims.add(im);
-                return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
-            } else {
-                im = new SemIm(pm, parameters);
-                ims.add(im);
-                return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
             }
-        } else {
-            ims.add(im);
-            return im.simulateData(parameters.getInt(Params.SAMPLE_SIZE), saveLatentVars);
+
+            im = new SemIm(pm, parameters);
+        }
+
+        ims.add(im);
+        return im;
+    }
+
+    private static void addMeasurementNoise(DataSet dataSet, double variance) {
+        if (variance > 0) {
+            for (int k = 0; k < dataSet.getNumRows(); k++) {
+                for (int j = 0; j < dataSet.getNumColumns(); j++) {
+                    double d = dataSet.getDouble(k, j);
+                    double norm = RandomUtil.getInstance().nextNormal(0, Math.sqrt(variance));
+                    dataSet.setDouble(k, j, d + norm);
+                }
+            }
+        }
+    }
+
+    private static void standardizeByModel(DataSet dataSet, SemIm im) {
+        Matrix implCovar = im.getImplCovar(false);
+        List<Node> variableNodes = im.getVariableNodes();
+
+        for (int j = 0; j < dataSet.getNumColumns(); j++) {
+            Node node = im.getVariableNode(dataSet.getVariable(j).getName());
+            int index = variableNodes.indexOf(node);
+            double mean = im.getMean(node);
+            double sd = Math.sqrt(implCovar.get(index, index));
+
+            for (int k = 0; k < dataSet.getNumRows(); k++) {
+                dataSet.setDouble(k, j, (dataSet.getDouble(k, j) - mean) / sd);
+            }
         }
     }
 
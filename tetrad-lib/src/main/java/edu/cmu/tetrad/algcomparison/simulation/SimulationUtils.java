@@ -19,6 +19,15 @@
 package edu.cmu.tetrad.algcomparison.simulation;
 
 import edu.cmu.tetrad.algcomparison.graph.RandomGraph;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataSink;
+import edu.cmu.tetrad.data.DataUtils;
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
 
 /**
  *
@@ -55,4 +64,49 @@ public final class SimulationUtils {
         }
     }
 
+    /**
+     * Simulates a data set in chunks of at most <code>chunkSize</code> rows
+     * and writes each chunk to the sink as soon as it is simulated, so that no
+     * more than one chunk is held in memory. If the columns are to be
+     * randomized, one random column order is picked for the first chunk and
+     * used for all of the others.
+     *
+     * @param simulator        Simulates the given number of rows.
+     * @param sampleSize       The total number of rows to simulate.
+     * @param chunkSize        The maximum number of rows to simulate at a time.
+     * @param randomizeColumns True if the columns should be randomly reordered.
+     * @param sink             The sink to write to; it is opened but not closed.
+     */
+    public static void writeChunks(IntFunction<DataSet> simulator, int sampleSize, int chunkSize,
+                                   boolean randomizeColumns, DataSink sink) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+        }
+
+        List<String> columnOrder = null;
+
+        for (int start = 0; start < sampleSize; start += chunkSize) {
+            DataSet chunk = simulator.apply(Math.min(chunkSize, sampleSize - start));
+
+            if (columnOrder == null) {
+                if (randomizeColumns) {
+                    chunk = DataUtils.reorderColumns(chunk);
+                }
+
+                columnOrder = chunk.getVariableNames();
+                sink.open(chunk.getVariables());
+            } else if (randomizeColumns) {
+                List<Node> columns = new ArrayList<>();
+
+                for (String name : columnOrder) {
+                    columns.add(chunk.getVariable(name));
+                }
+
+                chunk = chunk.subsetColumns(columns);
+            }
+
+            sink.write(chunk);
+        }
+    }
+
 }
@@ -0,0 +1,37 @@
+package edu.cmu.tetrad.algcomparison.simulation;
+
+import edu.cmu.tetrad.data.DataSink;
+import edu.cmu.tetrad.util.Parameters;
+
+import java.io.IOException;
+
+/**
+ * A simulation that can write its data sets directly to sinks a chunk of rows
+ * at a time instead of holding them in memory, so that memory use stays
+ * constant no matter how large the sample size is.
+ */
+public interface StreamingSimulation extends Simulation {
+
+    /**
+     * The default number of rows simulated and written at a time.
+     */
+    int DEFAULT_CHUNK_SIZE = 10000;
+
+    /**
+     * Creates the true graphs and streams the simulated data to sinks. One
+     * data set is written per run; the data sets themselves are not retained,
+     * so afterwards only the true graphs are available from the simulation.
+     *
+     * @param parameters The simulation parameters.
+     * @param sinks      Supplies the sink for each data set, by index.
+     * @param chunkSize  The maximum number of rows simulated at a time.
+     */
+    void createData(Parameters parameters, SinkFactory sinks, int chunkSize) throws IOException;
+
+    /**
+     * Supplies the sink that the data set with the given index is written to.
+     */
+    interface SinkFactory {
+        DataSink getSink(int index) throws IOException;
+    }
+}
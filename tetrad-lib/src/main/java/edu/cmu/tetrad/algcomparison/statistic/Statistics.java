@@ -1,9 +1,18 @@
 package edu.cmu.tetrad.algcomparison.statistic;
 
+import edu.cmu.tetrad.algcomparison.statistic.utils.GraphConfusion;
+import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * A list of statistics and their utility weights.
@@ -82,5 +91,83 @@ public class Statistics {
         return statistics.size();
     }
 
+    /**
+     * Evaluates every statistic for one pair of graphs, in parallel. The
+     * confusion counts for the pair are computed once and shared by the
+     * statistics that use them.
+     *
+     * @param trueGraph The true graph.
+     * @param estGraph  The estimated graph.
+     * @param dataModel The data the graph was estimated from.
+     * @return The values of the statistics, in the order added. Statistics
+     * that are not computed from the graphs--ElapsedTime and
+     * ParameterColumn--are given as NaN.
+     */
+    public double[] getValues(Graph trueGraph, Graph estGraph, DataModel dataModel) {
+        return getValues(Arrays.asList(trueGraph), Arrays.asList(estGraph), Arrays.asList(dataModel))[0];
+    }
+
+    /**
+     * Evaluates every statistic for each of a list of pairs of graphs, all in
+     * parallel.
+     *
+     * @param trueGraphs The true graphs.
+     * @param estGraphs  The estimated graphs, one for each true graph.
+     * @param dataModels The data each graph was estimated from.
+     * @return A table of values, with a row for each pair of graphs and a
+     * column for each statistic, in the order added. Statistics that are not
+     * computed from the graphs--ElapsedTime and ParameterColumn--are given as
+     * NaN.
+     */
+    public double[][] getValues(List<Graph> trueGraphs, List<Graph> estGraphs, List<DataModel> dataModels) {
+        if (trueGraphs.size() != estGraphs.size() || trueGraphs.size() != dataModels.size()) {
+            throw new IllegalArgumentException("Expecting as many estimated graphs and data models as true graphs.");
+        }
+
+        double[][] values = new double[trueGraphs.size()][statistics.size()];
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < trueGraphs.size(); i++) {
+            Graph trueGraph = trueGraphs.get(i);
+            Graph estGraph = estGraphs.get(i);
+            DataModel dataModel = dataModels.get(i);
+            double[] row = values[i];
 
+            // Warm the cache so that the statistics share the counts rather
+            // than racing to compute them.
+            GraphConfusion.get(trueGraph, estGraph);
+
+            for (int j = 0; j < statistics.size(); j++) {
+                Statistic statistic = statistics.get(j);
+                int column = j;
+
+                if (statistic instanceof ParameterColumn || statistic instanceof ElapsedTime) {
+                    row[column] = Double.NaN;
+                    continue;
+                }
+
+                tasks.add(() -> {
+                    row[column] = statistic.getValue(trueGraph, estGraph, dataModel);
+                    return null;
+                });
+            }
+        }
+
+        try {
+            for (Future<Void> future : ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calculating statistics.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+
+        return values;
+    }
 }
@@ -0,0 +1,440 @@
+package edu.cmu.tetrad.algcomparison.statistic.utils;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Edges;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The adjacency, arrowhead, tail and two-cycle confusion counts for a true
+ * and an estimated graph, computed together. Nodes are matched by name and
+ * numbered, and the edges of each graph are indexed by node pair, so every
+ * count comes from one pass over the edges of each graph rather than from
+ * repeated searches of the graphs.
+ * <p>
+ * Most statistics are simple functions of these counts. Use get() rather
+ * than the constructor so that the statistics evaluated for the same pair of
+ * graphs share a single computation.
+ */
+public class GraphConfusion {
+
+    /**
+     * The number of recent graph pairs whose counts are kept, enough for each
+     * of the threads of a parallel comparison to hit the cache.
+     */
+    private static final int CACHE_SIZE = 32;
+
+    private static final LinkedList<CacheEntry> cache = new LinkedList<>();
+
+    private int adjTp;
+    private int adjFp;
+    private int adjFn;
+    private int adjTn;
+
+    private int arrowsTp;
+    private int arrowsFp;
+    private int arrowsFpTruthAdj;
+    private int arrowsFn;
+    private int arrowsTn;
+    private int arrowsTpc;
+    private int arrowsFpc;
+    private int arrowsFnc;
+    private int arrowsTnc;
+
+    private int tailsTp;
+    private int tailsFp;
+    private int tailsFn;
+    private int tailsTn;
+
+    private int twoCycleTp;
+    private int twoCycleFp;
+    private int twoCycleFn;
+
+    public GraphConfusion(Graph truth, Graph est) {
+        Map<String, Integer> indices = new HashMap<>();
+
+        for (Node node : truth.getNodes()) {
+            indices.putIfAbsent(node.getName(), indices.size());
+        }
+
+        for (Node node : est.getNodes()) {
+            indices.putIfAbsent(node.getName(), indices.size());
+        }
+
+        long n = indices.size();
+        Map<Long, List<Edge>> trueEdges = indexEdges(truth, indices, n);
+        Map<Long, List<Edge>> estEdges = indexEdges(est, indices, n);
+
+        // Adjacencies, over pairs adjacent in either graph.
+        for (Long pair : trueEdges.keySet()) {
+            if (estEdges.containsKey(pair)) {
+                adjTp++;
+            } else {
+                adjFn++;
+            }
+        }
+
+        for (Long pair : estEdges.keySet()) {
+            if (!trueEdges.containsKey(pair)) {
+                adjFp++;
+            }
+        }
+
+        int allEdges = truth.getNumNodes() * (truth.getNumNodes() - 1) / 2;
+        adjTn = allEdges - adjFn;
+
+        // Endpoints, for each edge of the true graph.
+        for (Edge edge : truth.getEdges()) {
+            String n1 = edge.getNode1().getName();
+            String n2 = edge.getNode2().getName();
+            long pair = pair(indices.get(n1), indices.get(n2), n);
+
+            List<Edge> estBetween = estEdges.get(pair);
+            List<Edge> trueBetween = trueEdges.get(pair);
+
+            Edge edge1 = select(estBetween, n1, n2);
+            Edge edge2 = select(trueBetween, n1, n2);
+
+            Endpoint e1Est = endpoint(edge1, n1);
+            Endpoint e2Est = endpoint(edge1, n2);
+            Endpoint e1True = endpoint(edge2, n1);
+            Endpoint e2True = endpoint(edge2, n2);
+
+            boolean common = estBetween != null;
+
+            countTrueEndpoint(e1True, e1Est, common);
+            countTrueEndpoint(e2True, e2Est, common);
+
+            int numEst = estBetween == null ? 0 : estBetween.size();
+
+            if (trueBetween.size() == 2 && numEst == 2) {
+                twoCycleTp++;
+            }
+
+            if (trueBetween.size() == 2 && numEst != 2) {
+                twoCycleFn++;
+            }
+        }
+
+        // False positive endpoints, for each edge of the estimated graph.
+        for (Edge edge : est.getEdges()) {
+            String n1 = edge.getNode1().getName();
+            String n2 = edge.getNode2().getName();
+            long pair = pair(indices.get(n1), indices.get(n2), n);
+
+            List<Edge> estBetween = estEdges.get(pair);
+            List<Edge> trueBetween = trueEdges.get(pair);
+
+            Edge edge1 = select(estBetween, n1, n2);
+            Edge edge2 = select(trueBetween, n1, n2);
+
+            Endpoint e1Est = endpoint(edge1, n1);
+            Endpoint e2Est = endpoint(edge1, n2);
+            Endpoint e1True = endpoint(edge2, n1);
+            Endpoint e2True = endpoint(edge2, n2);
+
+            boolean trueAdjacent = trueBetween != null;
+            boolean bothEdges = edge1 != null && edge2 != null;
+
+            countEstEndpoint(e1Est, e1True, trueAdjacent, bothEdges);
+            countEstEndpoint(e2Est, e2True, trueAdjacent, bothEdges);
+
+            int numTrue = trueBetween == null ? 0 : trueBetween.size();
+
+            if (numTrue != 2 && estBetween.size() == 2) {
+                twoCycleFp++;
+            }
+        }
+
+        // Each edge of a two-cycle is visited, so each two-cycle is counted twice.
+        twoCycleTp /= 2;
+        twoCycleFn /= 2;
+        twoCycleFp /= 2;
+    }
+
+    /**
+     * Returns the confusion counts for the given graphs, reusing the counts
+     * computed for the same two graph objects if they are still cached and
+     * still have the nodes and edges they had then.
+     */
+    public static GraphConfusion get(Graph truth, Graph est) {
+        Snapshot trueSnapshot = new Snapshot(truth);
+        Snapshot estSnapshot = new Snapshot(est);
+
+        synchronized (cache) {
+            Iterator<CacheEntry> entries = cache.iterator();
+
+            while (entries.hasNext()) {
+                CacheEntry entry = entries.next();
+
+                if (entry.isFor(truth, est, trueSnapshot, estSnapshot)) {
+                    entries.remove();
+                    cache.addFirst(entry);
+                    return entry.confusion;
+                }
+
+                if (entry.truth.get() == null || entry.est.get() == null) {
+                    entries.remove();
+                }
+            }
+        }
+
+        GraphConfusion confusion = new GraphConfusion(truth, est);
+
+        synchronized (cache) {
+            cache.addFirst(new CacheEntry(truth, est, trueSnapshot, estSnapshot, confusion));
+
+            while (cache.size() > CACHE_SIZE) {
+                cache.removeLast();
+            }
+        }
+
+        return confusion;
+    }
+
+    private void countTrueEndpoint(Endpoint eTrue, Endpoint eEst, boolean common) {
+        if (eTrue == Endpoint.ARROW && eEst != Endpoint.ARROW) {
+            arrowsFn++;
+            if (common) arrowsFnc++;
+        }
+
+        if (eTrue == Endpoint.ARROW && eEst == Endpoint.ARROW) {
+            arrowsTp++;
+            if (common) arrowsTpc++;
+        }
+
+        if (eTrue != Endpoint.ARROW && eEst != Endpoint.ARROW) {
+            arrowsTn++;
+            if (common) arrowsTnc++;
+        }
+
+        if (eTrue == Endpoint.TAIL && eEst != Endpoint.TAIL) {
+            tailsFn++;
+        }
+
+        if (eTrue == Endpoint.TAIL && eEst == Endpoint.TAIL) {
+            tailsTp++;
+        }
+
+        if (eTrue != Endpoint.TAIL && eEst != Endpoint.TAIL) {
+            tailsTn++;
+        }
+    }
+
+    private void countEstEndpoint(Endpoint eEst, Endpoint eTrue, boolean trueAdjacent, boolean bothEdges) {
+        if (eEst == Endpoint.ARROW && eTrue != Endpoint.ARROW) {
+            arrowsFp++;
+            if (trueAdjacent) arrowsFpTruthAdj++;
+            if (bothEdges) arrowsFpc++;
+        }
+
+        if (eEst == Endpoint.TAIL && eTrue != Endpoint.TAIL) {
+            tailsFp++;
+        }
+    }
+
+    private static Map<Long, List<Edge>> indexEdges(Graph graph, Map<String, Integer> indices, long n) {
+        Map<Long, List<Edge>> edges = new HashMap<>();
+
+        for (Edge edge : graph.getEdges()) {
+            long pair = pair(indices.get(edge.getNode1().getName()), indices.get(edge.getNode2().getName()), n);
+            edges.computeIfAbsent(pair, k -> new ArrayList<>(1)).add(edge);
+        }
+
+        return edges;
+    }
+
+    private static long pair(int i, int j, long n) {
+        return i < j ? i * n + j : j * n + i;
+    }
+
+    /**
+     * The edge between n1 and n2 if there is just one; otherwise the edge
+     * directed from n1 to n2, if any.
+     */
+    private static Edge select(List<Edge> edges, String n1, String n2) {
+        if (edges == null) {
+            return null;
+        }
+
+        if (edges.size() == 1) {
+            return edges.get(0);
+        }
+
+        for (Edge edge : edges) {
+            if (Edges.isDirectedEdge(edge) && endpoint(edge, n2) == Endpoint.ARROW) {
+                return edge;
+            }
+        }
+
+        return null;
+    }
+
+    private static Endpoint endpoint(Edge edge, String node) {
+        if (edge == null) {
+            return null;
+        } else if (edge.getNode1().getName().equals(node)) {
+            return edge.getEndpoint1();
+        } else if (edge.getNode2().getName().equals(node)) {
+            return edge.getEndpoint2();
+        } else {
+            return null;
+        }
+    }
+
+    public int getAdjTp() {
+        return adjTp;
+    }
+
+    public int getAdjFp() {
+        return adjFp;
+    }
+
+    public int getAdjFn() {
+        return adjFn;
+    }
+
+    public int getAdjTn() {
+        return adjTn;
+    }
+
+    public int getArrowsTp() {
+        return arrowsTp;
+    }
+
+    public int getArrowsFp() {
+        return arrowsFp;
+    }
+
+    /**
+     * False positive arrowheads, counted only where the variables are
+     * adjacent in the true graph.
+     */
+    public int getArrowsFpTruthAdj() {
+        return arrowsFpTruthAdj;
+    }
+
+    public int getArrowsFn() {
+        return arrowsFn;
+    }
+
+    public int getArrowsTn() {
+        return arrowsTn;
+    }
+
+    /**
+     * True positives for common edges.
+     */
+    public int getArrowsTpc() {
+        return arrowsTpc;
+    }
+
+    /**
+     * False positives for common edges.
+     */
+    public int getArrowsFpc() {
+        return arrowsFpc;
+    }
+
+    /**
+     * False negatives for common edges.
+     */
+    public int getArrowsFnc() {
+        return arrowsFnc;
+    }
+
+    /**
+     * True Negatives for common edges.
+     */
+    public int getArrowsTnc() {
+        return arrowsTnc;
+    }
+
+    public int getTailsTp() {
+        return tailsTp;
+    }
+
+    public int getTailsFp() {
+        return tailsFp;
+    }
+
+    public int getTailsFn() {
+        return tailsFn;
+    }
+
+    public int getTailsTn() {
+        return tailsTn;
+    }
+
+    public int getTwoCycleTp() {
+        return twoCycleTp;
+    }
+
+    public int getTwoCycleFp() {
+        return twoCycleFp;
+    }
+
+    public int getTwoCycleFn() {
+        return twoCycleFn;
+    }
+
+    private static class CacheEntry {
+        private final WeakReference<Graph> truth;
+        private final WeakReference<Graph> est;
+        private final Snapshot trueSnapshot;
+        private final Snapshot estSnapshot;
+        private final GraphConfusion confusion;
+
+        CacheEntry(Graph truth, Graph est, Snapshot trueSnapshot, Snapshot estSnapshot, GraphConfusion confusion) {
+            this.truth = new WeakReference<>(truth);
+            this.est = new WeakReference<>(est);
+            this.trueSnapshot = trueSnapshot;
+            this.estSnapshot = estSnapshot;
+            this.confusion = confusion;
+        }
+
+        boolean isFor(Graph truth, Graph est, Snapshot trueSnapshot, Snapshot estSnapshot) {
+            return this.truth.get() == truth && this.est.get() == est
+                    && this.trueSnapshot.equals(trueSnapshot) && this.estSnapshot.equals(estSnapshot);
+        }
+    }
+
+    /**
+     * The nodes and edges of a graph at the time its counts were taken, so
+     * that a graph edited in place since then is not matched to stale counts.
+     * Edges are immutable apart from their display settings, so the edge
+     * objects themselves can be kept.
+     */
+    private static class Snapshot {
+        private final List<Node> nodes;
+        private final Set<Edge> edges;
+
+        Snapshot(Graph graph) {
+            this.nodes = new ArrayList<>(graph.getNodes());
+            this.edges = new HashSet<>(graph.getEdges());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Snapshot)) return false;
+            Snapshot snapshot = (Snapshot) o;
+            return nodes.equals(snapshot.nodes) && edges.equals(snapshot.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * nodes.hashCode() + edges.hashCode();
+        }
+    }
+}
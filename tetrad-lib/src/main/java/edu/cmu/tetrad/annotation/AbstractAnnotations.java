@@ -37,8 +37,11 @@ public abstract class AbstractAnnotations<T extends Annotation> {
     protected final List<AnnotatedClass<T>> annotatedClasses;
 
     public AbstractAnnotations(String packageName, Class<T> type) {
-        Reflections reflections = new Reflections(packageName);
-        Set<Class<?>> classes = reflections.getTypesAnnotatedWith(type);
+        Set<Class<?>> classes = AnnotationIndex.getInstance().getTypesAnnotatedWith(packageName, type);
+        if (classes == null) {
+            // no index was built, e.g. when running from an IDE
+            classes = new Reflections(packageName).getTypesAnnotatedWith(type);
+        }
 
         this.annotatedClasses = classes.parallelStream()
                 .map(e -> new AnnotatedClass<>(e, e.getAnnotation(type)))
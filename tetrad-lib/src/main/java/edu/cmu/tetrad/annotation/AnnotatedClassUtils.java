@@ -37,8 +37,11 @@ public class AnnotatedClassUtils {
     }
 
     public static <T extends Annotation> List<AnnotatedClass<T>> getAnnotatedClasses(String packageName, Class<T> type) {
-        Reflections reflections = new Reflections(packageName);
-        Set<Class<?>> classes = reflections.getTypesAnnotatedWith(type);
+        Set<Class<?>> classes = AnnotationIndex.getInstance().getTypesAnnotatedWith(packageName, type);
+        if (classes == null) {
+            // no index was built, e.g. when running from an IDE
+            classes = new Reflections(packageName).getTypesAnnotatedWith(type);
+        }
 
         return classes.stream()
                 .map(e -> new AnnotatedClass<>(e, e.getAnnotation(type)))
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2019 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.cmu.tetrad.annotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The classes annotated with @Algorithm, @Score and @TestOfIndependence, as
+ * recorded at build time by AnnotationIndexProcessor. Reading the index is
+ * much faster than scanning the classpath with Reflections, which matters for
+ * short-lived batch jobs and for GUI startup.
+ */
+public final class AnnotationIndex {
+
+    /**
+     * The classpath resource the index is written to. Each line is the name
+     * of an annotation and the name of a class annotated with it, separated by
+     * a tab.
+     */
+    public static final String RESOURCE = "META-INF/tetrad/annotation.index";
+
+    private static final AnnotationIndex INSTANCE = new AnnotationIndex();
+
+    private final Map<String, Set<String>> index = new HashMap<>();
+
+    /**
+     * For each indexed class, the classpath root of the index that lists it.
+     */
+    private final Map<String, String> roots = new HashMap<>();
+
+    private final boolean available;
+
+    private AnnotationIndex() {
+        this.available = read();
+    }
+
+    public static AnnotationIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if an index was found on the classpath.
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Gets the indexed classes in the given package, or its subpackages, that
+     * are annotated with the given type.
+     *
+     * @return the classes, or null if there is no index, the annotation is not
+     * indexed or the index is out of date, in which case the caller should scan
+     * the classpath instead. The index is out of date if a class it lists can
+     * no longer be loaded, is no longer annotated, or is loaded from another
+     * part of the classpath than the index itself, as when an old jar is on
+     * the classpath alongside a newer build.
+     */
+    public Set<Class<?>> getTypesAnnotatedWith(String packageName, Class<? extends Annotation> type) {
+        if (!available || !index.containsKey(type.getName())) {
+            return null;
+        }
+
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        Set<Class<?>> classes = new HashSet<>();
+        ClassLoader classLoader = getClassLoader();
+
+        for (String className : index.get(type.getName())) {
+            if (!className.startsWith(prefix)) {
+                continue;
+            }
+
+            String classFile = className.replace('.', '/') + ".class";
+
+            if (!roots.get(className).equals(root(classLoader.getResource(classFile), classFile))) {
+                return null;
+            }
+
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+
+                if (!clazz.isAnnotationPresent(type)) {
+                    return null;
+                }
+
+                classes.add(clazz);
+            } catch (ClassNotFoundException | LinkageError exception) {
+                return null;
+            }
+        }
+
+        return classes;
+    }
+
+    // The classpath root a resource was found in, or null if it was not found.
+    private static String root(URL url, String resource) {
+        if (url == null) {
+            return null;
+        }
+
+        String name = url.toString();
+
+        return name.endsWith(resource) ? name.substring(0, name.length() - resource.length()) : name;
+    }
+
+    private boolean read() {
+        try {
+            Enumeration<URL> resources = getClassLoader().getResources(RESOURCE);
+
+            if (!resources.hasMoreElements()) {
+                return false;
+            }
+
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                String root = root(url, RESOURCE);
+
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+
+                    while ((line = reader.readLine()) != null) {
+                        int tab = line.indexOf('\t');
+
+                        if (tab > 0) {
+                            String className = line.substring(tab + 1).trim();
+                            index.computeIfAbsent(line.substring(0, tab), k -> new HashSet<>()).add(className);
+                            roots.putIfAbsent(className, root);
+                        }
+                    }
+                }
+            }
+
+            return true;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+        return (classLoader == null) ? AnnotationIndex.class.getClassLoader() : classLoader;
+    }
+
+}
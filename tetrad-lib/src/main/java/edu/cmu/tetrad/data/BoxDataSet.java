@@ -1082,8 +1082,12 @@ public final class BoxDataSet implements DataSet, TetradSerializable {
 
         DataBox newBox = this.dataBox.viewSelection(rows, cols);
 
-        BoxDataSet _data = new BoxDataSet(this);
-        _data.dataBox = newBox;
+        // Only the selected rows are copied, not the whole box.
+        BoxDataSet _data = new BoxDataSet(newBox, variables);
+        _data.name = name;
+        _data.selection = new HashSet<>(selection);
+        _data.multipliers = new HashMap<>(multipliers);
+        _data.knowledge = knowledge.copy();
 
         return _data;
     }
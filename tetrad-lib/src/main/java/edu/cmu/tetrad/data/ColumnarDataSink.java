@@ -0,0 +1,158 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes chunks of rows to a file in the binary columnar format of
+ * <code>ColumnarDataWriter</code>. Since the columns are stored one after
+ * another and the number of rows is not known until the sink is closed, each
+ * chunk is spooled column by column to a temporary file next to the target,
+ * and the column pieces are copied into place on close. Memory use does not
+ * depend on the number of rows or chunks written.
+ */
+public class ColumnarDataSink implements DataSink {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final File file;
+    private List<Node> variables;
+    private File spoolFile;
+    private DataOutputStream spool;
+    private final List<Long> chunkOffsets = new ArrayList<>();
+    private final List<Integer> chunkRows = new ArrayList<>();
+    private long spoolLength = 0;
+    private int numRows = 0;
+
+    /**
+     * @param file The file to write to. It is overwritten if it exists.
+     */
+    public ColumnarDataSink(File file) {
+        if (file == null) {
+            throw new NullPointerException("File not specified.");
+        }
+
+        this.file = file;
+    }
+
+    @Override
+    public void open(List<Node> variables) throws IOException {
+        if (this.variables != null) {
+            throw new IllegalStateException("Sink has already been opened: " + file);
+        }
+
+        this.variables = new ArrayList<>(variables);
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        this.spoolFile = File.createTempFile(file.getName(), ".spool", dir);
+        this.spool = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(spoolFile), BUFFER_SIZE));
+    }
+
+    @Override
+    public void write(DataSet chunk) throws IOException {
+        if (variables == null) {
+            throw new IllegalStateException("Sink has not been opened: " + file);
+        }
+
+        if (chunk.getNumColumns() != variables.size()) {
+            throw new IllegalArgumentException("Expecting " + variables.size() + " columns; chunk has "
+                    + chunk.getNumColumns() + ".");
+        }
+
+        int rows = chunk.getNumRows();
+        chunkOffsets.add(spoolLength);
+        chunkRows.add(rows);
+
+        for (int col = 0; col < variables.size(); col++) {
+            if (variables.get(col) instanceof DiscreteVariable) {
+                for (int row = 0; row < rows; row++) {
+                    spool.writeInt(chunk.getInt(row, col));
+                }
+            } else {
+                for (int row = 0; row < rows; row++) {
+                    spool.writeDouble(chunk.getDouble(row, col));
+                }
+            }
+
+            spoolLength += (long) rows * ColumnarDataWriter.width(variables.get(col));
+        }
+
+        numRows += rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (variables == null || spool == null) {
+            return;
+        }
+
+        spool.close();
+        spool = null;
+
+        try (FileOutputStream stream = new FileOutputStream(file);
+             FileChannel in = new FileInputStream(spoolFile).getChannel()) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+            ColumnarDataWriter.writeHeader(out, variables, numRows);
+            out.flush();
+
+            FileChannel channel = stream.getChannel();
+            long columnStart = 0;
+
+            for (Node variable : variables) {
+                int width = ColumnarDataWriter.width(variable);
+
+                for (int c = 0; c < chunkRows.size(); c++) {
+                    long position = chunkOffsets.get(c) + (long) chunkRows.get(c) * columnStart;
+                    long count = (long) chunkRows.get(c) * width;
+
+                    while (count > 0) {
+                        long transferred = in.transferTo(position, count, channel);
+                        position += transferred;
+                        count -= transferred;
+                    }
+                }
+
+                ColumnarDataWriter.pad(out, (long) numRows * width);
+                out.flush();
+                columnStart += width;
+            }
+        } finally {
+            spoolFile.delete();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,154 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes data sets in Tetrad's binary columnar format, which can be memory-
+ * mapped back in by <code>MappedDataBox</code> without parsing or copying.
+ * The layout (all values big-endian) is:
+ * <pre>
+ * int     magic number ("TDBC")
+ * int     format version
+ * int     header length in bytes, including padding
+ * int     number of rows
+ * int     number of columns
+ * for each column:
+ *   byte  column type (0 = continuous, 1 = discrete)
+ *   UTF   variable name
+ *   for discrete columns:
+ *     int number of categories, followed by each category as UTF
+ * padding to a multiple of 8 bytes
+ * for each column, in order:
+ *   the column's values (doubles for continuous columns, NaN for missing;
+ *   ints for discrete columns, -99 for missing), padded to a multiple of 8
+ *   bytes
+ * </pre>
+ */
+public final class ColumnarDataWriter {
+
+    static final int MAGIC = 0x54444243;
+    static final int VERSION = 1;
+    static final byte CONTINUOUS = 0;
+    static final byte DISCRETE = 1;
+
+    private ColumnarDataWriter() {
+    }
+
+    /**
+     * Writes the given data set to file in binary columnar format.
+     *
+     * @param dataSet The data set to save. Its columns must all be continuous
+     *                or discrete.
+     * @param file    The file to write to. It is overwritten if it exists.
+     * @throws IOException If there is some problem writing the file.
+     */
+    public static void writeColumnarData(DataSet dataSet, File file) throws IOException {
+        List<Node> variables = dataSet.getVariables();
+        int numRows = dataSet.getNumRows();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 1024 * 1024))) {
+            writeHeader(out, variables, numRows);
+
+            for (int col = 0; col < variables.size(); col++) {
+                if (variables.get(col) instanceof DiscreteVariable) {
+                    for (int row = 0; row < numRows; row++) {
+                        out.writeInt(dataSet.getInt(row, col));
+                    }
+                } else {
+                    for (int row = 0; row < numRows; row++) {
+                        out.writeDouble(dataSet.getDouble(row, col));
+                    }
+                }
+
+                pad(out, (long) numRows * width(variables.get(col)));
+            }
+        }
+    }
+
+    /**
+     * Writes the header, padded to a multiple of 8 bytes.
+     */
+    static void writeHeader(DataOutputStream out, List<Node> variables, int numRows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream columns = new DataOutputStream(bytes);
+
+        for (Node variable : variables) {
+            if (variable instanceof DiscreteVariable) {
+                List<String> categories = ((DiscreteVariable) variable).getCategories();
+                columns.writeByte(DISCRETE);
+                columns.writeUTF(variable.getName());
+                columns.writeInt(categories.size());
+
+                for (String category : categories) {
+                    columns.writeUTF(category);
+                }
+            } else if (variable instanceof ContinuousVariable) {
+                columns.writeByte(CONTINUOUS);
+                columns.writeUTF(variable.getName());
+            } else {
+                throw new IllegalArgumentException("Only continuous and discrete variables can be "
+                        + "written in columnar format: " + variable);
+            }
+        }
+
+        columns.flush();
+        int length = 20 + bytes.size();
+        int padding = (int) paddingFor(length);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(length + padding);
+        out.writeInt(numRows);
+        out.writeInt(variables.size());
+        bytes.writeTo(out);
+        out.write(new byte[padding]);
+    }
+
+    /**
+     * @return the number of bytes each value of the given variable takes up.
+     */
+    static int width(Node variable) {
+        return variable instanceof DiscreteVariable ? 4 : 8;
+    }
+
+    /**
+     * Pads a block of the given length out to a multiple of 8 bytes.
+     */
+    static void pad(DataOutputStream out, long length) throws IOException {
+        out.write(new byte[(int) paddingFor(length)]);
+    }
+
+    static long paddingFor(long length) {
+        return (8 - length % 8) % 8;
+    }
+}
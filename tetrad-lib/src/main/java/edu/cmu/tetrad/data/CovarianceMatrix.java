@@ -102,9 +102,17 @@ public class CovarianceMatrix implements ICovarianceMatrix {
             throw new IllegalArgumentException("Not a continuous data set.");
         }
 
-        CovariancesDoubleForkJoin covariances = new CovariancesDoubleForkJoin(dataSet.getDoubleData().toArray(), biasCorrected);
         this.variables = Collections.unmodifiableList(dataSet.getVariables());
         this.sampleSize = dataSet.getNumRows();
+
+        // Lagged views of a time series are not expanded.
+        if (dataSet instanceof BoxDataSet && ((BoxDataSet) dataSet).getDataBox() instanceof LaggedDataBox) {
+            LaggedDataBox box = (LaggedDataBox) ((BoxDataSet) dataSet).getDataBox();
+            this._covariancesMatrix = new Matrix(box.covariances(biasCorrected));
+            return;
+        }
+
+        CovariancesDoubleForkJoin covariances = new CovariancesDoubleForkJoin(dataSet.getDoubleData().toArray(), biasCorrected);
         this._covariancesMatrix = new Matrix(covariances.getMatrix());
     }
 
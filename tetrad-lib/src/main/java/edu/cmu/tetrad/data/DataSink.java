@@ -0,0 +1,52 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A destination for rectangular data that is produced a chunk of rows at a
+ * time, so that a data set can be written out without ever being held in
+ * memory in its entirety. A sink is opened once with the variables of the
+ * data set, then handed successive chunks of rows, then closed.
+ */
+public interface DataSink extends Closeable {
+
+    /**
+     * Starts the data set. Must be called exactly once, before any rows are
+     * written.
+     *
+     * @param variables The variables of the data set, in column order.
+     */
+    void open(List<Node> variables) throws IOException;
+
+    /**
+     * Appends the rows of the given chunk to the data set. The chunk must have
+     * the same columns, in the same order, as the variables the sink was
+     * opened with.
+     */
+    void write(DataSet chunk) throws IOException;
+}
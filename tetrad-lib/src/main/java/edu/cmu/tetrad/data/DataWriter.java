@@ -51,7 +51,6 @@ public final class DataWriter {
      */
     public static void writeRectangularData(DataSet dataSet,
                                             Writer out, char separator) throws IOException {
-        NumberFormat nf = NumberFormatUtil.getInstance().getNumberFormat();
         StringBuilder buf = new StringBuilder();
 
 //        boolean isCaseMultipliersCollapsed = dataSet.isMulipliersCollapsed();
@@ -60,8 +59,26 @@ public final class DataWriter {
 //            buf.append("MULT").append(separator);
 //        }
 
-        for (int col = 0; col < dataSet.getNumColumns(); col++) {
-            String name = dataSet.getVariable(col).getName();
+        appendHeader(dataSet.getVariables(), buf, separator);
+        appendRows(dataSet, buf, separator);
+
+        buf.append("\n");
+        out.write(buf.toString());
+        out.close();
+    }
+
+    /**
+     * Appends the header line of a rectangular data file (the variable names,
+     * separated by <code>separator</code>) to the given buffer. No line break
+     * is appended.
+     *
+     * @param variables The variables of the data set, in column order.
+     * @param buf       The buffer to append to.
+     * @param separator The character separating fields, usually '\t' or ','.
+     */
+    public static void appendHeader(List<Node> variables, StringBuilder buf, char separator) {
+        for (int col = 0; col < variables.size(); col++) {
+            String name = variables.get(col).getName();
 
             if (name.trim().equals("")) {
                 name = "C" + (col - 1);
@@ -69,10 +86,24 @@ public final class DataWriter {
 
             buf.append(name);
 
-            if (col < dataSet.getNumColumns() - 1) {
+            if (col < variables.size() - 1) {
                 buf.append(separator);
             }
         }
+    }
+
+    /**
+     * Appends the rows of the given data set to the given buffer, each
+     * preceded by a line break, in the format used by
+     * <code>writeRectangularData</code>. This allows a data set to be written
+     * out one chunk of rows at a time under a single header.
+     *
+     * @param dataSet   The rows to append.
+     * @param buf       The buffer to append to.
+     * @param separator The character separating fields, usually '\t' or ','.
+     */
+    public static void appendRows(DataSet dataSet, StringBuilder buf, char separator) {
+        NumberFormat nf = NumberFormatUtil.getInstance().getNumberFormat();
 
         for (int row = 0; row < dataSet.getNumRows(); row++) {
             buf.append("\n");
@@ -109,10 +140,6 @@ public final class DataWriter {
                 }
             }
         }
-
-        buf.append("\n");
-        out.write(buf.toString());
-        out.close();
     }
 
 //    /**
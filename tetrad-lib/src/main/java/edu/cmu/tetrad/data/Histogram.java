@@ -22,28 +22,65 @@
 package edu.cmu.tetrad.data;
 
 import edu.cmu.tetrad.graph.Node;
-import edu.cmu.tetrad.util.StatUtils;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
 
 import static java.lang.Math.ceil;
 import static java.lang.Math.log;
 
 /**
  * Model for a conditional histogram for mixed continuous and discrete variables.
+ * <p>
+ * Columns are copied out of the data set into primitive arrays the first time
+ * they're needed. Frequencies are counted in parallel chunks whose bin counts
+ * are summed, and are remembered for each combination of target, number of bins
+ * and conditioning, so repainting or returning to an earlier conditioning
+ * doesn't count again.
  *
  * @author Joseph Ramsey
  */
 public class Histogram {
+
+    /**
+     * Chunks of rows at most this long are counted directly.
+     */
+    private static final int CHUNK = 100000;
+
+    /**
+     * The number of frequency arrays remembered.
+     */
+    private static final int MAX_CACHED = 64;
+
     private Node target;
     private int numBins = 8;
     private DataSet dataSet;
     private Map<Node, double[]> continuousIntervals;
     private Map<Node, Integer> discreteValues;
 
+    /**
+     * Columns of the data set, copied out as they're needed.
+     */
+    private final Map<Node, double[]> doubleColumns = new HashMap<>();
+    private final Map<Node, int[]> intColumns = new HashMap<>();
+
+    /**
+     * The rows satisfying the current conditioning, or null if they need to be
+     * found again.
+     */
+    private int[] conditionedRows;
+
+    /**
+     * Frequencies already counted, keyed by target, number of bins and
+     * conditioning.
+     */
+    private final Map<String, int[]> frequencies = new LinkedHashMap<String, int[]>(MAX_CACHED, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
     //==========================================CONSTRUCTORS==================================//
 
     /**
@@ -78,6 +115,7 @@ public class Histogram {
         this.target = _target;
         this.continuousIntervals = new HashMap<>();
         this.discreteValues = new HashMap<>();
+        this.conditionedRows = null;
         numBins = (int) ceil(log(dataSet.getNumRows()) / log(2) + 1);
     }
 
@@ -98,6 +136,7 @@ public class Histogram {
             throw new IllegalArgumentException("Please remove conditioning variable first.");
 
         continuousIntervals.put(node, new double[]{low, high});
+        conditionedRows = null;
     }
 
     /**
@@ -111,6 +150,7 @@ public class Histogram {
         if (node == target) throw new IllegalArgumentException("Conditioning node may not be the target.");
         if (!(node instanceof DiscreteVariable)) throw new IllegalArgumentException("Variable must be discrete.");
         discreteValues.put(node, value);
+        conditionedRows = null;
     }
 
     /**
@@ -126,11 +166,13 @@ public class Histogram {
         }
         continuousIntervals.remove(node);
         discreteValues.remove(node);
+        conditionedRows = null;
     }
 
     public void removeConditioningVariables() {
         this.continuousIntervals = new HashMap<>();
         this.discreteValues = new HashMap<>();
+        this.conditionedRows = null;
     }
 
     /**
@@ -150,45 +192,30 @@ public class Histogram {
      * @return the counts for the histogram, one count for each target, in an integer array.
      */
     public int[] getFrequencies() {
-        if (target instanceof ContinuousVariable) {
-            List<Double> _data = getConditionedDataContinuous();
-            double[] breakpoints = getBreakpoints(_data, numBins);
-
-            int[] counts = new int[numBins];
-
-            for (Double d : _data) {
-                boolean sorted = false;
-
-                int h;
-
-                for (h = 0; h < breakpoints.length; h++) {
-                    if (breakpoints[h] > d) {
-                        counts[h]++;
-                        sorted = true;
-                        break;
-                    }
-                }
-
-                if (!sorted) {
-                    counts[breakpoints.length]++;
-                }
+        String key = getCacheKey();
+        int[] counts = frequencies.get(key);
+
+        if (counts == null) {
+            int[] rows = getConditionedRows();
+
+            if (target instanceof ContinuousVariable) {
+                double[] data = getDoubleColumn(target);
+                double[] breakpoints = getBreakpoints(data, rows, numBins);
+                counts = ForkJoinPoolInstance.getInstance().getPool().invoke(
+                        new CountTask(data, null, breakpoints, numBins, rows, 0, rows.length));
+            } else if (target instanceof DiscreteVariable) {
+                DiscreteVariable _var = (DiscreteVariable) target;
+                counts = ForkJoinPoolInstance.getInstance().getPool().invoke(
+                        new CountTask(null, getIntColumn(target), null, _var.getNumCategories(),
+                                rows, 0, rows.length));
+            } else {
+                throw new IllegalArgumentException("Unrecognized variable type.");
             }
 
-            return counts;
-        } else if (target instanceof DiscreteVariable) {
-            DiscreteVariable _var = (DiscreteVariable) target;
-            List<Integer> _data = getConditionedDataDiscrete();
-
-            int[] counts = new int[_var.getNumCategories()];
-
-            for (Integer d : _data) {
-                counts[d]++;
-            }
-
-            return counts;
-        } else {
-            throw new IllegalArgumentException("Unrecognized variable type.");
+            frequencies.put(key, counts);
         }
+
+        return Arrays.copyOf(counts, counts.length);
     }
 
     /**
@@ -196,9 +223,8 @@ public class Histogram {
      * for the unconditioned data.
      */
     public double getMax() {
-        List<Double> conditionedDataContinuous = getUnconditionedDataContinuous();
-        double[] d = asDoubleArray(conditionedDataContinuous);
-        return StatUtils.max(d);
+        double[] d = getDoubleColumn(target);
+        return getMinMax(d, allRows())[1];
     }
 
     /**
@@ -206,9 +232,8 @@ public class Histogram {
      * for the unconditioned data.
      */
     public double getMin() {
-        List<Double> conditionedDataContinuous = getUnconditionedDataContinuous();
-        double[] d = asDoubleArray(conditionedDataContinuous);
-        return StatUtils.min(d);
+        double[] d = getDoubleColumn(target);
+        return getMinMax(d, allRows())[0];
     }
 
     /**
@@ -216,8 +241,7 @@ public class Histogram {
      * less than the sample size of the data set because of conditioning.
      */
     public int getN() {
-        List<Double> conditionedDataContinuous = getConditionedDataContinuous();
-        return conditionedDataContinuous.size();
+        return getConditionedRows().length;
     }
 
     /**
@@ -227,14 +251,8 @@ public class Histogram {
      * @param variable The name of the variable.
      */
     public double[] getContinuousData(String variable) {
-        int index = dataSet.getColumn(dataSet.getVariable(variable));
-        List<Double> _data = new ArrayList<>();
-
-        for (int i = 0; i < dataSet.getNumRows(); i++) {
-            _data.add(dataSet.getDouble(i, index));
-        }
-
-        return asDoubleArray(_data);
+        double[] data = getDoubleColumn(dataSet.getVariable(variable));
+        return Arrays.copyOf(data, data.length);
     }
 
     /**
@@ -262,13 +280,17 @@ public class Histogram {
         }
     }
 
+    public Node getTargetNode() {
+        return target;
+    }
+
     //======================================PRIVATE METHODS=======================================//
 
-    private double[] getBreakpoints(List<Double> data, int numBins) {
-        double[] _data = asDoubleArray(data);
+    private double[] getBreakpoints(double[] data, int[] rows, int numBins) {
+        double[] minMax = getMinMax(data, rows);
 
-        double max = StatUtils.max(_data);
-        double min = StatUtils.min(_data);
+        double max = minMax[1];
+        double min = minMax[0];
 
         double interval = (max - min) / numBins;
 
@@ -281,88 +303,207 @@ public class Histogram {
         return breakpoints;
     }
 
-    private double[] asDoubleArray(List<Double> data) {
-        double[] _data = new double[data.size()];
-        for (int i = 0; i < data.size(); i++) _data[i] = data.get(i);
-        return _data;
-    }
-
-    private List<Double> getUnconditionedDataContinuous() {
-        int index = dataSet.getColumn(target);
+    /**
+     * Returns the min and max of the given rows of the data the way StatUtils
+     * does: seeded with the first value, so NaN if that value is NaN, and
+     * skipping NaNs after that. Both are NaN if there are no rows.
+     */
+    private static double[] getMinMax(double[] data, int[] rows) {
+        if (rows.length == 0 || Double.isNaN(data[rows[0]])) {
+            return new double[]{Double.NaN, Double.NaN};
+        }
 
-        List<Double> _data = new ArrayList<>();
+        double min = data[rows[0]];
+        double max = min;
 
-        for (int i = 0; i < dataSet.getNumRows(); i++) {
-            _data.add(dataSet.getDouble(i, index));
+        for (int row : rows) {
+            double d = data[row];
+            if (d < min) min = d;
+            if (d > max) max = d;
         }
 
-        return _data;
+        return new double[]{min, max};
     }
 
-    private List<Double> getConditionedDataContinuous() {
-        List<Integer> rows = getConditionedRows();
+    private double[] getDoubleColumn(Node node) {
+        double[] column = doubleColumns.get(node);
 
-        int index = dataSet.getColumn(target);
+        if (column == null) {
+            int index = dataSet.getColumn(node);
+            column = new double[dataSet.getNumRows()];
 
-        List<Double> _data = new ArrayList<>();
+            for (int i = 0; i < column.length; i++) {
+                column[i] = dataSet.getDouble(i, index);
+            }
 
-        for (Integer row : rows) {
-            _data.add(dataSet.getDouble(row, index));
+            doubleColumns.put(node, column);
         }
 
-        return _data;
+        return column;
     }
 
-    private List<Integer> getConditionedDataDiscrete() {
-        List<Integer> rows = getConditionedRows();
+    private int[] getIntColumn(Node node) {
+        int[] column = intColumns.get(node);
 
-        int index = dataSet.getColumn(target);
+        if (column == null) {
+            int index = dataSet.getColumn(node);
+            column = new int[dataSet.getNumRows()];
 
-        List<Integer> _data = new ArrayList<>();
+            for (int i = 0; i < column.length; i++) {
+                column[i] = dataSet.getInt(i, index);
+            }
 
-        for (Integer row : rows) {
-            _data.add(dataSet.getInt(row, index));
+            intColumns.put(node, column);
         }
 
-        return _data;
+        return column;
+    }
+
+    private int[] allRows() {
+        int[] rows = new int[dataSet.getNumRows()];
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+        return rows;
     }
 
     // Returns the rows in the data that satisfy the conditioning constraints.
-    private List<Integer> getConditionedRows() {
-        List<Integer> rows = new ArrayList<>();
+    private int[] getConditionedRows() {
+        if (conditionedRows != null) {
+            return conditionedRows;
+        }
+
+        List<double[]> ranges = new ArrayList<>();
+        List<double[]> rangeColumns = new ArrayList<>();
+
+        for (Node node : continuousIntervals.keySet()) {
+            ranges.add(continuousIntervals.get(node));
+            rangeColumns.add(getDoubleColumn(node));
+        }
+
+        List<Integer> values = new ArrayList<>();
+        List<int[]> valueColumns = new ArrayList<>();
+
+        for (Node node : discreteValues.keySet()) {
+            values.add(discreteValues.get(node));
+            valueColumns.add(getIntColumn(node));
+        }
+
+        int[] rows = new int[dataSet.getNumRows()];
+        int numRows = 0;
 
         I:
-        for (int i = 0; i < dataSet.getNumRows(); i++) {
-            for (Node node : continuousIntervals.keySet()) {
-                double[] range = continuousIntervals.get(node);
-                int index = dataSet.getColumn(node);
-                double value = dataSet.getDouble(i, index);
+        for (int i = 0; i < rows.length; i++) {
+            for (int k = 0; k < ranges.size(); k++) {
+                double[] range = ranges.get(k);
+                double value = rangeColumns.get(k)[i];
                 if (!(value > range[0] && value < range[1])) {
                     continue I;
                 }
             }
 
-            for (Node node : discreteValues.keySet()) {
-                int value = discreteValues.get(node);
-                int index = dataSet.getColumn(node);
-                int _value = dataSet.getInt(i, index);
-                if (!(value == _value)) {
+            for (int k = 0; k < values.size(); k++) {
+                if (!(values.get(k) == valueColumns.get(k)[i])) {
                     continue I;
                 }
             }
 
-            rows.add(i);
+            rows[numRows++] = i;
         }
 
-        return rows;
+        conditionedRows = Arrays.copyOf(rows, numRows);
+        return conditionedRows;
     }
 
-    public Node getTargetNode() {
-        return target;
+    // Identifies the target, number of bins and conditioning, independently of map order.
+    private String getCacheKey() {
+        Map<String, String> conditioning = new TreeMap<>();
+
+        for (Node node : continuousIntervals.keySet()) {
+            conditioning.put(node.getName(), Arrays.toString(continuousIntervals.get(node)));
+        }
+
+        for (Node node : discreteValues.keySet()) {
+            conditioning.put(node.getName(), discreteValues.get(node).toString());
+        }
+
+        return target.getName() + " " + getNumBins() + " " + conditioning;
     }
 
-}
+    /**
+     * Counts the values in rows[from, to) into bins, splitting the range in
+     * halves until it is small enough to count directly, then adding up the
+     * counts of the halves. A continuous value goes in the first bin whose
+     * breakpoint is greater than it, found by binary search, or in the last
+     * bin if there is none; a discrete value is its own bin.
+     */
+    private static class CountTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 23L;
+
+        private final double[] continuous;
+        private final int[] discrete;
+        private final double[] breakpoints;
+        private final int numBins;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        private CountTask(double[] continuous, int[] discrete, double[] breakpoints, int numBins,
+                          int[] rows, int from, int to) {
+            this.continuous = continuous;
+            this.discrete = discrete;
+            this.breakpoints = breakpoints;
+            this.numBins = numBins;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= CHUNK) {
+                int[] counts = new int[numBins];
+
+                if (continuous != null) {
+                    for (int i = from; i < to; i++) {
+                        counts[bin(continuous[rows[i]])]++;
+                    }
+                } else {
+                    for (int i = from; i < to; i++) {
+                        counts[discrete[rows[i]]]++;
+                    }
+                }
+
+                return counts;
+            }
 
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(continuous, discrete, breakpoints, numBins, rows, from, mid);
+            left.fork();
+            int[] counts = new CountTask(continuous, discrete, breakpoints, numBins, rows, mid, to).compute();
+            int[] leftCounts = left.join();
 
+            for (int h = 0; h < numBins; h++) {
+                counts[h] += leftCounts[h];
+            }
+
+            return counts;
+        }
+
+        // NaN compares false against every breakpoint, so it lands in the last bin.
+        private int bin(double d) {
+            int low = 0;
+            int high = breakpoints.length;
 
+            while (low < high) {
+                int mid = (low + high) >>> 1;
 
+                if (breakpoints[mid] > d) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+
+            return low;
+        }
+    }
+}
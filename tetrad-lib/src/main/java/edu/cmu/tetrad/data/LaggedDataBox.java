@@ -0,0 +1,264 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of a time series as lagged data, without copying it. For a series with n rows and p columns and a given
+ * number of lags L, this has n - L rows and (L + 1) * p columns; column lag * p + j at row r is column j of the
+ * series at row r + L - lag. The series is never written; the first value set copies the view into a DoubleDataBox,
+ * which holds the values from then on, so editing lagged data leaves the series as it was. Until then, edits to the
+ * series show up here; pass a copy of the series (as TimeSeriesUtils.createLagData does) if it may change.
+ */
+public class LaggedDataBox implements DataBox {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The time series being viewed.
+     */
+    private final DataBox series;
+
+    /**
+     * The number of lags.
+     */
+    private final int numLags;
+
+    /**
+     * The lagged values, once a value has been set; null while this is still a view of the series.
+     */
+    private DoubleDataBox values;
+
+    /**
+     * Constructs a lagged view of the given series with the given number of lags.
+     */
+    public LaggedDataBox(DataBox series, int numLags) {
+        if (series == null) {
+            throw new NullPointerException("Series not specified.");
+        }
+
+        if (numLags < 0 || numLags >= series.numRows()) {
+            throw new IllegalArgumentException("Number of lags must be >= 0 and less than the number of rows: "
+                    + numLags);
+        }
+
+        this.series = series;
+        this.numLags = numLags;
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static BoxDataSet serializableInstance() {
+        List<Node> vars = new ArrayList<>();
+        for (int i = 0; i < 4; i++) vars.add(new ContinuousVariable("X" + i));
+        return new BoxDataSet(new LaggedDataBox(new DoubleDataBox(4, 2), 1), vars);
+    }
+
+    /**
+     * @return the number of rows in this data box.
+     */
+    public int numRows() {
+        return series.numRows() - numLags;
+    }
+
+    /**
+     * @return the number of columns in this data box.
+     */
+    public int numCols() {
+        return series.numCols() * (numLags + 1);
+    }
+
+    /**
+     * Sets the value at the given row and column, first copying the view if this is the first value set.
+     */
+    public void set(int row, int col, Number value) {
+        if (values == null) {
+            values = (DoubleDataBox) like();
+        }
+
+        values.set(row, col, value);
+    }
+
+    /**
+     * @return the value at the given row and column.
+     */
+    public Number get(int row, int col) {
+        if (values != null) {
+            return values.get(row, col);
+        }
+
+        int numVars = series.numCols();
+        return series.get(row + numLags - col / numVars, col % numVars);
+    }
+
+    /**
+     * @return a lagged view of a copy of the series, or a copy of the values if any have been set.
+     */
+    public DataBox copy() {
+        if (values != null) {
+            return values.copy();
+        }
+
+        return new LaggedDataBox(series.copy(), numLags);
+    }
+
+    /**
+     * @return a DataBox of type DoubleDataBox, but with the given dimensions.
+     */
+    public DataBox like() {
+        int[] rows = new int[numRows()];
+        int[] cols = new int[numCols()];
+
+        for (int i = 0; i < numRows(); i++) rows[i] = i;
+        for (int j = 0; j < numCols(); j++) cols[j] = j;
+
+        return viewSelection(rows, cols);
+    }
+
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        DataBox _dataBox = new DoubleDataBox(rows.length, cols.length);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                _dataBox.set(i, j, get(rows[i], cols[j]));
+            }
+        }
+
+        return _dataBox;
+    }
+
+    /**
+     * @return the time series being viewed. Once a value has been set this no longer backs the view.
+     */
+    public DataBox getSeries() {
+        return series;
+    }
+
+    /**
+     * @return the number of lags.
+     */
+    public int getNumLags() {
+        return numLags;
+    }
+
+    /**
+     * Calculates the covariance matrix of the columns of this view from the lagged cross-products of the series,
+     * without forming the lagged data. The cross-products of lags a + 1 and b + 1 are those of lags a and b over a
+     * window one row earlier, so only the blocks for lags 0 and d, d = 0, ..., L, are summed over all rows; the
+     * rest are updated from them a row at a time. This takes O(L p^2 n + L^2 p^2) time rather than O(L^2 p^2 n).
+     *
+     * @param biasCorrected True if sums of squares are divided by n - 1 rather than n, where n = numRows().
+     */
+    public double[][] covariances(boolean biasCorrected) {
+        if (values != null) {
+            return new CovariancesDoubleForkJoin(values.getData(), biasCorrected).getMatrix();
+        }
+
+        int p = series.numCols();
+        int numRows = numRows();
+        int seriesRows = series.numRows();
+
+        // The series by column, centered on its column means for accuracy; covariances don't depend on this.
+        double[][] x = new double[p][seriesRows];
+
+        for (int j = 0; j < p; j++) {
+            double sum = 0.0;
+
+            for (int t = 0; t < seriesRows; t++) {
+                Number value = series.get(t, j);
+                x[j][t] = value == null ? Double.NaN : value.doubleValue();
+                sum += x[j][t];
+            }
+
+            double mean = sum / seriesRows;
+
+            for (int t = 0; t < seriesRows; t++) {
+                x[j][t] -= mean;
+            }
+        }
+
+        // sums[lag][j] is the sum of column j at the given lag over the rows of the view.
+        double[][] sums = new double[numLags + 1][p];
+
+        for (int j = 0; j < p; j++) {
+            for (int t = numLags; t < seriesRows; t++) {
+                sums[0][j] += x[j][t];
+            }
+
+            for (int lag = 0; lag < numLags; lag++) {
+                sums[lag + 1][j] = sums[lag][j] + x[j][numLags - lag - 1] - x[j][seriesRows - 1 - lag];
+            }
+        }
+
+        double[][] cov = new double[numCols()][numCols()];
+        double[][] products = new double[p][p];
+        double divisor = biasCorrected ? numRows - 1 : numRows;
+
+        for (int d = 0; d <= numLags; d++) {
+
+            // The cross-products of lag 0 with lag d, summed over all rows.
+            for (int i = 0; i < p; i++) {
+                for (int j = 0; j < p; j++) {
+                    double sum = 0.0;
+
+                    for (int r = 0; r < numRows; r++) {
+                        sum += x[i][r + numLags] * x[j][r + numLags - d];
+                    }
+
+                    products[i][j] = sum;
+                }
+            }
+
+            // Lags a and a + d, sliding the window back a row at a time.
+            for (int a = 0; a + d <= numLags; a++) {
+                int b = a + d;
+
+                if (a > 0) {
+                    int first = numLags - a;
+                    int last = seriesRows - a;
+
+                    for (int i = 0; i < p; i++) {
+                        for (int j = 0; j < p; j++) {
+                            products[i][j] += x[i][first] * x[j][first - d] - x[i][last] * x[j][last - d];
+                        }
+                    }
+                }
+
+                for (int i = 0; i < p; i++) {
+                    for (int j = 0; j < p; j++) {
+                        double c = (products[i][j] - sums[a][i] * sums[b][j] / numRows) / divisor;
+                        cov[a * p + i][b * p + j] = c;
+                        cov[b * p + j][a * p + i] = c;
+                    }
+                }
+            }
+        }
+
+        return cov;
+    }
+}
@@ -0,0 +1,316 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A data box over a file in the binary columnar format written by
+ * <code>ColumnarDataWriter</code>. The columns are memory-mapped rather than
+ * read onto the heap, so opening even a very large file is nearly instant,
+ * and pages are loaded lazily and shared with any other process mapping the
+ * same file. The mapping is copy-on-write: values may be set, but changes are
+ * private to this box and are never written back to the file.
+ * <p>
+ * When serialized, the box is replaced by an in-memory copy, so that saved
+ * sessions do not depend on the file still being there.
+ */
+public class MappedDataBox implements DataBox {
+    static final long serialVersionUID = 23L;
+
+    /**
+     * The number of values in each mapped segment of a column; a single
+     * mapping cannot be larger than 2 GB.
+     */
+    private static final int SEGMENT_SHIFT = 27;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final String path;
+    private final List<Node> variables;
+    private final int numRows;
+    private transient DoubleBuffer[][] continuousColumns;
+    private transient IntBuffer[][] discreteColumns;
+    private transient boolean modified = false;
+    private transient boolean writable;
+
+    /**
+     * Maps the given columnar data file.
+     *
+     * @throws IOException If the file cannot be read or is not in columnar
+     *                     format.
+     */
+    public MappedDataBox(File file) throws IOException {
+        this.path = file.getPath();
+
+        int headerLength;
+        int numCols;
+        List<Node> variables = new ArrayList<>();
+        List<Byte> types = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != ColumnarDataWriter.MAGIC) {
+                throw new IOException("Not a columnar data file: " + file);
+            }
+
+            int version = in.readInt();
+
+            if (version != ColumnarDataWriter.VERSION) {
+                throw new IOException("Unsupported columnar data version " + version + ": " + file);
+            }
+
+            headerLength = in.readInt();
+            this.numRows = in.readInt();
+            numCols = in.readInt();
+
+            for (int j = 0; j < numCols; j++) {
+                byte type = in.readByte();
+                String name = in.readUTF();
+
+                if (type == ColumnarDataWriter.DISCRETE) {
+                    int numCategories = in.readInt();
+                    List<String> categories = new ArrayList<>();
+
+                    for (int k = 0; k < numCategories; k++) {
+                        categories.add(in.readUTF());
+                    }
+
+                    variables.add(new DiscreteVariable(name, categories));
+                } else if (type == ColumnarDataWriter.CONTINUOUS) {
+                    variables.add(new ContinuousVariable(name));
+                } else {
+                    throw new IOException("Unknown column type " + type + ": " + file);
+                }
+
+                types.add(type);
+            }
+        }
+
+        this.variables = Collections.unmodifiableList(variables);
+        this.continuousColumns = new DoubleBuffer[numCols][];
+        this.discreteColumns = new IntBuffer[numCols][];
+
+        // A private mapping needs a channel opened for writing, even though
+        // nothing is ever written back; read-only files are mapped read-only.
+        this.writable = file.canWrite();
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+
+        try (FileChannel channel = new RandomAccessFile(file, writable ? "rw" : "r").getChannel()) {
+            long position = headerLength;
+            int numSegments = (numRows + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT;
+
+            for (int j = 0; j < numCols; j++) {
+                int width = ColumnarDataWriter.width(variables.get(j));
+
+                if (types.get(j) == ColumnarDataWriter.DISCRETE) {
+                    discreteColumns[j] = new IntBuffer[numSegments];
+                } else {
+                    continuousColumns[j] = new DoubleBuffer[numSegments];
+                }
+
+                for (int s = 0; s < numSegments; s++) {
+                    int size = Math.min(SEGMENT_SIZE, numRows - s * SEGMENT_SIZE);
+                    long start = position + (long) s * SEGMENT_SIZE * width;
+
+                    if (discreteColumns[j] != null) {
+                        discreteColumns[j][s] = channel.map(mode, start,
+                                (long) size * width).asIntBuffer();
+                    } else {
+                        continuousColumns[j][s] = channel.map(mode, start,
+                                (long) size * width).asDoubleBuffer();
+                    }
+                }
+
+                long length = (long) numRows * width;
+                position += length + ColumnarDataWriter.paddingFor(length);
+            }
+        }
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     */
+    public static BoxDataSet serializableInstance() {
+        List<Node> vars = new ArrayList<>();
+        for (int i = 0; i < 4; i++) vars.add(new ContinuousVariable("X" + i));
+        return new BoxDataSet(new ShortDataBox(4, 4), vars);
+    }
+
+    /**
+     * Maps the given columnar data file and wraps it in a data set.
+     */
+    public static BoxDataSet loadDataSet(File file) throws IOException {
+        MappedDataBox box = new MappedDataBox(file);
+        BoxDataSet dataSet = new BoxDataSet(box, new ArrayList<>(box.getVariables()));
+        dataSet.setName(file.getName());
+        return dataSet;
+    }
+
+    /**
+     * @return the variables stored in the file, in column order.
+     */
+    public List<Node> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the file this box is mapped from.
+     */
+    public File getFile() {
+        return new File(path);
+    }
+
+    @Override
+    public int numRows() {
+        return numRows;
+    }
+
+    @Override
+    public int numCols() {
+        return variables.size();
+    }
+
+    /**
+     * Sets the value at the given row/column. The change is made to a private
+     * copy of the page and is not written to the file.
+     *
+     * @throws java.nio.ReadOnlyBufferException If the file is not writable,
+     *                                          in which case it was mapped
+     *                                          read-only; copy the data set
+     *                                          first, which for a read-only
+     *                                          file copies it into memory.
+     */
+    @Override
+    public void set(int row, int col, Number value) {
+        modified = true;
+
+        if (discreteColumns[col] != null) {
+            int v = value == null ? DiscreteVariable.MISSING_VALUE : value.intValue();
+            discreteColumns[col][row >>> SEGMENT_SHIFT].put(row & SEGMENT_MASK, v);
+        } else {
+            double v = value == null ? Double.NaN : value.doubleValue();
+            continuousColumns[col][row >>> SEGMENT_SHIFT].put(row & SEGMENT_MASK, v);
+        }
+    }
+
+    /**
+     * @return the Number value at the given row and column. If the value is
+     * missing, null is returned.
+     */
+    @Override
+    public Number get(int row, int col) {
+        if (discreteColumns[col] != null) {
+            int v = discreteColumns[col][row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+            return v == DiscreteVariable.MISSING_VALUE ? null : v;
+        } else {
+            double v = continuousColumns[col][row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+            return Double.isNaN(v) ? null : v;
+        }
+    }
+
+    /**
+     * @return a copy of this data box. If nothing has been set and the file is
+     * writable, the file is simply mapped again, which costs next to nothing;
+     * otherwise the data is copied into memory.
+     */
+    @Override
+    public DataBox copy() {
+        if (!modified && writable) {
+            try {
+                return new MappedDataBox(new File(path));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not remap " + path, e);
+            }
+        }
+
+        return inMemoryCopy();
+    }
+
+    @Override
+    public DataBox like() {
+        return copy();
+    }
+
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        List<Node> newVars = new ArrayList<>();
+
+        for (int c : cols) {
+            newVars.add(variables.get(c));
+        }
+
+        DataBox _dataBox = new MixedDataBox(newVars, rows.length);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                _dataBox.set(i, j, get(rows[i], cols[j]));
+            }
+        }
+
+        return _dataBox;
+    }
+
+    private DataBox inMemoryCopy() {
+        double[][] continuousData = new double[numCols()][];
+        int[][] discreteData = new int[numCols()][];
+
+        for (int j = 0; j < numCols(); j++) {
+            if (discreteColumns[j] != null) {
+                discreteData[j] = new int[numRows];
+
+                for (int s = 0; s < discreteColumns[j].length; s++) {
+                    IntBuffer segment = discreteColumns[j][s].duplicate();
+                    segment.rewind();
+                    segment.get(discreteData[j], s * SEGMENT_SIZE, segment.remaining());
+                }
+            } else {
+                continuousData[j] = new double[numRows];
+
+                for (int s = 0; s < continuousColumns[j].length; s++) {
+                    DoubleBuffer segment = continuousColumns[j][s].duplicate();
+                    segment.rewind();
+                    segment.get(continuousData[j], s * SEGMENT_SIZE, segment.remaining());
+                }
+            }
+        }
+
+        return new MixedDataBox(new ArrayList<>(variables), numRows, continuousData, discreteData);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return inMemoryCopy();
+    }
+}
@@ -0,0 +1,119 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes chunks of rows to a delimited text file, in the same format as
+ * <code>DataWriter.writeRectangularData</code>, optionally gzip-compressed.
+ * Only one chunk is formatted at a time, so memory use does not depend on
+ * the number of rows written. Compressed files can be read back by the
+ * tabular readers in the data-reader module.
+ */
+public class TabularDataSink implements DataSink {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final File file;
+    private final char separator;
+    private final boolean compressed;
+    private Writer out;
+    private int numColumns = -1;
+
+    /**
+     * @param file       The file to write to. It is overwritten if it exists.
+     * @param separator  The character separating fields, usually '\t' or ','.
+     * @param compressed True if the file should be gzip-compressed.
+     */
+    public TabularDataSink(File file, char separator, boolean compressed) {
+        if (file == null) {
+            throw new NullPointerException("File not specified.");
+        }
+
+        this.file = file;
+        this.separator = separator;
+        this.compressed = compressed;
+    }
+
+    @Override
+    public void open(List<Node> variables) throws IOException {
+        if (out != null) {
+            throw new IllegalStateException("Sink has already been opened: " + file);
+        }
+
+        OutputStream stream = new FileOutputStream(file);
+
+        if (compressed) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+
+        out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        numColumns = variables.size();
+
+        StringBuilder buf = new StringBuilder();
+        DataWriter.appendHeader(variables, buf, separator);
+        out.write(buf.toString());
+    }
+
+    @Override
+    public void write(DataSet chunk) throws IOException {
+        if (out == null) {
+            throw new IllegalStateException("Sink has not been opened: " + file);
+        }
+
+        if (chunk.getNumColumns() != numColumns) {
+            throw new IllegalArgumentException("Expecting " + numColumns + " columns; chunk has "
+                    + chunk.getNumColumns() + ".");
+        }
+
+        StringBuilder buf = new StringBuilder();
+        DataWriter.appendRows(chunk, buf, separator);
+        out.write(buf.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+
+        out.write("\n");
+        out.close();
+        out = null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
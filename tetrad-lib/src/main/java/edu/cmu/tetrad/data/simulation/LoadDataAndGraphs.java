@@ -6,10 +6,18 @@ import edu.cmu.tetrad.data.DataReader;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DataType;
 import edu.cmu.tetrad.data.DelimiterType;
+import edu.cmu.tetrad.data.MappedDataBox;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.util.DataConvertUtils;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.data.reader.DataColumn;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.data.reader.tabular.TabularColumnFileReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularColumnReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularDataFileReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularDataReader;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
@@ -61,6 +69,22 @@ public class LoadDataAndGraphs implements Simulation {
                     GraphUtils.circleLayout(this.graphs.get(i), 225, 200, 150);
 
                     File file1 = new File(path + "/data/data." + (i + 1) + ".txt");
+                    File compressedFile = new File(path + "/data/data." + (i + 1) + ".txt.gz");
+
+                    File columnarFile = new File(path + "/data/data." + (i + 1) + ".tbc");
+
+                    if (!file1.exists() && columnarFile.exists()) {
+                        stdout.println("Mapping data from " + columnarFile.getAbsolutePath());
+                        dataSets.add(MappedDataBox.loadDataSet(columnarFile));
+                        continue;
+                    }
+
+                    if (!file1.exists() && compressedFile.exists()) {
+                        stdout.println("Loading data from " + compressedFile.getAbsolutePath());
+                        dataSets.add(loadCompressedData(compressedFile,
+                                parameters.getInt("maxDistinctValuesDiscrete")));
+                        continue;
+                    }
 
                     stdout.println("Loading data from " + file1.getAbsolutePath());
 
@@ -126,6 +150,21 @@ public class LoadDataAndGraphs implements Simulation {
         }
     }
 
+    // The legacy DataReader only reads plain text, so gzipped data saved by
+    // Comparison is read with the data-reader module instead.
+    private DataSet loadCompressedData(File file, int maxDistinctValuesDiscrete) throws IOException {
+        TabularColumnReader columnReader = new TabularColumnFileReader(file.toPath(), Delimiter.TAB);
+        columnReader.setCommentMarker("//");
+        DataColumn[] dataColumns = columnReader.readInDataColumns(false);
+
+        TabularDataReader dataReader = new TabularDataFileReader(file.toPath(), Delimiter.TAB);
+        dataReader.setCommentMarker("//");
+        dataReader.setMissingDataMarker("*");
+        dataReader.determineDiscreteDataColumns(dataColumns, maxDistinctValuesDiscrete, true);
+
+        return (DataSet) DataConvertUtils.toDataModel(dataReader.read(dataColumns, true));
+    }
+
     @Override
     public Graph getTrueGraph(int index) {
         return graphs.get(index);
@@ -264,13 +264,13 @@ public class BooleanGlassFunction implements UpdateFunction {
     /**
      * Returns the value of the function.
      */
-    public double getValue(int factor, double[][] history) {
+    public double getValue(int factor, GeneHistory history) {
         // 2/15/02: Cutuff expression levels at the low
         // end. Note that the old simulation can be recovered
         // by initializing using a Normal(0, 1) and setting
         // the lower bound to Double.NEGATIVE_INFINITY. J
         // Ramsey 2/22/02
-        double v0 = history[1][factor];
+        double v0 = history.getLevel(1, factor);
         double v1 = -decayRate * (v0 - this.basalExpression);
         double v2 = booleanInfluenceRate * getFValue(factor, history);
         double v3 = errorDistributions[factor].nextRandom();
@@ -295,7 +295,7 @@ public class BooleanGlassFunction implements UpdateFunction {
      * @return 1.0 or -1.0 depending on whether the boolean value
      *         looked up in the table is <pre>true</pre> or <pre>false</pre>.
      */
-    public double getFValue(int factor, double[][] history) {
+    public double getFValue(int factor, GeneHistory history) {
         if (booleanFunctions[factor] == null) {
             return 0.0;
         } else {
@@ -308,7 +308,7 @@ public class BooleanGlassFunction implements UpdateFunction {
             boolean[] parentValues = new boolean[parents.length];
             for (int i = 0; i < parentValues.length; i++) {
                 IndexedParent parent = (IndexedParent) parents[i];
-                double histVal = history[parent.getLag()][parent.getIndex()];
+                double histVal = history.getLevel(parent.getLag(), parent.getIndex());
                 parentValues[i] = histVal > this.basalExpression ? true : false;
             }
 
@@ -72,12 +72,20 @@ public class GeneHistory implements TetradSerializable {
      * as is necessary for the update function to be applied properly (that is,
      * from maxlag up to 0, the getModel time step). Note that the firs subscript
      * is the time slice, whereas the second subscript is the expression level
-     * for each gene.
+     * for each gene. The time slices are stored in a ring; the slice for lag k
+     * is historyArray[(current + k) % historyArray.length].
      *
      * @serial
      */
     private double[][] historyArray;
 
+    /**
+     * The index in historyArray of the getModel time slice.
+     *
+     * @serial
+     */
+    private int current;
+
     /**
      * Indicates whether initialization should be synchronized or not. If it's
      * synchronized, then the same (or almost the same) set of initial random
@@ -131,6 +139,23 @@ public class GeneHistory implements TetradSerializable {
         }
     }
 
+    /**
+     * Constructs a history that shares the initializer, update function, update
+     * periods, dish model and stored synchronized initialization of the given
+     * history but has its own history array, so that several cells can be
+     * simulated at once. If initialization is synchronized, the given history
+     * should be initialized first, so that all copies start from the same
+     * stored values.
+     */
+    public GeneHistory(GeneHistory history) {
+        this.initializer = history.initializer;
+        this.updateFunction = history.updateFunction;
+        this.updatePeriods = history.updatePeriods;
+        this.initSync = history.initSync;
+        this.syncInitialization = history.syncInitialization;
+        this.dishModel = history.dishModel;
+    }
+
     /**
      * Generates a simple exemplar of this class to test serialization.
      */
@@ -167,12 +192,31 @@ public class GeneHistory implements TetradSerializable {
      * Returns the getModel history array.  In the array, historyArray[0]
      * represents the getModel time step, historyArray[1] the time step one lag
      * back, historyArray[2] the time step two lags back, etc., up to the
-     * maximum time lag.
+     * maximum time lag. The rows are shared with this history, so they change
+     * as it is updated.
      *
      * @return this array.
      */
     public double[][] getHistoryArray() {
-        return historyArray;
+        if (historyArray == null) {
+            return null;
+        }
+
+        double[][] lagged = new double[historyArray.length][];
+
+        for (int lag = 0; lag < historyArray.length; lag++) {
+            lagged[lag] = historyArray[(current + lag) % historyArray.length];
+        }
+
+        return lagged;
+    }
+
+    /**
+     * Returns the expression level of the given factor the given number of
+     * time steps back from the getModel time step.
+     */
+    public double getLevel(int lag, int factor) {
+        return historyArray[(current + lag) % historyArray.length][factor];
     }
 
     /**
@@ -218,20 +262,15 @@ public class GeneHistory implements TetradSerializable {
      */
     public void update() {
 
-        double[] last = historyArray[historyArray.length - 1];
-
-        for (int i = historyArray.length - 1; i > 0; i--) {
-            historyArray[i] = historyArray[i - 1];
-        }
-
-        historyArray[0] = last;
+        // The oldest time slice is reused for the new getModel time slice.
+        current = (current + historyArray.length - 1) % historyArray.length;
+        double[] levels = historyArray[current];
 
         ++this.step;
 
         for (int i = 0; i < updateFunction.getNumFactors(); i++) {
             if (this.step % updatePeriods[i] == 0) {
-                historyArray[0][i] =
-                        this.updateFunction.getValue(i, historyArray);
+                levels[i] = this.updateFunction.getValue(i, this);
             }
         }
     }
@@ -253,6 +292,9 @@ public class GeneHistory implements TetradSerializable {
 
                 getInitializer().initialize(syncInitialization);
             }
+            else if (historyArray == null) {
+                historyArray = new double[maxLag + 1][numFactors];
+            }
 
             // copy values from the stored initialization array to the real
             // history array.
@@ -291,6 +333,7 @@ public class GeneHistory implements TetradSerializable {
             System.out.println();
         }
 
+        this.current = 0;
         this.step = -1;
     }
 
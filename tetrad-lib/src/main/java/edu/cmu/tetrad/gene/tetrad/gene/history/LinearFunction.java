@@ -90,7 +90,7 @@ public class LinearFunction implements UpdateFunction {
     /**
      * Returns the value of the function.
      */
-    public double getValue(int factorIndex, double[][] history) {
+    public double getValue(int factorIndex, GeneHistory history) {
         return this.polynomialFunction.getValue(factorIndex, history);
     }
 
@@ -104,13 +104,13 @@ public class PolynomialFunction implements UpdateFunction {
     /**
      * Returns the value of the function.
      */
-    public double getValue(int factorIndex, double[][] history) {
+    public double getValue(int factorIndex, GeneHistory history) {
 
         int numParents = this.connectivity.getNumParents(factorIndex);
         double[] values = new double[numParents];
         for (int i = 0; i < numParents; i++) {
             IndexedParent parent = this.connectivity.getParent(factorIndex, i);
-            values[i] = history[parent.getLag()][parent.getIndex()];
+            values[i] = history.getLevel(parent.getLag(), parent.getIndex());
         }
         return polynomials[factorIndex].evaluate(values) +
                 errorDistributions[factorIndex].nextRandom();
@@ -52,10 +52,10 @@ public interface UpdateFunction extends TetradSerializable {
      * Returns the value of the glass function for a given factor.
      *
      * @param factorIndex the index of the factor
-     * @param history     the history array.
+     * @param history     the history, read through getLevel(lag, factor).
      * @return the value of the Glass function for this factor.
      */
-    double getValue(int factorIndex, double[][] history);
+    double getValue(int factorIndex, GeneHistory history);
 
     /**
      * Returns the number of factors in the history. This is used to set up the
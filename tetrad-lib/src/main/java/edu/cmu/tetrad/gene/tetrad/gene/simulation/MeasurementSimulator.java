@@ -21,7 +21,9 @@
 
 package edu.cmu.tetrad.gene.tetrad.gene.simulation;
 
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetrad.util.TetradSerializable;
 import edu.cmu.tetrad.util.dist.Distribution;
 import edu.cmu.tetrad.util.dist.Normal;
@@ -31,7 +33,12 @@ import edu.cmu.tetrad.gene.tetrad.gene.history.UpdateFunction;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * <p>Simulates measurement genetic data using an underlying GeneHistory object
@@ -99,6 +106,14 @@ public class MeasurementSimulator implements TetradSerializable {
 
     private boolean antilogCalculated = false;
 
+    private boolean cellsSimulatedInParallel = false;
+
+    /**
+     * The number of cells simulated together by one task when cells are
+     * simulated in parallel.
+     */
+    private static final int CELLS_PER_BLOCK = 256;
+
     // Constructed parameters available for retrieval after data has
     // been simulated.
 
@@ -425,6 +440,25 @@ public class MeasurementSimulator implements TetradSerializable {
 //        return this.antilogCalculated;
     }
 
+    /**
+     * Sets whether the cells in each dish should be simulated in parallel. If
+     * so, each cell is simulated with its own copy of the history and its own
+     * random stream, so that results are reproducible for a given random seed
+     * but differ from those of the serial simulation.
+     */
+    public void setCellsSimulatedInParallel(boolean cellsSimulatedInParallel) {
+        parameters.set("cellsSimulatedInParallel", cellsSimulatedInParallel);
+    }
+
+    /**
+     * Returns true iff the cells in each dish are simulated in parallel.
+     *
+     * @see #setCellsSimulatedInParallel
+     */
+    public boolean isCellsSimulatedInParallel() {
+        return parameters.getBoolean("cellsSimulatedInParallel", cellsSimulatedInParallel);
+    }
+
     /**
      * Sets the standard deviation sd% (in <i>percent</i>) of the distribution
      * N(100.0, sd%), from which errors will be drawn for the dish model. This
@@ -785,6 +819,17 @@ public class MeasurementSimulator implements TetradSerializable {
         double[][] aggregation =
                 new double[cellData.length][cellData[0].length];
 
+        // In parallel, each cell draws from its own random stream, seeded
+        // from a single draw here, and synchronized initialization values
+        // are fixed before any cell is simulated.
+        boolean parallel = isCellsSimulatedInParallel();
+        long seed = 0L;
+
+        if (parallel) {
+            seed = RandomUtil.getInstance().nextLong();
+            history.initialize();
+        }
+
         // For each dish and cell, simulate data and store it in in
         // 'cellData'. Across cells in a dish, aggregate this data in
         // 'aggregation'. First, iterate over dishes.
@@ -796,95 +841,38 @@ public class MeasurementSimulator implements TetradSerializable {
                 Arrays.fill(aggregation[sIndex], 0);
             }
 
-            // Next, iterate over the cells in a dish.
-            for (int c = 0; c < getNumCellsPerDish(); c++) {
-
-                // (Leave this System.out here for now so that the
-                // user can get a sense of how the simulation is
-                // proceeding. (Useful for large simulations.))
-                // Obviously another method needs to be concocted to
-                // do this for the Tetrad interface, since we can't
-                // assume the user will see System.out. TODO jdramsey
-                // 12/01/01
-                if ((c + 1) % 50 == 0) {
-                    this.dishNumber = d;
-                    this.cellNumber = c;
-                    //                    System.out.println("Dish # " + (d + 1) + ", Cell # " +
-                    //                            (c + 1));
-                }
-
-                // Reset the cell data.
-                for (int sIndex = 0; sIndex < timeSteps.length; sIndex++) {
-                    Arrays.fill(cellData[sIndex], 0);
-                }
-
-                // Initialize the history array.
-                history.initialize();
-
-                // Generate data for one cell, storing only those time
-                // steps that are indicated in the timeSteps
-                // array. Note that the timeSteps array is 1-indexed,
-                // while the 's' variable is 0-indexed. (Might want to
-                // fix this in a future version.)
-                int s = -1;
-                int sIndex = 0;
-
-                // Iterate over the steps generated, saving data only
-                // for the steps in timeSteps[].
-                while (++s < getStepsGenerated()) {
-
-                    // Update, but not if s == 0. We need to save the
-                    // first step to demonstrate that the cells are
-                    // being synchronized.
-                    if (s > 0) {
-                        history.update();
+            if (parallel) {
+                simulateCellsInParallel(history, d, seed, aggregation);
+            }
+            else {
+
+                // Next, iterate over the cells in a dish.
+                for (int c = 0; c < getNumCellsPerDish(); c++) {
+
+                    // (Leave this System.out here for now so that the
+                    // user can get a sense of how the simulation is
+                    // proceeding. (Useful for large simulations.))
+                    // Obviously another method needs to be concocted to
+                    // do this for the Tetrad interface, since we can't
+                    // assume the user will see System.out. TODO jdramsey
+                    // 12/01/01
+                    if ((c + 1) % 50 == 0) {
+                        this.dishNumber = d;
+                        this.cellNumber = c;
+                        //                    System.out.println("Dish # " + (d + 1) + ", Cell # " +
+                        //                            (c + 1));
                     }
 
-                    if (s == timeSteps[sIndex] - 1) {
-                        double[][] historyArray = history.getHistoryArray();
-
-                        // For the steps in timeSteps[], iterate over
-                        // the factors (genes).
-                        for (int f = 0; f < numFactors; f++) {
-
-                            // Copy data from the getModel time step in
-                            // the history to the cellData[][] array.
-                            cellData[sIndex][f] = historyArray[0][f];
-
-                            // Antilog it if necessary.
-                            if (isAntilogCalculated()) {
-                                cellData[sIndex][f] =
-                                        Math.exp(cellData[sIndex][f]);
-                            }
+                    simulateCell(history, d * getNumCellsPerDish() + c, cellData);
 
-                            // Optional--save this data to the raw
-                            // data cube only if the raw data should
-                            // be saved. (Otherwise, rawData ought to
-                            // be null.)
-                            if (isRawDataSaved()) {
-                                int row = d * getNumCellsPerDish() + c;
-
-                                /*this.rawData[f][sIndex][row] =
-                                historyArray[0][f];*/
-
-                                this.rawData[f][sIndex][row] =
-                                        cellData[sIndex][f];
-                            }
-                        }    // END for (int f = 0; ...
-
-                        if (++sIndex >= timeSteps.length) {
-                            break;
+                    // Aggregate data.
+                    for (int i = 0; i < cellData.length; i++) {
+                        for (int j = 0; j < cellData[0].length; j++) {
+                            aggregation[i][j] += cellData[i][j];
                         }
-                    }        // END if (s == timeSteps[sIndex])
-                }            // END while(++s <= stepsGenerated - 1)
-
-                // Aggregate data.
-                for (int i = 0; i < cellData.length; i++) {
-                    for (int j = 0; j < cellData[0].length; j++) {
-                        aggregation[i][j] += cellData[i][j];
                     }
-                }
-            }                // END for (int c = 0; c < numCellsPerDish; c++)
+                }                // END for (int c = 0; c < numCellsPerDish; c++)
+            }
 
             if (isMeasuredDataSaved()) {
 
@@ -918,6 +906,146 @@ public class MeasurementSimulator implements TetradSerializable {
         return;
     }
 
+    /**
+     * Simulates one cell, storing its expression levels at the stored time
+     * steps in <code>cellData</code> and, if raw data is being saved, in the
+     * given row of the raw data cube.
+     */
+    private void simulateCell(GeneHistory history, int row, double[][] cellData) {
+        int numFactors = cellData[0].length;
+        int stepsGenerated = getStepsGenerated();
+        boolean antilogCalculated = isAntilogCalculated();
+
+        // Reset the cell data.
+        for (int sIndex = 0; sIndex < timeSteps.length; sIndex++) {
+            Arrays.fill(cellData[sIndex], 0);
+        }
+
+        // Initialize the history array.
+        history.initialize();
+
+        // Generate data for one cell, storing only those time
+        // steps that are indicated in the timeSteps
+        // array. Note that the timeSteps array is 1-indexed,
+        // while the 's' variable is 0-indexed. (Might want to
+        // fix this in a future version.)
+        int s = -1;
+        int sIndex = 0;
+
+        // Iterate over the steps generated, saving data only
+        // for the steps in timeSteps[].
+        while (++s < stepsGenerated) {
+
+            // Update, but not if s == 0. We need to save the
+            // first step to demonstrate that the cells are
+            // being synchronized.
+            if (s > 0) {
+                history.update();
+            }
+
+            if (s == timeSteps[sIndex] - 1) {
+
+                // For the steps in timeSteps[], iterate over
+                // the factors (genes).
+                for (int f = 0; f < numFactors; f++) {
+
+                    // Copy data from the getModel time step in
+                    // the history to the cellData[][] array.
+                    cellData[sIndex][f] = history.getLevel(0, f);
+
+                    // Antilog it if necessary.
+                    if (antilogCalculated) {
+                        cellData[sIndex][f] =
+                                Math.exp(cellData[sIndex][f]);
+                    }
+
+                    // Optional--save this data to the raw
+                    // data cube only if the raw data should
+                    // be saved. (Otherwise, rawData ought to
+                    // be null.)
+                    if (this.rawData != null) {
+                        this.rawData[f][sIndex][row] =
+                                cellData[sIndex][f];
+                    }
+                }    // END for (int f = 0; ...
+
+                if (++sIndex >= timeSteps.length) {
+                    break;
+                }
+            }        // END if (s == timeSteps[sIndex])
+        }            // END while(++s <= stepsGenerated - 1)
+    }
+
+    /**
+     * Simulates the cells of dish d in parallel, adding their expression
+     * levels to <code>aggregation</code>. Cells are simulated in blocks of a
+     * fixed size, each block with its own copy of the history and its own
+     * partial aggregation; cell c draws from a random stream seeded with seed
+     * plus its row in the raw data cube, so the result does not depend on the
+     * number of threads.
+     */
+    private void simulateCellsInParallel(final GeneHistory history, final int d,
+                                         final long seed, double[][] aggregation) {
+        final int numCells = getNumCellsPerDish();
+        final int numFactors = aggregation[0].length;
+        List<Callable<double[][]>> tasks = new ArrayList<>();
+
+        for (int from = 0; from < numCells; from += CELLS_PER_BLOCK) {
+            final int _from = from;
+            final int _to = Math.min(from + CELLS_PER_BLOCK, numCells);
+
+            tasks.add(new Callable<double[][]>() {
+                public double[][] call() {
+                    GeneHistory cellHistory = new GeneHistory(history);
+                    double[][] cellData = new double[timeSteps.length][numFactors];
+                    double[][] partial = new double[timeSteps.length][numFactors];
+
+                    try {
+                        for (int c = _from; c < _to; c++) {
+                            int row = d * numCells + c;
+                            RandomUtil.setThreadSeed(seed + row);
+                            simulateCell(cellHistory, row, cellData);
+
+                            for (int i = 0; i < cellData.length; i++) {
+                                for (int j = 0; j < numFactors; j++) {
+                                    partial[i][j] += cellData[i][j];
+                                }
+                            }
+                        }
+                    } finally {
+                        RandomUtil.clearThreadSeed();
+                    }
+
+                    cellNumber = _to - 1;
+                    return partial;
+                }
+            });
+        }
+
+        this.dishNumber = d;
+
+        try {
+            for (Future<double[][]> future : ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks)) {
+                double[][] partial = future.get();
+
+                for (int i = 0; i < partial.length; i++) {
+                    for (int j = 0; j < numFactors; j++) {
+                        aggregation[i][j] += partial[i][j];
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating cells.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     /*
         Notes:
 
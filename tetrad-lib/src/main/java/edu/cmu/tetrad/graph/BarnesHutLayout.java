@@ -0,0 +1,697 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.graph;
+
+import edu.cmu.tetrad.util.RandomUtil;
+
+import javax.swing.*;
+import java.util.*;
+
+/**
+ * Lays out a graph using the Fruchterman-Reingold forces, approximating the
+ * repulsive forces with a Barnes-Hut quadtree so that each iteration takes
+ * O(n log n) rather than O(n^2) time. Each connected component is first
+ * coarsened by repeatedly collapsing a maximal matching of its edges; the
+ * coarsest graph is laid out from scratch and each finer level starts from the
+ * positions of the level above, so only a few iterations are needed per level.
+ * Meant for graphs with thousands of nodes.
+ * <p>
+ * The layout stops early if the thread is interrupted or the progress monitor,
+ * if one is set, is canceled; components not yet laid out are left on the
+ * initial circle.
+ */
+public final class BarnesHutLayout {
+
+    /**
+     * Quadtree cells smaller than this hold all of their points in one leaf.
+     */
+    private static final double MIN_CELL_SIZE = 1e-3;
+
+    /**
+     * The graph being laid out.
+     */
+    private Graph graph;
+
+    /**
+     * A cell is treated as a single mass if its size over its distance is
+     * less than this.
+     */
+    private double theta = 0.9;
+
+    /**
+     * The number of iterations for the coarsest level of each component.
+     */
+    private int numIterations = 300;
+
+    /**
+     * The number of iterations for each finer level.
+     */
+    private int numRefinementIterations = 50;
+
+    /**
+     * Components are not coarsened below this many nodes.
+     */
+    private int minCoarseSize = 50;
+
+    /**
+     * Reports progress to the user, if set.
+     */
+    private ProgressMonitor monitor;
+
+    /**
+     * Leftmost x position to help layout components left to right.
+     */
+    private double leftmostX = -50.;
+
+    /**
+     * The work done so far and the total work, in iterations, for progress.
+     */
+    private long workDone;
+    private long totalWork;
+
+    //==============================CONSTRUCTORS===========================//
+
+    public BarnesHutLayout(Graph graph) {
+        if (graph == null) {
+            throw new NullPointerException();
+        }
+
+        this.graph = graph;
+    }
+
+    //============================PUBLIC METHODS==========================//
+
+    public void doLayout() {
+        GraphUtils.circleLayout(graph, 300, 300, 200);
+
+        List<Node> nodes = graph.getNodes();
+        Map<Node, Integer> indices = new HashMap<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            indices.put(nodes.get(i), i);
+        }
+
+        List<List<Node>> components = GraphUtils.connectedComponents(graph);
+
+        Collections.sort(components, new Comparator<List<Node>>() {
+            public int compare(List<Node> o1, List<Node> o2) {
+                return Integer.compare(o2.size(), o1.size());
+            }
+        });
+
+        // Local index of each node within its component, and the edges of each component.
+        int[] local = new int[nodes.size()];
+        int[] component = new int[nodes.size()];
+
+        for (int c = 0; c < components.size(); c++) {
+            List<Node> _nodes = components.get(c);
+
+            for (int i = 0; i < _nodes.size(); i++) {
+                int index = indices.get(_nodes.get(i));
+                local[index] = i;
+                component[index] = c;
+            }
+        }
+
+        List<List<int[]>> componentEdges = new ArrayList<>();
+
+        for (int c = 0; c < components.size(); c++) {
+            componentEdges.add(new ArrayList<int[]>());
+        }
+
+        for (Edge edge : graph.getEdges()) {
+            int u = indices.get(edge.getNode1());
+            int v = indices.get(edge.getNode2());
+            if (u == v) continue;
+            componentEdges.get(component[u]).add(new int[]{local[u], local[v]});
+        }
+
+        double avgDegree = nodes.isEmpty() ? 0 : 2.0 * graph.getNumEdges() / nodes.size();
+        double optimalDistance = 20.0 + 20.0 * avgDegree;
+
+        List<List<Level>> hierarchies = new ArrayList<>();
+        workDone = 0;
+        totalWork = 0;
+
+        for (int c = 0; c < components.size(); c++) {
+            List<Level> levels = coarsen(components.get(c).size(), componentEdges.get(c));
+            hierarchies.add(levels);
+            totalWork += numIterations + (levels.size() - 1) * (long) numRefinementIterations;
+        }
+
+        if (monitor != null) {
+            monitor.setMinimum(0);
+            monitor.setMaximum(100);
+            monitor.setProgress(0);
+        }
+
+        for (int c = 0; c < components.size(); c++) {
+            double[][] position = layoutComponent(hierarchies.get(c), optimalDistance);
+
+            if (position == null) {
+                return;
+            }
+
+            shiftComponentToRight(components.get(c), position);
+        }
+
+        if (monitor != null) {
+            monitor.setProgress(100);
+        }
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+
+    /**
+     * @param theta The Barnes-Hut opening criterion; 0 computes all pairs
+     *              exactly, larger values are faster and coarser. Default 0.9.
+     */
+    public void setTheta(double theta) {
+        if (theta < 0) throw new IllegalArgumentException("Theta must be >= 0: " + theta);
+        this.theta = theta;
+    }
+
+    public int getNumIterations() {
+        return numIterations;
+    }
+
+    /**
+     * @param numIterations The number of iterations for the coarsest level of
+     *                      each component. Default 300.
+     */
+    public void setNumIterations(int numIterations) {
+        if (numIterations < 1) throw new IllegalArgumentException("Iterations must be >= 1: " + numIterations);
+        this.numIterations = numIterations;
+    }
+
+    /**
+     * @param monitor A monitor to report progress to and to check for
+     *                cancellation; may be null.
+     */
+    public void setProgressMonitor(ProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    //============================PRIVATE METHODS=========================//
+
+    /**
+     * A graph in the coarsening hierarchy. parent[i] is the node of the next
+     * coarser level node i is collapsed into.
+     */
+    private static class Level {
+        int numNodes;
+        int[][] edges;
+        int[] parent;
+
+        Level(int numNodes, int[][] edges) {
+            this.numNodes = numNodes;
+            this.edges = edges;
+        }
+    }
+
+    private List<Level> coarsen(int numNodes, List<int[]> edgeList) {
+        List<Level> levels = new ArrayList<>();
+        levels.add(new Level(numNodes, edgeList.toArray(new int[edgeList.size()][])));
+
+        while (true) {
+            Level level = levels.get(levels.size() - 1);
+
+            if (level.numNodes <= minCoarseSize) {
+                break;
+            }
+
+            int[][] adj = adjacencies(level.numNodes, level.edges);
+            int[] parent = new int[level.numNodes];
+            Arrays.fill(parent, -1);
+            int numCoarse = 0;
+
+            // Match each node with its unmatched neighbor of smallest degree, so
+            // that hubs are not swallowed early.
+            for (int u : shuffled(level.numNodes)) {
+                if (parent[u] != -1) continue;
+
+                int best = -1;
+
+                for (int v : adj[u]) {
+                    if (parent[v] == -1 && v != u && (best == -1 || adj[v].length < adj[best].length)) {
+                        best = v;
+                    }
+                }
+
+                parent[u] = numCoarse;
+                if (best != -1) parent[best] = numCoarse;
+                numCoarse++;
+            }
+
+            // Stop if matching no longer shrinks the graph much (stars, for instance).
+            if (numCoarse > 0.8 * level.numNodes) {
+                break;
+            }
+
+            Set<Long> seen = new HashSet<>();
+            List<int[]> coarseEdges = new ArrayList<>();
+
+            for (int[] edge : level.edges) {
+                int a = parent[edge[0]];
+                int b = parent[edge[1]];
+                if (a == b) continue;
+                long key = (long) Math.min(a, b) * numCoarse + Math.max(a, b);
+                if (seen.add(key)) coarseEdges.add(new int[]{a, b});
+            }
+
+            level.parent = parent;
+            levels.add(new Level(numCoarse, coarseEdges.toArray(new int[coarseEdges.size()][])));
+        }
+
+        return levels;
+    }
+
+    // Returns the positions of the finest level, or null if the layout was canceled.
+    private double[][] layoutComponent(List<Level> levels, double optimalDistance) {
+        int top = levels.size() - 1;
+
+        // Natural lengths grow by sqrt(7/4) per level up (Walshaw).
+        double k = optimalDistance * Math.pow(Math.sqrt(7.0 / 4.0), top);
+
+        Level coarsest = levels.get(top);
+        double[][] position = new double[coarsest.numNodes][2];
+        double side = k * Math.sqrt(coarsest.numNodes);
+
+        for (int i = 0; i < coarsest.numNodes; i++) {
+            position[i][0] = RandomUtil.getInstance().nextDouble() * side;
+            position[i][1] = RandomUtil.getInstance().nextDouble() * side;
+        }
+
+        if (!settle(coarsest, position, k, numIterations, Math.max(k, side / 10.0))) {
+            return null;
+        }
+
+        for (int l = top - 1; l >= 0; l--) {
+            Level level = levels.get(l);
+            k /= Math.sqrt(7.0 / 4.0);
+            double[][] finer = new double[level.numNodes][2];
+
+            for (int i = 0; i < level.numNodes; i++) {
+                double[] p = position[level.parent[i]];
+                finer[i][0] = p[0] + (RandomUtil.getInstance().nextDouble() - 0.5) * 0.2 * k;
+                finer[i][1] = p[1] + (RandomUtil.getInstance().nextDouble() - 0.5) * 0.2 * k;
+            }
+
+            position = finer;
+
+            if (!settle(level, position, k, numRefinementIterations, k)) {
+                return null;
+            }
+        }
+
+        return position;
+    }
+
+    // Runs the force iterations on one level, cooling linearly. Returns false if canceled.
+    private boolean settle(Level level, double[][] position, double k, int iterations,
+                           double initialTemperature) {
+        int n = level.numNodes;
+        double[] x = new double[n];
+        double[] y = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            x[i] = position[i][0];
+            y[i] = position[i][1];
+        }
+
+        double[] dispX = new double[n];
+        double[] dispY = new double[n];
+        double[] force = new double[2];
+        QuadTree tree = new QuadTree(n);
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            if (isCanceled()) {
+                return false;
+            }
+
+            double temperature = initialTemperature * (1.0 - iteration / (double) iterations);
+
+            if (n > 1) {
+                tree.build(x, y);
+
+                for (int v = 0; v < n; v++) {
+                    tree.repulsion(v, x, y, k * k, theta, force);
+                    dispX[v] = force[0];
+                    dispY[v] = force[1];
+                }
+            }
+
+            for (int[] edge : level.edges) {
+                int u = edge[0];
+                int v = edge[1];
+
+                double deltaX = x[v] - x[u];
+                double deltaY = y[v] - y[u];
+                double norm = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+                if (norm == 0.0) {
+                    continue;
+                }
+
+                double attractiveForce = norm * norm / k;
+                double attractX = (deltaX / norm) * attractiveForce;
+                double attractY = (deltaY / norm) * attractiveForce;
+
+                dispX[v] -= attractX;
+                dispY[v] -= attractY;
+                dispX[u] += attractX;
+                dispY[u] += attractY;
+            }
+
+            for (int v = 0; v < n; v++) {
+                double norm = Math.sqrt(dispX[v] * dispX[v] + dispY[v] * dispY[v]);
+
+                if (norm == 0.0) {
+                    continue;
+                }
+
+                double step = Math.min(norm, temperature);
+                x[v] += (dispX[v] / norm) * step;
+                y[v] += (dispY[v] / norm) * step;
+            }
+
+            workDone++;
+
+            if (monitor != null && workDone % 10 == 0) {
+                monitor.setProgress((int) (99.0 * workDone / totalWork));
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            position[i][0] = x[i];
+            position[i][1] = y[i];
+        }
+
+        return true;
+    }
+
+    private boolean isCanceled() {
+        return Thread.currentThread().isInterrupted() || (monitor != null && monitor.isCanceled());
+    }
+
+    private void shiftComponentToRight(List<Node> componentNodes, double[][] position) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+
+        for (double[] p : position) {
+            minX = Math.min(minX, p[0]);
+            minY = Math.min(minY, p[1]);
+        }
+
+        leftmostX = leftmostX + 100.;
+
+        for (double[] p : position) {
+            p[0] += leftmostX - minX;
+            p[1] += 40.0 - minY;
+        }
+
+        for (double[] p : position) {
+            leftmostX = Math.max(leftmostX, p[0]);
+        }
+
+        for (int i = 0; i < componentNodes.size(); i++) {
+            Node node = componentNodes.get(i);
+            node.setCenterX((int) position[i][0]);
+            node.setCenterY((int) position[i][1]);
+        }
+    }
+
+    private static int[][] adjacencies(int numNodes, int[][] edges) {
+        int[] degree = new int[numNodes];
+
+        for (int[] edge : edges) {
+            degree[edge[0]]++;
+            degree[edge[1]]++;
+        }
+
+        int[][] adj = new int[numNodes][];
+
+        for (int i = 0; i < numNodes; i++) {
+            adj[i] = new int[degree[i]];
+        }
+
+        Arrays.fill(degree, 0);
+
+        for (int[] edge : edges) {
+            adj[edge[0]][degree[edge[0]]++] = edge[1];
+            adj[edge[1]][degree[edge[1]]++] = edge[0];
+        }
+
+        return adj;
+    }
+
+    private static int[] shuffled(int n) {
+        int[] order = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            int j = RandomUtil.getInstance().nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+
+        return order;
+    }
+
+    /**
+     * A point quadtree over the node positions, stored in flat arrays and
+     * rebuilt on each iteration. Each cell keeps its number of points and the
+     * sum of their coordinates, so its center of mass is available when it is
+     * far enough away to stand in for its points.
+     */
+    private static class QuadTree {
+        private double[] minX, minY, size;
+        private double[] sumX, sumY;
+        private int[] mass;
+        private int[] children;
+
+        // The first point placed in each leaf.
+        private int[] point;
+        private boolean[] leaf;
+
+        // The leaf each point was last placed in.
+        private final int[] leafOf;
+
+        private int numCells;
+        private double[] x, y;
+        private int[] stack = new int[64];
+
+        QuadTree(int numPoints) {
+            leafOf = new int[numPoints];
+            allocate(Math.max(16, 2 * numPoints));
+        }
+
+        void build(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+
+            double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+            double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+
+            for (int i = 0; i < x.length; i++) {
+                x0 = Math.min(x0, x[i]);
+                y0 = Math.min(y0, y[i]);
+                x1 = Math.max(x1, x[i]);
+                y1 = Math.max(y1, y[i]);
+            }
+
+            numCells = 0;
+            newCell(x0, y0, Math.max(Math.max(x1 - x0, y1 - y0), MIN_CELL_SIZE) * 1.0001);
+
+            for (int i = 0; i < x.length; i++) {
+                insert(i);
+            }
+        }
+
+        /**
+         * Puts into force the repulsive force on point v, k2 / d from each
+         * other point at distance d.
+         */
+        void repulsion(int v, double[] x, double[] y, double k2, double theta, double[] force) {
+            double fx = 0, fy = 0;
+            int top = 0;
+            stack[top++] = 0;
+
+            while (top > 0) {
+                int c = stack[--top];
+                int m = mass[c];
+                double mx = sumX[c];
+                double my = sumY[c];
+
+                if (leaf[c]) {
+                    if (leafOf[v] == c) {
+                        m--;
+                        mx -= x[v];
+                        my -= y[v];
+                    }
+
+                    if (m == 0) continue;
+                } else if (!contains(c, x[v], y[v]) && size[c] * size[c] < theta * theta * distanceSq(v, c)) {
+                    // Far enough away to treat as one mass; falls through.
+                } else {
+                    for (int q = 0; q < 4; q++) {
+                        int child = children[4 * c + q];
+
+                        if (child != -1) {
+                            if (top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+                            stack[top++] = child;
+                        }
+                    }
+
+                    continue;
+                }
+
+                double deltaX = x[v] - mx / m;
+                double deltaY = y[v] - my / m;
+                double norm = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+                if (norm < 1e-9) {
+                    // Coincident points; push them apart in a direction fixed by the index.
+                    deltaX = (v % 2 == 0) ? 0.1 : -0.1;
+                    deltaY = ((v / 2) % 2 == 0) ? 0.1 : -0.1;
+                    norm = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+                }
+
+                double repulsiveForce = m * k2 / norm;
+                fx += (deltaX / norm) * repulsiveForce;
+                fy += (deltaY / norm) * repulsiveForce;
+            }
+
+            force[0] = fx;
+            force[1] = fy;
+        }
+
+        private double distanceSq(int v, int c) {
+            double deltaX = x[v] - sumX[c] / mass[c];
+            double deltaY = y[v] - sumY[c] / mass[c];
+            return deltaX * deltaX + deltaY * deltaY;
+        }
+
+        private boolean contains(int c, double px, double py) {
+            return px >= minX[c] && px < minX[c] + size[c] && py >= minY[c] && py < minY[c] + size[c];
+        }
+
+        private void insert(int p) {
+            int cell = 0;
+
+            while (true) {
+                if (mass[cell] == 0) {
+                    addToCell(cell, p);
+                    point[cell] = p;
+                    leafOf[p] = cell;
+                    return;
+                }
+
+                if (leaf[cell]) {
+                    if (size[cell] < MIN_CELL_SIZE) {
+                        addToCell(cell, p);
+                        leafOf[p] = cell;
+                        return;
+                    }
+
+                    // Push the point already here down a level.
+                    int q = point[cell];
+                    leaf[cell] = false;
+                    int child = child(cell, x[q], y[q]);
+                    addToCell(child, q);
+                    point[child] = q;
+                    leafOf[q] = child;
+                }
+
+                addToCell(cell, p);
+                cell = child(cell, x[p], y[p]);
+            }
+        }
+
+        private void addToCell(int cell, int p) {
+            mass[cell]++;
+            sumX[cell] += x[p];
+            sumY[cell] += y[p];
+        }
+
+        private int child(int cell, double px, double py) {
+            double half = size[cell] / 2.0;
+            int qx = px >= minX[cell] + half ? 1 : 0;
+            int qy = py >= minY[cell] + half ? 1 : 0;
+            int slot = 4 * cell + 2 * qy + qx;
+
+            if (children[slot] == -1) {
+                int child = newCell(minX[cell] + qx * half, minY[cell] + qy * half, half);
+                children[slot] = child;
+            }
+
+            return children[slot];
+        }
+
+        private int newCell(double x0, double y0, double s) {
+            if (numCells == mass.length) {
+                allocate(2 * numCells);
+            }
+
+            int c = numCells++;
+            minX[c] = x0;
+            minY[c] = y0;
+            size[c] = s;
+            sumX[c] = 0;
+            sumY[c] = 0;
+            mass[c] = 0;
+            point[c] = -1;
+            leaf[c] = true;
+            Arrays.fill(children, 4 * c, 4 * c + 4, -1);
+            return c;
+        }
+
+        private void allocate(int capacity) {
+            if (mass == null) {
+                minX = new double[capacity];
+                minY = new double[capacity];
+                size = new double[capacity];
+                sumX = new double[capacity];
+                sumY = new double[capacity];
+                mass = new int[capacity];
+                point = new int[capacity];
+                leaf = new boolean[capacity];
+                children = new int[4 * capacity];
+            } else {
+                minX = Arrays.copyOf(minX, capacity);
+                minY = Arrays.copyOf(minY, capacity);
+                size = Arrays.copyOf(size, capacity);
+                sumX = Arrays.copyOf(sumX, capacity);
+                sumY = Arrays.copyOf(sumY, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                point = Arrays.copyOf(point, capacity);
+                leaf = Arrays.copyOf(leaf, capacity);
+                children = Arrays.copyOf(children, 4 * capacity);
+            }
+        }
+    }
+}
@@ -121,11 +121,26 @@ public final class GraphUtils {
         layout.doLayout();
     }
 
+    /**
+     * Lays out the graph with Fruchterman-Reingold forces. Graphs with more than
+     * 300 nodes are laid out with the Barnes-Hut approximation, since the exact
+     * layout takes quadratic time per iteration.
+     */
     public static void fruchtermanReingoldLayout(Graph graph) {
+        if (graph.getNumNodes() > 300) {
+            barnesHutLayout(graph);
+            return;
+        }
+
         FruchtermanReingoldLayout layout = new FruchtermanReingoldLayout(graph);
         layout.doLayout();
     }
 
+    public static void barnesHutLayout(Graph graph) {
+        BarnesHutLayout layout = new BarnesHutLayout(graph);
+        layout.doLayout();
+    }
+
     /**
      * Decompose a latent variable graph into its measurement model
      */
@@ -5227,148 +5242,14 @@ public final class GraphUtils {
         return null;
     }
 
+    /**
+     * Returns the nodes adjacent to x other than y, which is what the Possible-D-Sep steps use unless asked to search
+     * paths.
+     *
+     * @see PossibleDsepSets
+     */
     public static Set<Node> possibleDsep(Node x, Node y, Graph graph, int maxPathLength) {
-        Set<Node> dsep = new HashSet<>();
-
-        Queue<OrderedPair<Node>> Q = new ArrayDeque<>();
-        Set<OrderedPair<Node>> V = new HashSet<>();
-
-        Map<Node, List<Node>> previous = new HashMap<>();
-        previous.put(x, null);
-
-        OrderedPair e = null;
-        int distance = 0;
-
-        for (Node b : graph.getAdjacentNodes(x)) {
-            if (b == y) {
-                continue;
-            }
-            OrderedPair<Node> edge = new OrderedPair<>(x, b);
-            if (e == null) {
-                e = edge;
-            }
-            Q.offer(edge);
-            V.add(edge);
-            addToList(previous, b, x);
-            dsep.add(b);
-        }
-
-        while (!Q.isEmpty()) {
-            OrderedPair<Node> t = Q.poll();
-
-            if (e == t) {
-                e = null;
-                distance++;
-                if (distance > 0 && distance > (maxPathLength == -1 ? 1000 : maxPathLength)) {
-                    break;
-                }
-            }
-
-            Node a = t.getFirst();
-            Node b = t.getSecond();
-
-            if (existOnePathWithPossibleParents(previous, b, x, b, graph)) {
-                dsep.add(b);
-            }
-
-            for (Node c : graph.getAdjacentNodes(b)) {
-                if (c == a) {
-                    continue;
-                }
-                if (c == x) {
-                    continue;
-                }
-                if (c == y) {
-                    continue;
-                }
-
-                addToList(previous, b, c);
-
-                if (graph.isDefCollider(a, b, c) || graph.isAdjacentTo(a, c)) {
-                    OrderedPair<Node> u = new OrderedPair<>(a, c);
-                    if (V.contains(u)) {
-                        continue;
-                    }
-
-                    V.add(u);
-                    Q.offer(u);
-
-                    if (e == null) {
-                        e = u;
-                    }
-                }
-            }
-        }
-
-        dsep.remove(x);
-        dsep.remove(y);
-        return dsep;
-    }
-
-    private static boolean existOnePathWithPossibleParents(Map<Node, List<Node>> previous, Node w, Node x, Node b, Graph graph) {
-        if (w == x) {
-            return true;
-        }
-        final List<Node> p = previous.get(w);
-        if (p == null) {
-            return false;
-        }
-
-        for (Node r : p) {
-            if (r == b || r == x) {
-                continue;
-            }
-
-            if ((existsSemidirectedPath(r, x, graph))
-                    || existsSemidirectedPath(r, b, graph)) {
-                if (existOnePathWithPossibleParents(previous, r, x, b, graph)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
-    private static void addToList(Map<Node, List<Node>> previous, Node b, Node c) {
-        List<Node> list = previous.get(c);
-
-        if (list == null) {
-            list = new ArrayList<>();
-        }
-
-        list.add(b);
-    }
-
-    private static boolean existsSemidirectedPath(Node from, Node to, Graph G) {
-        Queue<Node> Q = new LinkedList<>();
-        Set<Node> V = new HashSet<>();
-        Q.offer(from);
-        V.add(from);
-
-        while (!Q.isEmpty()) {
-            Node t = Q.remove();
-            if (t == to) {
-                return true;
-            }
-
-            for (Node u : G.getAdjacentNodes(t)) {
-                Edge edge = G.getEdge(t, u);
-                Node c = Edges.traverseSemiDirected(t, edge);
-
-                if (c == null) {
-                    continue;
-                }
-                if (V.contains(c)) {
-                    continue;
-                }
-
-                V.add(c);
-                Q.offer(c);
-            }
-        }
-
-        return false;
+        return PossibleDsepSets.possibleDsep(x, y, graph, maxPathLength, false);
     }
 
     public static int getDegree(Graph graph) {
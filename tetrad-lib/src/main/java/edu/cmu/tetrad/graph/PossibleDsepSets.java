@@ -0,0 +1,290 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.graph;
+
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The Possible-D-Sep sets of the nodes of a graph, computed together from one integer index of the graph. A node v is
+ * in Possible-D-Sep(x, y) iff
+ * <pre>
+ *     (i) v != x and v != y,
+ *     (ii) there is a path U between x and v, of at most maxPathLength edges, such that for every subpath
+ *          &lt;a, b, c&gt; of U either b is a definite collider on the subpath or a is adjacent to c, and
+ *     (iii) v is a possible ancestor of x or of y, that is, there is a semidirected path from v to x or y.
+ * </pre>
+ * Nodes adjacent to x satisfy (ii) whatever the maximum path length is. The sets reflect the graph as it was when this
+ * object was made; later changes to the graph are not seen.
+ * <p>
+ * Without the path search, Possible-D-Sep(x, y) is just the set of nodes adjacent to x other than y. That is what
+ * the searches have used by default; the full sets can be much larger, and the searches conditioning on their subsets
+ * correspondingly slower.
+ */
+public final class PossibleDsepSets {
+    private final List<Node> nodes;
+    private final Map<Node, Integer> indices = new HashMap<>();
+    private final int[][] adj;
+    private final BitSet[] adjacent;
+
+    // into[b].get(a) iff the edge between a and b has an arrowhead at b.
+    private final BitSet[] into;
+    private final int maxPathLength;
+    private final boolean pathSearch;
+
+    // The nodes satisfying (ii) for each x, and the possible ancestors of each node, each filled in on first use.
+    private final BitSet[] reachable;
+    private final BitSet[] ancestors;
+
+    /**
+     * Computes the sets for every node in the graph, splitting the nodes among the threads of the pool.
+     *
+     * @param maxPathLength The maximum number of edges on the path in (ii), or -1 if unlimited.
+     */
+    public PossibleDsepSets(Graph graph, int maxPathLength) {
+        this(graph, maxPathLength, true, true);
+    }
+
+    /**
+     * @param maxPathLength The maximum number of edges on the path in (ii), or -1 if unlimited.
+     * @param pathSearch    True if the sets should follow the definition above, false if they should be just the
+     *                      nodes adjacent to x.
+     */
+    public PossibleDsepSets(Graph graph, int maxPathLength, boolean pathSearch) {
+        this(graph, maxPathLength, pathSearch, true);
+    }
+
+    private PossibleDsepSets(Graph graph, int maxPathLength, boolean pathSearch, boolean computeAll) {
+        if (maxPathLength < -1) {
+            throw new IllegalArgumentException("Max path length must be -1 (unlimited) or >= 0: " + maxPathLength);
+        }
+
+        this.nodes = graph.getNodes();
+        this.maxPathLength = maxPathLength == -1 ? Integer.MAX_VALUE : Math.max(maxPathLength, 1);
+        this.pathSearch = pathSearch;
+
+        int n = nodes.size();
+
+        for (int i = 0; i < n; i++) {
+            indices.put(nodes.get(i), i);
+        }
+
+        this.adj = new int[n][];
+        this.adjacent = new BitSet[n];
+        this.into = new BitSet[n];
+        this.reachable = new BitSet[n];
+        this.ancestors = new BitSet[n];
+
+        for (int i = 0; i < n; i++) {
+            adjacent[i] = new BitSet(n);
+            into[i] = new BitSet(n);
+        }
+
+        for (int i = 0; i < n; i++) {
+            List<Node> _adj = graph.getAdjacentNodes(nodes.get(i));
+            adj[i] = new int[_adj.size()];
+
+            for (int k = 0; k < _adj.size(); k++) {
+                int j = indices.get(_adj.get(k));
+                adj[i][k] = j;
+                adjacent[i].set(j);
+
+                if (graph.getEndpoint(_adj.get(k), nodes.get(i)) == Endpoint.ARROW) {
+                    into[i].set(j);
+                }
+            }
+        }
+
+        if (pathSearch && computeAll) {
+            ForkJoinPoolInstance.getInstance().getPool().invoke(new FillTask(0, n));
+        }
+    }
+
+    /**
+     * Returns Possible-D-Sep(x, y) for a single pair of nodes, computing only what that pair needs.
+     */
+    public static Set<Node> possibleDsep(Node x, Node y, Graph graph, int maxPathLength, boolean pathSearch) {
+        return new PossibleDsepSets(graph, maxPathLength, pathSearch, false).get(x, y);
+    }
+
+    /**
+     * Returns Possible-D-Sep(x, y), listed in the order of the graph's nodes.
+     */
+    public Set<Node> get(Node x, Node y) {
+        int _x = indices.get(x);
+        Integer _y = indices.get(y);
+        BitSet dsep;
+
+        if (pathSearch) {
+            dsep = (BitSet) reachable(_x).clone();
+            BitSet anc = (BitSet) ancestors(_x).clone();
+
+            if (_y != null) {
+                anc.or(ancestors(_y));
+            }
+
+            dsep.and(anc);
+        } else {
+            dsep = (BitSet) adjacent[_x].clone();
+        }
+
+        if (_y != null) {
+            dsep.clear(_y);
+        }
+
+        dsep.clear(_x);
+
+        Set<Node> set = new LinkedHashSet<>();
+
+        for (int i = dsep.nextSetBit(0); i >= 0; i = dsep.nextSetBit(i + 1)) {
+            set.add(nodes.get(i));
+        }
+
+        return set;
+    }
+
+    private BitSet reachable(int x) {
+        if (reachable[x] == null) {
+            reachable[x] = findReachable(x);
+        }
+
+        return reachable[x];
+    }
+
+    private BitSet ancestors(int x) {
+        if (ancestors[x] == null) {
+            ancestors[x] = findAncestors(x);
+        }
+
+        return ancestors[x];
+    }
+
+    /**
+     * Breadth-first search over (previous, current) pairs of nodes, so that each pair is expanded once, at the
+     * length of the shortest path that reaches it.
+     */
+    private BitSet findReachable(int x) {
+        int n = nodes.size();
+        BitSet found = new BitSet(n);
+
+        // Pairs (a, b) are visited as a * n + b.
+        Set<Long> visited = new HashSet<>();
+        Queue<int[]> queue = new ArrayDeque<>();
+
+        for (int b : adj[x]) {
+            found.set(b);
+            visited.add((long) x * n + b);
+            queue.offer(new int[]{x, b, 1});
+        }
+
+        while (!queue.isEmpty()) {
+            int[] t = queue.poll();
+            int a = t[0];
+            int b = t[1];
+
+            if (t[2] >= maxPathLength) {
+                continue;
+            }
+
+            for (int c : adj[b]) {
+                if (c == a || c == x) {
+                    continue;
+                }
+
+                boolean collider = into[b].get(a) && into[b].get(c);
+
+                if (!collider && !adjacent[a].get(c)) {
+                    continue;
+                }
+
+                if (visited.add((long) b * n + c)) {
+                    found.set(c);
+                    queue.offer(new int[]{b, c, t[2] + 1});
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Searches backward from x along edges with no arrowhead at the far end, as in Edges.traverseSemiDirected.
+     */
+    private BitSet findAncestors(int x) {
+        BitSet found = new BitSet(nodes.size());
+        Queue<Integer> queue = new ArrayDeque<>();
+        found.set(x);
+        queue.offer(x);
+
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+
+            for (int t : adj[u]) {
+                if (!found.get(t) && !into[t].get(u)) {
+                    found.set(t);
+                    queue.offer(t);
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private class FillTask extends RecursiveAction {
+        private static final long serialVersionUID = 23L;
+
+        private final int from;
+        private final int to;
+
+        private FillTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 10) {
+                for (int i = from; i < to; i++) {
+                    reachable[i] = findReachable(i);
+                    ancestors[i] = findAncestors(i);
+                }
+            } else {
+                int mid = (from + to) / 2;
+                invokeAll(new FillTask(from, mid), new FillTask(mid, to));
+            }
+        }
+    }
+}
+
+
+
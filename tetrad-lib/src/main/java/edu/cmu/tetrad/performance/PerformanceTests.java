@@ -667,6 +667,102 @@ public class PerformanceTests {
         out.close();
     }
 
+    /**
+     * Times the Possible-D-Sep step of FCI with the sets taken as the adjacents (the default) and with the sets found
+     * by searching paths, each with the edges done one at a time and with the edges spread over the pool.
+     */
+    public void testPossibleDsep(int numVars, double edgeFactor, int numCases) {
+        double alpha = 0.001;
+        int depth = 3;
+
+        init(new File("long.possibledsep." + numVars + ".txt"), "Tests performance of the Possible-D-Sep step");
+
+        List<Node> vars = new ArrayList<>();
+
+        for (int i = 0; i < numVars; i++) {
+            vars.add(new ContinuousVariable("X" + i));
+        }
+
+        Graph graph = GraphUtils.randomGraphRandomForwardEdges(vars, 0, (int) (numVars * edgeFactor),
+                30, 15, 15, false, true);
+
+        LargeScaleSimulation simulator = new LargeScaleSimulation(graph);
+        simulator.setOut(out);
+        DataSet data = simulator.simulateDataFisher(numCases);
+
+        IndTestFisherZ test = new IndTestFisherZ(new CovarianceMatrix(data), alpha);
+
+        Fas fas = new Fas(test);
+        Graph start = fas.search();
+        start.reorientAllWith(Endpoint.CIRCLE);
+        new FciOrient(new SepsetsSet(fas.getSepsets(), test)).ruleR0(start);
+
+        out.println("# Vars = " + numVars);
+        out.println("# Edges = " + (int) (numVars * edgeFactor));
+        out.println("# Cases = " + numCases);
+        out.println("# Edges after FAS = " + start.getNumEdges());
+
+        for (boolean pathSearch : new boolean[]{false, true}) {
+            long time1 = System.currentTimeMillis();
+
+            Graph serial = new EdgeListGraph(start);
+            SepsetsPossibleDsep sp = new SepsetsPossibleDsep(serial, test, new Knowledge2(), depth, -1);
+            sp.setPossibleDsepPathSearch(pathSearch);
+            List<Edge> removed = new ArrayList<>();
+
+            for (Edge edge : serial.getEdges()) {
+                if (sp.getSepset(edge.getNode1(), edge.getNode2()) != null) {
+                    removed.add(edge);
+                }
+            }
+
+            for (Edge edge : removed) {
+                serial.removeEdge(edge);
+            }
+
+            long time2 = System.currentTimeMillis();
+
+            Graph parallel = new EdgeListGraph(start);
+            SepsetsPossibleDsep pp = new SepsetsPossibleDsep(parallel, test, new Knowledge2(), depth, -1);
+            pp.setPossibleDsepPathSearch(pathSearch);
+            PossibleDsepFci.removeEdges(parallel, pp, test);
+
+            long time3 = System.currentTimeMillis();
+
+            out.println("Path search = " + pathSearch + ", edges removed = " + removed.size()
+                    + ", same result = " + serial.equals(parallel));
+            out.println("Elapsed (one edge at a time) " + (time2 - time1) + " ms");
+            out.println("Elapsed (edges over the pool) " + (time3 - time2) + " ms");
+        }
+
+        out.close();
+    }
+
+    /**
+     * Times the conversion, with the complete rule set, of a random DAG with latent confounders to its PAG; most of
+     * the time goes to the final orientation.
+     */
+    public void testDagToPag(int numNodes, int numLatents, int numEdges) {
+        init(new File("long.dagtopag." + numNodes + ".txt"), "Tests performance of DAG to PAG conversion");
+
+        Graph dag = GraphUtils.randomGraph(numNodes, numLatents, numEdges, 10, 10, 10, false);
+
+        DagToPag dagToPag = new DagToPag(dag);
+        dagToPag.setCompleteRuleSetUsed(true);
+
+        long time1 = System.currentTimeMillis();
+        Graph pag = dagToPag.convert();
+        long time2 = System.currentTimeMillis();
+
+        out.println("# Nodes = " + numNodes);
+        out.println("# Latents = " + numLatents);
+        out.println("# Edges = " + numEdges);
+        out.println("# PAG edges = " + pag.getNumEdges());
+        out.println("Elapsed (converting to a PAG) " + (time2 - time1) + " ms");
+
+        out.close();
+    }
+
     public void testGfci(int numVars, double edgeFactor) {
         System.out.println("Seed = " + RandomUtil.getInstance().getSeed());
 
@@ -2328,6 +2424,25 @@ public class PerformanceTests {
                 default:
                     throw new IllegalArgumentException("Not a configuration!");
             }
+        } else if (args.length == 4) {
+            switch (args[0]) {
+                case "POSSIBLEDSEP": {
+                    final int numVars = Integer.parseInt(args[1]);
+                    final double edgeFactor = Double.parseDouble(args[2]);
+                    final int numCases = Integer.parseInt(args[3]);
+                    performanceTests.testPossibleDsep(numVars, edgeFactor, numCases);
+                    break;
+                }
+                case "DAGTOPAG": {
+                    final int numNodes = Integer.parseInt(args[1]);
+                    final int numLatents = Integer.parseInt(args[2]);
+                    final int numEdges = Integer.parseInt(args[3]);
+                    performanceTests.testDagToPag(numNodes, numLatents, numEdges);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Not a configuration!");
+            }
         }
 //        else if (args.length == 4) {
 //            switch (args[0]) {
@@ -0,0 +1,187 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a score, remembering every local score and score difference it has been asked for, so that searches over
+ * the same data can share them. Safe for concurrent use if the wrapped score is. Parents are keyed in the order
+ * given, so cached values are exactly the values the wrapped score would return.
+ */
+public class CachingScore implements Score {
+
+    // Kinds of cached quantities, used as the first element of each key.
+    private static final int LOCAL_SCORE = 0;
+    private static final int LOCAL_SCORE_DIFF = 1;
+
+    // The wrapped score.
+    private final Score score;
+
+    // Cached values by key.
+    private final ConcurrentMap<Key, Double> cache = new ConcurrentHashMap<>();
+
+    // The number of values computed by the wrapped score.
+    private final AtomicInteger numComputed = new AtomicInteger();
+
+    public CachingScore(Score score) {
+        if (score == null) throw new NullPointerException("Score not specified.");
+        this.score = score;
+    }
+
+    @Override
+    public double localScore(int node, int... parents) {
+        Key key = new Key(LOCAL_SCORE, node, -1, parents);
+        Double value = cache.get(key);
+
+        if (value == null) {
+            value = score.localScore(node, parents);
+            numComputed.incrementAndGet();
+            cache.put(key, value);
+        }
+
+        return value;
+    }
+
+    @Override
+    public double localScoreDiff(int x, int y, int[] z) {
+        Key key = new Key(LOCAL_SCORE_DIFF, x, y, z);
+        Double value = cache.get(key);
+
+        if (value == null) {
+            value = score.localScoreDiff(x, y, z);
+            numComputed.incrementAndGet();
+            cache.put(key, value);
+        }
+
+        return value;
+    }
+
+    @Override
+    public double localScoreDiff(int x, int y) {
+        return localScoreDiff(x, y, new int[0]);
+    }
+
+    @Override
+    public double localScore(int node, int parent) {
+        return localScore(node, new int[]{parent});
+    }
+
+    @Override
+    public double localScore(int node) {
+        return localScore(node, new int[0]);
+    }
+
+    @Override
+    public List<Node> getVariables() {
+        return score.getVariables();
+    }
+
+    @Override
+    public boolean isEffectEdge(double bump) {
+        return score.isEffectEdge(bump);
+    }
+
+    @Override
+    public int getSampleSize() {
+        return score.getSampleSize();
+    }
+
+    @Override
+    public Node getVariable(String targetName) {
+        return score.getVariable(targetName);
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return score.getMaxDegree();
+    }
+
+    @Override
+    public boolean determines(List<Node> z, Node y) {
+        return score.determines(z, y);
+    }
+
+    /**
+     * @return the wrapped score.
+     */
+    public Score getScore() {
+        return score;
+    }
+
+    /**
+     * @return the number of values cached so far.
+     */
+    public int getNumCached() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of values the wrapped score has been asked to compute. This can exceed the number cached
+     * when two threads compute the same value at once.
+     */
+    public int getNumComputed() {
+        return numComputed.get();
+    }
+
+    /**
+     * Forgets all cached values. Should be called if the wrapped score's parameters are changed.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public String toString() {
+        return "Caching " + score;
+    }
+
+    private static class Key {
+        private final int[] key;
+        private final int hash;
+
+        Key(int kind, int a, int b, int[] rest) {
+            key = new int[rest.length + 3];
+            key[0] = kind;
+            key[1] = a;
+            key[2] = b;
+            System.arraycopy(rest, 0, key, 3, rest.length);
+            hash = Arrays.hashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(key, ((Key) o).key);
+        }
+    }
+}
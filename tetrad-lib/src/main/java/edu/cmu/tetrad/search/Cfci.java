@@ -80,6 +80,11 @@ public final class Cfci implements GraphSearch {
      */
     private boolean possibleDsepSearchDone = true;
 
+    /**
+     * True iff the Possible-D-Sep sets are found by searching paths rather than taken as the adjacents.
+     */
+    private boolean possibleDsepPathSearch = false;
+
     /**
      * The maximum length for any discriminating path. -1 if unlimited; otherwise, a positive integer.
      */
@@ -197,6 +202,7 @@ public final class Cfci implements GraphSearch {
             possibleDSep.setDepth(getDepth());
             possibleDSep.setKnowledge(getKnowledge());
             possibleDSep.setMaxPathLength(getMaxReachablePathLength());
+            possibleDSep.setPossibleDsepPathSearch(possibleDsepPathSearch);
 
             // We use these sepsets though.
             sepsets.addAll(possibleDSep.search());
@@ -499,6 +505,14 @@ public final class Cfci implements GraphSearch {
         this.possibleDsepSearchDone = possibleDsepSearchDone;
     }
 
+    public boolean isPossibleDsepPathSearch() {
+        return possibleDsepPathSearch;
+    }
+
+    public void setPossibleDsepPathSearch(boolean possibleDsepPathSearch) {
+        this.possibleDsepPathSearch = possibleDsepPathSearch;
+    }
+
     public int getMaxReachablePathLength() {
         return maxReachablePathLength;
     }
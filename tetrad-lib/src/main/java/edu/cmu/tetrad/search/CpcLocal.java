@@ -28,6 +28,7 @@ import edu.cmu.tetrad.util.DepthChoiceGenerator;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -67,6 +68,11 @@ public class CpcLocal implements GraphSearch {
     private Graph graph;
     private MeekRules meekRules;
 
+    /**
+     * The nodes visited by the Meek rules over all of the calls in this search.
+     */
+    private Set<Node> visited;
+
     //=============================CONSTRUCTORS==========================//
 
     /**
@@ -122,6 +128,7 @@ public class CpcLocal implements GraphSearch {
         meekRules.setAggressivelyPreventCycles(isAggressivelyPreventCycles());
         meekRules.setKnowledge(knowledge);
         meekRules.setUndirectUnforcedEdges(true);
+        visited = new HashSet<>();
 
 
         // This is the list of all changed nodes from the last iteration
@@ -206,15 +213,19 @@ public class CpcLocal implements GraphSearch {
             start.add(x);
             start.add(y);
 
-            meekRules.orientImplied(graph, start);
+            orientImplied(start);
 
             renderUnambiguousWherePossible();
         }
     }
 
-    private void renderUnambiguousWherePossible() {
-        Set<Node> visited = meekRules.getVisited();
+    // MeekRules reports only the nodes visited by its last call, so they are collected here.
+    private void orientImplied(List<Node> start) {
+        meekRules.orientImplied(graph, start);
+        visited.addAll(meekRules.getVisited());
+    }
 
+    private void renderUnambiguousWherePossible() {
         for (Node v : visited) {
             List<Node> adj = graph.getAdjacentNodes(v);
 
@@ -274,7 +285,7 @@ public class CpcLocal implements GraphSearch {
 //        start.add(x);
         start.add(y);
 
-        meekRules.orientImplied(graph, start);
+        orientImplied(start);
     }
 
     private boolean orientCollider1(Node x, Node y) {
@@ -295,7 +306,7 @@ public class CpcLocal implements GraphSearch {
         List<Node> start = new ArrayList<>();
         start.add(y);
 
-        meekRules.orientImplied(graph, start);
+        orientImplied(start);
         return oriented;
     }
 
@@ -342,7 +353,7 @@ public class CpcLocal implements GraphSearch {
             }
         }
 
-        meekRules.orientImplied(graph, start);
+        orientImplied(start);
         renderUnambiguousWherePossible();
         return oriented;
     }
@@ -0,0 +1,551 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.RandomUtil;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Enumerates, counts, or samples the DAGs in a pattern (CPDAG) without building a graph for each one. The orientation
+ * of the undirected edges of the pattern is kept in two bit vectors, one marking which edges have been oriented and
+ * one giving the direction of each; an edge is oriented, the Meek rules R1-R3 are propagated from it, and backtracking
+ * pops the orientations made since then off an undo log. Because the pattern is closed under the Meek rules, every
+ * choice made this way extends to a DAG in the pattern, so the enumeration never runs into dead ends.
+ * <p>
+ * Visitors see the current DAG through getParents(), isParentOf() and getDag(); only getDag() builds a graph.
+ * getNumDags() counts the DAGs without listing them, and sampleDag() draws one uniformly at random, both by the
+ * decomposition of He, Jia and Yu (2015), "Counting and exploring sizes of Markov equivalence classes of directed
+ * acyclic graphs", which sums over the choice of a root for each chain component.
+ * <p>
+ * Unlike DagInPatternIterator, this class does not take background knowledge.
+ *
+ * @see DagInPatternIterator
+ */
+public class DagInPatternEnumerator {
+
+    /**
+     * Called once for each DAG in the pattern.
+     */
+    public interface DagVisitor {
+
+        /**
+         * @param dags The enumerator, showing the current DAG. It is only valid for the duration of the call.
+         * @return false if the enumeration should stop.
+         */
+        boolean visit(DagInPatternEnumerator dags);
+    }
+
+    private final Graph pattern;
+    private final List<Node> nodes;
+    private final Map<Node, Integer> indices = new HashMap<>();
+    private final BitSet[] adjacent;
+
+    // fixedParents[b].get(a) iff a-->b in the pattern.
+    private final BitSet[] fixedParents;
+
+    // The undirected edges of the pattern, as tail[e]---head[e]; "forward" means tail[e]-->head[e].
+    private final int[] tail;
+    private final int[] head;
+
+    // For each node, the undirected edges touching it and the nodes at their other ends.
+    private final int[][] undirectedNbrs;
+    private final int[][] undirectedEdges;
+
+    private final BitSet oriented = new BitSet();
+    private final BitSet reversed = new BitSet();
+    private final int[] undoLog;
+    private int logSize = 0;
+
+    // The orientations forced by the pattern itself, which are never undone.
+    private final int base;
+
+    private final Map<BitSet, BigInteger> counts = new HashMap<>();
+
+    /**
+     * @param pattern A pattern, with only directed and undirected edges, closed under the Meek rules.
+     * @throws IllegalArgumentException if the graph has edges of any other kind, or if propagating the Meek rules in
+     *                                  it leads to a contradiction.
+     */
+    public DagInPatternEnumerator(Graph pattern) {
+        this.pattern = pattern;
+        this.nodes = pattern.getNodes();
+
+        int n = nodes.size();
+
+        for (int i = 0; i < n; i++) {
+            indices.put(nodes.get(i), i);
+        }
+
+        adjacent = new BitSet[n];
+        fixedParents = new BitSet[n];
+
+        for (int i = 0; i < n; i++) {
+            adjacent[i] = new BitSet(n);
+            fixedParents[i] = new BitSet(n);
+        }
+
+        List<int[]> undirected = new ArrayList<>();
+
+        for (Edge edge : pattern.getEdges()) {
+            int a = indices.get(edge.getNode1());
+            int b = indices.get(edge.getNode2());
+            adjacent[a].set(b);
+            adjacent[b].set(a);
+
+            if (Edges.isUndirectedEdge(edge)) {
+                undirected.add(new int[]{a, b});
+            } else if (Edges.isDirectedEdge(edge)) {
+                Node child = Edges.getDirectedEdgeHead(edge);
+                Node parent = Edges.getDirectedEdgeTail(edge);
+                fixedParents[indices.get(child)].set(indices.get(parent));
+            } else {
+                throw new IllegalArgumentException("A pattern may only have directed and undirected edges: " + edge);
+            }
+        }
+
+        int m = undirected.size();
+        tail = new int[m];
+        head = new int[m];
+        undoLog = new int[m];
+
+        int[] degrees = new int[n];
+
+        for (int e = 0; e < m; e++) {
+            tail[e] = undirected.get(e)[0];
+            head[e] = undirected.get(e)[1];
+            degrees[tail[e]]++;
+            degrees[head[e]]++;
+        }
+
+        undirectedNbrs = new int[n][];
+        undirectedEdges = new int[n][];
+
+        for (int i = 0; i < n; i++) {
+            undirectedNbrs[i] = new int[degrees[i]];
+            undirectedEdges[i] = new int[degrees[i]];
+            degrees[i] = 0;
+        }
+
+        for (int e = 0; e < m; e++) {
+            int a = tail[e];
+            int b = head[e];
+            undirectedNbrs[a][degrees[a]] = b;
+            undirectedEdges[a][degrees[a]++] = e;
+            undirectedNbrs[b][degrees[b]] = a;
+            undirectedEdges[b][degrees[b]++] = e;
+        }
+
+        // Close the pattern under the rules, in case it came in not quite closed.
+        for (int b = 0; b < n; b++) {
+            for (int a = fixedParents[b].nextSetBit(0); a >= 0; a = fixedParents[b].nextSetBit(a + 1)) {
+                if (!applyRules(a, b)) {
+                    throw new IllegalArgumentException("The Meek rules lead to a contradiction in this pattern.");
+                }
+            }
+        }
+
+        if (!propagate(0)) {
+            throw new IllegalArgumentException("The Meek rules lead to a contradiction in this pattern.");
+        }
+
+        base = logSize;
+    }
+
+    //============================PUBLIC METHODS==========================//
+
+    /**
+     * Visits each DAG in the pattern once.
+     *
+     * @return false if the visitor stopped the enumeration.
+     */
+    public boolean enumerate(DagVisitor visitor) {
+        try {
+            return enumerate(0, visitor);
+        } finally {
+            undo(base);
+        }
+    }
+
+    /**
+     * @return the number of DAGs in the pattern, without listing them.
+     */
+    public BigInteger getNumDags() {
+        BigInteger count = BigInteger.ONE;
+
+        for (BitSet component : chainComponents(allNodes())) {
+            count = count.multiply(count(component));
+        }
+
+        return count;
+    }
+
+    /**
+     * @return a DAG drawn uniformly from the DAGs in the pattern, using RandomUtil.
+     */
+    public Graph sampleDag() {
+        try {
+            for (BitSet component : chainComponents(allNodes())) {
+                sample(component);
+            }
+
+            return getDag();
+        } finally {
+            undo(base);
+        }
+    }
+
+    /**
+     * @return the parents of the given node in the current DAG. Only meaningful during a visit.
+     */
+    public List<Node> getParents(Node node) {
+        int b = indices.get(node);
+        List<Node> parents = new ArrayList<>();
+
+        for (int a = fixedParents[b].nextSetBit(0); a >= 0; a = fixedParents[b].nextSetBit(a + 1)) {
+            parents.add(nodes.get(a));
+        }
+
+        for (int k = 0; k < undirectedNbrs[b].length; k++) {
+            if (pointsInto(undirectedEdges[b][k], b)) {
+                parents.add(nodes.get(undirectedNbrs[b][k]));
+            }
+        }
+
+        return parents;
+    }
+
+    /**
+     * @return true iff parent-->child in the current DAG. Only meaningful during a visit.
+     */
+    public boolean isParentOf(Node parent, Node child) {
+        return isParent(indices.get(parent), indices.get(child));
+    }
+
+    /**
+     * @return the current DAG, as a new graph over the nodes of the pattern. Only meaningful during a visit.
+     */
+    public Graph getDag() {
+        Graph dag = new EdgeListGraph(nodes);
+
+        for (int b = 0; b < nodes.size(); b++) {
+            for (Node a : getParents(nodes.get(b))) {
+                dag.addDirectedEdge(a, nodes.get(b));
+            }
+        }
+
+        return dag;
+    }
+
+    public Graph getPattern() {
+        return pattern;
+    }
+
+    //============================PRIVATE METHODS=========================//
+
+    private boolean enumerate(int from, DagVisitor visitor) {
+        int e = oriented.nextClearBit(from);
+
+        if (e >= tail.length) {
+            return visitor.visit(this);
+        }
+
+        for (int direction = 0; direction < 2; direction++) {
+            int mark = logSize;
+            boolean consistent = direction == 0 ? orient(tail[e], head[e]) : orient(head[e], tail[e]);
+
+            if (consistent && propagate(mark) && !enumerate(e + 1, visitor)) {
+                return false;
+            }
+
+            undo(mark);
+        }
+
+        return true;
+    }
+
+    /**
+     * The number of DAGs for a chain component is the sum, over each of its nodes taken as the root, of the product
+     * of the numbers for the chain components left after the root's edges are pointed away from it and the rules are
+     * propagated.
+     */
+    private BigInteger count(BitSet component) {
+        if (component.cardinality() == 1) {
+            return BigInteger.ONE;
+        }
+
+        BigInteger count = counts.get(component);
+
+        if (count != null) {
+            return count;
+        }
+
+        count = BigInteger.ZERO;
+
+        for (int v = component.nextSetBit(0); v >= 0; v = component.nextSetBit(v + 1)) {
+            count = count.add(countRootedAt(v, component));
+        }
+
+        counts.put(component, count);
+        return count;
+    }
+
+    private BigInteger countRootedAt(int v, BitSet component) {
+        int mark = logSize;
+
+        try {
+            if (!orientAwayFrom(v, mark)) {
+                return BigInteger.ZERO;
+            }
+
+            BigInteger count = BigInteger.ONE;
+
+            for (BitSet _component : chainComponents(component)) {
+                count = count.multiply(count(_component));
+            }
+
+            return count;
+        } finally {
+            undo(mark);
+        }
+    }
+
+    private void sample(BitSet component) {
+        if (component.cardinality() == 1) {
+            return;
+        }
+
+        double r = RandomUtil.getInstance().nextDouble() * count(component).doubleValue();
+        int root = -1;
+
+        for (int v = component.nextSetBit(0); v >= 0; v = component.nextSetBit(v + 1)) {
+            BigInteger weight = countRootedAt(v, component);
+
+            if (weight.signum() > 0) {
+                root = v;
+                r -= weight.doubleValue();
+
+                if (r < 0) {
+                    break;
+                }
+            }
+        }
+
+        if (root == -1 || !orientAwayFrom(root, logSize)) {
+            throw new IllegalStateException("No DAG in the pattern for " + component);
+        }
+
+        for (BitSet _component : chainComponents(component)) {
+            sample(_component);
+        }
+    }
+
+    private boolean orientAwayFrom(int v, int mark) {
+        for (int k = 0; k < undirectedNbrs[v].length; k++) {
+            if (!oriented.get(undirectedEdges[v][k]) && !orient(v, undirectedNbrs[v][k])) {
+                return false;
+            }
+        }
+
+        return propagate(mark);
+    }
+
+    /**
+     * Splits the given nodes into the connected components of the graph of the edges among them that are not yet
+     * oriented.
+     */
+    private List<BitSet> chainComponents(BitSet within) {
+        List<BitSet> components = new ArrayList<>();
+        BitSet seen = new BitSet();
+        Deque<Integer> stack = new ArrayDeque<>();
+
+        for (int s = within.nextSetBit(0); s >= 0; s = within.nextSetBit(s + 1)) {
+            if (seen.get(s)) {
+                continue;
+            }
+
+            BitSet component = new BitSet();
+            seen.set(s);
+            stack.push(s);
+
+            while (!stack.isEmpty()) {
+                int a = stack.pop();
+                component.set(a);
+
+                for (int k = 0; k < undirectedNbrs[a].length; k++) {
+                    int b = undirectedNbrs[a][k];
+
+                    if (!oriented.get(undirectedEdges[a][k]) && within.get(b) && !seen.get(b)) {
+                        seen.set(b);
+                        stack.push(b);
+                    }
+                }
+            }
+
+            components.add(component);
+        }
+
+        return components;
+    }
+
+    private BitSet allNodes() {
+        BitSet all = new BitSet();
+        all.set(0, nodes.size());
+        return all;
+    }
+
+    /**
+     * Orients a-->b, logging the change.
+     *
+     * @return false if the edge is already oriented the other way.
+     */
+    private boolean orient(int a, int b) {
+        int e = edgeBetween(a, b);
+
+        if (oriented.get(e)) {
+            return pointsInto(e, b);
+        }
+
+        oriented.set(e);
+        reversed.set(e, head[e] == a);
+        undoLog[logSize++] = e;
+        return true;
+    }
+
+    private void undo(int mark) {
+        while (logSize > mark) {
+            int e = undoLog[--logSize];
+            oriented.clear(e);
+            reversed.clear(e);
+        }
+    }
+
+    /**
+     * Applies the rules to every orientation logged since the mark, including those the rules add along the way.
+     */
+    private boolean propagate(int mark) {
+        for (int i = mark; i < logSize; i++) {
+            int e = undoLog[i];
+            int a = reversed.get(e) ? head[e] : tail[e];
+            int b = reversed.get(e) ? tail[e] : head[e];
+
+            if (!applyRules(a, b)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Orients whatever Meek's rules R1-R3 require, given that x-->y has just been oriented.
+     */
+    private boolean applyRules(int x, int y) {
+
+        // R1: x-->y---c, x and c nonadjacent => y-->c.
+        for (int k = 0; k < undirectedNbrs[y].length; k++) {
+            int c = undirectedNbrs[y][k];
+
+            if (c != x && !oriented.get(undirectedEdges[y][k]) && !adjacent[x].get(c) && !orient(y, c)) {
+                return false;
+            }
+        }
+
+        // R2: x-->y-->c, x---c => x-->c.
+        for (int k = 0; k < undirectedNbrs[x].length; k++) {
+            int c = undirectedNbrs[x][k];
+
+            if (!oriented.get(undirectedEdges[x][k]) && isParent(y, c) && !orient(x, c)) {
+                return false;
+            }
+        }
+
+        // R2: a-->x-->y, a---y => a-->y.
+        for (int k = 0; k < undirectedNbrs[y].length; k++) {
+            int a = undirectedNbrs[y][k];
+
+            if (!oriented.get(undirectedEdges[y][k]) && isParent(a, x) && !orient(a, y)) {
+                return false;
+            }
+        }
+
+        // R3: a---x-->y<--d---a, a---y, x and d nonadjacent => a-->y.
+        for (int k = 0; k < undirectedNbrs[y].length; k++) {
+            int a = undirectedNbrs[y][k];
+
+            if (oriented.get(undirectedEdges[y][k]) || !isUndirected(a, x)) {
+                continue;
+            }
+
+            for (int j = 0; j < undirectedNbrs[a].length; j++) {
+                int d = undirectedNbrs[a][j];
+
+                if (d != x && !oriented.get(undirectedEdges[a][j]) && !adjacent[x].get(d) && isParent(d, y)) {
+                    if (!orient(a, y)) {
+                        return false;
+                    }
+
+                    break;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isParent(int a, int b) {
+        if (fixedParents[b].get(a)) {
+            return true;
+        }
+
+        int e = edgeBetween(a, b);
+        return e != -1 && oriented.get(e) && pointsInto(e, b);
+    }
+
+    private boolean isUndirected(int a, int b) {
+        int e = edgeBetween(a, b);
+        return e != -1 && !oriented.get(e);
+    }
+
+    // True iff e is oriented with its arrowhead at b.
+    private boolean pointsInto(int e, int b) {
+        return oriented.get(e) && (reversed.get(e) ? tail[e] : head[e]) == b;
+    }
+
+    private int edgeBetween(int a, int b) {
+        int[] nbrs = undirectedNbrs[a];
+
+        for (int k = 0; k < nbrs.length; k++) {
+            if (nbrs[k] == b) {
+                return undirectedEdges[a][k];
+            }
+        }
+
+        return -1;
+    }
+}
+
+
+
@@ -42,12 +42,16 @@ public class DeltaTetradTest {
     private ICovarianceMatrix cov;
     private int df;
     private double chisq;
-    //    private double[][][][] fourthMoment;
-//    private int numVars;
-//    private double[] means;
     private List<Node> variables;
     private Map<Node, Integer> variablesHash;
-//    private boolean cacheFourthMoments = false;
+
+    /**
+     * Fourth moments already calculated, keyed by their sorted variable
+     * indices, since a full n^4 array is out of the question. The least
+     * recently used are dropped once there are more than fourthMomentCacheSize.
+     */
+    private Map<Long, Double> fourthMoments;
+    private int fourthMomentCacheSize = 100000;
 
 
     // As input we require a data set and a list of non-redundant Tetrads.
@@ -89,11 +93,7 @@ public class DeltaTetradTest {
             variablesHash.put(variables.get(i), i);
         }
 
-//        this.means = new double[numVars];
-//
-//        for (int i = 0; i < numVars; i++) {
-//            means[i] = mean(data[i], N);
-//        }
+        setFourthMomentCacheSize(fourthMomentCacheSize);
     }
 
     /**
@@ -116,11 +116,6 @@ public class DeltaTetradTest {
         }
     }
 
-//    private void initializeForthMomentMatrix(List<Node> variables) {
-//        int n = variables.size();
-//        fourthMoment = new double[n][n][n][n];
-//    }
-
     /**
      * Takes a list of tetrads for the given data set and returns the chi square value for the test. We assume that the
      * tetrads are non-redundant; if not, a matrix exception will be thrown.
@@ -149,6 +144,10 @@ public class DeltaTetradTest {
         // Need a matrix of variances and covariances of sample covariances.
         Matrix sigma_ss = new Matrix(boldSigma.size(), boldSigma.size());
 
+        // The products of the centered columns for each sigma, made only if
+        // some fourth moment is not cached.
+        double[][] products = new double[boldSigma.size()][];
+
         for (int i = 0; i < boldSigma.size(); i++) {
             for (int j = 0; j < boldSigma.size(); j++) {
                 Sigma sigmaef = boldSigma.get(i);
@@ -175,9 +174,12 @@ public class DeltaTetradTest {
                     // Assumes multinormality--see p. 160.
                     double _ss = sxy(e, g) * sxy(f, h) - sxy(e, h) * sxy(f, g);   // + or -? Different advise. + in the code.
                     sigma_ss.set(i, j, _ss);
-                } else {
-                    double _ss = sxyzw(e, f, g, h) - sxy(e, f) * sxy(g, h);
+                } else if (j >= i) {
+
+                    // Symmetric, so only the upper triangle is calculated.
+                    double _ss = fourthMoment(boldSigma, products, i, j) - sxy(e, f) * sxy(g, h);
                     sigma_ss.set(i, j, _ss);
+                    sigma_ss.set(j, i, _ss);
                 }
             }
         }
@@ -244,71 +246,128 @@ public class DeltaTetradTest {
         return 1.0 - cdf;
     }
 
+    /**
+     * @return the p value for the given tetrads. Unlike getPValue(), this uses only the values computed for this
+     * call, so it may be called from several threads at once.
+     */
     public double getPValue(Tetrad... tetrads) {
-        calcChiSquare(tetrads);
-        return getPValue();
+        double chisq = calcChiSquare(tetrads);
+        double cdf = new ChiSquaredDistribution(tetrads.length).cumulativeProbability(chisq);
+        return 1.0 - cdf;
+    }
+
+    /**
+     * Sets the maximum number of fourth moments kept for reuse by later calls
+     * to calcChiSquare; 0 turns caching off. Clears the cache.
+     */
+    public void setFourthMomentCacheSize(int fourthMomentCacheSize) {
+        if (fourthMomentCacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must be non-negative: " + fourthMomentCacheSize);
+        }
+
+        this.fourthMomentCacheSize = fourthMomentCacheSize;
+
+        this.fourthMoments = Collections.synchronizedMap(new LinkedHashMap<Long, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+                return size() > DeltaTetradTest.this.fourthMomentCacheSize;
+            }
+        });
+    }
+
+    public int getFourthMomentCacheSize() {
+        return fourthMomentCacheSize;
     }
 
-    private double sxyzw(Node e, Node f, Node g, Node h) {
+    /**
+     * The fourth moment for the variables in the i'th and j'th sigmas, from
+     * the cache if it is there.
+     */
+    private double fourthMoment(List<Sigma> boldSigma, double[][] products, int i, int j) {
         if (dataSet == null) {
             throw new IllegalArgumentException("To calculate sxyzw, tabular data is needed.");
         }
 
-        int x = variablesHash.get(e);
-        int y = variablesHash.get(f);
-        int z = variablesHash.get(g);
-        int w = variablesHash.get(h);
+        Sigma ef = boldSigma.get(i);
+        Sigma gh = boldSigma.get(j);
+
+        long key = fourthMomentKey(variablesHash.get(ef.getA()), variablesHash.get(ef.getB()),
+                variablesHash.get(gh.getA()), variablesHash.get(gh.getB()));
+
+        if (key >= 0 && fourthMomentCacheSize > 0) {
+            Double sxyzw = fourthMoments.get(key);
 
-        return getForthMoment(x, y, z, w);
+            if (sxyzw != null) {
+                return sxyzw;
+            }
+        }
+
+        double sxyzw = dot(product(boldSigma, products, i), product(boldSigma, products, j)) / N;
+
+        if (key >= 0 && fourthMomentCacheSize > 0) {
+            fourthMoments.put(key, sxyzw);
+        }
+
+        return sxyzw;
     }
 
-//    private void setForthMoment(int x, int y, int z, int w, double sxyzw) {
-//        fourthMoment[x][y][z][w] = sxyzw;
-//        fourthMoment[x][y][w][z] = sxyzw;
-//        fourthMoment[x][w][z][y] = sxyzw;
-//        fourthMoment[x][w][y][z] = sxyzw;
-//        fourthMoment[x][z][y][w] = sxyzw;
-//        fourthMoment[x][z][w][y] = sxyzw;
-//
-//        fourthMoment[y][x][z][w] = sxyzw;
-//        fourthMoment[y][x][w][z] = sxyzw;
-//        fourthMoment[y][z][x][w] = sxyzw;
-//        fourthMoment[y][z][w][x] = sxyzw;
-//        fourthMoment[y][w][x][z] = sxyzw;
-//        fourthMoment[y][w][z][x] = sxyzw;
-//
-//        fourthMoment[z][x][y][w] = sxyzw;
-//        fourthMoment[z][x][w][y] = sxyzw;
-//        fourthMoment[z][y][x][w] = sxyzw;
-//        fourthMoment[z][y][w][x] = sxyzw;
-//        fourthMoment[z][w][x][y] = sxyzw;
-//        fourthMoment[z][w][y][x] = sxyzw;
-//
-//        fourthMoment[w][x][y][z] = sxyzw;
-//        fourthMoment[w][x][z][y] = sxyzw;
-//        fourthMoment[w][y][x][z] = sxyzw;
-//        fourthMoment[w][y][z][x] = sxyzw;
-//        fourthMoment[w][z][x][y] = sxyzw;
-//        fourthMoment[w][z][y][x] = sxyzw;
-//    }
+    private double[] product(List<Sigma> boldSigma, double[][] products, int i) {
+        if (products[i] == null) {
+            double[] _x = data[variablesHash.get(boldSigma.get(i).getA())];
+            double[] _y = data[variablesHash.get(boldSigma.get(i).getB())];
+            double[] product = new double[_x.length];
 
-    private double getForthMoment(int x, int y, int z, int w) {
-//        if (cacheFourthMoments) {
-//            if (fourthMoment == null) {
-//                initializeForthMomentMatrix(dataSet.getVariable());
-//            }
-//
-//            double sxyzw = fourthMoment[x][y][z][w];
-//
-//            if (sxyzw == 0.0) {
-//                sxyzw = sxyzw(x, y, z, w);
-////                setForthMoment(x, y, z, w, sxyzw);
-//            }
-//
-//            return sxyzw;
-//        } else {
-        return sxyzw(x, y, z, w);
-//        }
+            for (int r = 0; r < product.length; r++) {
+                product[r] = _x[r] * _y[r];
+            }
+
+            products[i] = product;
+        }
+
+        return products[i];
+    }
+
+    /**
+     * The moment is symmetric in its four variables, so the sorted indices,
+     * packed 16 bits apiece, identify it. Returns -1 if there are too many
+     * variables to pack.
+     */
+    private static long fourthMomentKey(int x, int y, int z, int w) {
+        if ((x | y | z | w) >= (1 << 16)) {
+            return -1;
+        }
+
+        int t;
+        if (x > y) { t = x; x = y; y = t; }
+        if (z > w) { t = z; z = w; w = t; }
+        if (x > z) { t = x; x = z; z = t; }
+        if (y > w) { t = y; y = w; w = t; }
+        if (y > z) { t = y; y = z; z = t; }
+
+        return ((long) x << 48) | ((long) y << 32) | ((long) z << 16) | w;
+    }
+
+    /**
+     * A dot product with four accumulators, so that the additions need not
+     * wait on one another.
+     */
+    private static double dot(double[] a, double[] b) {
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int n = a.length;
+        int r = 0;
+
+        for (; r + 3 < n; r += 4) {
+            s0 += a[r] * b[r];
+            s1 += a[r + 1] * b[r + 1];
+            s2 += a[r + 2] * b[r + 2];
+            s3 += a[r + 3] * b[r + 3];
+        }
+
+        for (; r < n; r++) {
+            s0 += a[r] * b[r];
+        }
+
+        return (s0 + s1) + (s2 + s3);
     }
 
     /**
@@ -364,10 +423,6 @@ public class DeltaTetradTest {
         return 0.0;
     }
 
-//    public void setCacheFourthMoments(boolean cacheFourthMoments) {
-//        this.cacheFourthMoments = cacheFourthMoments;
-//    }
-
     private static class Sigma {
         private Node a;
         private Node b;
@@ -403,23 +458,6 @@ public class DeltaTetradTest {
         }
     }
 
-    private double sxyzw(int x, int y, int z, int w) {
-        double sxyzw = 0.0;
-
-        double[] _x = data[x];
-        double[] _y = data[y];
-        double[] _z = data[z];
-        double[] _w = data[w];
-
-        int N = _x.length;
-
-        for (int j = 0; j < N; j++) {
-            sxyzw += _x[j] * _y[j] * _z[j] * _w[j];
-        }
-
-        return (1.0 / N) * sxyzw;
-    }
-
     private double sxy(double array1[], double array2[], int N) {
         int i;
         double sum = 0.0;
@@ -154,6 +154,36 @@ public final class Fask implements GraphSearch {
 
     double[][] D;
 
+    // Shared column statistics, set up by prepare().
+    private PairwiseOrienter orienter;
+
+    // The columns the left-right rule works on (skew-corrected if empirical) and, for RSKEW and TANH,
+    // its nonlinearity applied to each of them.
+    private double[][] lrColumns;
+    private double[][] lrTransformed;
+
+    // How a pair was oriented in search().
+    private enum Method {KNOWLEDGE_FORBIDDEN, KNOWLEDGE, ZERO_DIFF, LEFT_RIGHT}
+
+    // The judgment for a pair (i, j), i < j. direction is 1 for i->j, -1 for j->i and 0 for none.
+    private static class PairOrientation {
+        private final int i;
+        private final int j;
+        private final double lr;
+        private final Method method;
+        private final int direction;
+        private final boolean twoCycleCandidate;
+
+        private PairOrientation(int i, int j, double lr, Method method, int direction, boolean twoCycleCandidate) {
+            this.i = i;
+            this.j = j;
+            this.lr = lr;
+            this.method = method;
+            this.direction = direction;
+            this.twoCycleCandidate = twoCycleCandidate;
+        }
+    }
+
     /**
      * @param dataSet A continuous dataset over variables V.
      * @param test    An independence test over variables V. (Used for FAS.)
@@ -193,11 +223,10 @@ public final class Fask implements GraphSearch {
         DataSet dataSet = DataUtils.standardizeData(this.dataSet);
 
         List<Node> variables = dataSet.getVariables();
-        double[][] lrs = getLrScores(); // Sets D.
-//        D = dataSet.getDoubleData().transpose().toArray();
+        prepare(); // Sets D.
 
         for (int i = 0; i < variables.size(); i++) {
-            System.out.println("Skewness of " + variables.get(i) + " = " + skewness(D[i]));
+            System.out.println("Skewness of " + variables.get(i) + " = " + orienter.getSkewness(i));
         }
 
         TetradLogger.getInstance().forceLogMessage("FASK v. 2.0");
@@ -262,76 +291,74 @@ public final class Fask implements GraphSearch {
 
         List<NodePair> twoCycles = new ArrayList<>();
 
-        for (int i = 0; i < V; i++) {
-            for (int j = i + 1; j < V; j++) {
-                Node X = variables.get(i);
-                Node Y = variables.get(j);
+        // The pairs are judged in parallel, a row of pairs per index; the judgments are then
+        // applied to the graph and logged here in the original order.
+        Graph _G = G;
+        List<List<PairOrientation>> rows = orienter.map(V, i -> orientRow(i, _G, variables));
 
-                // Centered
-                double[] x = D[i];
-                double[] y = D[j];
+        for (List<PairOrientation> row : rows) {
+            if (row == null) continue;
 
-                double cx = correxp(x, y, x);
-                double cy = correxp(x, y, y);
+            for (PairOrientation o : row) {
+                Node X = variables.get(o.i);
+                Node Y = variables.get(o.j);
+                double lr = o.lr;
 
-                if (G.isAdjacentTo(X, Y) || (abs(cx - cy) > skewEdgeThreshold)) {
-                    double lr = lrs[i][j];// leftRight(x, y);
-
-                    if (edgeForbiddenByKnowledge(X, Y) && edgeForbiddenByKnowledge(Y, X)) {
+                switch (o.method) {
+                    case KNOWLEDGE_FORBIDDEN:
                         TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tknowledge_forbidden"
                                 + "\t" + nf.format(lr)
                                 + "\t" + X + "<->" + Y
                         );
                         continue;
-                    }
-
-                    if (knowledgeOrients(X, Y)) {
-                        TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tknowledge"
-                                + "\t" + nf.format(lr)
-                                + "\t" + X + "-->" + Y
-                        );
-                        graph.addDirectedEdge(X, Y);
-                    } else if (knowledgeOrients(Y, X)) {
-                        TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tknowledge"
-                                + "\t" + nf.format(lr)
-                                + "\t" + X + "<--" + Y
-                        );
-                        graph.addDirectedEdge(Y, X);
-                    } else {
-                        if (zeroDiff(i, j, D)) {
-                            TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\t2-cycle Prescreen"
-                                    + "\t" + nf.format(lr)
-                                    + "\t" + X + "...TC?..." + Y
-                            );
-
-                            System.out.println(X + " " + Y + " lr = " + lr + " zero");
-                            continue;
-                        }
-
-                        if (twoCycleScreeningCutoff > 0 && abs(faskLeftRightV2(x, y)) < twoCycleScreeningCutoff) {
-                            TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\t2-cycle Prescreen"
-                                    + "\t" + nf.format(lr)
-                                    + "\t" + X + "...TC?..." + Y
-                            );
-
-                            twoCycles.add(new NodePair(X, Y));
-                            System.out.println(X + " " + Y + " lr = " + lr + " zero");
-                        }
-
-                        if (lr > 0) {
-                            TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tleft-right"
+                    case KNOWLEDGE:
+                        if (o.direction > 0) {
+                            TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tknowledge"
                                     + "\t" + nf.format(lr)
                                     + "\t" + X + "-->" + Y
                             );
                             graph.addDirectedEdge(X, Y);
-                        } else if (lr < 0) {
-                            TetradLogger.getInstance().forceLogMessage(Y + "\t" + X + "\tleft-right"
+                        } else {
+                            TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tknowledge"
                                     + "\t" + nf.format(lr)
-                                    + "\t" + Y + "-->" + X
+                                    + "\t" + X + "<--" + Y
                             );
                             graph.addDirectedEdge(Y, X);
                         }
-                    }
+                        continue;
+                    case ZERO_DIFF:
+                        TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\t2-cycle Prescreen"
+                                + "\t" + nf.format(lr)
+                                + "\t" + X + "...TC?..." + Y
+                        );
+
+                        System.out.println(X + " " + Y + " lr = " + lr + " zero");
+                        continue;
+                    default:
+                }
+
+                if (o.twoCycleCandidate) {
+                    TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\t2-cycle Prescreen"
+                            + "\t" + nf.format(lr)
+                            + "\t" + X + "...TC?..." + Y
+                    );
+
+                    twoCycles.add(new NodePair(X, Y));
+                    System.out.println(X + " " + Y + " lr = " + lr + " zero");
+                }
+
+                if (lr > 0) {
+                    TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\tleft-right"
+                            + "\t" + nf.format(lr)
+                            + "\t" + X + "-->" + Y
+                    );
+                    graph.addDirectedEdge(X, Y);
+                } else if (lr < 0) {
+                    TetradLogger.getInstance().forceLogMessage(Y + "\t" + X + "\tleft-right"
+                            + "\t" + nf.format(lr)
+                            + "\t" + Y + "-->" + X
+                    );
+                    graph.addDirectedEdge(Y, X);
                 }
             }
         }
@@ -390,10 +417,7 @@ public final class Fask implements GraphSearch {
         int i = variables.indexOf(X);
         int j = variables.indexOf(Y);
 
-        double[] x = d[i];
-        double[] y = d[j];
-
-        double lr = leftRight(x, y);
+        double lr = leftRight(i, j);
 
         TetradLogger.getInstance().forceLogMessage(X + "\t" + Y + "\t" + type
                 + "\t" + nf.format(lr)
@@ -432,20 +456,21 @@ public final class Fask implements GraphSearch {
      * lr[i][j] is the left right scores leftRight(data[i], data[j]);
      */
     public double[][] getLrScores() {
-        List<Node> variables = dataSet.getVariables();
-        double[][] D = DataUtils.standardizeData(dataSet).getDoubleData().transpose().toArray();
+        prepare();
 
-        double[][] lr = new double[variables.size()][variables.size()];
+        int V = D.length;
 
-        for (int i = 0; i < variables.size(); i++) {
-            for (int j = 0; j < variables.size(); j++) {
-                lr[i][j] = leftRight(D[i], D[j]);
+        List<double[]> lr = orienter.map(V, i -> {
+            double[] row = new double[V];
+
+            for (int j = 0; j < V; j++) {
+                row[j] = leftRight(i, j);
             }
-        }
 
-        this.D = D;
+            return row;
+        });
 
-        return lr;
+        return lr.toArray(new double[0][]);
     }
 
     /**
@@ -548,37 +573,92 @@ public final class Fask implements GraphSearch {
             if (Y.getName().equals(variables.get(k).getName())) j = k;
         }
 
-        double[] x = D[i];
-        double[] y = D[j];
+        return leftRight(i, j);
+    }
 
-        return leftRight(x, y);
 
+    //======================================== PRIVATE METHODS ====================================//
+
+    // Standardizes the data and tabulates per-variable quantities for the current left-right rule,
+    // once for all pairs.
+    private void prepare() {
+        this.orienter = new PairwiseOrienter(dataSet);
+        this.D = orienter.getColumns();
+
+        if (leftRight == LeftRight.RSKEW || leftRight == LeftRight.SKEW || leftRight == LeftRight.TANH) {
+            if (empirical) {
+                this.lrColumns = new double[D.length][];
+                for (int i = 0; i < D.length; i++) lrColumns[i] = orienter.getCorrectedColumn(i);
+            } else {
+                this.lrColumns = D;
+            }
+
+            if (leftRight == LeftRight.RSKEW) {
+                this.lrTransformed = orienter.transform(lrColumns, this::g);
+            } else if (leftRight == LeftRight.TANH) {
+                this.lrTransformed = orienter.transform(lrColumns, Math::tanh);
+            }
+        }
     }
 
+    // The judgments for the pairs (i, j), j > i, that should be in the graph. Safe to call in parallel.
+    private List<PairOrientation> orientRow(int i, Graph G, List<Node> variables) {
+        List<PairOrientation> row = new ArrayList<>();
+
+        for (int j = i + 1; j < variables.size(); j++) {
+            Node X = variables.get(i);
+            Node Y = variables.get(j);
+
+            double[] c = orienter.correxp(i, j);
+            double cx = c[0];
+            double cy = c[1];
+
+            if (G.isAdjacentTo(X, Y) || (abs(cx - cy) > skewEdgeThreshold)) {
+                double lr = leftRight(i, j);
+
+                if (edgeForbiddenByKnowledge(X, Y) && edgeForbiddenByKnowledge(Y, X)) {
+                    row.add(new PairOrientation(i, j, lr, Method.KNOWLEDGE_FORBIDDEN, 0, false));
+                } else if (knowledgeOrients(X, Y)) {
+                    row.add(new PairOrientation(i, j, lr, Method.KNOWLEDGE, 1, false));
+                } else if (knowledgeOrients(Y, X)) {
+                    row.add(new PairOrientation(i, j, lr, Method.KNOWLEDGE, -1, false));
+                } else if (zeroDiff(i, j, D)) {
+                    row.add(new PairOrientation(i, j, lr, Method.ZERO_DIFF, 0, false));
+                } else {
+                    boolean twoCycle = twoCycleScreeningCutoff > 0
+                            && abs(faskLeftRightV2(i, j, cx, cy)) < twoCycleScreeningCutoff;
+                    row.add(new PairOrientation(i, j, lr, Method.LEFT_RIGHT, (int) signum(lr), twoCycle));
+                }
+            }
+        }
 
-    //======================================== PRIVATE METHODS ====================================//
+        return row;
+    }
 
-    private double leftRight(double[] x, double[] y) {
+    private double leftRight(int i, int j) {
         if (leftRight == LeftRight.FASK1) {
-            return faskLeftRightV1(x, y);
+            double[] c = orienter.correxp(i, j);
+            return faskLeftRightV1(i, j, c[0], c[1]);
         } else if (leftRight == LeftRight.FASK2) {
-            return faskLeftRightV2(x, y);
+            double[] c = orienter.correxp(i, j);
+            return faskLeftRightV2(i, j, c[0], c[1]);
         } else if (leftRight == LeftRight.RSKEW) {
-            return robustSkew(x, y);
+            return robustSkew(i, j);
         } else if (leftRight == LeftRight.SKEW) {
-            return skew(x, y);
+            return skew(i, j);
         } else if (leftRight == LeftRight.TANH) {
-            return tanh(x, y);
+            return tanh(i, j);
         }
 
         throw new IllegalStateException("Left right rule not configured: " + leftRight);
     }
 
-    private double faskLeftRightV2(double[] x, double[] y) {
-        double sx = skewness(x);
-        double sy = skewness(y);
-        double r = correlation(x, y);
-        double lr = correxp(x, y, x) - correxp(x, y, y);
+    // cx and cy are the correxp values for the pair.
+    private double faskLeftRightV2(int i, int j, double cx, double cy) {
+        double sx = orienter.getSkewness(i);
+        double sy = orienter.getSkewness(j);
+        double r = correlation(D[i], D[j]);
+        double lr = cx - cy;
 
         if (empirical) {
             lr *= signum(sx) * signum(sy);
@@ -593,14 +673,13 @@ public final class Fask implements GraphSearch {
         return lr;
     }
 
-    private double faskLeftRightV1(double[] x, double[] y) {
-        double left = cu(x, y, x) / (sqrt(cu(x, x, x) * cu(y, y, x)));
-        double right = cu(x, y, y) / (sqrt(cu(x, x, y) * cu(y, y, y)));
+    // left and right are E(XY | Z > 0) / sqrt(E(XX | Z > 0) * E(YY | Z > 0)) for Z = X and Z = Y.
+    private double faskLeftRightV1(int i, int j, double left, double right) {
         double lr = left - right;
 
-        double r = StatUtils.correlation(x, y);
-        double sx = StatUtils.skewness(x);
-        double sy = StatUtils.skewness(y);
+        double r = StatUtils.correlation(D[i], D[j]);
+        double sx = orienter.getSkewness(i);
+        double sy = orienter.getSkewness(j);
 
         if (empirical) {
             r *= signum(sx) * signum(sy);
@@ -612,67 +691,22 @@ public final class Fask implements GraphSearch {
         return lr;
     }
 
-    private static double cu(double[] x, double[] y, double[] condition) {
-        double exy = 0.0;
-
-        int n = 0;
-
-        for (int k = 0; k < x.length; k++) {
-            if (condition[k] > 0) {
-                exy += x[k] * y[k];
-                n++;
-            }
-        }
-
-        return exy / n;
-    }
-
-    private double robustSkew(double[] x, double[] y) {
-
-        if (empirical) {
-            x = correctSkewness(x, skewness(x));
-            y = correctSkewness(y, skewness(y));
-        }
-
-        double[] lr = new double[x.length];
-
-        for (int i = 0; i < x.length; i++) {
-            lr[i] = g(x[i]) * y[i] - x[i] * g(y[i]);
-        }
-
-        return correlation(x, y) * mean(lr);
+    private double robustSkew(int i, int j) {
+        double[] x = lrColumns[i];
+        double[] y = lrColumns[j];
+        return correlation(x, y) * PairwiseOrienter.meanDifference(lrTransformed[i], y, x, lrTransformed[j]);
     }
 
-    private double skew(double[] x, double[] y) {
-
-        if (empirical) {
-            x = correctSkewness(x, skewness(x));
-            y = correctSkewness(y, skewness(y));
-        }
-
-        double[] lr = new double[x.length];
-
-        for (int i = 0; i < x.length; i++) {
-            lr[i] = x[i] * x[i] * y[i] - x[i] * y[i] * y[i];
-        }
-
-        return correlation(x, y) * mean(lr);
+    private double skew(int i, int j) {
+        double[] x = lrColumns[i];
+        double[] y = lrColumns[j];
+        return correlation(x, y) * PairwiseOrienter.skewDifference(x, y);
     }
 
-    private double tanh(double[] x, double[] y) {
-
-        if (empirical) {
-            x = correctSkewness(x, skewness(x));
-            y = correctSkewness(y, skewness(y));
-        }
-
-        double[] lr = new double[x.length];
-
-        for (int i = 0; i < x.length; i++) {
-            lr[i] = x[i] * Math.tanh(y[i]) - Math.tanh(x[i]) * y[i];
-        }
-
-        return correlation(x, y) * mean(lr);
+    private double tanh(int i, int j) {
+        double[] x = lrColumns[i];
+        double[] y = lrColumns[j];
+        return correlation(x, y) * PairwiseOrienter.meanDifference(x, lrTransformed[j], lrTransformed[i], y);
     }
 
     private double g(double x) {
@@ -687,32 +721,6 @@ public final class Fask implements GraphSearch {
         return knowledge.isForbidden(Y.getName(), X.getName()) && knowledge.isForbidden(X.getName(), Y.getName());
     }
 
-    // Returns E(XY | Z > 0) / sqrt(E(XX | Z > 0) * E(YY | Z > 0)). Z is typically either X or Y.
-    private static double correxp(double[] x, double[] y, double[] z) {
-        return E(x, y, z) / sqrt(E(x, x, z) * E(y, y, z));
-    }
-
-    // Returns E(XY | Z > 0); Z is typically either X or Y.
-    private static double E(double[] x, double[] y, double[] z) {
-        double exy = 0.0;
-        int n = 0;
-
-        for (int k = 0; k < x.length; k++) {
-            if (z[k] > 0) {
-                exy += x[k] * y[k];
-                n++;
-            }
-        }
-
-        return exy / n;
-    }
-
-    private double[] correctSkewness(double[] data, double sk) {
-        double[] data2 = new double[data.length];
-        for (int i = 0; i < data.length; i++) data2[i] = data[i] * signum(sk);
-        return data2;
-    }
-
     private boolean twoCycleTest(int i, int j, double[][] D, Graph G0, List<Node> V) {
         Node X = V.get(i);
         Node Y = V.get(j);
@@ -84,6 +84,11 @@ public final class Fci implements GraphSearch {
      */
     private boolean possibleDsepSearchDone = true;
 
+    /**
+     * True iff the Possible-D-Sep sets are found by searching paths rather than taken as the adjacents.
+     */
+    private boolean possibleDsepPathSearch = false;
+
     /**
      * The maximum length for any discriminating path. -1 if unlimited; otherwise, a positive integer.
      */
@@ -202,7 +207,8 @@ public final class Fci implements GraphSearch {
 
         graph.reorientAllWith(Endpoint.CIRCLE);
 
-        SepsetProducer sp = new SepsetsPossibleDsep(graph, independenceTest, knowledge, depth, maxPathLength);
+        SepsetsPossibleDsep sp = new SepsetsPossibleDsep(graph, independenceTest, knowledge, depth, maxPathLength);
+        sp.setPossibleDsepPathSearch(possibleDsepPathSearch);
         sp.setVerbose(verbose);
 
         // The original FCI, with or without JiJi Zhang's orientation rules
@@ -211,22 +217,17 @@ public final class Fci implements GraphSearch {
 //            long time1 = System.currentTimeMillis();
             new FciOrient(new SepsetsSet(this.sepsets, independenceTest)).ruleR0(graph);
 
-            for (Edge edge : new ArrayList<>(graph.getEdges())) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
-
-                Node x = edge.getNode1();
-                Node y = edge.getNode2();
+            List<Edge> edges = new ArrayList<>(graph.getEdges());
+            SepsetMap removed = PossibleDsepFci.removeEdges(graph, sp, independenceTest);
+            sepsets.addAll(removed);
 
-                List<Node> sepset = sp.getSepset(x, y);
+            if (verbose) {
+                for (Edge edge : edges) {
+                    List<Node> sepset = removed.get(edge.getNode1(), edge.getNode2());
 
-                if (sepset != null) {
-                    graph.removeEdge(x, y);
-                    sepsets.set(x, y, sepset);
-
-                    if (verbose) {
-                        System.out.println("Possible DSEP Removed " + x + "--- " + y + " sepset = " + sepset);
+                    if (sepset != null) {
+                        System.out.println("Possible DSEP Removed " + edge.getNode1() + "--- " + edge.getNode2()
+                                + " sepset = " + sepset);
                     }
                 }
             }
@@ -312,6 +313,14 @@ public final class Fci implements GraphSearch {
         this.possibleDsepSearchDone = possibleDsepSearchDone;
     }
 
+    public boolean isPossibleDsepPathSearch() {
+        return possibleDsepPathSearch;
+    }
+
+    public void setPossibleDsepPathSearch(boolean possibleDsepPathSearch) {
+        this.possibleDsepPathSearch = possibleDsepPathSearch;
+    }
+
     /**
      * @return the maximum length of any discriminating path, or -1 of unlimited.
      */
@@ -81,6 +81,11 @@ public final class FciMax implements GraphSearch {
      */
     private boolean possibleDsepSearchDone = true;
 
+    /**
+     * True iff the Possible-D-Sep sets are found by searching paths rather than taken as the adjacents.
+     */
+    private boolean possibleDsepPathSearch = false;
+
     /**
      * The maximum length for any discriminating path. -1 if unlimited; otherwise, a positive integer.
      */
@@ -173,23 +178,14 @@ public final class FciMax implements GraphSearch {
 
         graph.reorientAllWith(Endpoint.CIRCLE);
 
-        SepsetProducer sp = new SepsetsMaxPValuePossDsep(graph, independenceTest, null, depth, maxPathLength);
+        SepsetsMaxPValuePossDsep sp = new SepsetsMaxPValuePossDsep(graph, independenceTest, null, depth, maxPathLength);
+        sp.setPossibleDsepPathSearch(possibleDsepPathSearch);
 
         // The original FCI, with or without JiJi Zhang's orientation rules
         if (isPossibleDsepSearchDone()) {
             addColliders(graph);
 
-            for (Edge edge : new ArrayList<>(graph.getEdges())) {
-                Node x = edge.getNode1();
-                Node y = edge.getNode2();
-
-                List<Node> sepset = sp.getSepset(x, y);
-
-                if (sepset != null) {
-                    graph.removeEdge(x, y);
-                    sepsets.set(x, y, sepset);
-                }
-            }
+            sepsets.addAll(PossibleDsepFci.removeEdges(graph, sp, independenceTest));
 
             // Reorient all edges as o-o.
             graph.reorientAllWith(Endpoint.CIRCLE);
@@ -383,6 +379,14 @@ public final class FciMax implements GraphSearch {
         this.possibleDsepSearchDone = possibleDsepSearchDone;
     }
 
+    public boolean isPossibleDsepPathSearch() {
+        return possibleDsepPathSearch;
+    }
+
+    public void setPossibleDsepPathSearch(boolean possibleDsepPathSearch) {
+        this.possibleDsepPathSearch = possibleDsepPathSearch;
+    }
+
     /**
      * @return the maximum length of any discriminating path, or -1 of unlimited.
      */
@@ -1110,10 +1110,11 @@ public final class FciOrient {
 
                 // Try each of R8, R9, R10 in that order, stopping ASAP.
                 if (!ruleR8(a, c, graph)) {
-                    boolean b = ruleR9(a, c, graph);
+                    UcPdPaths paths = new UcPdPaths(graph);
+                    boolean b = ruleR9(a, c, graph, paths);
 
                     if (!b) {
-                        ruleR10(a, c, graph);
+                        ruleR10(a, c, graph, paths);
                     }
                 }
             }
@@ -1153,7 +1154,7 @@ public final class FciOrient {
      * @return A list of uncovered partially directed undirectedPaths from n1 to
      * n2.
      */
-    private List<List<Node>> getUcPdPaths(Node n1, Node n2, Graph graph) {
+    List<List<Node>> getUcPdPaths(Node n1, Node n2, Graph graph) {
         List<List<Node>> ucPdPaths = new LinkedList<List<Node>>();
 
         LinkedList<Node> soFar = new LinkedList<Node>();
@@ -1313,27 +1314,27 @@ public final class FciOrient {
      * @param c The node C.
      * @return Whether or not R9 was succesfully applied.
      */
-    private boolean ruleR9(Node a, Node c, Graph graph) {
-        List<List<Node>> ucPdPsToC = getUcPdPaths(a, c, graph);
+    boolean ruleR9(Node a, Node c, Graph graph, UcPdPaths paths) {
+        List<Node> candidates = new ArrayList<>();
 
-        for (List<Node> u : ucPdPsToC) {
-            Node b = u.get(1);
-            if (graph.isAdjacentTo(b, c)) {
+        for (Node b : graph.getAdjacentNodes(a)) {
+            if (b == c || graph.isAdjacentTo(b, c)) {
                 continue;
             }
-            if (b == c) {
-                continue;
-            }
-            // We know u is as required: R9 applies!
 
-            logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("R9", graph.getEdge(c, a)));
+            candidates.add(b);
+        }
 
-            graph.setEndpoint(c, a, Endpoint.TAIL);
-            changeFlag = true;
-            return true;
+        if (paths.getFirstSteps(a, c, candidates).isEmpty()) {
+            return false;
         }
 
-        return false;
+        // There is a u as required: R9 applies!
+        logger.log("impliedOrientations", SearchLogUtils.edgeOrientedMsg("R9", graph.getEdge(c, a)));
+
+        graph.setEndpoint(c, a, Endpoint.TAIL);
+        changeFlag = true;
+        return true;
     }
 
     /**
@@ -1350,8 +1351,12 @@ public final class FciOrient {
      * @param c The node C.
      * @return Whether or not R10 was successfully applied.
      */
-    private boolean ruleR10(Node a, Node c, Graph graph) {
+    boolean ruleR10(Node a, Node c, Graph graph, UcPdPaths paths) {
         List<Node> intoCArrows = graph.getNodesInTo(c, Endpoint.ARROW);
+        List<Node> steps = graph.getAdjacentNodes(a);
+
+        // For each B, the M's that begin an uncovered p.d. path <A,M,...,B>.
+        Map<Node, Set<Node>> firstSteps = new HashMap<>();
 
         for (Node b : intoCArrows) {
             if (Thread.currentThread().isInterrupted()) {
@@ -1381,21 +1386,16 @@ public final class FciOrient {
                 }
                 // We know Ao->C and B-->C<--D.
 
-                List<List<Node>> ucPdPsToB = getUcPdPaths(a, b, graph);
-                List<List<Node>> ucPdPsToD = getUcPdPaths(a, d, graph);
-                for (List<Node> u1 : ucPdPsToB) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-
-                    Node m = u1.get(1);
-                    for (List<Node> u2 : ucPdPsToD) {
-                        if (Thread.currentThread().isInterrupted()) {
-                            break;
-                        }
+                if (!firstSteps.containsKey(b)) {
+                    firstSteps.put(b, paths.getFirstSteps(a, b, steps));
+                }
 
-                        Node n = u2.get(1);
+                if (!firstSteps.containsKey(d)) {
+                    firstSteps.put(d, paths.getFirstSteps(a, d, steps));
+                }
 
+                for (Node m : firstSteps.get(b)) {
+                    for (Node n : firstSteps.get(d)) {
                         if (m.equals(n)) {
                             continue;
                         }
@@ -1417,6 +1417,230 @@ public final class FciOrient {
         return false;
     }
 
+    /**
+     * Finds uncovered potentially directed paths in a graph without listing them, for rules R9 and R10. Nodes are
+     * indexed, and a path is followed as a sequence of (previous node, node) states. Whether the end of a path can be
+     * reached at all from a state is found first, for every state at once, by a backward search over the states,
+     * which takes time polynomial in the size of the graph. Since a walk through the states may repeat nodes, a
+     * path is then confirmed by a depth-first search that only enters states from which the end can be reached and
+     * stops at the first path found. When the search from a state fails without having been blocked by a node
+     * earlier on the path, no path to the end leaves that state however it is reached, so the state is dropped from
+     * the reachable ones and never searched again for that end. This is what keeps the search fast in practice;
+     * only a search that keeps being blocked by the path it came along can still take time exponential in the length
+     * of that path, and like the rest of the search it stops when the thread is interrupted. The graph must not be
+     * changed while this is in use.
+     */
+    static class UcPdPaths {
+        private final Map<Node, Integer> indices = new HashMap<>();
+        private final List<Node> nodes;
+
+        // adjacent[i] contains j iff i and j are adjacent.
+        private final BitSet[] adjacent;
+
+        // The j such that i *-* j can be the next step on a p.d. path from i.
+        private final int[][] pdOut;
+
+        // The i such that i *-* j can be the next step on a p.d. path from i.
+        private final int[][] pdIn;
+
+        // For the last end searched for, reachesEnd[q] contains p iff the end can be reached from state (p, q).
+        private BitSet[] reachesEnd;
+        private int end = -1;
+
+        // The position of each node on the path being searched, or -1 if it is not on the path.
+        private final int[] depth;
+
+        // The earliest position on the path of a node that blocked the last search that failed.
+        private int blockedAt;
+
+        UcPdPaths(Graph graph) {
+            nodes = graph.getNodes();
+            int n = nodes.size();
+
+            for (int i = 0; i < n; i++) {
+                indices.put(nodes.get(i), i);
+            }
+
+            adjacent = new BitSet[n];
+            List<List<Integer>> out = new ArrayList<>();
+            List<List<Integer>> in = new ArrayList<>();
+
+            for (int i = 0; i < n; i++) {
+                adjacent[i] = new BitSet(n);
+                out.add(new ArrayList<Integer>());
+                in.add(new ArrayList<Integer>());
+            }
+
+            for (int i = 0; i < n; i++) {
+                Node x = nodes.get(i);
+
+                for (Node y : graph.getAdjacentNodes(x)) {
+                    int j = indices.get(y);
+                    adjacent[i].set(j);
+
+                    if (graph.getEndpoint(x, y) != Endpoint.TAIL && graph.getEndpoint(y, x) != Endpoint.ARROW) {
+                        out.get(i).add(j);
+                        in.get(j).add(i);
+                    }
+                }
+            }
+
+            pdOut = toArrays(out);
+            pdIn = toArrays(in);
+
+            depth = new int[n];
+            Arrays.fill(depth, -1);
+        }
+
+        /**
+         * @return those of the given candidates M for which there is an uncovered p.d. path <A,M,...,end>, or
+         * <A,M> if M is the end.
+         */
+        Set<Node> getFirstSteps(Node a, Node end, Collection<Node> candidates) {
+            int _a = indices.get(a);
+            int _end = indices.get(end);
+            Set<Node> steps = new HashSet<>();
+
+            if (_end != this.end) {
+                this.reachesEnd = statesReaching(_end);
+                this.end = _end;
+            }
+
+            for (Node m : candidates) {
+                int _m = indices.get(m);
+
+                if (!isPdStep(_a, _m)) {
+                    continue;
+                }
+
+                if (_m == _end) {
+                    steps.add(m);
+                    continue;
+                }
+
+                if (_m == _a || !reachesEnd[_m].get(_a)) {
+                    continue;
+                }
+
+                depth[_a] = 0;
+                depth[_m] = 1;
+                boolean exists = pathExists(_a, _m);
+                depth[_a] = -1;
+                depth[_m] = -1;
+
+                if (exists) {
+                    steps.add(m);
+                }
+            }
+
+            return steps;
+        }
+
+        private boolean isPdStep(int i, int j) {
+            for (int k : pdOut[i]) {
+                if (k == j) return true;
+            }
+
+            return false;
+        }
+
+        // The states (p, q) from which an uncovered p.d. walk can be continued to the end without passing through it.
+        private BitSet[] statesReaching(int end) {
+            int n = nodes.size();
+            BitSet[] reaches = new BitSet[n];
+
+            for (int i = 0; i < n; i++) {
+                reaches[i] = new BitSet(n);
+            }
+
+            Deque<int[]> queue = new ArrayDeque<>();
+
+            for (int p : pdIn[end]) {
+                reaches[end].set(p);
+                queue.add(new int[]{p, end});
+            }
+
+            while (!queue.isEmpty()) {
+                int[] state = queue.poll();
+                int q = state[0];
+                int r = state[1];
+
+                for (int p : pdIn[q]) {
+                    if (p == r || p == end || adjacent[p].get(r) || reaches[q].get(p)) {
+                        continue;
+                    }
+
+                    reaches[q].set(p);
+                    queue.add(new int[]{p, q});
+                }
+            }
+
+            return reaches;
+        }
+
+        // Whether the path so far, ending in p, q, can be extended without repeating nodes to the end. If not, the
+        // state (p, q) is forgotten as reaching the end, unless the search was blocked by a node before p.
+        private boolean pathExists(int p, int q) {
+            if (Thread.currentThread().isInterrupted()) {
+                blockedAt = -1;
+                return false;
+            }
+
+            int blocked = Integer.MAX_VALUE;
+
+            for (int r : pdOut[q]) {
+                if (adjacent[p].get(r)) {
+                    continue;
+                }
+
+                if (depth[r] != -1) {
+                    blocked = Math.min(blocked, depth[r]);
+                    continue;
+                }
+
+                if (r == end) {
+                    return true;
+                }
+
+                if (!reachesEnd[r].get(q)) {
+                    continue;
+                }
+
+                depth[r] = depth[q] + 1;
+                boolean exists = pathExists(q, r);
+                depth[r] = -1;
+
+                if (exists) {
+                    return true;
+                }
+
+                blocked = Math.min(blocked, blockedAt);
+            }
+
+            if (blocked >= depth[p]) {
+                reachesEnd[q].clear(p);
+            }
+
+            blockedAt = blocked;
+            return false;
+        }
+
+        private static int[][] toArrays(List<List<Integer>> lists) {
+            int[][] arrays = new int[lists.size()][];
+
+            for (int i = 0; i < arrays.length; i++) {
+                List<Integer> list = lists.get(i);
+                arrays[i] = new int[list.size()];
+
+                for (int k = 0; k < list.size(); k++) {
+                    arrays[i][k] = list.get(k);
+                }
+            }
+
+            return arrays;
+        }
+    }
+
     /**
      * Orients according to background knowledge
      */
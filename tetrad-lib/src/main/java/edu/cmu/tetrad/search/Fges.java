@@ -145,6 +145,9 @@ public final class Fges implements GraphSearch, GraphScorer {
     // The graph being constructed.
     private Graph graph;
 
+    // Reused across the local Meek passes so its node indexing is kept between inserts and deletes.
+    private final MeekRules meekRules = new MeekRules();
+
     // Arrows with the same totalScore are stored in this list to distinguish their order in sortedArrows.
     // The ordering doesn't matter; it just have to be transitive.
     private int arrowIndex = 0;
@@ -1920,11 +1923,10 @@ public final class Fges implements GraphSearch, GraphScorer {
 
     // Runs Meek rules on just the changed adj.
     private Set<Node> meekOrientRestricted(List<Node> nodes, IKnowledge knowledge) {
-        MeekRules rules = new MeekRules();
-        rules.setKnowledge(knowledge);
-        rules.setUndirectUnforcedEdges(true);
-        rules.orientImplied(graph, nodes);
-        return rules.getVisited();
+        meekRules.setKnowledge(knowledge);
+        meekRules.setUndirectUnforcedEdges(true);
+        meekRules.orientImplied(graph, nodes);
+        return meekRules.getVisited();
     }
 
     // Maps adj to their indices for quick lookup.
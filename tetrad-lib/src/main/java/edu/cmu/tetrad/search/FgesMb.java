@@ -394,7 +394,7 @@ public final class FgesMb {
 
                         @Override
                         protected Boolean compute() {
-                            Queue<NodeTaskEmptyGraph> tasks = new ArrayDeque<>();
+                            Queue<MbTask> tasks = new ArrayDeque<>();
 
                             for (final Node y : fgesScore.getVariables()) {
                                 if (Thread.currentThread().isInterrupted()) {
@@ -407,8 +407,9 @@ public final class FgesMb {
 
                                 MbTask mbTask = new MbTask(x, y, target);
                                 mbTask.fork();
+                                tasks.add(mbTask);
 
-                                for (NodeTaskEmptyGraph _task : new ArrayList<>(tasks)) {
+                                for (MbTask _task : new ArrayList<>(tasks)) {
                                     if (Thread.currentThread().isInterrupted()) {
                                         break;
                                     }
@@ -424,12 +425,12 @@ public final class FgesMb {
                                         break;
                                     }
 
-                                    NodeTaskEmptyGraph _task = tasks.poll();
+                                    MbTask _task = tasks.poll();
                                     _task.join();
                                 }
                             }
 
-                            for (NodeTaskEmptyGraph task : tasks) {
+                            for (MbTask task : tasks) {
                                 if (Thread.currentThread().isInterrupted()) {
                                     break;
                                 }
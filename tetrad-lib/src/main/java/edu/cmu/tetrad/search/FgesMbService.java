@@ -0,0 +1,220 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.data.IKnowledge;
+import edu.cmu.tetrad.data.Knowledge2;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Answers Markov blanket queries for many targets over the same data, running FGES-MB for each target against a
+ * score cache shared by all of them, so that local scores and effect edges computed for one target are reused for
+ * the next. Batches of targets are searched in parallel. The graph returned for each target is the one a fresh
+ * FgesMb over the same score would return.
+ */
+public class FgesMbService implements MbSearch {
+
+    // The score shared by all searches.
+    private final CachingScore score;
+
+    // Specification of forbidden and required edges.
+    private IKnowledge knowledge = new Knowledge2();
+
+    // Bounds the degree of the graph; -1 for unlimited.
+    private int maxDegree = -1;
+
+    // True if one-edge faithfulness is assumed.
+    private boolean faithfulnessAssumed = true;
+
+    // Markov blanket graphs found so far, by target.
+    private final Map<Node, Graph> mbGraphs = new HashMap<>();
+
+    /**
+     * @param score The score to search with. Its parameters should not be changed while the service is in use,
+     *              since values computed from it are cached.
+     */
+    public FgesMbService(Score score) {
+        this.score = score instanceof CachingScore ? (CachingScore) score : new CachingScore(score);
+    }
+
+    /**
+     * @return the Markov blanket graph of the given target, including the target.
+     */
+    public Graph search(Node target) {
+        return searchEach(Collections.singletonList(target)).get(target);
+    }
+
+    /**
+     * Searches for the Markov blanket of each of the given targets separately, in parallel.
+     *
+     * @return a map from each target to its Markov blanket graph, in the order of the targets.
+     * @throws IllegalStateException if the thread is interrupted before every target is done.
+     */
+    public Map<Node, Graph> searchEach(List<Node> targets) {
+        Map<Node, Graph> graphs = new LinkedHashMap<>();
+        List<Callable<Graph>> tasks = new ArrayList<>();
+        final List<Node> toSearch = new ArrayList<>();
+
+        synchronized (mbGraphs) {
+            for (Node target : targets) {
+                if (!score.getVariables().contains(target)) {
+                    throw new IllegalArgumentException("Target is not specified: " + target);
+                }
+
+                if (!mbGraphs.containsKey(target) && !toSearch.contains(target)) {
+                    toSearch.add(target);
+                }
+            }
+        }
+
+        for (final Node target : toSearch) {
+            tasks.add(new Callable<Graph>() {
+                public Graph call() {
+                    FgesMb fges = new FgesMb(score);
+                    fges.setKnowledge(knowledge);
+                    fges.setMaxDegree(maxDegree);
+                    fges.setFaithfulnessAssumed(faithfulnessAssumed);
+                    return fges.search(target);
+                }
+            });
+        }
+
+        try {
+            List<Future<Graph>> futures = ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks);
+
+            synchronized (mbGraphs) {
+                for (int i = 0; i < futures.size(); i++) {
+                    mbGraphs.put(toSearch.get(i), futures.get(i).get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching Markov blankets.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+
+        synchronized (mbGraphs) {
+            for (Node target : targets) {
+                graphs.put(target, mbGraphs.get(target));
+            }
+        }
+
+        return graphs;
+    }
+
+    /**
+     * @return the variables in the Markov blanket of the given target, not including the target.
+     */
+    @Override
+    public List<Node> findMb(String targetName) {
+        Node target = score.getVariable(targetName);
+
+        if (target == null) {
+            throw new IllegalArgumentException("No variable named " + targetName);
+        }
+
+        List<Node> mb = new ArrayList<>(search(target).getNodes());
+        mb.remove(target);
+        return mb;
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "FGES-MB";
+    }
+
+    /**
+     * @return the number of local scores computed so far, over all targets. Scores reused from the cache are not
+     * counted.
+     */
+    @Override
+    public int getNumIndependenceTests() {
+        return score.getNumComputed();
+    }
+
+    /**
+     * @return the shared score cache.
+     */
+    public CachingScore getScore() {
+        return score;
+    }
+
+    public IKnowledge getKnowledge() {
+        return knowledge;
+    }
+
+    /**
+     * Sets the knowledge for subsequent searches, forgetting the Markov blankets found so far.
+     */
+    public void setKnowledge(IKnowledge knowledge) {
+        if (knowledge == null) throw new NullPointerException("Knowledge not specified.");
+        this.knowledge = knowledge;
+        clearGraphs();
+    }
+
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Sets the maximum degree for subsequent searches, forgetting the Markov blankets found so far.
+     *
+     * @param maxDegree -1 for unlimited.
+     */
+    public void setMaxDegree(int maxDegree) {
+        if (maxDegree < -1) throw new IllegalArgumentException("Max degree must be >= -1: " + maxDegree);
+        this.maxDegree = maxDegree;
+        clearGraphs();
+    }
+
+    public boolean isFaithfulnessAssumed() {
+        return faithfulnessAssumed;
+    }
+
+    /**
+     * Sets whether one-edge faithfulness is assumed for subsequent searches, forgetting the Markov blankets found so
+     * far.
+     */
+    public void setFaithfulnessAssumed(boolean faithfulnessAssumed) {
+        this.faithfulnessAssumed = faithfulnessAssumed;
+        clearGraphs();
+    }
+
+    private void clearGraphs() {
+        synchronized (mbGraphs) {
+            mbGraphs.clear();
+        }
+    }
+}
@@ -270,52 +270,42 @@ public class FindOneFactorClusters {
 
         log("Finding pure triples.");
 
-        ChoiceGenerator gen = new ChoiceGenerator(allVariables.size(), 3);
-        int[] choice;
-        Set<Set<Integer>> puretriples = new HashSet<>();
-        CHOICE:
-        while ((choice = gen.next()) != null) {
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
-
+        // The triples are checked in parallel; each one that passes comes back as a
+        // bitset of positions in allVariables, in ChoiceGenerator order.
+        List<BitSet> found = new ParallelChoiceSearch(allVariables.size(), 3).findAll(choice -> {
             int n1 = allVariables.get(choice[0]);
             int n2 = allVariables.get(choice[1]);
             int n3 = allVariables.get(choice[2]);
 
             List<Integer> triple = triple(n1, n2, n3);
 
-            if (zeroCorr(triple)) continue;
+            if (zeroCorr(triple)) return false;
 
             for (int o : allVariables) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
-
                 if (triple.contains(o)) {
                     continue;
                 }
 
                 List<Integer> quartet = quartet(n1, n2, n3, o);
 
-                boolean vanishes = vanishes(quartet);
-
-                if (!vanishes) {
-                    continue CHOICE;
+                if (!vanishes(quartet)) {
+                    return false;
                 }
-
-//                if (!(avgSumLnP(quartet) > -20)) {
-//                    continue CHOICE;
-//                }
             }
 
-            HashSet<Integer> _cluster = new HashSet<>(triple);
+            return true;
+        });
+
+        Set<Set<Integer>> puretriples = new HashSet<>();
+
+        for (BitSet bits : found) {
+            List<Integer> triple = variablesForBits(bits, allVariables);
 
             if (verbose) {
                 log("++" + variablesForIndices(triple));
             }
 
-            puretriples.add(_cluster);
+            puretriples.add(new HashSet<>(triple));
         }
 
         return puretriples;
@@ -715,50 +705,43 @@ public class FindOneFactorClusters {
 //        for (int i = 0; i < this.variables.size(); i++) allVariables.add(i);
         List<Integer> allVariables = allVariables();
 
-        VARIABLES:
         while (!_variables.isEmpty()) {
             if (verbose) {
                 System.out.println(_variables);
             }
             if (_variables.size() < 4) break;
 
-            ChoiceGenerator gen = new ChoiceGenerator(_variables.size(), 4);
-            int[] choice;
-
-            while ((choice = gen.next()) != null) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
-
+            // The first pure quartet in ChoiceGenerator order, searched for in parallel.
+            BitSet first = new ParallelChoiceSearch(_variables.size(), 4).findFirst(choice -> {
                 int n1 = _variables.get(choice[0]);
                 int n2 = _variables.get(choice[1]);
                 int n3 = _variables.get(choice[2]);
                 int n4 = _variables.get(choice[3]);
 
-                List<Integer> cluster = quartet(n1, n2, n3, n4);
-
                 // Note that purity needs to be assessed with respect to all of the variables in order to
                 // remove all latent-measure impurities between pairs of latents.
-                if (pure(cluster, allVariables, alpha)) {
-                    if (verbose) {
-                        log("Found a pure: " + variablesForIndices(cluster));
-                    }
-
-//                    if (modelInsignificantWithNewCluster(clusters, cluster)) continue;
+                return pure(quartet(n1, n2, n3, n4), allVariables, alpha);
+            });
 
-                    addOtherVariables(_variables, allVariables, cluster);
+            if (first == null) {
+                break;
+            }
 
-                    if (verbose) {
-                        log("Cluster found: " + variablesForIndices(cluster));
-                    }
-                    clusters.add(cluster);
-                    _variables.removeAll(cluster);
+            List<Integer> cluster = variablesForBits(first, _variables);
 
-                    continue VARIABLES;
-                }
+            if (verbose) {
+                log("Found a pure: " + variablesForIndices(cluster));
             }
 
-            break;
+//            if (modelInsignificantWithNewCluster(clusters, cluster)) continue;
+
+            addOtherVariables(_variables, allVariables, cluster);
+
+            if (verbose) {
+                log("Cluster found: " + variablesForIndices(cluster));
+            }
+            clusters.add(cluster);
+            _variables.removeAll(cluster);
         }
 
         return clusters;
@@ -1091,6 +1074,17 @@ public class FindOneFactorClusters {
         return est.estimate();
     }
 
+    // The variables at the positions set in bits, in order.
+    private List<Integer> variablesForBits(BitSet bits, List<Integer> variables) {
+        List<Integer> cluster = new ArrayList<>();
+
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            cluster.add(variables.get(i));
+        }
+
+        return cluster;
+    }
+
     private List<Integer> quartet(int n1, int n2, int n3, int n4) {
         List<Integer> quartet = new ArrayList<>();
         quartet.add(n1);
@@ -1159,7 +1153,12 @@ public class FindOneFactorClusters {
 
             return test.getPValue(t1, t2) > alpha;
         } else if (testType == TestType.TETRAD_WISHART) {
-            return test2.tetradPValue(x, y, z, w) > alpha && test2.tetradPValue(x, y, w, z) > alpha;
+
+            // The Wishart test keeps its last result in a field, so calls from the parallel
+            // searches take turns.
+            synchronized (test2) {
+                return test2.tetradPValue(x, y, z, w) > alpha && test2.tetradPValue(x, y, w, z) > alpha;
+            }
         }
 
         throw new IllegalArgumentException("Only the delta and wishart tests are being used: " + testType);
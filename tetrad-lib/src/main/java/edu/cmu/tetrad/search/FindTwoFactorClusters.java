@@ -253,11 +253,9 @@ public class FindTwoFactorClusters {
 
         log("Finding pure pentads.", true);
 
-        ChoiceGenerator gen = new ChoiceGenerator(variables.size(), 5);
-        int[] choice;
-        Set<List<Integer>> purePentads = new HashSet<>();
-        CHOICE:
-        while ((choice = gen.next()) != null) {
+        // The pentads are checked in parallel; each one that passes comes back as a
+        // bitset of positions in variables, in ChoiceGenerator order.
+        List<BitSet> found = new ParallelChoiceSearch(variables.size(), 5).findAll(choice -> {
             int n1 = variables.get(choice[0]);
             int n2 = variables.get(choice[1]);
             int n3 = variables.get(choice[2]);
@@ -266,7 +264,7 @@ public class FindTwoFactorClusters {
 
             List<Integer> pentad = pentad(n1, n2, n3, n4, n5);
 
-            if (zeroCorr(pentad, 4)) continue;
+            if (zeroCorr(pentad, 4)) return false;
 
             for (int o : variables) {
                 if (pentad.contains(o)) {
@@ -277,21 +275,25 @@ public class FindTwoFactorClusters {
 
                 Collections.sort(sextet);
 
-                boolean vanishes = vanishes(sextet);
-
-                if (!vanishes) {
-                    continue CHOICE;
+                if (!vanishes(sextet)) {
+                    return false;
                 }
             }
 
-            List<Integer> _cluster = new ArrayList<>(pentad);
+            return true;
+        });
+
+        Set<List<Integer>> purePentads = new HashSet<>();
+
+        for (BitSet bits : found) {
+            List<Integer> pentad = variablesForBits(bits, variables);
 
             if (verbose) {
                 System.out.println(variablesForIndices(pentad));
                 log("++" + variablesForIndices(pentad), false);
             }
 
-            purePentads.add(_cluster);
+            purePentads.add(pentad);
         }
 
         return purePentads;
@@ -613,17 +615,14 @@ public class FindTwoFactorClusters {
         Set<List<Integer>> clusters = new HashSet<>();
 
         for (int k = 6; k >= 6; k--) {
-            VARIABLES:
             while (!_variables.isEmpty()) {
                 if (verbose) {
                     System.out.println(_variables);
                 }
                 if (_variables.size() < 6) break;
 
-                ChoiceGenerator gen = new ChoiceGenerator(_variables.size(), 6);
-                int[] choice;
-
-                while ((choice = gen.next()) != null) {
+                // The first pure sextet in ChoiceGenerator order, searched for in parallel.
+                BitSet first = new ParallelChoiceSearch(_variables.size(), 6).findFirst(choice -> {
                     int n1 = _variables.get(choice[0]);
                     int n2 = _variables.get(choice[1]);
                     int n3 = _variables.get(choice[2]);
@@ -631,32 +630,31 @@ public class FindTwoFactorClusters {
                     int n5 = _variables.get(choice[4]);
                     int n6 = _variables.get(choice[5]);
 
-                    List<Integer> cluster = sextet(n1, n2, n3, n4, n5, n6);
-
                     // Note that purity needs to be assessed with respect to all of the variables in order to
                     // remove all latent-measure impurities between pairs of latents.
-                    if (pure(cluster)) {
-                        if (verbose) {
-                            log("Found a pure: " + variablesForIndices(cluster), false);
-                        }
+                    return isPure(sextet(n1, n2, n3, n4, n5, n6));
+                });
 
-                        addOtherVariables(_variables, cluster);
+                if (first == null) {
+                    break;
+                }
 
-                        if (cluster.size() < k) continue;
+                List<Integer> cluster = variablesForBits(first, _variables);
+                System.out.println("PURE: " + variablesForIndices(cluster));
 
-                        if (verbose) {
-                            log("Cluster found: " + variablesForIndices(cluster), true);
-                            System.out.println("Indices for cluster = " + cluster);
-                        }
+                if (verbose) {
+                    log("Found a pure: " + variablesForIndices(cluster), false);
+                }
 
-                        clusters.add(cluster);
-                        _variables.removeAll(cluster);
+                addOtherVariables(_variables, cluster);
 
-                        continue VARIABLES;
-                    }
+                if (verbose) {
+                    log("Cluster found: " + variablesForIndices(cluster), true);
+                    System.out.println("Indices for cluster = " + cluster);
                 }
 
-                break;
+                clusters.add(cluster);
+                _variables.removeAll(cluster);
             }
 
 //            C:
@@ -839,6 +837,16 @@ public class FindTwoFactorClusters {
     }
 
     private boolean pure(List<Integer> sextet) {
+        if (isPure(sextet)) {
+            System.out.println("PURE: " + variablesForIndices(sextet));
+            return true;
+        }
+
+        return false;
+    }
+
+    // Safe to call from several threads; prints nothing.
+    private boolean isPure(List<Integer> sextet) {
         if (zeroCorr(sextet, 5)) {
             return false;
         }
@@ -858,8 +866,6 @@ public class FindTwoFactorClusters {
                 }
             }
 
-            System.out.println("PURE: " + variablesForIndices(sextet));
-
             return true;
         }
 
@@ -967,6 +973,17 @@ public class FindTwoFactorClusters {
         return est.estimate();
     }
 
+    // The variables at the positions set in bits, in order.
+    private List<Integer> variablesForBits(BitSet bits, List<Integer> variables) {
+        List<Integer> cluster = new ArrayList<>();
+
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            cluster.add(variables.get(i));
+        }
+
+        return cluster;
+    }
+
     private List<Integer> sextet(int n1, int n2, int n3, int n4, int n5, int n6) {
         List<Integer> sextet = new ArrayList<>();
         sextet.add(n1);
@@ -28,6 +28,14 @@ import cern.colt.matrix.impl.DenseDoubleMatrix2D;
 import cern.colt.matrix.linalg.Algebra;
 import cern.jet.math.Mult;
 import cern.jet.math.PlusMult;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * A translation from Tibshirani's 2008 Fortran implementation of glasso.
@@ -93,6 +101,11 @@ public class Glasso {
      */
     private double thr = 1.0e-4;
 
+    /**
+     * The result of the last search, from which the next search is started if is = true.
+     */
+    private Result lastResult = null;
+
     /**
      * Return value of the algorithm.
      */
@@ -151,23 +164,188 @@ public class Glasso {
     }
 
     public Result search() {
+        Result start = isIs() ? lastResult : null;
+
+        if (start != null && start.getWw().rows() != getN()) {
+            start = null;
+        }
+
+        Result result;
+
+        if (isIa()) {
+            result = solve(getSs(), getRho(), start);
+        } else {
+            result = searchBlocks(start);
+        }
+
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Solves for each of the given penalties in turn, each warm started from the solution for the one before, with
+     * all elements penalized equally. The penalties should decrease, from sparse solutions to dense. The penalty and
+     * warm start flag are set back to what they were afterward.
+     *
+     * @return the result for each penalty.
+     */
+    public List<Result> searchPath(double... rhos) {
+        boolean is = isIs();
+        Rho rho = getRho();
+        List<Result> results = new ArrayList<>();
+
+        try {
+            for (int k = 0; k < rhos.length; k++) {
+                setRhoAllEqual(rhos[k]);
+                setIs(k > 0 || is);
+                results.add(search());
+            }
+        } finally {
+            setIs(is);
+            this.rho = rho;
+        }
+
+        return results;
+    }
+
+    /**
+     * The exact solution is block diagonal, with a block for each connected component of the graph over variables
+     * with an edge i--j wherever |ss(i, j)| > rho(i, j) (Witten, Friedman and Simon, 2011; Mazumder and Hastie,
+     * 2012), so each component is solved on its own, in parallel.
+     */
+    private Result searchBlocks(Result start) {
+        final int n = getN();
+        final DoubleMatrix2D ss = getSs();
+        final Rho rho = getRho();
+
+        List<int[]> blocks = components(n, ss, rho);
+
+        if (blocks.size() == 1) {
+            return solve(ss, rho, start);
+        }
+
+        final DoubleMatrix2D ww = new DenseDoubleMatrix2D(n, n);
+        final DoubleMatrix2D wwi = new DenseDoubleMatrix2D(n, n);
+        List<Callable<Result>> tasks = new ArrayList<>();
+        List<int[]> solved = new ArrayList<>();
+
+        for (final int[] block : blocks) {
+            if (block.length == 1) {
+                int j = block[0];
+                ww.set(j, j, isIpen() ? ss.get(j, j) + rho.get(j, j) : ss.get(j, j));
+                wwi.set(j, j, 1.0 / Math.max(ww.get(j, j), 1.0e-7));
+                continue;
+            }
+
+            final Rho blockRho = new Rho() {
+                public double get(int i, int j) {
+                    return rho.get(block[i], block[j]);
+                }
+            };
+
+            final Result blockStart = start == null ? null : new Result(
+                    start.getWw().viewSelection(block, block).copy(),
+                    start.getWwi().viewSelection(block, block).copy(), 0, Double.NaN);
+
+            solved.add(block);
+            tasks.add(new Callable<Result>() {
+                public Result call() {
+                    return solve(ss.viewSelection(block, block).copy(), blockRho, blockStart);
+                }
+            });
+        }
+
+        int niter = 0;
+        double del = Double.NaN;
+
+        try {
+            List<Future<Result>> futures = ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks);
+
+            for (int b = 0; b < futures.size(); b++) {
+                Result result = futures.get(b).get();
+                int[] block = solved.get(b);
+
+                ww.viewSelection(block, block).assign(result.getWw());
+                wwi.viewSelection(block, block).assign(result.getWwi());
+                niter = Math.max(niter, result.getNiter());
+
+                if (!Double.isNaN(result.getDel()) && !(result.getDel() <= del)) {
+                    del = result.getDel();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving the blocks.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+
+        return new Result(ww, wwi, niter, del);
+    }
+
+    // The connected components of the graph with an edge i--j wherever |ss(i, j)| > rho(i, j), in order of their
+    // smallest variable, each sorted.
+    private List<int[]> components(int n, DoubleMatrix2D ss, Rho rho) {
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        List<int[]> components = new ArrayList<>();
+        int[] stack = new int[n];
+
+        for (int start = 0; start < n; start++) {
+            if (component[start] != -1) continue;
+
+            List<Integer> members = new ArrayList<>();
+            int top = 0;
+            stack[top++] = start;
+            component[start] = components.size();
+
+            while (top > 0) {
+                int i = stack[--top];
+                members.add(i);
+
+                for (int j = 0; j < n; j++) {
+                    if (component[j] == -1 && j != i && Math.abs(ss.getQuick(i, j)) > rho.get(i, j)) {
+                        component[j] = components.size();
+                        stack[top++] = j;
+                    }
+                }
+            }
+
+            int[] block = new int[members.size()];
+            for (int k = 0; k < block.length; k++) block[k] = members.get(k);
+            Arrays.sort(block);
+            components.add(block);
+        }
+
+        return components;
+    }
+
+    /**
+     * Solves the problem for the given covariance matrix and penalties, warm started from the given result if it is
+     * not null.
+     */
+    private Result solve(DoubleMatrix2D ss, Rho rho, Result start) {
         int niter = 0;
         double eps = 1.0e-7;
-        int n = getN();
-        DoubleMatrix2D ss = getSs();
+        int n = ss.rows();
 
         boolean approximateAlgorithm = isIa();
-        boolean warmStart = isIs();
+        boolean warmStart = start != null;
         boolean itr = isItr();
         boolean pen = isIpen();
-        double thr = getThr();
-
-//        System.out.println(ss);
 
-        Rho rho = getRho();
         DoubleMatrix2D ww = new DenseDoubleMatrix2D(n, n);
         DoubleMatrix2D wwi = new DenseDoubleMatrix2D(n, n);
 
+        if (warmStart) {
+            ww.assign(start.getWw());
+            wwi.assign(start.getWwi());
+        }
+
         double dlx;
         double del;
 
@@ -267,10 +445,7 @@ public class Glasso {
 
         if (!warmStart) {
             ww.assign(ss);
-
-            if (xs != null) {
-                zero(xs);
-            }
+            zero(xs);
         } else {
             for (int j = 0; j < n; j++) {
                 double xjj = -wwi.get(j, j);
@@ -301,6 +476,10 @@ public class Glasso {
 
         niter = 0;
 
+        // The sum of |ww| is kept up to date as columns change, so that sum_abs(vv) is not recomputed for each
+        // column.
+        double sumAbsWw = sum_abs(ww);
+
         while (true) {
             dlx = 0.0;
 
@@ -314,7 +493,7 @@ public class Glasso {
 //                System.out.println(x);
 //                System.out.println();
 
-                ws = ww.viewColumn(m);
+                ws = ww.viewColumn(m).copy();
 
                 // This sets up vv, s, and ro--i.e., W.11, s.12, and r.12.
                 setup(m, n, ss, rho, ww, vv, s, ro);
@@ -326,7 +505,10 @@ public class Glasso {
 
                 // This updates s and x--the estimated correlation matrix and the reduced form of the
                 // estimated inverse covariance.
-                lasso(ro, nm1, vv, s, shr / sum_abs(vv), x, z, mm);
+                double sumAbsColumn = sum_abs(ww.viewColumn(m));
+                double sumAbsVv = sumAbsWw - 2 * sumAbsColumn + Math.abs(ww.get(m, m));
+
+                lasso(ro, nm1, vv, s, shr / sumAbsVv, x, z, mm);
 //                lasso(ro,nm1,vv,s,thr/sum_abs(vv),x,z,mm);
                 int l = -1;
 
@@ -341,14 +523,17 @@ public class Glasso {
                     ww.set(m, j, ww.get(j, m));
                 }
 
+                sumAbsWw += 2 * (sum_abs(ww.viewColumn(m)) - sumAbsColumn);
+
                 dlx = Math.max(dlx, sum_abs_diff(ww.viewColumn(m), ws));
 //                xs(:,m)=x
                 xs.viewColumn(m).assign(x);
             }
 
             niter = niter + 1;
-            if (niter < getMaxit()) break;
             if (dlx < shr) break;
+            if (niter >= getMaxit()) break;
+            if (Thread.currentThread().isInterrupted()) break;
         }
 
         del = dlx / nm1;
@@ -369,6 +554,16 @@ public class Glasso {
         return sum;
     }
 
+    private double sum_abs(DoubleMatrix1D x) {
+        double sum = 0.0;
+
+        for (int i = 0; i < x.size(); i++) {
+            sum += Math.abs(x.getQuick(i));
+        }
+
+        return sum;
+    }
+
     private double sum_abs_diff(DoubleMatrix1D x, DoubleMatrix1D y) {
         double sum = 0.0;
 
@@ -413,48 +608,49 @@ public class Glasso {
         // s = vv * x, or s12 = Theta.1 * Theta.12
         fatmul(2, n, vv, x, s, z, mm);
 
+        // Passes over all coordinates alternate with passes over just the nonzero ones, which are run to
+        // convergence first; the loop ends when a pass over all coordinates changes nothing by more than thr.
+        boolean full = true;
+
         while (true) {
 
             // The maximal difference of the beta update of v(j) and v(j).
             double dlx = 0.0;
 
             for (int j = 0; j < n; j++) {
-                double xj = x.get(j);
-                x.set(j, 0.0);
+                double xj = x.getQuick(j);
+
+                if (!full && xj == 0.0) continue;
 
                 // There is no sum. In the paper there is a sum. Also, there is a minus instead of
                 // a plus in the paper.
-                double t = s.get(j) + vv.get(j, j) * xj;
-
-//                double _vv = 0.0;
-//
-//                for (int k = 0; k < n; k++) {
-//                    if (k == j) continue;
-//                    _vv += vv.get(k, j) * x.get(j);
-//                }
-//
-//                double t = s.get(j) - _vv;
-
-                if (Math.abs(t) - ro.get(j) > 0.0) {
-                    x.set(j, Math.signum(t) * (Math.abs(t) - ro.get(j)) / vv.get(j, j));
+                double vjj = vv.getQuick(j, j);
+                double t = s.getQuick(j) + vjj * xj;
+                double rj = ro.getQuick(j);
+                double xNew = 0.0;
+
+                if (Math.abs(t) - rj > 0.0) {
+                    xNew = Math.signum(t) * (Math.abs(t) - rj) / vjj;
                 }
 
-                if (x.get(j) == xj) continue;
-                double del = x.get(j) - xj;
+                if (xNew == xj) continue;
+                x.setQuick(j, xNew);
+                double del = xNew - xj;
                 dlx = Math.max(dlx, Math.abs(del));
 
-                for (int i = 0; i < s.size(); i++) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-
-                    s.set(i, s.get(i) - del * vv.get(i, j));
+                for (int i = 0; i < n; i++) {
+                    s.setQuick(i, s.getQuick(i) - del * vv.getQuick(i, j));
                 }
             }
 
-//            System.out.println("dlx = " + dlx + " thr = " + thr);
+            if (Thread.currentThread().isInterrupted()) break;
 
-            if (dlx < thr) break;
+            if (dlx < thr) {
+                if (full) break;
+                full = true;
+            } else {
+                full = false;
+            }
         }
     }
 
@@ -468,44 +664,22 @@ public class Glasso {
         int l = 0;
 
         for (int j = 0; j < n; j++) {
-            if (x.get(j) == 0.0) continue;
-            l = l + 1;
+            if (x.getQuick(j) == 0.0) continue;
             m[l] = j;
+            l = l + 1;
         }
 
         if (l < (int) (fac * n)) {
-            int[] indices = new int[l];
-            for (int i = 0; i < indices.length; i++) indices[i] = i;
+            for (int i = 0; i < l; i++) z.setQuick(i, x.getQuick(m[i]));
 
-            if (it == 1) {
-                for (int j = 0; j < n; j++) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-
-                    double dotProduct = 0.0;
-
-                    for (int i = 0; i < l; i++) {
-//                        dotProduct += vv.get(m[i], j) * z.get(j);
-                        dotProduct += vv.get(m[i], j) * x.get(m[j]);
-                    }
+            for (int j = 0; j < n; j++) {
+                double dotProduct = 0.0;
 
-                    s.set(j, dotProduct);
+                for (int i = 0; i < l; i++) {
+                    dotProduct += vv.getQuick(j, m[i]) * z.getQuick(i);
                 }
-            } else {
-                for (int j = 0; j < n; j++) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-
-                    double dotProduct = 0.0;
 
-                    for (int i = 0; i < l; i++) {
-                        dotProduct += vv.get(m[i], j) * x.get(m[j]);
-                    }
-
-                    s.set(j, s.get(j) - dotProduct);
-                }
+                s.setQuick(j, it == 1 ? dotProduct : s.getQuick(j) - dotProduct);
             }
         } else if (it == 1) {
             s.assign(new Algebra().mult(vv, x));
@@ -185,7 +185,9 @@ public final class IndTestFisherZ implements IndependenceTest {
     }
 
     /**
-     * Determines whether variable x is independent of variable y given a list of conditioning variables z.
+     * Determines whether variable x is independent of variable y given a list of conditioning variables z. The
+     * judgment depends only on the data and the arguments, so this may be called from several threads at once;
+     * getPValue() then gives the p value of one of the latest calls.
      *
      * @param x the one variable being compared.
      * @param y the second variable being compared.
@@ -193,7 +195,7 @@ public final class IndTestFisherZ implements IndependenceTest {
      * @return true iff x _||_ y | z.
      * @throws RuntimeException if a matrix singularity is encountered.
      */
-    public synchronized boolean isIndependent(Node x, Node y, List<Node> z) {
+    public boolean isIndependent(Node x, Node y, List<Node> z) {
         double p = getPValue(x, y, z);
 //        this.p = p;
 
@@ -225,6 +227,9 @@ public final class IndTestFisherZ implements IndependenceTest {
 //        return p > alpha ? 1.0 : 0.0;
     }
 
+    /**
+     * Returns the p value of the test of x _||_ y | z. This may be called from several threads at once.
+     */
     public double getPValue(Node x, Node y, List<Node> z) {
         List<Node> allVars = new ArrayList<>(z);
         allVars.add(x);
@@ -96,7 +96,7 @@ public class Lofs2 {
         for (DataSet dataSet : dataSets) {
             for (int j = 0; j < dataSet.getNumRows(); j++) {
                 for (int i = 0; i < dataSet.getNumColumns(); i++) {
-                    if (isNaN(dataSet.getDouble(i, j))) {
+                    if (isNaN(dataSet.getDouble(j, i))) {
                         throw new IllegalArgumentException("Please remove or impute missing values.");
                     }
                 }
@@ -1326,56 +1326,36 @@ public class Lofs2 {
     }
 
     private Graph tanhGraph(Graph graph) {
-        DataSet dataSet = DataUtils.concatenate(dataSets);
-        graph = GraphUtils.replaceNodes(graph, dataSet.getVariables());
-        dataSet = DataUtils.standardizeData(dataSet);
-        double[][] data = dataSet.getDoubleData().transpose().toArray();
+        PairwiseOrienter orienter = new PairwiseOrienter(DataUtils.concatenate(dataSets));
+        graph = GraphUtils.replaceNodes(graph, orienter.getVariables());
+        double[][] data = orienter.getColumns();
+        double[][] tanh = orienter.transform(data, Math::tanh);
         Graph _graph = new EdgeListGraph(graph.getNodes());
-        List<Node> nodes = dataSet.getVariables();
-        Map<Node, Integer> nodesHash = new HashMap<>();
-
-        for (int i = 0; i < nodes.size(); i++) {
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
-
-            nodesHash.put(nodes.get(i), i);
-        }
+        Map<Node, Integer> nodesHash = nodesHash(orienter.getVariables());
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
 
-        for (Edge edge : graph.getEdges()) {
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
+        // The edges are judged in parallel and oriented here, in order.
+        List<Boolean> forward = orienter.map(edges.size(), k -> {
+            double[] xData = data[nodesHash.get(edges.get(k).getNode1())];
+            double[] yData = data[nodesHash.get(edges.get(k).getNode2())];
+            double[] xTanh = tanh[nodesHash.get(edges.get(k).getNode1())];
+            double[] yTanh = tanh[nodesHash.get(edges.get(k).getNode2())];
 
-            Node x = edge.getNode1();
-            Node y = edge.getNode2();
+            double R = PairwiseOrienter.meanDifference(xData, yTanh, xTanh, yData);
 
-            double sumX = 0.0;
-            int countX = 0;
-
-            double[] xData = data[nodesHash.get(edge.getNode1())];
-            double[] yData = data[nodesHash.get(edge.getNode2())];
-
-            for (int i = 0; i < xData.length; i++) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
-
-                double x0 = xData[i];
-                double y0 = yData[i];
-
-                double termX = (x0 * Math.tanh(y0) - Math.tanh(x0) * y0);
+            double rhoX = PairwiseOrienter.slope(xData, yData);
+            R *= rhoX;
 
-                sumX += termX;
-                countX++;
-            }
+            return R > 0;
+        });
 
-            double R = sumX / countX;
+        for (int k = 0; k < edges.size(); k++) {
+            if (forward.get(k) == null) break;
 
-            double rhoX = regressionCoef(xData, yData);
-            R *= rhoX;
+            Node x = edges.get(k).getNode1();
+            Node y = edges.get(k).getNode2();
 
-            if (R > 0) {
+            if (forward.get(k)) {
                 _graph.addDirectedEdge(x, y);
             } else {
                 _graph.addDirectedEdge(y, x);
@@ -1388,61 +1368,36 @@ public class Lofs2 {
 
     // @param empirical True if the skew signs are estimated empirically.
     private Graph skewGraph(Graph graph, boolean empirical) {
-        DataSet dataSet = DataUtils.concatenate(dataSets);
-        graph = GraphUtils.replaceNodes(graph, dataSet.getVariables());
-        dataSet = DataUtils.standardizeData(dataSet);
-        double[][] data = dataSet.getDoubleData().transpose().toArray();
+        PairwiseOrienter orienter = new PairwiseOrienter(DataUtils.concatenate(dataSets));
+        graph = GraphUtils.replaceNodes(graph, orienter.getVariables());
         Graph _graph = new EdgeListGraph(graph.getNodes());
-        List<Node> nodes = dataSet.getVariables();
-        Map<Node, Integer> nodesHash = new HashMap<>();
-
-        for (int i = 0; i < nodes.size(); i++) {
-            nodesHash.put(nodes.get(i), i);
-        }
-
-        for (Edge edge : graph.getEdges()) {
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
-
-            Node x = edge.getNode1();
-            Node y = edge.getNode2();
+        Map<Node, Integer> nodesHash = nodesHash(orienter.getVariables());
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
 
-            double sumX = 0.0;
-            int countX = 0;
+        // The edges are judged in parallel and oriented here, in order.
+        List<Boolean> forward = orienter.map(edges.size(), k -> {
+            int _i = nodesHash.get(edges.get(k).getNode1());
+            int _j = nodesHash.get(edges.get(k).getNode2());
 
-            int _i = nodesHash.get(edge.getNode1());
-            int _j = nodesHash.get(edge.getNode2());
+            double[] xData = empirical ? orienter.getCorrectedColumn(_i) : orienter.getColumns()[_i];
+            double[] yData = empirical ? orienter.getCorrectedColumn(_j) : orienter.getColumns()[_j];
 
-            double[] xData = data[_i];
-            double[] yData = data[_j];
+            double R = PairwiseOrienter.skewDifference(xData, yData);
 
-            if (empirical) {
-                xData = correctSkewnesses(xData);
-                yData = correctSkewnesses(yData);
-            }
+            double rhoX = PairwiseOrienter.slope(xData, yData);
 
-            for (int i = 0; i < xData.length; i++) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
-
-                double x0 = xData[i];
-                double y0 = yData[i];
-
-                double termX = x0 * x0 * y0 - x0 * y0 * y0;
-
-                sumX += termX;
-                countX++;
-            }
+            R *= rhoX;
 
-            double R = sumX / countX;
+            return R > 0;
+        });
 
-            double rhoX = regressionCoef(xData, yData);
+        for (int k = 0; k < edges.size(); k++) {
+            if (forward.get(k) == null) break;
 
-            R *= rhoX;
+            Node x = edges.get(k).getNode1();
+            Node y = edges.get(k).getNode2();
 
-            if (R > 0) {
+            if (forward.get(k)) {
                 _graph.addDirectedEdge(x, y);
             } else {
                 _graph.addDirectedEdge(y, x);
@@ -1455,61 +1410,55 @@ public class Lofs2 {
 
     // @param empirical True if the skew signs are estimated empirically.
     private Graph robustSkewGraph(Graph graph, boolean empirical) {
-        List<DataSet> _dataSets = new ArrayList<>();
-        for (DataSet dataSet : dataSets) _dataSets.add(dataSet);// DataUtils.standardizeData(dataSet));
-        DataSet dataSet = DataUtils.concatenate(_dataSets);
-        graph = GraphUtils.replaceNodes(graph, dataSet.getVariables());
-        dataSet = DataUtils.standardizeData(dataSet);
-        double[][] data = dataSet.getDoubleData().transpose().toArray();
-        List<Node> nodes = dataSet.getVariables();
-        Map<Node, Integer> nodesHash = new HashMap<>();
+        PairwiseOrienter orienter = new PairwiseOrienter(DataUtils.concatenate(dataSets));
+        graph = GraphUtils.replaceNodes(graph, orienter.getVariables());
+        Map<Node, Integer> nodesHash = nodesHash(orienter.getVariables());
 
-        for (int i = 0; i < nodes.size(); i++) {
-            nodesHash.put(nodes.get(i), i);
-        }
+        double[][] data = orienter.getColumns();
 
-        for (Edge edge : graph.getEdges()) {
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
+        if (empirical) {
+            data = new double[data.length][];
+            for (int i = 0; i < data.length; i++) data[i] = orienter.getCorrectedColumn(i);
+        }
 
-            Node x = edge.getNode1();
-            Node y = edge.getNode2();
+        double[][] _data = data;
+        double[][] g = orienter.transform(data, this::g);
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
 
-            double[] xData = data[nodesHash.get(edge.getNode1())];
-            double[] yData = data[nodesHash.get(edge.getNode2())];
+        // Compares E(g(X)Y) with E(Xg(Y)) for each edge in parallel; 1 for x->y, -1 for y->x, 0 for a tie.
+        List<Integer> direction = orienter.map(edges.size(), k -> {
+            int _i = nodesHash.get(edges.get(k).getNode1());
+            int _j = nodesHash.get(edges.get(k).getNode2());
 
-            if (empirical) {
-                xData = correctSkewnesses(xData);
-                yData = correctSkewnesses(yData);
-            }
+            double[] xData = _data[_i];
+            double[] yData = _data[_j];
 
-            double[] xx = new double[xData.length];
-            double[] yy = new double[yData.length];
+            double sxx = 0.0;
+            double syy = 0.0;
 
             for (int i = 0; i < xData.length; i++) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
+                sxx += g[_i][i] * yData[i];
+                syy += xData[i] * g[_j][i];
+            }
 
-                double xi = xData[i];
-                double yi = yData[i];
+            double mxx = sxx / xData.length;
+            double myy = syy / yData.length;
 
-                double s1 = g(xi) * yi;
-                double s2 = xi * g(yi);
+            return mxx > myy ? 1 : myy > mxx ? -1 : 0;
+        });
 
-                xx[i] = s1;
-                yy[i] = s2;
-            }
+        for (int k = 0; k < edges.size(); k++) {
+            if (direction.get(k) == null) break;
 
-            double mxx = mean(xx);
-            double myy = mean(yy);
+            Edge edge = edges.get(k);
+            Node x = edge.getNode1();
+            Node y = edge.getNode2();
 
             graph.removeEdge(edge);
 
-            if (mxx > myy) {
+            if (direction.get(k) > 0) {
                 graph.addDirectedEdge(x, y);
-            } else if (myy > mxx) {
+            } else if (direction.get(k) < 0) {
                 graph.addDirectedEdge(y, x);
             } else {
                 graph.addUndirectedEdge(x, y);
@@ -1519,6 +1468,16 @@ public class Lofs2 {
         return graph;
     }
 
+    private Map<Node, Integer> nodesHash(List<Node> nodes) {
+        Map<Node, Integer> nodesHash = new HashMap<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            nodesHash.put(nodes.get(i), i);
+        }
+
+        return nodesHash;
+    }
+
     private double g(double x) {
         return Math.log(Math.cosh(Math.max(x, 0)));
     }
@@ -1682,13 +1641,6 @@ public class Lofs2 {
         return ret;
     }
 
-    private double[] correctSkewnesses(double[] data) {
-        double skewness = StatUtils.skewness(data);
-        double[] data2 = new double[data.length];
-        for (int i = 0; i < data.length; i++) data2[i] = data[i] * Math.signum(skewness);
-        return data2;
-    }
-
     private List<double[]> prepareData(DataSet concatData, Node _x, Node _y, boolean skewCorrection, boolean coefCorrection) {
         int xIndex = concatData.getColumn(_x);
         int yIndex = concatData.getColumn(_y);
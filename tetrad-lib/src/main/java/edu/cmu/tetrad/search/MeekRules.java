@@ -23,7 +23,6 @@ package edu.cmu.tetrad.search;
 
 import edu.cmu.tetrad.data.IKnowledge;
 import edu.cmu.tetrad.graph.*;
-import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.io.PrintStream;
@@ -49,11 +48,19 @@ public class MeekRules implements ImpliedOrientation {
     // If knowledge is available.
     boolean useRule4;
 
-    //The logger to use.
+    // Edges reoriented by the last call, keyed by the edge as it now stands in the graph and mapped to the edge
+    // as it stood when the call began.
     private Map<Edge, Edge> changedEdges = new HashMap<>();
 
-    // The stack of nodes to be visited.
-    private LinkedList<Node> directStack = new LinkedList<>();
+    // Indices of the nodes seen so far in indexedGraph; kept across calls so that repeated local calls on the same
+    // graph (as in FGES) do not have to reindex it, and cleared when a call is made on another graph.
+    private final Map<Node, Integer> indices = new HashMap<>();
+    private Node[] indexedNodes = new Node[16];
+    private Graph indexedGraph;
+
+    // The stack of nodes to be visited, as indices into indexedNodes.
+    private int[] directStack = new int[16];
+    private int directStackSize = 0;
 
     // Whether verbose output should be generated.
 
@@ -88,9 +95,24 @@ public class MeekRules implements ImpliedOrientation {
         orientImplied(graph, graph.getNodes());
     }
 
+    /**
+     * Propagates the rules outward from the given nodes only--typically the endpoints of the edges changed since
+     * the last call. An instance may be reused across calls, most cheaply on the same graph. Each call starts the
+     * visited nodes and the changed edges afresh, so getVisited() and getChangedEdges() report on the last call
+     * only; a caller that wants the nodes visited over several calls must collect them itself.
+     */
     public void orientImplied(Graph graph, List<Node> nodes) {
+        if (graph != indexedGraph) {
+            indices.clear();
+            Arrays.fill(indexedNodes, null);
+            indexedGraph = graph;
+        }
+
         this.nodes = nodes;
+        this.visited = new HashSet<>();
         this.visited.addAll(nodes);
+        this.changedEdges = new HashMap<>();
+        this.directStackSize = 0;
 
         TetradLogger.getInstance().log("impliedOrientations", "Starting Orientation Step D.");
         orientUsingMeekRulesLocally(knowledge, graph);
@@ -111,6 +133,11 @@ public class MeekRules implements ImpliedOrientation {
         this.aggressivelyPreventCycles = aggressivelyPreventCycles;
     }
 
+    /**
+     * @return the edges whose orientation was changed by the last call, each mapped from the edge as it now stands
+     * in the graph to the edge as it stood before the call. Edges that were changed and then changed back are not
+     * included.
+     */
     public Map<Edge, Edge> getChangedEdges() {
         return changedEdges;
     }
@@ -123,6 +150,9 @@ public class MeekRules implements ImpliedOrientation {
         return out;
     }
 
+    /**
+     * @return the nodes visited by the last call, including the nodes it was started from.
+     */
     public Set<Node> getVisited() {
         return visited;
     }
@@ -148,7 +178,10 @@ public class MeekRules implements ImpliedOrientation {
                 }
 
                 undirectUnforcedEdges(node, graph);
-                directStack.addAll(graph.getAdjacentNodes(node));
+
+                for (Node z : graph.getAdjacentNodes(node)) {
+                    push(z);
+                }
             }
         }
 
@@ -160,8 +193,8 @@ public class MeekRules implements ImpliedOrientation {
             runMeekRules(node, graph, knowledge);
         }
 
-        while (!directStack.isEmpty()) {
-            Node node = directStack.removeLast();
+        while (directStackSize > 0) {
+            Node node = indexedNodes[directStack[--directStackSize]];
 
             if (undirectUnforcedEdges) {
                 if (Thread.currentThread().isInterrupted()) {
@@ -182,26 +215,24 @@ public class MeekRules implements ImpliedOrientation {
         meekR4(node, graph, knowledge);
     }
 
+    // The rules below walk pairs of adjacents in the order ChoiceGenerator would produce them; the adjacents are
+    // refetched for each rule since reorienting an edge moves it in the graph's edge lists.
+
     /**
      * Meek's rule R1: if a-->b, b---c, and a not adj to c, then a-->c
      */
     private void meekR1(Node b, Graph graph, IKnowledge knowledge) {
         List<Node> adjacentNodes = graph.getAdjacentNodes(b);
+        int size = adjacentNodes.size();
 
-        if (adjacentNodes.size() < 2) {
-            return;
-        }
-
-        ChoiceGenerator cg = new ChoiceGenerator(adjacentNodes.size(), 2);
-        int[] choice;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                Node a = adjacentNodes.get(i);
+                Node c = adjacentNodes.get(j);
 
-        while ((choice = cg.next()) != null) {
-            List<Node> nodes = GraphUtils.asList(choice, adjacentNodes);
-            Node a = nodes.get(0);
-            Node c = nodes.get(1);
-
-            r1Helper(a, b, c, graph, knowledge);
-            r1Helper(c, b, a, graph, knowledge);
+                r1Helper(a, b, c, graph, knowledge);
+                r1Helper(c, b, a, graph, knowledge);
+            }
         }
     }
 
@@ -225,23 +256,18 @@ public class MeekRules implements ImpliedOrientation {
      */
     private void meekR2(Node c, Graph graph, IKnowledge knowledge) {
         List<Node> adjacentNodes = graph.getAdjacentNodes(c);
+        int size = adjacentNodes.size();
 
-        if (adjacentNodes.size() < 2) {
-            return;
-        }
-
-        ChoiceGenerator cg = new ChoiceGenerator(adjacentNodes.size(), 2);
-        int[] choice;
-
-        while ((choice = cg.next()) != null) {
-            List<Node> nodes = GraphUtils.asList(choice, adjacentNodes);
-            Node a = nodes.get(0);
-            Node b = nodes.get(1);
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                Node a = adjacentNodes.get(i);
+                Node b = adjacentNodes.get(j);
 
-            r2Helper(a, b, c, graph, knowledge);
-            r2Helper(b, a, c, graph, knowledge);
-            r2Helper(a, c, b, graph, knowledge);
-            r2Helper(c, a, b, graph, knowledge);
+                r2Helper(a, b, c, graph, knowledge);
+                r2Helper(b, a, c, graph, knowledge);
+                r2Helper(a, c, b, graph, knowledge);
+                r2Helper(c, a, b, graph, knowledge);
+            }
         }
     }
 
@@ -261,34 +287,36 @@ public class MeekRules implements ImpliedOrientation {
      */
     private void meekR3(Node a, Graph graph, IKnowledge knowledge) {
         List<Node> adjacentNodes = graph.getAdjacentNodes(a);
+        int size = adjacentNodes.size();
 
-        if (adjacentNodes.size() < 3) {
+        if (size < 3) {
             return;
         }
 
-        for (Node d : adjacentNodes) {
+        for (int k = 0; k < size; k++) {
+            Node d = adjacentNodes.get(k);
+
             if (Edges.isUndirectedEdge(graph.getEdge(a, d))) {
-                List<Node> otherAdjacents = new ArrayList<>(adjacentNodes);
-                otherAdjacents.remove(d);
+                for (int i = 0; i < size; i++) {
+                    if (i == k) continue;
 
-                ChoiceGenerator cg = new ChoiceGenerator(otherAdjacents.size(), 2);
-                int[] choice;
+                    for (int j = i + 1; j < size; j++) {
+                        if (j == k) continue;
 
-                while ((choice = cg.next()) != null) {
-                    List<Node> nodes = GraphUtils.asList(choice, otherAdjacents);
-                    Node b = nodes.get(0);
-                    Node c = nodes.get(1);
+                        Node b = adjacentNodes.get(i);
+                        Node c = adjacentNodes.get(j);
 
-                    boolean isKite = isKite(a, d, b, c, graph);
+                        boolean isKite = isKite(a, d, b, c, graph);
 
-                    if (isKite) {
-                        if (isArrowpointAllowed(d, a, knowledge)) {
-                            if (!isUnshieldedNoncollider(c, d, b, graph)) {
-                                continue;
-                            }
+                        if (isKite) {
+                            if (isArrowpointAllowed(d, a, knowledge)) {
+                                if (!isUnshieldedNoncollider(c, d, b, graph)) {
+                                    continue;
+                                }
 
-                            direct(d, a, graph);
-                            log(SearchLogUtils.edgeOrientedMsg("Meek R3", graph.getEdge(d, a)));
+                                direct(d, a, graph);
+                                log(SearchLogUtils.edgeOrientedMsg("Meek R3", graph.getEdge(d, a)));
+                            }
                         }
                     }
                 }
@@ -312,51 +340,54 @@ public class MeekRules implements ImpliedOrientation {
         }
 
         List<Node> adjacentNodes = graph.getAdjacentNodes(a);
+        int size = adjacentNodes.size();
 
-        if (adjacentNodes.size() < 3) {
+        if (size < 3) {
             return;
         }
 
-        for (Node c : adjacentNodes) {
-            List<Node> otherAdjacents = new LinkedList<>(adjacentNodes);
-            otherAdjacents.remove(c);
+        for (int k = 0; k < size; k++) {
+            Node c = adjacentNodes.get(k);
 
-            ChoiceGenerator cg = new ChoiceGenerator(otherAdjacents.size(), 2);
-            int[] combination;
+            for (int i = 0; i < size; i++) {
+                if (i == k) continue;
 
-            while ((combination = cg.next()) != null) {
-                Node b = otherAdjacents.get(combination[0]);
-                Node d = otherAdjacents.get(combination[1]);
+                for (int j = i + 1; j < size; j++) {
+                    if (j == k) continue;
 
-                if (!(graph.isAdjacentTo(a, b) && graph.isAdjacentTo(a, d) && graph.isAdjacentTo(b, c) && graph.isAdjacentTo(d, c) && graph.isAdjacentTo(a, c))) {
-                    if (graph.isDirectedFromTo(b, c) && graph.isDirectedFromTo(c, d) && graph.isUndirectedFromTo(a, d)) {
-                        if (isArrowpointAllowed(a, c, knowledge)) {
-                            if (!isUnshieldedNoncollider(b, a, d, graph)) {
-                                continue;
-                            }
-//
-                            if (isArrowpointAllowed(c, d, knowledge)) {
-                                direct(c, d, graph);
-                                log(SearchLogUtils.edgeOrientedMsg("Meek R4", graph.getEdge(c, d)));
-                                continue;
-                            }
-                        }
-                    }
+                    Node b = adjacentNodes.get(i);
+                    Node d = adjacentNodes.get(j);
 
-                    Node e = d;
-                    d = b;
-                    b = e;
+                    if (!(graph.isAdjacentTo(a, b) && graph.isAdjacentTo(a, d) && graph.isAdjacentTo(b, c) && graph.isAdjacentTo(d, c) && graph.isAdjacentTo(a, c))) {
+                        if (graph.isDirectedFromTo(b, c) && graph.isDirectedFromTo(c, d) && graph.isUndirectedFromTo(a, d)) {
+                            if (isArrowpointAllowed(a, c, knowledge)) {
+                                if (!isUnshieldedNoncollider(b, a, d, graph)) {
+                                    continue;
+                                }
 
-                    if (graph.isDirectedFromTo(b, c) && graph.isDirectedFromTo(c, d) && graph.isUndirectedFromTo(a, d)) {
-                        if (isArrowpointAllowed(a, c, knowledge)) {
-                            if (!isUnshieldedNoncollider(b, a, d, graph)) {
-                                continue;
+                                if (isArrowpointAllowed(c, d, knowledge)) {
+                                    direct(c, d, graph);
+                                    log(SearchLogUtils.edgeOrientedMsg("Meek R4", graph.getEdge(c, d)));
+                                    continue;
+                                }
                             }
+                        }
 
-                            if (isArrowpointAllowed(c, d, knowledge)) {
-                                direct(c, d, graph);
-                                log(SearchLogUtils.edgeOrientedMsg("Meek R4", graph.getEdge(c, d)));
-                                continue;
+                        Node e = d;
+                        d = b;
+                        b = e;
+
+                        if (graph.isDirectedFromTo(b, c) && graph.isDirectedFromTo(c, d) && graph.isUndirectedFromTo(a, d)) {
+                            if (isArrowpointAllowed(a, c, knowledge)) {
+                                if (!isUnshieldedNoncollider(b, a, d, graph)) {
+                                    continue;
+                                }
+
+                                if (isArrowpointAllowed(c, d, knowledge)) {
+                                    direct(c, d, graph);
+                                    log(SearchLogUtils.edgeOrientedMsg("Meek R4", graph.getEdge(c, d)));
+                                    continue;
+                                }
                             }
                         }
                     }
@@ -379,13 +410,48 @@ public class MeekRules implements ImpliedOrientation {
 
         graph.removeEdge(before);
         graph.addEdge(after);
+        recordChange(before, after);
 
         oriented.add(after);
 
         // Adding last works, checking for c or not. Adding first works, but when it is
         // checked whether directStack already contains it it seems to produce one in
         // 3000 trial error for FGES. Do not understand this yet.
-        directStack.addLast(c);
+        push(c);
+    }
+
+    // Records that before has been replaced by after, keeping track of the edge as it stood at the start of the call.
+    private void recordChange(Edge before, Edge after) {
+        Edge original = changedEdges.remove(before);
+
+        if (original == null) {
+            original = before;
+        }
+
+        if (!after.equals(original)) {
+            changedEdges.put(after, original);
+        }
+    }
+
+    private void push(Node node) {
+        Integer index = indices.get(node);
+
+        if (index == null) {
+            index = indices.size();
+
+            if (index == indexedNodes.length) {
+                indexedNodes = Arrays.copyOf(indexedNodes, 2 * index);
+            }
+
+            indexedNodes[index] = node;
+            indices.put(node, index);
+        }
+
+        if (directStackSize == directStack.length) {
+            directStack = Arrays.copyOf(directStack, 2 * directStackSize);
+        }
+
+        directStack[directStackSize++] = index;
     }
 
     private static boolean isUnshieldedNoncollider(Node a, Node b, Node c,
@@ -441,9 +507,13 @@ public class MeekRules implements ImpliedOrientation {
         for (Node x : parentsToUndirect) {
             boolean mustOrient = knowledge.isRequired(x.getName(), y.getName()) ||
                     knowledge.isForbidden(y.getName(), x.getName());
-            if (!oriented.contains(graph.getEdge(x, y)) && !mustOrient) {
+            Edge before = graph.getEdge(x, y);
+
+            if (!oriented.contains(before) && !mustOrient) {
                 graph.removeEdge(x, y);
-                graph.addUndirectedEdge(x, y);
+                Edge after = Edges.undirectedEdge(x, y);
+                graph.addEdge(after);
+                recordChange(before, after);
                 visited.add(x);
                 visited.add(y);
                 didit = true;
@@ -452,10 +522,10 @@ public class MeekRules implements ImpliedOrientation {
 
         if (didit) {
             for (Node z : graph.getAdjacentNodes(y)) {
-                directStack.addLast(z);
+                push(z);
             }
 
-            directStack.addLast(y);
+            push(y);
         }
     }
 
@@ -0,0 +1,294 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (c) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.StatUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * Shared machinery for the pairwise orientation rules of Fask and Lofs2. The data are standardized once,
+ * and the skewness of each variable, its skew-corrected column (the column times the sign of its
+ * skewness) and its moments over the rows where it is positive are computed once up front rather than
+ * for every pair it takes part in. The pair statistics below then need a single pass over two columns
+ * and allocate nothing.
+ * <p>
+ * Pairs are evaluated in parallel with map(), which runs on the shared ForkJoinPool and returns results
+ * in index order. Callers compute orientation decisions there and apply them to their graphs afterward
+ * in a single thread, in the same order as before, so the output does not depend on scheduling.
+ */
+public final class PairwiseOrienter {
+
+    // Indices are handed out in blocks of about this many per pool thread.
+    private static final int BLOCKS_PER_THREAD = 8;
+
+    private final List<Node> variables;
+
+    // Standardized columns.
+    private final double[][] columns;
+
+    // Standardized columns times the signs of their skewnesses.
+    private final double[][] corrected;
+
+    private final double[] skewness;
+
+    // For each variable x, the number of rows with x > 0 and the sum of x * x over those rows.
+    private final int[] numPositive;
+    private final double[] sumSquaresPositive;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param dataSet A continuous data set without missing values; it is standardized here.
+     */
+    public PairwiseOrienter(DataSet dataSet) {
+        this(dataSet, ForkJoinPoolInstance.getInstance().getPool());
+    }
+
+    public PairwiseOrienter(DataSet dataSet, ForkJoinPool pool) {
+        if (dataSet == null) {
+            throw new NullPointerException("Data set not provided.");
+        }
+
+        if (pool == null) {
+            throw new NullPointerException("Pool not provided.");
+        }
+
+        this.pool = pool;
+        this.variables = dataSet.getVariables();
+        this.columns = DataUtils.standardizeData(dataSet).getDoubleData().transpose().toArray();
+
+        int V = columns.length;
+        this.corrected = new double[V][];
+        this.skewness = new double[V];
+        this.numPositive = new int[V];
+        this.sumSquaresPositive = new double[V];
+
+        map(V, i -> {
+            double[] x = columns[i];
+            skewness[i] = StatUtils.skewness(x);
+            corrected[i] = times(x, Math.signum(skewness[i]));
+
+            int n = 0;
+            double sum = 0.0;
+
+            for (double _x : x) {
+                if (_x > 0) {
+                    sum += _x * _x;
+                    n++;
+                }
+            }
+
+            numPositive[i] = n;
+            sumSquaresPositive[i] = sum;
+            return null;
+        });
+    }
+
+    //======================================== PUBLIC METHODS ====================================//
+
+    public List<Node> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return The standardized columns, indexed like getVariables(). These are not copied.
+     */
+    public double[][] getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The standardized column of variable i times the sign of its skewness.
+     */
+    public double[] getCorrectedColumn(int i) {
+        return corrected[i];
+    }
+
+    public double getSkewness(int i) {
+        return skewness[i];
+    }
+
+    /**
+     * @return f applied elementwise to each of the given columns, computed in parallel. Used to tabulate
+     * nonlinearities like tanh once per variable rather than once per pair.
+     */
+    public double[][] transform(double[][] columns, DoubleUnaryOperator f) {
+        List<double[]> transformed = map(columns.length, i -> {
+            double[] x = columns[i];
+            double[] y = new double[x.length];
+            for (int k = 0; k < x.length; k++) y[k] = f.applyAsDouble(x[k]);
+            return y;
+        });
+
+        return transformed.toArray(new double[0][]);
+    }
+
+    /**
+     * @return {E(XY | X > 0) / sqrt(E(XX | X > 0) * E(YY | X > 0)), E(XY | Y > 0) / sqrt(E(XX | Y > 0) *
+     * E(YY | Y > 0))} for X = variable i and Y = variable j, from one pass over the two columns.
+     */
+    public double[] correxp(int i, int j) {
+        double[] x = columns[i];
+        double[] y = columns[j];
+
+        double exyx = 0.0, eyyx = 0.0;
+        double exyy = 0.0, exxy = 0.0;
+
+        for (int k = 0; k < x.length; k++) {
+            double xy = x[k] * y[k];
+
+            if (x[k] > 0) {
+                exyx += xy;
+                eyyx += y[k] * y[k];
+            }
+
+            if (y[k] > 0) {
+                exyy += xy;
+                exxy += x[k] * x[k];
+            }
+        }
+
+        int nx = numPositive[i];
+        int ny = numPositive[j];
+
+        double cx = (exyx / nx) / Math.sqrt((sumSquaresPositive[i] / nx) * (eyyx / nx));
+        double cy = (exyy / ny) / Math.sqrt((exxy / ny) * (sumSquaresPositive[j] / ny));
+
+        return new double[]{cx, cy};
+    }
+
+    /**
+     * @return The mean over rows of a[k] * b[k] - c[k] * d[k].
+     */
+    public static double meanDifference(double[] a, double[] b, double[] c, double[] d) {
+        double sum = 0.0;
+
+        for (int k = 0; k < a.length; k++) {
+            sum += a[k] * b[k] - c[k] * d[k];
+        }
+
+        return sum / a.length;
+    }
+
+    /**
+     * @return The mean over rows of x[k] * x[k] * y[k] - x[k] * y[k] * y[k].
+     */
+    public static double skewDifference(double[] x, double[] y) {
+        double sum = 0.0;
+
+        for (int k = 0; k < x.length; k++) {
+            sum += x[k] * x[k] * y[k] - x[k] * y[k] * y[k];
+        }
+
+        return sum / x.length;
+    }
+
+    /**
+     * @return The coefficient of y in the least squares regression of x on y (with intercept).
+     */
+    public static double slope(double[] x, double[] y) {
+        double mx = 0.0, my = 0.0;
+
+        for (int k = 0; k < x.length; k++) {
+            mx += x[k];
+            my += y[k];
+        }
+
+        mx /= x.length;
+        my /= y.length;
+
+        double sxy = 0.0, syy = 0.0;
+
+        for (int k = 0; k < x.length; k++) {
+            sxy += (x[k] - mx) * (y[k] - my);
+            syy += (y[k] - my) * (y[k] - my);
+        }
+
+        return sxy / syy;
+    }
+
+    /**
+     * Evaluates f at 0, ..., n - 1 on the pool and returns the results in index order. If the calling
+     * thread is interrupted, the indices not yet reached are skipped and their results are null.
+     */
+    public <T> List<T> map(int n, IntFunction<T> f) {
+        Object[] results = new Object[n];
+        Thread caller = Thread.currentThread();
+
+        int numBlocks = Math.max(1, Math.min(n, pool.getParallelism() * BLOCKS_PER_THREAD));
+        int size = (n + numBlocks - 1) / Math.max(1, numBlocks);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int from = 0; from < n; from += size) {
+            int _from = from;
+            int to = Math.min(n, from + size);
+
+            tasks.add(() -> {
+                for (int i = _from; i < to; i++) {
+                    if (caller.isInterrupted()) break;
+                    results[i] = f.apply(i);
+                }
+
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Arrays.asList(results);
+        return list;
+    }
+
+    //======================================== PRIVATE METHODS ====================================//
+
+    private static double[] times(double[] x, double c) {
+        double[] y = new double[x.length];
+        for (int k = 0; k < x.length; k++) y[k] = x[k] * c;
+        return y;
+    }
+}
@@ -27,12 +27,18 @@ import edu.cmu.tetrad.graph.Edge;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.GraphUtils;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.PossibleDsepSets;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 
 /**
  * This class implements the Possible-D-Sep search step of Spirtes, et al's (1993) FCI algorithm (pp 144-145).
@@ -59,6 +65,16 @@ public class PossibleDsepFci {
     private IKnowledge knowledge = new Knowledge2();
     private int maxReachablePathLength = -1;
 
+    /**
+     * The Possible-D-Sep sets of all nodes, while a search is running.
+     */
+    private PossibleDsepSets possibleDsepSets = null;
+
+    /**
+     * Whether the Possible-D-Sep sets are found by searching paths.
+     */
+    private boolean possibleDsepPathSearch = false;
+
     /**
      * Creates a new SepSet and assumes that none of the variables have yet been checked.
      *
@@ -91,36 +107,117 @@ public class PossibleDsepFci {
      * conditional on some subset of the union of Possible-D-Sep sets. This method returns the SepSet passed in the
      * constructor (if any), possibly augmented by some edge removals in this step. The GaSearchGraph passed in the
      * constructor is directly changed.
+     * <p>
+     * The Possible-D-Sep sets are computed for all nodes at once from the graph as it stands when the search starts,
+     * so the result does not depend on the order in which edges are visited.
+     *
+     * @see #removeEdges(Graph, SepsetProducer, IndependenceTest)
      */
     public SepsetMap search() {
+        this.possibleDsepSets = new PossibleDsepSets(graph, getMaxReachablePathLength(), possibleDsepPathSearch);
 
-        for (Edge edge : new ArrayList<>(graph.getEdges())) {
-            Node x = edge.getNode1();
-            Node y = edge.getNode2();
+        try {
+            sepset.addAll(removeEdges(graph, this::getSepset, allowsConcurrentCalls(test)));
+        } finally {
+            this.possibleDsepSets = null;
+        }
 
-            List<Node> condSet = getSepset(x, y);
+        return sepset;
+    }
 
-            if (condSet != null) {
-                for (Node n : condSet) {
-                    if (!(graph.getAdjacentNodes(n).contains(x) || graph.getAdjacentNodes(n).contains(y))) {
-                        System.out.println("Not adjacent");
+    /**
+     * Looks for a sepset for the endpoints of each edge of the graph and then removes the separated edges in the order
+     * in which the graph lists them. The producer should find its sepsets from Possible-D-Sep sets computed up front
+     * (see PossibleDsepSets), so that every edge sees the same graph no matter which are tested first. The edges are
+     * distributed over the pool only if the producer's independence test, given here, allows concurrent calls (see
+     * allowsConcurrentCalls); otherwise they are done one at a time, with the same result.
+     *
+     * @return the sepsets of the removed edges.
+     */
+    public static SepsetMap removeEdges(Graph graph, SepsetProducer producer, IndependenceTest test) {
+        return removeEdges(graph, producer::getSepset, allowsConcurrentCalls(test));
+    }
+
+    /**
+     * Whether the given test may be called from several threads at once. Most tests keep the result of the last call
+     * in fields, and some share tables of counts between calls (IndTestChiSquare, for instance). IndTestFisherZ judges
+     * each call from the data and the arguments alone, without locking, so its calls do run side by side.
+     */
+    static boolean allowsConcurrentCalls(IndependenceTest test) {
+        return test instanceof IndTestFisherZ;
+    }
+
+    private static SepsetMap removeEdges(Graph graph, final BiFunction<Node, Node, List<Node>> getSepset,
+                                         boolean parallel) {
+        final List<Edge> edges = new ArrayList<>(graph.getEdges());
+        SepsetMap sepsets = new SepsetMap();
+
+        if (!parallel) {
+            for (Edge edge : edges) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+
+                Node x = edge.getNode1();
+                Node y = edge.getNode2();
+                List<Node> condSet = getSepset.apply(x, y);
+
+                if (condSet != null) {
+                    graph.removeEdge(x, y);
+                    sepsets.set(x, y, condSet);
+                }
+            }
+
+            return sepsets;
+        }
+
+        List<Callable<List<Node>>> tasks = new ArrayList<>();
+
+        for (final Edge edge : edges) {
+            tasks.add(new Callable<List<Node>>() {
+                public List<Node> call() {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return null;
                     }
+
+                    return getSepset.apply(edge.getNode1(), edge.getNode2());
                 }
+            });
+        }
 
-                graph.removeEdge(x, y);
-                sepset.set(x, y, condSet);
-                System.out.println("Removed " + x + "--- " + y + " sepset = " + condSet);
+        List<Future<List<Node>>> futures = ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks);
+
+        for (int i = 0; i < edges.size(); i++) {
+            List<Node> condSet;
+
+            try {
+                condSet = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw new IllegalStateException(e.getCause());
             }
 
+            if (condSet != null) {
+                Node x = edges.get(i).getNode1();
+                Node y = edges.get(i).getNode2();
+                graph.removeEdge(x, y);
+                sepsets.set(x, y, condSet);
+            }
         }
 
-        return sepset;
+        return sepsets;
     }
 
     public List<Node> getSepset(Node node1, Node node2) {
         List<Node> condSet = getCondSet(node1, node2, maxReachablePathLength);
 
-        if (sepset == null) {
+        if (condSet == null) {
             condSet = getCondSet(node2, node1, maxReachablePathLength);
         }
 
@@ -187,7 +284,14 @@ public class PossibleDsepFci {
      * </pre>
      */
     private Set<Node> getPossibleDsep(Node node1, Node node2, int maxPathLength) {
-        Set<Node> dsep = GraphUtils.possibleDsep(node1, node2, graph, maxPathLength);
+        Set<Node> dsep;
+
+        if (possibleDsepSets != null) {
+            dsep = possibleDsepSets.get(node1, node2);
+        } else {
+            dsep = PossibleDsepSets.possibleDsep(node1, node2, graph, getMaxReachablePathLength(),
+                    possibleDsepPathSearch);
+        }
 
         dsep.remove(node1);
         dsep.remove(node2);
@@ -218,6 +322,18 @@ public class PossibleDsepFci {
         this.knowledge = knowledge;
     }
 
+    public boolean isPossibleDsepPathSearch() {
+        return possibleDsepPathSearch;
+    }
+
+    /**
+     * True if the Possible-D-Sep sets should be found by searching paths, as in PossibleDsepSets; false (the default)
+     * if they should be just the adjacents of each node.
+     */
+    public void setPossibleDsepPathSearch(boolean possibleDsepPathSearch) {
+        this.possibleDsepPathSearch = possibleDsepPathSearch;
+    }
+
     public int getMaxReachablePathLength() {
         return maxReachablePathLength == Integer.MAX_VALUE ? -1 : maxReachablePathLength;
     }
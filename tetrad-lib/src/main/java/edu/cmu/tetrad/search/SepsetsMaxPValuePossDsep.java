@@ -38,6 +38,16 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
     private double p = Double.NaN;
     private boolean verbose = false;
 
+    /**
+     * The Possible-D-Sep sets of all nodes, computed on first use.
+     */
+    private PossibleDsepSets possibleDsepSets = null;
+
+    /**
+     * Whether the Possible-D-Sep sets are found by searching paths.
+     */
+    private boolean possibleDsepPathSearch = false;
+
     public SepsetsMaxPValuePossDsep(Graph graph, IndependenceTest independenceTest, SepsetMap extraSepsets, int depth, int maxPathLength) {
         this.graph = graph;
         this.independenceTest = independenceTest;
@@ -50,8 +60,9 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
      * Pick out the sepset from among adj(i) or adj(k) with the highest p value.
      */
     public List<Node> getSepset(Node i, Node k) {
-        List<Node> sepset = getMaxSepset(i, k);
-        if (getScore() > getIndependenceTest().getAlpha()) {
+        double[] p = new double[1];
+        List<Node> sepset = getMaxSepset(i, k, p);
+        if (p[0] > getIndependenceTest().getAlpha()) {
             return sepset;
         } else {
             return null;
@@ -59,16 +70,20 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
     }
 
     public boolean isCollider(Node i, Node j, Node k) {
-        List<Node> _v = getMaxSepset(i, k);
+        List<Node> _v = getMaxSepset(i, k, new double[1]);
         return _v != null && !_v.contains(j);
     }
 
     public boolean isNoncollider(Node i, Node j, Node k) {
-        List<Node> _v = getMaxSepset(i, k);
+        List<Node> _v = getMaxSepset(i, k, new double[1]);
         return _v != null && _v.contains(j);
     }
 
-    private List<Node> getMaxSepset(Node i, Node k) {
+    /**
+     * Returns the sepset with the highest p value, which is put in maxP[0]. Sepsets may be asked for from several
+     * threads at once (see getPValue).
+     */
+    private List<Node> getMaxSepset(Node i, Node k, double[] maxP) {
         double _p = 0.0;
         List<Node> _v = null;
 
@@ -87,8 +102,8 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
 
 //        List<Node> adji = graph.getAdjacentNodes(i);
 //        List<Node> adjk = graph.getAdjacentNodes(k);
-        List<Node> adji = new ArrayList<>(possibleDsep(i, k, graph, maxPathLength));
-        List<Node> adjk = new ArrayList<>(possibleDsep(k, i, graph, maxPathLength));
+        List<Node> adji = new ArrayList<>(getPossibleDsepSets().get(i, k));
+        List<Node> adjk = new ArrayList<>(getPossibleDsepSets().get(k, i));
         adji.remove(k);
         adjk.remove(i);
 
@@ -100,8 +115,7 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adji);
 
-                    getIndependenceTest().isIndependent(i, k, v);
-                    double p = getIndependenceTest().getPValue();
+                    double p = getPValue(i, k, v);
 
                     if (p > _p) {
                         _p = p;
@@ -117,8 +131,7 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
                 while ((choice = gen.next()) != null) {
                     List<Node> v = GraphUtils.asList(choice, adjk);
 
-                    getIndependenceTest().isIndependent(i, k, v);
-                    double p = getIndependenceTest().getPValue();
+                    double p = getPValue(i, k, v);
 
                     if (p > _p) {
                         _p = p;
@@ -129,100 +142,46 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
         }
 
         this.p = _p;
+        maxP[0] = _p;
         return _v;
     }
 
-    public static Set<Node> possibleDsep(Node x, Node y, Graph graph, int maxPathLength) {
-        Set<Node> dsep = new HashSet<>();
-
-        Queue<OrderedPair<Node>> Q = new ArrayDeque<>();
-        Set<OrderedPair<Node>> V = new HashSet<>();
-
-        Map<Node, List<Node>> previous = new HashMap<>();
-        previous.put(x, null);
-
-        OrderedPair e = null;
-        int distance = 0;
+    /**
+     * Fisher Z p values are computed without touching the test's state, so they need no lock; for other tests the
+     * test is locked while the p value of the call is read.
+     */
+    private double getPValue(Node i, Node k, List<Node> v) {
+        IndependenceTest test = getIndependenceTest();
 
-        for (Node b : graph.getAdjacentNodes(x)) {
-            if (b == y) continue;
-            OrderedPair<Node> edge = new OrderedPair<>(x, b);
-            if (e == null) e = edge;
-            Q.offer(edge);
-            V.add(edge);
-            addToList(previous, b, x);
-            dsep.add(b);
+        if (test instanceof IndTestFisherZ) {
+            return ((IndTestFisherZ) test).getPValue(i, k, v);
         }
 
-        while (!Q.isEmpty()) {
-            OrderedPair<Node> t = Q.poll();
-
-            if (e == t) {
-                e = null;
-                distance++;
-                if (distance > 0 && distance > (maxPathLength == -1 ? 1000 : maxPathLength)) break;
-            }
-
-            Node a = t.getFirst();
-            Node b = t.getSecond();
-
-            if (existOnePathWithPossibleParents(previous, b, x, b, graph)) {
-                dsep.add(b);
-            }
-
-            for (Node c : graph.getAdjacentNodes(b)) {
-                if (c == a) continue;
-                if (c == x) continue;
-                if (c == y) continue;
-
-                addToList(previous, b, c);
-
-                if (graph.isDefCollider(a, b, c) || graph.isAdjacentTo(a, c)) {
-                    OrderedPair<Node> u = new OrderedPair<>(a, c);
-                    if (V.contains(u)) continue;
-
-                    V.add(u);
-                    Q.offer(u);
-
-                    if (e == null) {
-                        e = u;
-                    }
-                }
-            }
+        synchronized (test) {
+            test.isIndependent(i, k, v);
+            return test.getPValue();
         }
-
-        dsep.remove(x);
-        dsep.remove(y);
-        return dsep;
     }
 
-    private static boolean existOnePathWithPossibleParents(Map<Node, List<Node>> previous, Node w, Node x, Node b, Graph graph) {
-        if (w == x) return true;
-        final List<Node> p = previous.get(w);
-        if (p == null) return false;
-
-        for (Node r : p) {
-            if (r == b || r == x) continue;
-
-            if ((existsSemidirectedPath(r, x, graph)) ||
-                    existsSemidirectedPath(r, b, graph)) {
-                if (existOnePathWithPossibleParents(previous, r, x, b, graph)) {
-                    return true;
-                }
-            }
+    /**
+     * The Possible-D-Sep sets are taken from the graph as it is when the first sepset is asked for, so edges removed
+     * on the strength of these sepsets do not change the sets used for the others.
+     */
+    private synchronized PossibleDsepSets getPossibleDsepSets() {
+        if (possibleDsepSets == null) {
+            possibleDsepSets = new PossibleDsepSets(graph, maxPathLength, possibleDsepPathSearch);
         }
 
-        return false;
+        return possibleDsepSets;
     }
 
-    private static void addToList(Map<Node, List<Node>> previous, Node b, Node c) {
-        List<Node> list = previous.get(c);
-
-        if (list == null) {
-            list = new ArrayList<>();
-        }
-
-        list.add(b);
+    /**
+     * Returns the nodes adjacent to x other than y.
+     *
+     * @see GraphUtils#possibleDsep(Node, Node, Graph, int)
+     */
+    public static Set<Node> possibleDsep(Node x, Node y, Graph graph, int maxPathLength) {
+        return GraphUtils.possibleDsep(x, y, graph, maxPathLength);
     }
 
     public static boolean existsSemidirectedPath(Node from, Node to, Graph G) {
@@ -285,5 +244,17 @@ public class SepsetsMaxPValuePossDsep implements SepsetProducer {
         this.verbose = verbose;
     }
 
+    public boolean isPossibleDsepPathSearch() {
+        return possibleDsepPathSearch;
+    }
+
+    /**
+     * True if the Possible-D-Sep sets should be found by searching paths, as in PossibleDsepSets; false (the default)
+     * if they should be just the adjacents of each node.
+     */
+    public void setPossibleDsepPathSearch(boolean possibleDsepPathSearch) {
+        this.possibleDsepPathSearch = possibleDsepPathSearch;
+    }
+
 }
 
@@ -26,6 +26,7 @@ import edu.cmu.tetrad.data.Knowledge2;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.GraphUtils;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.PossibleDsepSets;
 import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.MathUtils;
 
@@ -42,6 +43,16 @@ public class SepsetsPossibleDsep implements SepsetProducer {
     private int depth = -1;
     private boolean verbose = false;
 
+    /**
+     * The Possible-D-Sep sets of all nodes, computed on first use.
+     */
+    private PossibleDsepSets possibleDsepSets = null;
+
+    /**
+     * Whether the Possible-D-Sep sets are found by searching paths.
+     */
+    private boolean possibleDsepPathSearch = false;
+
     public SepsetsPossibleDsep(Graph graph, IndependenceTest independenceTest, IKnowledge knowledge,
                                int depth, int maxPathLength) {
         this.graph = graph;
@@ -123,7 +134,7 @@ public class SepsetsPossibleDsep implements SepsetProducer {
     }
 
     private Set<Node> getPossibleDsep(Node x, Node y, int maxPathLength) {
-        Set<Node> dsep = GraphUtils.possibleDsep(x, y, graph, maxPathLength);
+        Set<Node> dsep = getPossibleDsepSets(maxPathLength).get(x, y);
 //        TetradLogger.getInstance().log("details", "Possible-D-Sep(" + x + ", " + y + ") = " + dsep);
 
         if (verbose) {
@@ -134,6 +145,18 @@ public class SepsetsPossibleDsep implements SepsetProducer {
 
     }
 
+    /**
+     * The Possible-D-Sep sets are taken from the graph as it is when the first sepset is asked for, so edges removed
+     * on the strength of these sepsets do not change the sets used for the others.
+     */
+    private synchronized PossibleDsepSets getPossibleDsepSets(int maxPathLength) {
+        if (possibleDsepSets == null) {
+            possibleDsepSets = new PossibleDsepSets(graph, maxPathLength, possibleDsepPathSearch);
+        }
+
+        return possibleDsepSets;
+    }
+
     /**
      * Removes from the list of nodes any that cannot be parents of x given the background knowledge.
      */
@@ -180,5 +203,17 @@ public class SepsetsPossibleDsep implements SepsetProducer {
         this.verbose = verbose;
     }
 
+    public boolean isPossibleDsepPathSearch() {
+        return possibleDsepPathSearch;
+    }
+
+    /**
+     * True if the Possible-D-Sep sets should be found by searching paths, as in PossibleDsepSets; false (the default)
+     * if they should be just the adjacents of each node.
+     */
+    public void setPossibleDsepPathSearch(boolean possibleDsepPathSearch) {
+        this.possibleDsepPathSearch = possibleDsepPathSearch;
+    }
+
 }
 
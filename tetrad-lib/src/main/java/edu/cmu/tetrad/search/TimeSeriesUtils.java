@@ -363,7 +363,10 @@ public class TimeSeriesUtils {
 
     /**
      * Creates new time series dataset from the given one (fixed to deal with
-     * mixed datasets)
+     * mixed datasets). For continuous box data sets the result is a lagged
+     * view of a copy of the given data (see LaggedDataBox), so it holds the
+     * series once rather than once per lag, and later edits to the series do
+     * not show up in it.
      */
     public static DataSet createLagData(DataSet data, int numLags) {
         List<Node> variables = data.getVariables();
@@ -448,6 +451,14 @@ public class TimeSeriesUtils {
             knowledge.addToTier(numLags - lag, node.getName());
         }
 
+        if (data instanceof BoxDataSet && data.isContinuous()) {
+            DataSet laggedData = new BoxDataSet(new LaggedDataBox(((BoxDataSet) data).getDataBox().copy(), numLags),
+                    newVariables);
+            knowledge.setDefaultToKnowledgeLayout(true);
+            laggedData.setKnowledge(knowledge);
+            return laggedData;
+        }
+
         DataSet laggedData = new BoxDataSet(new DoubleDataBox(laggedRows, newVariables.size()), newVariables);
         for (int lag = 0; lag <= numLags; lag++) {
             for (int col = 0; col < dataSize; col++) {
@@ -0,0 +1,264 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Tests every combination of b of the indices 0, ..., a - 1 in parallel. The
+ * combinations are taken in the same lexicographic order as ChoiceGenerator;
+ * that range of ranks is cut into contiguous blocks, the first combination of
+ * each block is unranked directly, and the blocks are run on the shared
+ * ForkJoinPool. Combinations that pass are returned as bitsets over the
+ * indices, in rank order, so results are the same as those of a serial loop
+ * over ChoiceGenerator however the blocks are scheduled.
+ * <p>
+ * The predicate is called from several threads at once and must be safe for
+ * that. The array passed to it is reused and should not be kept.
+ */
+public final class ParallelChoiceSearch {
+
+    /**
+     * Below this many combinations everything is done in the calling thread.
+     */
+    private static final long MIN_PARALLEL = 1000;
+
+    /**
+     * Blocks per pool thread, so that uneven blocks still balance.
+     */
+    private static final int BLOCKS_PER_THREAD = 8;
+
+    private final int a;
+    private final int b;
+    private final long numChoices;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a search over a choose b on the shared pool.
+     */
+    public ParallelChoiceSearch(int a, int b) {
+        this(a, b, ForkJoinPoolInstance.getInstance().getPool());
+    }
+
+    public ParallelChoiceSearch(int a, int b, ForkJoinPool pool) {
+        if ((a < 0) || (b < 0) || (a < b)) {
+            throw new IllegalArgumentException("For 'a choose b', a and b must be "
+                    + "nonnegative with a >= b: a = " + a + ", b = " + b);
+        }
+
+        if (pool == null) {
+            throw new NullPointerException("Pool must not be null.");
+        }
+
+        this.a = a;
+        this.b = b;
+        this.numChoices = numChoices(a, b);
+        this.pool = pool;
+    }
+
+    /**
+     * @return all combinations passing the test, in ChoiceGenerator order. If
+     * the calling thread is interrupted the search stops early and returns
+     * what it has found so far.
+     */
+    public List<BitSet> findAll(Predicate<int[]> test) {
+        List<long[]> blocks = blocks();
+        List<List<BitSet>> found = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        for (long[] block : blocks) {
+            List<BitSet> _found = new ArrayList<>();
+            found.add(_found);
+
+            tasks.add(() -> {
+                int[] choice = unrank(a, b, block[0]);
+
+                for (long rank = block[0]; rank < block[1]; rank++) {
+                    if (caller.isInterrupted()) break;
+                    if (rank > block[0]) successor(choice, a);
+                    if (test.test(choice)) _found.add(toBitSet(choice));
+                }
+
+                return null;
+            });
+        }
+
+        run(tasks);
+
+        List<BitSet> all = new ArrayList<>();
+        for (List<BitSet> _found : found) all.addAll(_found);
+        return all;
+    }
+
+    /**
+     * @return the first combination, in ChoiceGenerator order, that passes
+     * the test, or null if there is none or the calling thread is interrupted.
+     * Blocks past one that has already found a combination stop early.
+     */
+    public BitSet findFirst(Predicate<int[]> test) {
+        AtomicLong first = new AtomicLong(Long.MAX_VALUE);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        for (long[] block : blocks()) {
+            tasks.add(() -> {
+                int[] choice = unrank(a, b, block[0]);
+
+                for (long rank = block[0]; rank < block[1] && rank < first.get(); rank++) {
+                    if (caller.isInterrupted()) break;
+                    if (rank > block[0]) successor(choice, a);
+
+                    if (test.test(choice)) {
+                        long _first;
+
+                        do {
+                            _first = first.get();
+                        } while (rank < _first && !first.compareAndSet(_first, rank));
+
+                        break;
+                    }
+                }
+
+                return null;
+            });
+        }
+
+        run(tasks);
+
+        if (caller.isInterrupted() || first.get() == Long.MAX_VALUE) {
+            return null;
+        }
+
+        return toBitSet(unrank(a, b, first.get()));
+    }
+
+    /**
+     * @return a choose b.
+     * @throws ArithmeticException if the result does not fit in a long.
+     */
+    public static long numChoices(int a, int b) {
+        if (b < 0 || b > a) return 0;
+        b = Math.min(b, a - b);
+        long c = 1;
+
+        for (int i = 0; i < b; i++) {
+            // c * (a - i) is divisible by (i + 1) since c = (a choose i).
+            c = Math.multiplyExact(c, a - i) / (i + 1);
+        }
+
+        return c;
+    }
+
+    /**
+     * @return the combination with the given rank in the lexicographic order
+     * produced by ChoiceGenerator(a, b).
+     */
+    public static int[] unrank(int a, int b, long rank) {
+        if (rank < 0 || rank >= numChoices(a, b)) {
+            throw new IllegalArgumentException("Rank out of range for " + a + " choose " + b + ": " + rank);
+        }
+
+        int[] choice = new int[b];
+        int x = 0;
+
+        for (int i = 0; i < b; i++) {
+            while (true) {
+                // Combinations with x at position i.
+                long count = numChoices(a - x - 1, b - i - 1);
+                if (rank < count) break;
+                rank -= count;
+                x++;
+            }
+
+            choice[i] = x++;
+        }
+
+        return choice;
+    }
+
+    //==============================PRIVATE METHODS=========================//
+
+    private List<long[]> blocks() {
+        List<long[]> blocks = new ArrayList<>();
+        long numBlocks = numChoices < MIN_PARALLEL ? 1
+                : Math.min(numChoices, (long) pool.getParallelism() * BLOCKS_PER_THREAD);
+        long size = (numChoices + numBlocks - 1) / numBlocks;
+
+        for (long from = 0; from < numChoices; from += size) {
+            blocks.add(new long[]{from, Math.min(numChoices, from + size)});
+        }
+
+        return blocks;
+    }
+
+    private void run(List<Callable<Void>> tasks) {
+        if (tasks.isEmpty()) return;
+
+        try {
+            if (tasks.size() == 1) {
+                tasks.get(0).call();
+                return;
+            }
+
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Advances the choice to the next one in lexicographic order; the caller
+    // makes sure there is one.
+    private static void successor(int[] choice, int a) {
+        int b = choice.length;
+        int i = b - 1;
+        while (choice[i] == a - b + i) i--;
+        choice[i]++;
+        for (int j = i + 1; j < b; j++) choice[j] = choice[j - 1] + 1;
+    }
+
+    private static BitSet toBitSet(int[] choice) {
+        BitSet bits = new BitSet();
+        for (int i : choice) bits.set(i);
+        return bits;
+    }
+}
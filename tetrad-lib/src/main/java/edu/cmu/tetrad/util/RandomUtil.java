@@ -52,6 +52,12 @@ public class RandomUtil {
      */
     private static final RandomUtil randomUtil = new RandomUtil();
 
+    /**
+     * Instances installed for individual threads by <code>setThreadSeed</code>; these take the place of the singleton
+     * in the threads that installed them.
+     */
+    private static final ThreadLocal<RandomUtil> threadInstances = new ThreadLocal<>();
+
     // Random number generator from the Apache library.
     private RandomGenerator randomGenerator;
 
@@ -81,10 +87,39 @@ public class RandomUtil {
     }
 
     /**
-     * @return the singleton instance of this class.
+     * Constructs an unsynchronized random number generator for use by a single thread.
+     */
+    private RandomUtil(RandomGenerator randomGenerator, long seed) {
+        this.randomGenerator = randomGenerator;
+        this.normal = new NormalDistribution(randomGenerator, 0, 1);
+        this.seed = seed;
+    }
+
+    /**
+     * @return the instance installed for the calling thread by <code>setThreadSeed</code>, if there is one, otherwise
+     * the singleton instance of this class.
      */
     public static RandomUtil getInstance() {
-        return randomUtil;
+        RandomUtil instance = threadInstances.get();
+        return instance != null ? instance : randomUtil;
+    }
+
+    /**
+     * Gives the calling thread its own random stream, seeded with the given seed, which <code>getInstance</code> will
+     * return in this thread until <code>clearThreadSeed</code> is called. This lets a parallel computation give each
+     * of its tasks a reproducible stream that does not depend on how the tasks are scheduled.
+     *
+     * @param seed The seed for the calling thread's stream.
+     */
+    public static void setThreadSeed(long seed) {
+        threadInstances.set(new RandomUtil(new Well44497b(seed), seed));
+    }
+
+    /**
+     * Returns the calling thread to the singleton instance.
+     */
+    public static void clearThreadSeed() {
+        threadInstances.remove();
     }
 
     //=======================================PUBLIC METHODS=================================//
@@ -34,12 +34,16 @@ import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.search.GraphSearch;
 import edu.cmu.tetrad.sem.GeneralizedSemIm;
 import edu.cmu.tetrad.sem.GeneralizedSemPm;
+import edu.cmu.tetrad.util.ForkJoinPoolInstance;
 import edu.cmu.tetrad.util.StatUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 //import cern.colt.Arrays;
 //import la.matrix.Matrix;
@@ -89,6 +93,10 @@ public class MGM extends ConvexProximal implements GraphSearch{
     //parameter weights
     private DoubleMatrix1D weights;
 
+    //edges held at zero while learning a regularization path, indexed by (p+q)*i+j for i<j in the order of variables;
+    //null if no edges are screened
+    private boolean[] screened = null;
+
     public MGM(DoubleMatrix2D x, DoubleMatrix2D y, List<Node> variables, int[] l, double[] lambda){
 
         if(l.length != y.columns())
@@ -914,6 +922,7 @@ public class MGM extends ConvexProximal implements GraphSearch{
         //Constructor copies and checks dimension
         //par is a copy so we can update it
         MGMParams par = new MGMParams(X.copy(), p, lsum);
+        zeroScreened(par);
 
         //penbeta = t(1).*(wv(1:p)'*wv(1:p));
         //betascale=zeros(size(beta));
@@ -1031,6 +1040,7 @@ public class MGM extends ConvexProximal implements GraphSearch{
         //Constructor copies and checks dimension
         //par is a copy so we can update it
         MGMParams par = new MGMParams(X, p, lsum);
+        zeroScreened(par);
 
         //penbeta = t(1).*(wv(1:p)'*wv(1:p));
         //betascale=zeros(size(beta));
@@ -1201,6 +1211,185 @@ public class MGM extends ConvexProximal implements GraphSearch{
         setParams(new MGMParams(pg.learnBackTrack(this, params.toMatrix1D(), 0.0, iterLimit), p, lsum));
     }
 
+    /**
+     * Learns MGM along a regularization path with objective function tolerance, as in learn, for each of the given
+     * lambdas in turn. The lambdas should decrease, so that each solution is a warm start for the next. Before each
+     * solve, edges that the sequential strong rule predicts will stay out of the model are held at zero; afterwards
+     * the held edges are checked against the optimality conditions, and any that fail are let back in and the problem
+     * is solved again, so each solution is a solution of the full problem for its lambda. Leaves this MGM with the
+     * parameters for the last lambda.
+     *
+     * @param lambdas for each point on the path, three values for cc, cd, and dd edges respectively
+     * @param epsilon tolerance in change of objective function
+     * @param iterLimit iteration limit for each solve
+     * @return copies of the parameters learned for each lambda
+     */
+    public List<MGMParams> learnPath(double[][] lambdas, double epsilon, int iterLimit){
+        return learnPath(lambdas, new ProximalGradient(), epsilon, iterLimit);
+    }
+
+    /**
+     * Learns MGM along a regularization path using default edge convergence, 1000 iter limit, as in search. See
+     * learnPath.
+     *
+     * @param lambdas for each point on the path, three values for cc, cd, and dd edges respectively
+     * @return the graph learned for each lambda
+     */
+    public List<Graph> searchPath(double[][] lambdas){
+        long startTime = System.currentTimeMillis();
+        List<MGMParams> path = learnPath(lambdas, new ProximalGradient(.5, .9, true), 0.0, 1000);
+        elapsedTime = System.currentTimeMillis() - startTime;
+
+        List<Graph> graphs = new ArrayList<>();
+
+        for (MGMParams pathParams : path) {
+            setParams(pathParams);
+            graphs.add(graphFromMGM());
+        }
+
+        return graphs;
+    }
+
+    /**
+     * Runs searchPath over each of the given data sets--typically subsamples of one data set--in parallel.
+     *
+     * @param dataSets the data sets, each with at least one continuous and one discrete variable
+     * @param lambdas for each point on the path, three values for cc, cd, and dd edges respectively
+     * @return for each data set, the graph learned for each lambda
+     */
+    public static List<List<Graph>> searchPaths(List<DataSet> dataSets, final double[][] lambdas){
+        List<Callable<List<Graph>>> tasks = new ArrayList<>();
+
+        for (final DataSet dataSet : dataSets) {
+            tasks.add(() -> new MGM(dataSet, lambdas[0]).searchPath(lambdas));
+        }
+
+        List<List<Graph>> paths = new ArrayList<>();
+
+        try {
+            for (Future<List<Graph>> future : ForkJoinPoolInstance.getInstance().getPool().invokeAll(tasks)) {
+                paths.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching paths.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+
+        return paths;
+    }
+
+    private List<MGMParams> learnPath(double[][] lambdas, ProximalGradient pg, double epsilon, int iterLimit){
+        for (double[] lam : lambdas) {
+            if (lam.length != 3)
+                throw new IllegalArgumentException("Lambda should have three values for cc, cd, and dd edges respectively");
+        }
+
+        int numVars = p + q;
+        List<MGMParams> path = new ArrayList<>();
+        MGMParams grad = new MGMParams(smoothGradient(params.toMatrix1D()), p, lsum);
+
+        for (int k = 0; k < lambdas.length; k++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted while learning the path at lambda " + k + ".");
+            }
+
+            try {
+                this.lambda = factory1D.make(lambdas[k]);
+
+                //sequential strong rule: hold an edge at zero if its gradient at the last solution is below
+                //(2 lambda_k - lambda_k-1) times its weight
+                screened = null;
+
+                if (k > 0) {
+                    screened = new boolean[numVars * numVars];
+
+                    for (int i = 0; i < numVars; i++) {
+                        for (int j = i + 1; j < numVars; j++) {
+                            int type = edgeType(i, j);
+                            double bound = weights.get(i) * weights.get(j) * (2 * lambdas[k][type] - lambdas[k - 1][type]);
+                            screened[i * numVars + j] = edgeNorm(params, i, j) == 0 && edgeNorm(grad, i, j) < bound;
+                        }
+                    }
+                }
+
+                while (true) {
+                    setParams(new MGMParams(pg.learnBackTrack(this, params.toMatrix1D(), epsilon, iterLimit), p, lsum));
+                    grad = new MGMParams(smoothGradient(params.toMatrix1D()), p, lsum);
+
+                    if (screened == null) break;
+
+                    //optimality conditions for the held edges
+                    boolean violated = false;
+
+                    for (int i = 0; i < numVars; i++) {
+                        for (int j = i + 1; j < numVars; j++) {
+                            double bound = weights.get(i) * weights.get(j) * lambdas[k][edgeType(i, j)];
+
+                            if (screened[i * numVars + j] && edgeNorm(grad, i, j) > bound) {
+                                screened[i * numVars + j] = false;
+                                violated = true;
+                            }
+                        }
+                    }
+
+                    if (!violated) break;
+                }
+
+                path.add(new MGMParams(params));
+            } finally {
+                screened = null;
+            }
+        }
+
+        return path;
+    }
+
+    //0 for cc, 1 for cd, 2 for dd edges, for i < j
+    private int edgeType(int i, int j){
+        if (j < p) return 0;
+        if (i < p) return 1;
+        return 2;
+    }
+
+    //the norm of the parameters for edge i--j, i < j, that the proximal operator thresholds
+    private double edgeNorm(MGMParams par, int i, int j){
+        if (j < p) {
+            return Math.abs(par.beta.get(i, j));
+        } else if (i < p) {
+            return norm2(par.theta.viewColumn(i).viewPart(lcumsum[j - p], l[j - p]));
+        } else {
+            return norm2(par.phi.viewPart(lcumsum[i - p], lcumsum[j - p], l[i - p], l[j - p]));
+        }
+    }
+
+    //sets the parameters of screened edges to zero
+    private void zeroScreened(MGMParams par){
+        if (screened == null) return;
+
+        int numVars = p + q;
+
+        for (int i = 0; i < numVars; i++) {
+            for (int j = i + 1; j < numVars; j++) {
+                if (!screened[i * numVars + j]) continue;
+
+                if (j < p) {
+                    par.beta.set(i, j, 0);
+                    par.beta.set(j, i, 0);
+                } else if (i < p) {
+                    par.theta.viewColumn(i).viewPart(lcumsum[j - p], l[j - p]).assign(0);
+                } else {
+                    par.phi.viewPart(lcumsum[i - p], lcumsum[j - p], l[i - p], l[j - p]).assign(0);
+                }
+            }
+        }
+    }
+
     /**
      * Converts MGM object to Graph object with edges if edge parameters are non-zero. Loses all edge param information
      *
@@ -26,10 +26,12 @@ import cern.colt.matrix.DoubleMatrix2D;
 import cern.colt.matrix.linalg.Algebra;
 import cern.jet.math.Functions;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Edge;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.GraphUtils;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.ForkJoinPoolInstance;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.pitt.csb.mgm.MGM;
 import edu.pitt.csb.mgm.MixedUtils;
 
@@ -37,9 +39,13 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Future;
 
 /**
  * Runs a search algorithm over a N subsamples of size b to asses stability
@@ -72,69 +78,163 @@ public class StabilityUtils {
 
     //returns an adjacency matrix containing the edgewise instability as defined in Liu et al
     public static DoubleMatrix2D StabilitySearchPar(final DataSet data, final DataGraphSearch gs, int N, int b){
+        return StabilitySearchPar(data, Collections.singletonList(gs), N, b, Math.max(N, 1), 0.0)[0];
+    }
 
-        final int numVars = data.getNumColumns();
-        final DoubleMatrix2D thetaMat = DoubleFactory2D.dense.make(numVars, numVars, 0.0);
+    /**
+     * Runs each of the given searches--typically one search for each point of a grid of regularization
+     * parameters--over the same N subsamples of size b and returns, for each search, the matrix of edge
+     * frequencies over the subsamples. Each subsample is drawn once and shared by all of the searches. Edge
+     * counts are kept in int arrays owned by each task and summed when the tasks finish.
+     *
+     * Subsamples are run in rounds of batchSize. If tolerance is positive, the run stops after the first round
+     * in which the total instability (the average of 2 * theta * (1 - theta) over pairs of variables) changed by
+     * no more than tolerance for every search, and frequencies are over the subsamples run so far.
+     */
+    public static DoubleMatrix2D[] StabilitySearchPar(final DataSet data, final List<DataGraphSearch> searches,
+                                                      int N, int b, int batchSize, double tolerance){
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+        }
 
+        final int numVars = data.getNumColumns();
+        final int numSearches = searches.size();
         final int[][] samps = subSampleNoReplacement(data.getNumRows(), b, N);
+        final int[][] counts = new int[numSearches][numVars * numVars];
 
         final ForkJoinPool pool = ForkJoinPoolInstance.getInstance().getPool();
+        final int numTasks = pool.getParallelism();
+
+        double[] lastInstability = null;
+        int numDone = 0;
+
+        while (numDone < N) {
+            final int from = numDone;
+            final int to = Math.min(N, numDone + batchSize);
+            List<Callable<int[][]>> tasks = new ArrayList<>();
+
+            for (int t = 0; t < numTasks && from + t < to; t++) {
+                final int first = from + t;
+
+                tasks.add(() -> {
+                    int[][] taskCounts = new int[numSearches][numVars * numVars];
+                    List<DataGraphSearch> taskSearches = new ArrayList<>();
+
+                    for (DataGraphSearch gs : searches) {
+                        taskSearches.add(gs.copy());
+                    }
+
+                    for (int s = first; s < to; s += numTasks) {
+                        DataSet dataSubSamp = data.subsetRows(samps[s]);
 
-        class StabilityAction extends RecursiveAction{
-            private int chunk;
-            private int from;
-            private int to;
+                        for (int k = 0; k < numSearches; k++) {
+                            countSkeleton(taskSearches.get(k).search(dataSubSamp), taskCounts[k], numVars);
+                        }
+                    }
 
-            public StabilityAction(int chunk, int from, int to){
-                this.chunk = chunk;
-                this.from = from;
-                this.to = to;
+                    return taskCounts;
+                });
             }
 
-            //could avoid using syncronized if we keep track of array of mats and add at end, but that needs lots of
-            //memory
-            private synchronized void addToMat(DoubleMatrix2D matSum, DoubleMatrix2D curMat){
-                matSum.assign(curMat, Functions.plus);
+            try {
+                for (Future<int[][]> future : pool.invokeAll(tasks)) {
+                    int[][] taskCounts = future.get();
+
+                    for (int k = 0; k < numSearches; k++) {
+                        for (int i = 0; i < counts[k].length; i++) {
+                            counts[k][i] += taskCounts[k][i];
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running the subsample searches.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw new IllegalStateException(e.getCause());
             }
 
-            @Override
-            protected void compute(){
-                if (to - from <= chunk) {
-                    for (int s = from; s < to; s++) {
-                        DataSet dataSubSamp = data.subsetRows(samps[s]).copy();
-                        DataGraphSearch curGs = gs.copy();
-                        Graph g = curGs.search(dataSubSamp);
+            numDone = to;
 
-                        DoubleMatrix2D curAdj = MixedUtils.skeletonToMatrix(g); //set weights so that undirected stability works
-                        addToMat(thetaMat, curAdj);
+            if (tolerance > 0) {
+                double[] instability = new double[numSearches];
+                boolean converged = lastInstability != null;
+
+                for (int k = 0; k < numSearches; k++) {
+                    instability[k] = totalInstability(counts[k], numVars, numDone);
+
+                    if (converged && Math.abs(instability[k] - lastInstability[k]) > tolerance) {
+                        converged = false;
                     }
+                }
 
-                    return;
-                } else {
-                    List<StabilityAction> tasks = new ArrayList<>();
+                if (converged) {
+                    break;
+                }
 
-                    final int mid = (to + from) / 2;
+                lastInstability = instability;
+            }
+        }
 
-                    tasks.add(new StabilityAction(chunk, from, mid));
-                    tasks.add(new StabilityAction(chunk, mid, to));
+        DoubleMatrix2D[] thetaMats = new DoubleMatrix2D[numSearches];
 
-                    invokeAll(tasks);
+        for (int k = 0; k < numSearches; k++) {
+            thetaMats[k] = DoubleFactory2D.dense.make(numVars, numVars, 0.0);
 
-                    return;
+            for (int i = 0; i < numVars; i++) {
+                for (int j = 0; j < numVars; j++) {
+                    thetaMats[k].set(i, j, numDone == 0 ? 0.0 : counts[k][i * numVars + j] / (double) numDone);
                 }
             }
+        }
+
+        return thetaMats;
+    }
 
+    //adds the adjacencies of g to counts, indexed as in MixedUtils.skeletonToMatrix
+    private static void countSkeleton(Graph g, int[] counts, int n) {
+        if (g.getNumNodes() != n) {
+            throw new IllegalArgumentException("Search returned a graph over " + g.getNumNodes()
+                    + " nodes for data with " + n + " variables.");
         }
 
-        final int chunk = 2;
+        Map<Node, Integer> map = new HashMap<>();
 
-        pool.invoke(new StabilityAction(chunk, 0, N));
+        for (Node node : g.getNodes()) {
+            map.put(node, map.size());
+        }
 
-        thetaMat.assign(Functions.mult(1.0 / N));
+        boolean[] adjacent = new boolean[n * n];
 
-        //do this elsewhere
-        //thetaMat.assign(thetaMat.copy().assign(Functions.minus(1.0)), Functions.mult).assign(Functions.mult(-2.0));
-        return thetaMat;
+        for (Edge edge : g.getEdges()) {
+            int i = map.get(edge.getNode1());
+            int j = map.get(edge.getNode2());
+            adjacent[i * n + j] = true;
+            adjacent[j * n + i] = true;
+        }
+
+        for (int i = 0; i < adjacent.length; i++) {
+            if (adjacent[i]) counts[i]++;
+        }
+    }
+
+    //average of 2 * theta * (1 - theta) over pairs of variables, theta being the edge frequency
+    private static double totalInstability(int[] counts, int numVars, int numSamples) {
+        if (numVars < 2) return 0.0;
+
+        double sum = 0.0;
+
+        for (int i = 0; i < numVars; i++) {
+            for (int j = i + 1; j < numVars; j++) {
+                double theta = counts[i * numVars + j] / (double) numSamples;
+                sum += 2 * theta * (1.0 - theta);
+            }
+        }
+
+        return sum / (numVars * (numVars - 1) / 2.0);
     }
 
     //needs a symmetric matrix
@@ -193,15 +293,9 @@ public class StabilityUtils {
             throw new IllegalArgumentException("Sample size must be > 0.");
         }
 
-        List<Integer> indices = new ArrayList<>(sampSize);
-        for (int i = 0; i < sampSize; i++) {
-            indices.add(i);
-        }
-
         int[][] sampMat = new int[numSub][subSize];
 
         for(int i = 0; i < numSub; i++) {
-            Collections.shuffle(indices);
             int[] curSamp;
             SAMP:
             while(true){
@@ -219,18 +313,21 @@ public class StabilityUtils {
         return sampMat;
     }
 
+    //draws from RandomUtil, shuffling only the first subSize positions
     private static int[] subSampleIndices(int N, int subSize){
-        List<Integer> indices = new ArrayList<>(N);
+        int[] indices = new int[N];
         for (int i = 0; i < N; i++) {
-            indices.add(i);
+            indices[i] = i;
         }
 
-        Collections.shuffle(indices);
-        int[] samp = new int[subSize];
-        for(int i = 0; i < subSize; i++){
-            samp[i] = indices.get(i);
+        for (int i = 0; i < subSize; i++) {
+            int j = i + RandomUtil.getInstance().nextInt(N - i);
+            int temp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = temp;
         }
-        return samp;
+
+        return Arrays.copyOf(indices, subSize);
     }
 
 
@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import edu.cmu.tetrad.algcomparison.algorithm.Algorithm;
 import edu.cmu.tetrad.algcomparison.algorithm.MultiDataSetAlgorithm;
@@ -47,6 +48,12 @@ public class GeneralResamplingSearch {
 
 	private List<Graph> PAGs = Collections.synchronizedList(new ArrayList<>());
 
+	// Whether the resampled graphs are kept, as well as counted.
+	private boolean storeGraphs = true;
+
+	// Edge type counts over the resampled graphs, updated as each is found.
+	private volatile ResamplingEdgeCounts edgeCounts = new ResamplingEdgeCounts();
+
 	// private ForkJoinPool pool = null;
 
 	private final ExecutorService pool;
@@ -82,7 +89,29 @@ public class GeneralResamplingSearch {
 	}
 
 	public void addPAG(Graph pag) {
-		PAGs.add(pag);
+		if (pag != null) {
+			edgeCounts.add(pag);
+		}
+
+		if (storeGraphs) {
+			PAGs.add(pag);
+		}
+	}
+
+	/**
+	 * @return the edge type counts over the graphs found so far in the current
+	 *         or last search. These may be read while a search is running.
+	 */
+	public ResamplingEdgeCounts getEdgeCounts() {
+		return edgeCounts;
+	}
+
+	/**
+	 * Sets whether the resampled graphs are kept and returned by search(). If
+	 * not, they are only counted, in getEdgeCounts(). True by default.
+	 */
+	public void setStoreGraphs(boolean storeGraphs) {
+		this.storeGraphs = storeGraphs;
 	}
 
 	public void setAlgorithm(Algorithm algorithm) {
@@ -166,6 +195,7 @@ public class GeneralResamplingSearch {
 	public List<Graph> search() {
 
 		PAGs.clear();
+		edgeCounts = new ResamplingEdgeCounts();
 		parameters.set("numberResampling", 0); // This needs to be set to zero to not loop indefinitely
 
 		if (!this.runParallel) {
@@ -308,8 +338,9 @@ public class GeneralResamplingSearch {
 
 			while (!pool.isTerminated()) {
 				try {
-					Thread.sleep(1000);
-					// out.println("Waiting...");
+					if (!pool.awaitTermination(1, TimeUnit.SECONDS) && verbose) {
+						out.println("Resamplings finished: " + edgeCounts.getNumGraphs());
+					}
 				} catch (InterruptedException e) {
 					// TODO Auto-generated catch block
 					e.printStackTrace();
@@ -319,7 +350,7 @@ public class GeneralResamplingSearch {
 		}
 
 		// If the pool is prematurely terminated, do sequentially
-		if (PAGs == null || PAGs.size() == 0) {
+		if (edgeCounts.getNumGraphs() == 0) {
 			for (int i1 = 0; i1 < this.numberResampling; i1++) {
 				GeneralResamplingSearchRunnable task = null;
 
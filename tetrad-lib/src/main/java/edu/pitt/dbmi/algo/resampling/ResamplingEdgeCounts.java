@@ -0,0 +1,286 @@
+package edu.pitt.dbmi.algo.resampling;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Edge.Property;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts, for each pair of nodes, how many resampled graphs have each type of
+ * edge between them. Graphs are folded in as they are found, so they need not
+ * be kept, and the counts can be read while a resampling run is going on.
+ * Edge types are counted relative to the pair's nodes in sorted order.
+ */
+public class ResamplingEdgeCounts {
+
+	// The nodes of the graphs, by name.
+	private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+	// For each pair of nodes, keyed by their names in sorted order, the
+	// number of graphs with each type of edge between them, keyed by edge
+	// type followed by any edge properties.
+	private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+
+	// The number of graphs counted.
+	private int numGraphs = 0;
+
+	/**
+	 * Adds the edges of the given graph to the counts.
+	 */
+	public synchronized void add(Graph graph) {
+		numGraphs++;
+
+		for (Node node : graph.getNodes()) {
+			if (!nodes.containsKey(node.getName())) {
+				nodes.put(node.getName(), node);
+			}
+		}
+
+		for (Edge edge : graph.getEdges()) {
+			Node node1 = edge.getNode1();
+			Node node2 = edge.getNode2();
+			Endpoint end1 = edge.getEndpoint1();
+			Endpoint end2 = edge.getEndpoint2();
+
+			if (node1.compareTo(node2) > 0) {
+				Node tmp = node1;
+				node1 = node2;
+				node2 = tmp;
+				Endpoint _tmp = end1;
+				end1 = end2;
+				end2 = _tmp;
+			}
+
+			StringBuilder type = new StringBuilder(getEdgeType(end1, end2).name());
+
+			for (Property property : edge.getProperties()) {
+				type.append(" ").append(property);
+			}
+
+			String pair = node1.getName() + " " + node2.getName();
+			Map<String, Integer> pairCounts = counts.get(pair);
+
+			if (pairCounts == null) {
+				pairCounts = new LinkedHashMap<>();
+				counts.put(pair, pairCounts);
+			}
+
+			Integer count = pairCounts.get(type.toString());
+			pairCounts.put(type.toString(), count == null ? 1 : count + 1);
+		}
+	}
+
+	/**
+	 * @return the number of graphs counted so far.
+	 */
+	public synchronized int getNumGraphs() {
+		return numGraphs;
+	}
+
+	/**
+	 * @return the fraction of the graphs counted so far that have an edge
+	 *         between the given nodes.
+	 */
+	public synchronized double getFrequency(Node node1, Node node2) {
+		if (numGraphs == 0) {
+			return 0.0;
+		}
+
+		Map<String, Integer> pairCounts = counts.get(getPair(node1, node2));
+		int numEdges = 0;
+
+		if (pairCounts != null) {
+			for (int count : pairCounts.values()) {
+				numEdges += count;
+			}
+		}
+
+		return numEdges / (double) numGraphs;
+	}
+
+	/**
+	 * @return the probability of each type of edge between the given nodes,
+	 *         oriented from node1 to node2, with the probability of no edge
+	 *         last if it's not zero, or null if no graph has an edge between
+	 *         them.
+	 */
+	public synchronized List<EdgeTypeProbability> getProbabilities(Node node1, Node node2) {
+		Map<String, Integer> pairCounts = counts.get(getPair(node1, node2));
+
+		if (pairCounts == null) {
+			return null;
+		}
+
+		boolean reversed = node1.compareTo(node2) > 0;
+		List<EdgeTypeProbability> edgeTypeProbabilities = new ArrayList<>();
+		int numEdges = 0;
+
+		for (Map.Entry<String, Integer> entry : pairCounts.entrySet()) {
+			String[] token = entry.getKey().split(" ");
+			EdgeType edgeType = EdgeType.valueOf(token[0]);
+
+			if (reversed) {
+				edgeType = reverse(edgeType);
+			}
+
+			EdgeTypeProbability etp = new EdgeTypeProbability(edgeType, entry.getValue() / (double) numGraphs);
+
+			for (int i = 1; i < token.length; i++) {
+				etp.addProperty(Property.valueOf(token[i]));
+			}
+
+			edgeTypeProbabilities.add(etp);
+			numEdges += entry.getValue();
+		}
+
+		if (numEdges < numGraphs) {
+			edgeTypeProbabilities.add(new EdgeTypeProbability(EdgeType.nil,
+					(numGraphs - numEdges) / (double) numGraphs));
+		}
+
+		return edgeTypeProbabilities;
+	}
+
+	/**
+	 * @return the graph over all nodes with, for each pair of nodes, the most
+	 *         probable type of edge between them, subject to the given
+	 *         ensemble rule, annotated with the probabilities of all edge
+	 *         types.
+	 */
+	public synchronized Graph getEnsembleGraph(ResamplingEdgeEnsemble edgeEnsemble) {
+		List<Node> sorted = new ArrayList<>(nodes.values());
+		Collections.sort(sorted);
+
+		Graph graph = new EdgeListGraph();
+
+		for (Node node : sorted) {
+			graph.addNode(node);
+		}
+
+		for (String pair : counts.keySet()) {
+			String[] names = pair.split(" ");
+			Node n1 = nodes.get(names[0]);
+			Node n2 = nodes.get(names[1]);
+
+			List<EdgeTypeProbability> edgeTypeProbabilities = getProbabilities(n1, n2);
+			EdgeTypeProbability chosen_edge_type = null;
+			double max_edge_prob = 0;
+			double no_edge_prob = 0;
+
+			for (EdgeTypeProbability etp : edgeTypeProbabilities) {
+				if (etp.getEdgeType() == EdgeType.nil) {
+					no_edge_prob = etp.getProbability();
+				} else if (etp.getProbability() > max_edge_prob) {
+					chosen_edge_type = etp;
+					max_edge_prob = etp.getProbability();
+				}
+			}
+
+			if (chosen_edge_type == null) {
+				continue;
+			}
+
+			switch (edgeEnsemble) {
+			case Highest:
+				if (no_edge_prob > max_edge_prob) {
+					continue;
+				}
+				break;
+			case Majority:
+				if (no_edge_prob > max_edge_prob || max_edge_prob < .5) {
+					continue;
+				}
+				break;
+			default:
+				// Do nothing
+			}
+
+			Edge edge = getEdge(n1, n2, chosen_edge_type.getEdgeType());
+
+			for (Property property : chosen_edge_type.getProperties()) {
+				edge.addProperty(property);
+			}
+
+			for (EdgeTypeProbability etp : edgeTypeProbabilities) {
+				edge.addEdgeTypeProbability(etp);
+			}
+
+			graph.addEdge(edge);
+		}
+
+		return graph;
+	}
+
+	private static String getPair(Node node1, Node node2) {
+		if (node1.compareTo(node2) > 0) {
+			return node2.getName() + " " + node1.getName();
+		} else {
+			return node1.getName() + " " + node2.getName();
+		}
+	}
+
+	private static EdgeType getEdgeType(Endpoint end1, Endpoint end2) {
+		if (end1 == Endpoint.TAIL && end2 == Endpoint.ARROW) {
+			return EdgeType.ta;
+		} else if (end1 == Endpoint.ARROW && end2 == Endpoint.TAIL) {
+			return EdgeType.at;
+		} else if (end1 == Endpoint.CIRCLE && end2 == Endpoint.ARROW) {
+			return EdgeType.ca;
+		} else if (end1 == Endpoint.ARROW && end2 == Endpoint.CIRCLE) {
+			return EdgeType.ac;
+		} else if (end1 == Endpoint.CIRCLE && end2 == Endpoint.CIRCLE) {
+			return EdgeType.cc;
+		} else if (end1 == Endpoint.ARROW && end2 == Endpoint.ARROW) {
+			return EdgeType.aa;
+		} else if (end1 == Endpoint.TAIL && end2 == Endpoint.TAIL) {
+			return EdgeType.tt;
+		} else {
+			return EdgeType.nil;
+		}
+	}
+
+	private static EdgeType reverse(EdgeType edgeType) {
+		switch (edgeType) {
+		case ta:
+			return EdgeType.at;
+		case at:
+			return EdgeType.ta;
+		case ca:
+			return EdgeType.ac;
+		case ac:
+			return EdgeType.ca;
+		default:
+			return edgeType;
+		}
+	}
+
+	private static Edge getEdge(Node n1, Node n2, EdgeType edgeType) {
+		switch (edgeType) {
+		case ta:
+			return new Edge(n1, n2, Endpoint.TAIL, Endpoint.ARROW);
+		case at:
+			return new Edge(n1, n2, Endpoint.ARROW, Endpoint.TAIL);
+		case ca:
+			return new Edge(n1, n2, Endpoint.CIRCLE, Endpoint.ARROW);
+		case ac:
+			return new Edge(n1, n2, Endpoint.ARROW, Endpoint.CIRCLE);
+		case cc:
+			return new Edge(n1, n2, Endpoint.CIRCLE, Endpoint.CIRCLE);
+		case aa:
+			return new Edge(n1, n2, Endpoint.ARROW, Endpoint.ARROW);
+		default:
+			return new Edge(n1, n2, Endpoint.TAIL, Endpoint.TAIL);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.annotation.Algorithm;
+import edu.cmu.tetrad.annotation.AnnotationIndex;
+import edu.cmu.tetrad.annotation.Score;
+import edu.cmu.tetrad.annotation.TestOfIndependence;
+import org.junit.Test;
+import org.reflections.Reflections;
+
+import java.lang.annotation.Annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the annotation index written at build time agrees with a scan
+ * of the classpath.
+ */
+public class TestAnnotationIndex {
+
+    @Test
+    public void testIndexMatchesScan() {
+        assertTrue(AnnotationIndex.getInstance().isAvailable());
+
+        check("edu.cmu.tetrad.algcomparison.algorithm", Algorithm.class);
+        check("edu.cmu.tetrad.algcomparison.score", Score.class);
+        check("edu.cmu.tetrad.algcomparison.independence", TestOfIndependence.class);
+    }
+
+    private void check(String packageName, Class<? extends Annotation> type) {
+        assertEquals(new Reflections(packageName).getTypesAnnotatedWith(type),
+                AnnotationIndex.getInstance().getTypesAnnotatedWith(packageName, type));
+    }
+}
@@ -0,0 +1,105 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Barnes-Hut layout.
+ */
+public final class TestBarnesHutLayout {
+
+    @Test
+    public void testLayout() {
+        Dag dag = new Dag();
+
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 7; i++) {
+            GraphNode node = new GraphNode("X" + (i + 1));
+            nodes.add(node);
+            dag.addNode(node);
+        }
+
+        dag.addDirectedEdge(nodes.get(0), nodes.get(1));
+        dag.addDirectedEdge(nodes.get(1), nodes.get(2));
+        dag.addDirectedEdge(nodes.get(3), nodes.get(4));
+        dag.addDirectedEdge(nodes.get(4), nodes.get(5));
+
+        Dag dag2 = new Dag(dag);
+
+        new BarnesHutLayout(dag).doLayout();
+
+        assertEquals(dag, dag2);
+    }
+
+    @Test
+    public void testLargeGraph() {
+        RandomUtil.getInstance().setSeed(483202L);
+
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            nodes.add(new GraphNode("X" + (i + 1)));
+        }
+
+        Graph graph = GraphUtils.randomGraph(nodes, 0, 2500, 30, 15, 15, false);
+
+        GraphUtils.fruchtermanReingoldLayout(graph);
+
+        // Adjacent nodes should end up much closer together than nodes in general.
+        double edgeLength = 0.0;
+
+        for (Edge edge : graph.getEdges()) {
+            edgeLength += distance(edge.getNode1(), edge.getNode2());
+        }
+
+        edgeLength /= graph.getNumEdges();
+
+        double pairDistance = 0.0;
+        int numPairs = 2000;
+
+        for (int i = 0; i < numPairs; i++) {
+            Node x = nodes.get(RandomUtil.getInstance().nextInt(nodes.size()));
+            Node y = nodes.get(RandomUtil.getInstance().nextInt(nodes.size()));
+            pairDistance += distance(x, y);
+        }
+
+        pairDistance /= numPairs;
+
+        assertTrue(edgeLength < pairDistance / 4);
+    }
+
+    private double distance(Node x, Node y) {
+        double dx = x.getCenterX() - y.getCenterX();
+        double dy = x.getCenterY() - y.getCenterY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -23,12 +23,18 @@ package edu.cmu.tetrad.test;
 
 import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.DepthChoiceGenerator;
+import edu.cmu.tetrad.util.ParallelChoiceSearch;
 import edu.cmu.tetrad.util.PermutationGenerator;
 import edu.cmu.tetrad.util.SelectionGenerator;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
 
 /**
  * Implements basic tests of the choice generator. The choice generator should visit every
@@ -118,10 +124,65 @@ public class TestChoiceGenerator {
         }
     }
 
+    /**
+     * Unranking should give the same choices, in the same order, as the choice generator.
+     */
+    @Test
+    public void testUnrank() {
+        for (int a = 0; a <= 12; a++) {
+            for (int b = 0; b <= a; b++) {
+                ChoiceGenerator generator = new ChoiceGenerator(a, b);
+                int[] choice;
+                long rank = 0;
 
-}
-
+                while ((choice = generator.next()) != null) {
+                    assertArrayEquals(choice, ParallelChoiceSearch.unrank(a, b, rank++));
+                }
 
+                assertEquals(rank, ParallelChoiceSearch.numChoices(a, b));
+            }
+        }
+    }
 
+    /**
+     * The parallel search should find the same choices as a serial loop, in the same order.
+     */
+    @Test
+    public void testParallelChoiceSearch() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (int b = 1; b <= 5; b++) {
+                int _b = b;
+
+                // Passes about one choice in seven, scattered across the ranks.
+                ParallelChoiceSearch search = new ParallelChoiceSearch(20, b, pool);
+                List<BitSet> found = search.findAll(choice -> Arrays.hashCode(choice) % 7 == 0);
+
+                List<BitSet> expected = new ArrayList<>();
+                ChoiceGenerator generator = new ChoiceGenerator(20, b);
+                int[] choice;
+
+                while ((choice = generator.next()) != null) {
+                    if (Arrays.hashCode(choice) % 7 == 0) {
+                        BitSet bits = new BitSet();
+                        for (int i : choice) bits.set(i);
+                        expected.add(bits);
+                    }
+                }
 
+                assertEquals(expected, found);
+                assertEquals(expected.isEmpty() ? null : expected.get(0),
+                        search.findFirst(c -> Arrays.hashCode(c) % 7 == 0));
 
+                // Only the last choice passes.
+                BitSet last = new BitSet();
+                last.set(20 - _b, 20);
+                assertEquals(last, search.findFirst(c -> c[0] == 20 - _b));
+                assertNull(search.findFirst(c -> false));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests round trips through the binary columnar data format.
+ */
+public class TestColumnarData {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DataSet dataSet = getMixedDataSet(137);
+        File file = getFile("columnar.tbc");
+        ColumnarDataWriter.writeColumnarData(dataSet, file);
+
+        BoxDataSet loaded = MappedDataBox.loadDataSet(file);
+
+        assertSameData(dataSet, loaded);
+        assertTrue(Double.isNaN(loaded.getDouble(0, 0)));
+        assertEquals(-99, loaded.getInt(1, 1));
+
+        // Missing values come back as null, as from the other data boxes.
+        assertNull(loaded.getDataBox().get(0, 0));
+        assertNull(loaded.getDataBox().get(1, 1));
+    }
+
+    @Test
+    public void testChunkedSinkMatchesWriter() throws IOException {
+        DataSet dataSet = getMixedDataSet(250);
+
+        File expected = getFile("columnar_expected.tbc");
+        ColumnarDataWriter.writeColumnarData(dataSet, expected);
+
+        File actual = getFile("columnar_actual.tbc");
+
+        try (ColumnarDataSink sink = new ColumnarDataSink(actual)) {
+            sink.open(dataSet.getVariables());
+
+            for (int start = 0; start < dataSet.getNumRows(); start += 60) {
+                int[] rows = new int[Math.min(60, dataSet.getNumRows() - start)];
+
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = start + i;
+                }
+
+                sink.write(dataSet.subsetRows(rows));
+            }
+        }
+
+        assertTrue(Arrays.equals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath())));
+    }
+
+    @Test
+    public void testSetDoesNotTouchFile() throws IOException {
+        DataSet dataSet = getMixedDataSet(50);
+        File file = getFile("columnar_cow.tbc");
+        ColumnarDataWriter.writeColumnarData(dataSet, file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        BoxDataSet loaded = MappedDataBox.loadDataSet(file);
+        DataSet copy = loaded.copy();
+
+        loaded.setDouble(3, 0, 42.0);
+        loaded.setInt(3, 1, 2);
+
+        assertEquals(42.0, loaded.getDouble(3, 0), 0.0);
+        assertEquals(2, loaded.getInt(3, 1));
+        assertSameData(dataSet, copy);
+        assertTrue(Arrays.equals(bytes, Files.readAllBytes(file.toPath())));
+    }
+
+    private void assertSameData(DataSet expected, DataSet actual) {
+        assertEquals(expected.getNumRows(), actual.getNumRows());
+        assertEquals(expected.getVariableNames(), actual.getVariableNames());
+
+        for (int j = 0; j < expected.getNumColumns(); j++) {
+            for (int i = 0; i < expected.getNumRows(); i++) {
+                if (expected.getVariable(j) instanceof DiscreteVariable) {
+                    assertEquals(expected.getInt(i, j), actual.getInt(i, j));
+                } else {
+                    assertEquals(expected.getDouble(i, j), actual.getDouble(i, j), 0.0);
+                }
+            }
+        }
+    }
+
+    private DataSet getMixedDataSet(int numRows) {
+        RandomUtil.getInstance().setSeed(493849383L);
+        List<Node> variables = new ArrayList<>();
+
+        for (int j = 0; j < 6; j++) {
+            if (j % 2 == 0) {
+                variables.add(new ContinuousVariable("X" + (j + 1)));
+            } else {
+                variables.add(new DiscreteVariable("X" + (j + 1), 3));
+            }
+        }
+
+        DataSet dataSet = new BoxDataSet(new MixedDataBox(variables, numRows), variables);
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < variables.size(); j++) {
+                if (j % 2 == 0) {
+                    dataSet.setDouble(i, j, RandomUtil.getInstance().nextNormal(0, 1));
+                } else {
+                    dataSet.setInt(i, j, RandomUtil.getInstance().nextInt(3));
+                }
+            }
+        }
+
+        dataSet.setDouble(0, 0, Double.NaN);
+        dataSet.setInt(1, 1, -99);
+        return dataSet;
+    }
+
+    private File getFile(String name) {
+        File dir = new File("target/test_data");
+        dir.mkdirs();
+        return new File(dir, name);
+    }
+}
@@ -0,0 +1,217 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.algcomparison.Comparison;
+import edu.cmu.tetrad.algcomparison.ComparisonScheduler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the scheduler used to run algorithm comparisons concurrently.
+ */
+public class TestComparisonScheduler {
+
+    @Test
+    public void testRunsConcurrently() {
+        CountDownLatch started = new CountDownLatch(4);
+        List<ComparisonScheduler.Task<Integer>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            int value = i;
+
+            // Each task waits until all four have started, which can only
+            // happen if they run at the same time.
+            tasks.add(task(0, () -> {
+                started.countDown();
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                return value;
+            }));
+        }
+
+        Results results = new Results();
+        new ComparisonScheduler(4, Long.MAX_VALUE, 0, TimeUnit.SECONDS).run(tasks, results);
+
+        assertEquals(4, results.finished.get());
+        assertEquals(0, results.failed.get());
+        assertEquals(6, results.sum.get());
+    }
+
+    @Test
+    public void testTimeoutDoesNotStallBatch() {
+        CountDownLatch others = new CountDownLatch(3);
+        List<ComparisonScheduler.Task<Integer>> tasks = new ArrayList<>();
+
+        // Ignores interrupts and, with one thread, can only return once the
+        // other tasks have run on the thread added when it timed out.
+        tasks.add(task(0, () -> {
+            while (true) {
+                try {
+                    assertTrue(others.await(10, TimeUnit.SECONDS));
+                    return 100;
+                } catch (InterruptedException e) {
+                    // Ignored.
+                }
+            }
+        }));
+
+        for (int i = 0; i < 3; i++) {
+            tasks.add(task(0, () -> {
+                others.countDown();
+                return 1;
+            }));
+        }
+
+        Results results = new Results();
+        new ComparisonScheduler(1, Long.MAX_VALUE, 200, TimeUnit.MILLISECONDS).run(tasks, results);
+
+        assertEquals(0, others.getCount());
+        assertEquals(1, results.timedOut.get());
+        assertEquals(3, results.finished.get());
+        assertEquals(3, results.sum.get());
+    }
+
+    @Test
+    public void testMemoryBudgetLimitsConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<ComparisonScheduler.Task<Integer>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            tasks.add(task(600L * 1024 * 1024, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                return 0;
+            }));
+        }
+
+        Results results = new Results();
+        new ComparisonScheduler(4, 1024L * 1024 * 1024, 0, TimeUnit.SECONDS).run(tasks, results);
+
+        assertEquals(6, results.finished.get());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testMemoryBudgetAdmitsTasksThatFit() {
+        CountDownLatch started = new CountDownLatch(3);
+        List<ComparisonScheduler.Task<Integer>> tasks = new ArrayList<>();
+
+        // Three 600 MB tasks fit in 2 GB, so all three must start together.
+        for (int i = 0; i < 3; i++) {
+            tasks.add(task(600L * 1024 * 1024, () -> {
+                started.countDown();
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                return 1;
+            }));
+        }
+
+        Results results = new Results();
+        new ComparisonScheduler(4, 2048L * 1024 * 1024, 0, TimeUnit.SECONDS).run(tasks, results);
+
+        assertEquals(3, results.finished.get());
+        assertEquals(0, results.failed.get());
+    }
+
+    @Test
+    public void testInterruptThrows() {
+        CountDownLatch started = new CountDownLatch(1);
+        List<ComparisonScheduler.Task<Integer>> tasks = new ArrayList<>();
+
+        tasks.add(task(0, () -> {
+            started.countDown();
+            new CountDownLatch(1).await();
+            return 0;
+        }));
+
+        Thread caller = Thread.currentThread();
+        Thread interrupter = new Thread(() -> {
+            try {
+                started.await();
+                caller.interrupt();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        interrupter.start();
+
+        try {
+            new ComparisonScheduler(1, Long.MAX_VALUE, 0, TimeUnit.SECONDS).run(tasks, new Results());
+            fail("Expected an IllegalStateException.");
+        } catch (IllegalStateException e) {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMemoryBudgetMustBePositive() {
+        new Comparison().setMemoryBudget(0);
+    }
+
+    private interface Body {
+        Integer call() throws Exception;
+    }
+
+    private ComparisonScheduler.Task<Integer> task(long memory, Body body) {
+        return new ComparisonScheduler.Task<Integer>() {
+            @Override
+            public long getMemoryEstimate() {
+                return memory;
+            }
+
+            @Override
+            public Integer call() throws Exception {
+                return body.call();
+            }
+        };
+    }
+
+    private static class Results implements ComparisonScheduler.Listener<Integer> {
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger timedOut = new AtomicInteger();
+        private final AtomicInteger sum = new AtomicInteger();
+
+        @Override
+        public void finished(int index, Integer result) {
+            finished.incrementAndGet();
+            sum.addAndGet(result);
+        }
+
+        @Override
+        public void failed(int index, Throwable e) {
+            failed.incrementAndGet();
+        }
+
+        @Override
+        public void timedOut(int index) {
+            timedOut.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.search.DagInPatternEnumerator;
+import edu.cmu.tetrad.search.DagInPatternIterator;
+import edu.cmu.tetrad.search.SearchGraphUtils;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the enumeration of the DAGs in a pattern.
+ */
+public class TestDagInPatternEnumerator {
+
+    @Test
+    public void test1() {
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            nodes.add(new GraphNode("X" + (i + 1)));
+        }
+
+        RandomUtil.getInstance().setSeed(342233L);
+        Graph graph = GraphUtils.randomGraphRandomForwardEdges(nodes, 0, 10, 3,
+                3, 3, false, true);
+        Graph pattern = SearchGraphUtils.patternFromDag(graph);
+
+        DagInPatternEnumerator dags = new DagInPatternEnumerator(pattern);
+        assertEquals(6, enumerate(dags).size());
+        assertEquals(BigInteger.valueOf(6), dags.getNumDags());
+    }
+
+    @Test
+    public void testAgreesWithIterator() {
+        RandomUtil.getInstance().setSeed(29483294L);
+
+        for (int run = 0; run < 10; run++) {
+            List<Node> nodes = new ArrayList<>();
+
+            for (int i = 0; i < 10; i++) {
+                nodes.add(new GraphNode("X" + (i + 1)));
+            }
+
+            Graph dag = GraphUtils.randomGraph(nodes, 0, 15, 30, 15, 15, false);
+            Graph pattern = SearchGraphUtils.patternForDag(dag);
+
+            Set<Set<Edge>> expected = new HashSet<>();
+            DagInPatternIterator iterator = new DagInPatternIterator(pattern);
+
+            while (iterator.hasNext()) {
+                expected.add(new HashSet<>(iterator.next().getEdges()));
+            }
+
+            DagInPatternEnumerator dags = new DagInPatternEnumerator(pattern);
+            List<Graph> found = enumerate(dags);
+            Set<Set<Edge>> actual = new HashSet<>();
+
+            for (Graph _dag : found) {
+                actual.add(new HashSet<>(_dag.getEdges()));
+                assertFalse(_dag.existsDirectedCycle());
+                assertEquals(pattern, SearchGraphUtils.patternForDag(_dag));
+            }
+
+            assertEquals(found.size(), actual.size());
+            assertEquals(expected, actual);
+            assertEquals(BigInteger.valueOf(found.size()), dags.getNumDags());
+        }
+    }
+
+    @Test
+    public void testStop() {
+        Graph pattern = GraphConverter.convert("X1---X2,X2---X3,X3---X4");
+        DagInPatternEnumerator dags = new DagInPatternEnumerator(pattern);
+        final int[] visits = new int[1];
+
+        boolean finished = dags.enumerate(new DagInPatternEnumerator.DagVisitor() {
+            public boolean visit(DagInPatternEnumerator dags) {
+                return ++visits[0] < 2;
+            }
+        });
+
+        assertFalse(finished);
+        assertEquals(2, visits[0]);
+        assertEquals(4, enumerate(dags).size());
+    }
+
+    @Test
+    public void testCount() {
+
+        // A complete undirected graph over n nodes has n! DAGs in it.
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 12; i++) {
+            nodes.add(new GraphNode("X" + (i + 1)));
+        }
+
+        Graph complete = new EdgeListGraph(nodes);
+
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                complete.addUndirectedEdge(nodes.get(i), nodes.get(j));
+            }
+        }
+
+        assertEquals(new BigInteger("479001600"), new DagInPatternEnumerator(complete).getNumDags());
+    }
+
+    @Test
+    public void testSample() {
+        RandomUtil.getInstance().setSeed(3928432L);
+
+        // X1---X2---X3 has three DAGs, X1-->X2-->X3, X1<--X2<--X3 and X1<--X2-->X3.
+        Graph pattern = GraphConverter.convert("X1---X2,X2---X3");
+        DagInPatternEnumerator dags = new DagInPatternEnumerator(pattern);
+        Map<Set<Edge>, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 3000; i++) {
+            Graph dag = dags.sampleDag();
+            assertEquals(pattern, SearchGraphUtils.patternForDag(dag));
+            Set<Edge> edges = new HashSet<>(dag.getEdges());
+            counts.put(edges, counts.containsKey(edges) ? counts.get(edges) + 1 : 1);
+        }
+
+        assertEquals(3, counts.size());
+
+        for (int count : counts.values()) {
+            assertTrue(count > 850 && count < 1150);
+        }
+    }
+
+    private List<Graph> enumerate(DagInPatternEnumerator dags) {
+        final List<Graph> found = new ArrayList<>();
+
+        dags.enumerate(new DagInPatternEnumerator.DagVisitor() {
+            public boolean visit(DagInPatternEnumerator dags) {
+                found.add(dags.getDag());
+                return true;
+            }
+        });
+
+        return found;
+    }
+}
+
+
+
@@ -260,6 +260,38 @@ public class TestDeltaTetradTest {
         double chiSq2 = test2.calcChiSquare(t1234, t1342);
     }
 
+    @Test
+    public void testFourthMomentCache() {
+        RandomUtil.getInstance().setSeed(29304829L);
+        SemPm pm = makePm();
+        DataSet data = new SemIm(pm).simulateData(1000, false);
+
+        List<Node> variables = data.getVariables();
+        Node x1 = variables.get(0);
+        Node x2 = variables.get(1);
+        Node x3 = variables.get(2);
+        Node x4 = variables.get(3);
+
+        Tetrad t1234 = new Tetrad(x1, x2, x3, x4);
+        Tetrad t1342 = new Tetrad(x1, x3, x4, x2);
+
+        DeltaTetradTest test = new DeltaTetradTest(data);
+
+        // Sorted and permuted quadruples must share cache entries.
+        double chiSq1 = test.calcChiSquare(t1234, t1342);
+        double chiSq2 = test.calcChiSquare(t1342, t1234);
+        double chiSq3 = test.calcChiSquare(t1234, t1342);
+
+        test.setFourthMomentCacheSize(0);
+        double chiSq4 = test.calcChiSquare(t1234, t1342);
+
+        // Value from the uncached computation.
+        assertEquals(0.3561584337219898, chiSq1, 1e-10);
+        assertEquals(chiSq1, chiSq2, 1e-8);
+        assertEquals(chiSq1, chiSq3, 0.0);
+        assertEquals(chiSq1, chiSq4, 0.0);
+    }
+
     private SemPm makePm() {
         List<Node> variableNodes = new ArrayList<>();
         ContinuousVariable x1 = new ContinuousVariable("X1");
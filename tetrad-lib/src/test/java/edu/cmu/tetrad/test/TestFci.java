@@ -21,21 +21,28 @@
 
 package edu.cmu.tetrad.test;
 
+import edu.cmu.tetrad.bayes.BayesIm;
+import edu.cmu.tetrad.bayes.BayesPm;
+import edu.cmu.tetrad.bayes.MlBayesIm;
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.search.*;
 import edu.cmu.tetrad.sem.SemIm;
 import edu.cmu.tetrad.sem.SemPm;
 import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetrad.util.TextTable;
 import org.junit.Test;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -224,6 +231,99 @@ public class TestFci {
         search.search();
     }
 
+    @Test
+    public void testPossibleDsep() {
+        Graph graph = GraphConverter.convert("Ao->B,Co->B,Co-oD,Eo-oB");
+        Node a = graph.getNode("A");
+        Node b = graph.getNode("B");
+        Node c = graph.getNode("C");
+        Node d = graph.getNode("D");
+        Node e = graph.getNode("E");
+
+        // C is reached over the collider at B; D is not, since C is not a collider between B and D. B is
+        // reached but is not a possible ancestor of A or D, though it is one of E.
+        PossibleDsepSets dsep = new PossibleDsepSets(graph, -1);
+        assertEquals(Collections.singleton(c), dsep.get(a, b));
+        assertEquals(Collections.singleton(c), dsep.get(a, d));
+        assertEquals(new HashSet<>(Arrays.asList(b, c)), dsep.get(a, e));
+        assertEquals(Collections.singleton(b), new PossibleDsepSets(graph, 1).get(a, e));
+
+        // Without the path search, the sets are the adjacents, as GraphUtils gives them.
+        PossibleDsepSets adjacents = new PossibleDsepSets(graph, -1, false);
+
+        for (Node x : graph.getNodes()) {
+            for (Node y : graph.getNodes()) {
+                if (x == y) continue;
+                Set<Node> adj = new HashSet<>(graph.getAdjacentNodes(x));
+                adj.remove(y);
+                assertEquals(adj, adjacents.get(x, y));
+                assertEquals(adj, new HashSet<>(GraphUtils.possibleDsep(x, y, graph, -1)));
+            }
+        }
+    }
+
+    /**
+     * The Possible-D-Sep step removes the same edges with the same sepsets as a loop over the edges, whether or not
+     * the test allows its edges to be done in parallel.
+     */
+    @Test
+    public void testPossibleDsepRemoval() {
+        // Seeded for this thread only, so the other tests see the same random numbers as before.
+        try {
+            for (long seed = 0; seed < 6; seed++) {
+                RandomUtil.setThreadSeed(seed);
+                Dag dag = new Dag(GraphUtils.randomGraph(20, 5, 30, 6, 4, 4, false));
+
+                BayesIm im = new MlBayesIm(new BayesPm(dag, 2, 2), MlBayesIm.RANDOM);
+                DataSet discrete = im.simulateData(5000, false);
+                checkPossibleDsepRemoval(new IndTestChiSquare(discrete, 0.05), false);
+                checkPossibleDsepRemoval(new IndTestChiSquare(discrete, 0.05), true);
+
+                SemIm semIm = new SemIm(new SemPm(dag));
+                DataSet continuous = semIm.simulateData(1000, false);
+                checkPossibleDsepRemoval(new IndTestFisherZ(continuous, 0.05), false);
+                checkPossibleDsepRemoval(new IndTestFisherZ(continuous, 0.05), true);
+            }
+        } finally {
+            RandomUtil.clearThreadSeed();
+        }
+    }
+
+    private void checkPossibleDsepRemoval(IndependenceTest test, boolean pathSearch) {
+        Fas fas = new Fas(test);
+        Graph start = fas.search();
+        start.reorientAllWith(Endpoint.CIRCLE);
+        new FciOrient(new SepsetsSet(fas.getSepsets(), test)).ruleR0(start);
+
+        Graph expected = new EdgeListGraph(start);
+        SepsetsPossibleDsep producer = new SepsetsPossibleDsep(expected, test, new Knowledge2(), 3, -1);
+        producer.setPossibleDsepPathSearch(pathSearch);
+        SepsetMap expectedSepsets = new SepsetMap();
+
+        for (Edge edge : new ArrayList<>(expected.getEdges())) {
+            List<Node> sepset = producer.getSepset(edge.getNode1(), edge.getNode2());
+
+            if (sepset != null) {
+                expected.removeEdge(edge);
+                expectedSepsets.set(edge.getNode1(), edge.getNode2(), sepset);
+            }
+        }
+
+        for (int run = 0; run < 3; run++) {
+            Graph graph = new EdgeListGraph(start);
+            SepsetsPossibleDsep sp = new SepsetsPossibleDsep(graph, test, new Knowledge2(), 3, -1);
+            sp.setPossibleDsepPathSearch(pathSearch);
+            SepsetMap sepsets = PossibleDsepFci.removeEdges(graph, sp, test);
+
+            assertEquals(expected, graph);
+
+            for (Edge edge : start.getEdges()) {
+                assertEquals(expectedSepsets.get(edge.getNode1(), edge.getNode2()),
+                        sepsets.get(edge.getNode1(), edge.getNode2()));
+            }
+        }
+    }
+
     /**
      * Presents the input graph to FCI and checks to make sure the output of FCI is equivalent to the given output
      * graph.
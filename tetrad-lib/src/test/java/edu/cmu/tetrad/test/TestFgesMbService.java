@@ -0,0 +1,92 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.CovarianceMatrix;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.FgesMb;
+import edu.cmu.tetrad.search.FgesMbService;
+import edu.cmu.tetrad.search.SemBicScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the shared-cache Markov blanket service.
+ */
+public class TestFgesMbService {
+
+    @Test
+    public void testMatchesFreshSearches() {
+        RandomUtil.getInstance().setSeed(3828382L);
+
+        List<Node> vars = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            vars.add(new ContinuousVariable("X" + i));
+        }
+
+        Graph dag = GraphUtils.randomGraphRandomForwardEdges(vars, 0, 25, 30, 15, 15, false, true);
+        DataSet data = new SemIm(new SemPm(dag)).simulateData(1000, false);
+        SemBicScore score = new SemBicScore(new CovarianceMatrix(data));
+
+        List<Node> targets = new ArrayList<>();
+
+        for (int i = 0; i < 20; i += 4) {
+            targets.add(score.getVariables().get(i));
+        }
+
+        FgesMbService service = new FgesMbService(score);
+        Map<Node, Graph> graphs = service.searchEach(targets);
+        int numComputed = service.getNumIndependenceTests();
+
+        for (Node target : targets) {
+            Graph fresh = new FgesMb(score).search(target);
+            assertEquals(fresh, graphs.get(target));
+            assertEquals(fresh, service.search(target));
+        }
+
+        assertEquals(numComputed, service.getNumIndependenceTests());
+
+        // A second target over the same data reuses scores computed for the first.
+        FgesMbService alone = new FgesMbService(score);
+        alone.search(targets.get(1));
+
+        FgesMbService shared = new FgesMbService(score);
+        shared.search(targets.get(0));
+        int first = shared.getNumIndependenceTests();
+        shared.search(targets.get(1));
+        assertTrue(shared.getNumIndependenceTests() - first < alone.getNumIndependenceTests());
+    }
+}
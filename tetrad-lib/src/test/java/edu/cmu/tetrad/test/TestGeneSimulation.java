@@ -0,0 +1,131 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.gene.tetrad.gene.history.*;
+import edu.cmu.tetrad.gene.tetrad.gene.simulation.MeasurementSimulator;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the gene history and the measurement simulator.
+ */
+public class TestGeneSimulation {
+
+    @Test
+    public void testHistoryLags() {
+        RandomUtil.getInstance().setSeed(3939L);
+        GeneHistory history = makeHistory();
+        history.initialize();
+
+        double[][] before = copy(history.getHistoryArray());
+
+        for (int step = 0; step < 5; step++) {
+            history.update();
+
+            double[][] after = history.getHistoryArray();
+
+            for (int lag = 1; lag < after.length; lag++) {
+                assertArrayEquals(before[lag - 1], after[lag], 0.0);
+
+                for (int f = 0; f < after[lag].length; f++) {
+                    assertEquals(after[lag][f], history.getLevel(lag, f), 0.0);
+                }
+            }
+
+            before = copy(after);
+        }
+    }
+
+    @Test
+    public void testParallelCells() {
+        MeasurementSimulator simulator = makeSimulator();
+        simulator.setRawDataSaved(true);
+
+        RandomUtil.getInstance().setSeed(3940L);
+        simulator.simulate(makeHistory());
+        double[][][] raw1 = simulator.getRawData();
+        double[][][] measured1 = simulator.getMeasuredData();
+
+        RandomUtil.getInstance().setSeed(3940L);
+        simulator.simulate(makeHistory());
+
+        for (int f = 0; f < raw1.length; f++) {
+            for (int s = 0; s < raw1[f].length; s++) {
+                assertArrayEquals(raw1[f][s], simulator.getRawData()[f][s], 0.0);
+                assertArrayEquals(measured1[f][s], simulator.getMeasuredData()[f][s], 0.0);
+            }
+        }
+
+        // Aggregation doesn't depend on the raw data being kept.
+        simulator.setRawDataSaved(false);
+        RandomUtil.getInstance().setSeed(3940L);
+        simulator.simulate(makeHistory());
+        assertNull(simulator.getRawData());
+
+        for (int f = 0; f < measured1.length; f++) {
+            for (int s = 0; s < measured1[f].length; s++) {
+                assertArrayEquals(measured1[f][s], simulator.getMeasuredData()[f][s], 0.0);
+            }
+        }
+    }
+
+    private MeasurementSimulator makeSimulator() {
+        MeasurementSimulator simulator = new MeasurementSimulator(new Parameters());
+        simulator.setNumDishes(3);
+        simulator.setNumCellsPerDish(600);
+        simulator.setStepsGenerated(5);
+        simulator.setCellsSimulatedInParallel(true);
+        return simulator;
+    }
+
+    private GeneHistory makeHistory() {
+        LagGraph lagGraph = new BasicLagGraph();
+
+        for (int i = 1; i <= 4; i++) {
+            lagGraph.addFactor("G" + i);
+        }
+
+        new PreviousStepOnly().initialize(lagGraph);
+        lagGraph.addEdge("G2", new LaggedFactor("G1", 1));
+        lagGraph.addEdge("G3", new LaggedFactor("G1", 2));
+        lagGraph.addEdge("G4", new LaggedFactor("G3", 1));
+
+        BooleanGlassFunction function = new BooleanGlassFunction(lagGraph);
+        return new GeneHistory(new BasalInitializer(function, 0.0, 1.0), function);
+    }
+
+    private double[][] copy(double[][] array) {
+        double[][] copy = new double[array.length][];
+
+        for (int i = 0; i < array.length; i++) {
+            copy[i] = array[i].clone();
+        }
+
+        return copy;
+    }
+}
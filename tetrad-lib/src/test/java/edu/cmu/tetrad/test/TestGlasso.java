@@ -0,0 +1,142 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+import cern.colt.matrix.linalg.Algebra;
+import edu.cmu.tetrad.search.Glasso;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests Glasso.
+ */
+public class TestGlasso {
+
+    @Test
+    public void testOptimality() {
+        DoubleMatrix2D ss = covariance(500, 12);
+
+        for (double rho : new double[]{0.5, 0.2, 0.05}) {
+            Glasso glasso = glasso(ss);
+            glasso.setRhoAllEqual(rho);
+            checkOptimality(ss, rho, glasso.search());
+        }
+    }
+
+    @Test
+    public void testPathMatchesColdStarts() {
+        DoubleMatrix2D ss = covariance(500, 12);
+        double[] rhos = {0.5, 0.3, 0.2, 0.1, 0.05};
+
+        Glasso pathGlasso = glasso(ss);
+        pathGlasso.setRhoAllEqual(0.7);
+        Object rho = pathGlasso.getRho();
+        List<Glasso.Result> path = pathGlasso.searchPath(rhos);
+        assertEquals(rhos.length, path.size());
+        assertSame(rho, pathGlasso.getRho());
+        assertFalse(pathGlasso.isIs());
+
+        for (int k = 0; k < rhos.length; k++) {
+            Glasso glasso = glasso(ss);
+            glasso.setRhoAllEqual(rhos[k]);
+            Glasso.Result cold = glasso.search();
+
+            checkOptimality(ss, rhos[k], path.get(k));
+
+            for (int i = 0; i < ss.rows(); i++) {
+                for (int j = 0; j < ss.rows(); j++) {
+                    assertEquals(cold.getWwi().get(i, j), path.get(k).getWwi().get(i, j), 1e-2);
+                }
+            }
+        }
+    }
+
+    private Glasso glasso(DoubleMatrix2D ss) {
+        Glasso glasso = new Glasso(ss);
+        glasso.setThr(1e-6);
+        return glasso;
+    }
+
+    // The solution must invert to ww, with ww matching ss on the diagonal and within rho of it off the diagonal,
+    // at rho exactly where the inverse is nonzero.
+    private void checkOptimality(DoubleMatrix2D ss, double rho, Glasso.Result result) {
+        DoubleMatrix2D ww = result.getWw();
+        DoubleMatrix2D wwi = result.getWwi();
+        DoubleMatrix2D product = new Algebra().mult(ww, wwi);
+        double tol = 1e-3;
+
+        for (int i = 0; i < ss.rows(); i++) {
+            assertEquals(ss.get(i, i), ww.get(i, i), tol);
+
+            for (int j = 0; j < ss.rows(); j++) {
+                assertEquals(i == j ? 1 : 0, product.get(i, j), tol);
+
+                if (i == j) continue;
+
+                double gradient = ww.get(i, j) - ss.get(i, j);
+
+                if (wwi.get(i, j) == 0) {
+                    assertTrue(Math.abs(gradient) <= rho + tol);
+                } else {
+                    assertEquals(Math.signum(wwi.get(i, j)) * rho, gradient, tol);
+                }
+            }
+        }
+    }
+
+    // Two chains of dependent variables, the rest independent, so that large penalties split the problem into blocks.
+    private DoubleMatrix2D covariance(int sampleSize, int numVars) {
+        RandomUtil.getInstance().setSeed(4839392L);
+        double[][] data = new double[sampleSize][numVars];
+
+        for (int r = 0; r < sampleSize; r++) {
+            for (int c = 0; c < numVars; c++) {
+                data[r][c] = RandomUtil.getInstance().nextNormal(0, 1);
+
+                if (c % 6 != 0 && c % 6 < 4) {
+                    data[r][c] += 0.8 * data[r][c - 1];
+                }
+            }
+        }
+
+        DoubleMatrix2D ss = new DenseDoubleMatrix2D(numVars, numVars);
+
+        for (int i = 0; i < numVars; i++) {
+            for (int j = 0; j < numVars; j++) {
+                double sum = 0;
+                for (int r = 0; r < sampleSize; r++) sum += data[r][i] * data[r][j];
+                ss.set(i, j, sum / sampleSize);
+            }
+        }
+
+        return ss;
+    }
+}
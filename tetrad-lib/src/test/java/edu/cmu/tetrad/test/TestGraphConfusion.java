@@ -0,0 +1,118 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.algcomparison.statistic.*;
+import edu.cmu.tetrad.algcomparison.statistic.utils.GraphConfusion;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphConverter;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.search.SearchGraphUtils;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the shared confusion counts used by the comparison statistics.
+ */
+public class TestGraphConfusion {
+
+    @Test
+    public void testCounts() {
+        Graph truth = GraphConverter.convert("X1-->X2,X2-->X3,X3-->X4,X1-->X4");
+        Graph est = GraphConverter.convert("X1-->X2,X3-->X2,X3---X4,X2-->X4");
+        est = GraphUtils.replaceNodes(est, truth.getNodes());
+
+        GraphConfusion confusion = new GraphConfusion(truth, est);
+
+        assertEquals(3, confusion.getAdjTp());
+        assertEquals(1, confusion.getAdjFp());
+        assertEquals(1, confusion.getAdjFn());
+        assertEquals(5, confusion.getAdjTn());
+
+        assertEquals(1, confusion.getArrowsTp());
+        assertEquals(2, confusion.getArrowsFp());
+        assertEquals(1, confusion.getArrowsFpTruthAdj());
+        assertEquals(3, confusion.getArrowsFn());
+        assertEquals(1, confusion.getArrowsTpc());
+        assertEquals(2, confusion.getArrowsFnc());
+
+        assertEquals(2, confusion.getTailsTp());
+        assertEquals(2, confusion.getTailsFn());
+        assertEquals(3, confusion.getTailsFp());
+    }
+
+    @Test
+    public void testCached() {
+        Graph truth = GraphConverter.convert("X1-->X2,X2-->X3");
+        Graph est = GraphConverter.convert("X1-->X2,X3-->X2");
+
+        assertSame(GraphConfusion.get(truth, est), GraphConfusion.get(truth, est));
+    }
+
+    @Test
+    public void testEditedGraphNotCached() {
+        Graph truth = GraphConverter.convert("X1-->X2,X2-->X3");
+        Graph est = GraphConverter.convert("X1-->X2,X3-->X2");
+        est = GraphUtils.replaceNodes(est, truth.getNodes());
+
+        GraphConfusion before = GraphConfusion.get(truth, est);
+        assertEquals(1, before.getArrowsTp());
+
+        // Same number of edges, with the wrong arrowhead now right.
+        est.removeEdge(est.getNode("X3"), est.getNode("X2"));
+        est.addDirectedEdge(est.getNode("X2"), est.getNode("X3"));
+
+        GraphConfusion after = GraphConfusion.get(truth, est);
+        assertEquals(2, after.getArrowsTp());
+    }
+
+    @Test
+    public void testBulkValuesMatchStatistics() {
+        RandomUtil.getInstance().setSeed(3948293L);
+        Graph truth = GraphUtils.randomGraph(20, 0, 30, 100, 100, 100, false);
+        Graph est = SearchGraphUtils.patternForDag(
+                new EdgeListGraph(GraphUtils.randomGraph(truth.getNodes(), 0, 30, 100, 100, 100, false)));
+
+        Statistics statistics = new Statistics();
+        statistics.add(new AdjacencyPrecision());
+        statistics.add(new AdjacencyRecall());
+        statistics.add(new ArrowheadPrecision());
+        statistics.add(new ArrowheadRecall());
+        statistics.add(new TailPrecision());
+        statistics.add(new F1All());
+        statistics.add(new MathewsCorrArrow());
+        statistics.add(new ElapsedTime());
+
+        double[] values = statistics.getValues(truth, est, null);
+
+        for (int j = 0; j < statistics.size() - 1; j++) {
+            Statistic statistic = statistics.getStatistics().get(j);
+            assertEquals(statistic.getAbbreviation(), statistic.getValue(truth, est, null), values[j], 0.0);
+        }
+
+        assertEquals(Double.NaN, values[statistics.size() - 1], 0.0);
+    }
+}
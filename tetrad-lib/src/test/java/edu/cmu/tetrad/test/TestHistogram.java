@@ -40,6 +40,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -87,6 +88,17 @@ public final class TestHistogram{
         assertEquals(-3.83, histogram.getMin(), 0.01);
         assertEquals(188, histogram.getN());
 
+        int[] counts = histogram.getFrequencies();
+        assertEquals(10, counts.length);
+        assertEquals(188, sum(counts));
+
+        // Counts are remembered per conditioning; changing it and changing it
+        // back should give the same counts.
+        histogram.addConditioningVariable("X3", 0, 1);
+        assertEquals(histogram.getN(), sum(histogram.getFrequencies()));
+        histogram.removeConditioningVariable("X3");
+        assertArrayEquals(counts, histogram.getFrequencies());
+
         double[] arr = histogram.getContinuousData("X2");
         histogram.addConditioningVariable("X2", StatUtils.min(arr), StatUtils.mean(arr));
 
@@ -112,9 +124,16 @@ public final class TestHistogram{
 //        assertEquals(377, frequencies[0]);
 //        assertEquals(28, frequencies[1]);
     }
+
+    private int sum(int[] counts) {
+        int sum = 0;
+        for (int count : counts) sum += count;
+        return sum;
+    }
 }
 
 
 
 
 
+
@@ -0,0 +1,133 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.Knowledge2;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.search.MeekRules;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Meek rules as they are reused across calls.
+ */
+public class TestMeekRules {
+
+    @Test
+    public void testChangedEdges() {
+        List<Node> nodes = nodes(4);
+        Graph graph = new EdgeListGraph(nodes);
+        graph.addDirectedEdge(nodes.get(0), nodes.get(1));
+        graph.addUndirectedEdge(nodes.get(1), nodes.get(2));
+        graph.addUndirectedEdge(nodes.get(2), nodes.get(3));
+
+        MeekRules rules = new MeekRules();
+        rules.orientImplied(graph);
+
+        assertTrue(graph.isDirectedFromTo(nodes.get(1), nodes.get(2)));
+        assertTrue(graph.isDirectedFromTo(nodes.get(2), nodes.get(3)));
+
+        Map<Edge, Edge> changed = rules.getChangedEdges();
+        assertEquals(2, changed.size());
+        assertEquals(Edges.undirectedEdge(nodes.get(1), nodes.get(2)),
+                changed.get(Edges.directedEdge(nodes.get(1), nodes.get(2))));
+        assertEquals(Edges.undirectedEdge(nodes.get(2), nodes.get(3)),
+                changed.get(Edges.directedEdge(nodes.get(2), nodes.get(3))));
+
+        // Nothing left to propagate from the changed nodes, so nothing is reported.
+        rules.orientImplied(graph, Collections.singletonList(nodes.get(3)));
+        assertTrue(rules.getChangedEdges().isEmpty());
+    }
+
+    @Test
+    public void testUndirectedAndReoriented() {
+        List<Node> nodes = nodes(5);
+        Graph graph = new EdgeListGraph(nodes);
+        graph.addDirectedEdge(nodes.get(0), nodes.get(2));
+        graph.addDirectedEdge(nodes.get(1), nodes.get(2));
+        graph.addDirectedEdge(nodes.get(2), nodes.get(3));
+        graph.addDirectedEdge(nodes.get(3), nodes.get(4));
+
+        MeekRules rules = new MeekRules();
+        rules.setKnowledge(new Knowledge2());
+        rules.setUndirectUnforcedEdges(true);
+        rules.orientImplied(graph);
+
+        // X3-->X4 and X4-->X5 are undirected as unforced and then put back by R1, so no change is reported.
+        assertTrue(graph.isDirectedFromTo(nodes.get(2), nodes.get(3)));
+        assertTrue(graph.isDirectedFromTo(nodes.get(3), nodes.get(4)));
+        assertTrue(rules.getChangedEdges().isEmpty());
+
+        graph.removeEdge(nodes.get(1), nodes.get(2));
+        rules.orientImplied(graph, nodes.subList(0, 3));
+
+        assertEquals(3, rules.getChangedEdges().size());
+        assertTrue(Edges.isUndirectedEdge(graph.getEdge(nodes.get(0), nodes.get(2))));
+        assertEquals(Edges.directedEdge(nodes.get(0), nodes.get(2)),
+                rules.getChangedEdges().get(Edges.undirectedEdge(nodes.get(0), nodes.get(2))));
+    }
+
+    @Test
+    public void testReusedAcrossGraphs() {
+        MeekRules rules = new MeekRules();
+
+        for (int round = 0; round < 2; round++) {
+            List<Node> nodes = nodes(4);
+            Graph graph = new EdgeListGraph(nodes);
+            graph.addDirectedEdge(nodes.get(0), nodes.get(1));
+            graph.addUndirectedEdge(nodes.get(1), nodes.get(2));
+            graph.addUndirectedEdge(nodes.get(2), nodes.get(3));
+
+            rules.orientImplied(graph);
+
+            // Only this graph's nodes are reported, though the graph before had nodes of the same names.
+            assertTrue(graph.isDirectedFromTo(nodes.get(2), nodes.get(3)));
+            assertEquals(new HashSet<>(nodes), rules.getVisited());
+        }
+
+        // Only the nodes visited by the last call are reported.
+        List<Node> nodes = nodes(4);
+        Graph graph = new EdgeListGraph(nodes);
+        graph.addUndirectedEdge(nodes.get(0), nodes.get(1));
+        rules.orientImplied(graph, Collections.singletonList(nodes.get(2)));
+        assertEquals(Collections.singleton(nodes.get(2)), rules.getVisited());
+    }
+
+    private List<Node> nodes(int n) {
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            nodes.add(new GraphNode("X" + (i + 1)));
+        }
+
+        return nodes;
+    }
+}
+
@@ -0,0 +1,119 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.sem.GeneralizedSemIm;
+import edu.cmu.tetrad.sem.GeneralizedSemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.pitt.csb.mgm.MGM;
+import edu.pitt.csb.mgm.MixedUtils;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the MGM regularization path.
+ */
+public class TestMgm {
+
+    private final double[][] lambdas = {{.4, .4, .4}, {.25, .25, .25}, {.15, .15, .15}};
+
+    @Test
+    public void testPathMatchesIndependentSolves() {
+        DataSet data = simulate(300);
+
+        MGM pathMgm = new MGM(data, lambdas[0]);
+        List<MGM.MGMParams> path = pathMgm.learnPath(lambdas, 1e-6, 2000);
+        assertEquals(lambdas.length, path.size());
+
+        for (int k = 0; k < lambdas.length; k++) {
+            MGM mgm = new MGM(data, lambdas[k]);
+            mgm.learn(1e-6, 2000);
+
+            pathMgm.setParams(path.get(k));
+            assertEquals(new HashSet<>(mgm.graphFromMGM().getEdges()),
+                    new HashSet<>(pathMgm.graphFromMGM().getEdges()));
+
+            double[][] expected = mgm.adjMatFromMGM().toArray();
+            double[][] actual = pathMgm.adjMatFromMGM().toArray();
+
+            for (int i = 0; i < expected.length; i++) {
+                for (int j = 0; j < expected.length; j++) {
+                    assertEquals(expected[i][j], actual[i][j], 1e-3);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallelPaths() {
+        DataSet data = simulate(400);
+        List<DataSet> subsamples = new ArrayList<>();
+
+        for (int s = 0; s < 3; s++) {
+            int[] rows = new int[200];
+
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = (s * 67 + i) % data.getNumRows();
+            }
+
+            subsamples.add(data.subsetRows(rows));
+        }
+
+        List<List<Graph>> paths = MGM.searchPaths(subsamples, lambdas);
+        assertEquals(subsamples.size(), paths.size());
+
+        for (int s = 0; s < subsamples.size(); s++) {
+            List<Graph> path = new MGM(subsamples.get(s), lambdas[0]).searchPath(lambdas);
+
+            for (int k = 0; k < lambdas.length; k++) {
+                assertEquals(new HashSet<>(path.get(k).getEdges()),
+                        new HashSet<>(paths.get(s).get(k).getEdges()));
+            }
+        }
+    }
+
+    private DataSet simulate(int sampleSize) {
+        RandomUtil.getInstance().setSeed(29392L);
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            nodes.add(new GraphNode("X" + (i + 1)));
+        }
+
+        Graph graph = GraphUtils.randomGraph(nodes, 0, 7, 30, 15, 15, false);
+        HashMap<String, Integer> nd = new HashMap<>();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            nd.put(nodes.get(i).getName(), i % 2 == 0 ? 0 : 3);
+        }
+
+        graph = MixedUtils.makeMixedGraph(graph, nd);
+        GeneralizedSemPm pm = MixedUtils.GaussianCategoricalPm(graph, "Split(-1.5,-.5,.5,1.5)");
+        GeneralizedSemIm im = MixedUtils.GaussianCategoricalIm(pm);
+        return MixedUtils.makeMixedData(im.simulateDataFisher(sampleSize), nd);
+    }
+}
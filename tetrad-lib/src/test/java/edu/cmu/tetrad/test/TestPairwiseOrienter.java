@@ -0,0 +1,140 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DoubleDataBox;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.Fask;
+import edu.cmu.tetrad.search.IndTestFisherZ;
+import edu.cmu.tetrad.search.Lofs2;
+import edu.cmu.tetrad.search.PairwiseOrienter;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetrad.util.StatUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the shared pairwise orientation statistics used by Fask and Lofs2.
+ */
+public class TestPairwiseOrienter {
+
+    @Test
+    public void testStatistics() {
+        DataSet data = simulate(3, 500);
+        ForkJoinPool pool = new ForkJoinPool(3);
+
+        try {
+            PairwiseOrienter orienter = new PairwiseOrienter(data, pool);
+            double[][] D = orienter.getColumns();
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(StatUtils.skewness(D[i]), orienter.getSkewness(i), 1e-12);
+                assertEquals(Math.signum(orienter.getSkewness(i)) * D[i][7], orienter.getCorrectedColumn(i)[7], 0.0);
+
+                for (int j = 0; j < 3; j++) {
+                    double[] c = orienter.correxp(i, j);
+                    assertEquals(correxp(D[i], D[j], D[i]), c[0], 1e-12);
+                    assertEquals(correxp(D[i], D[j], D[j]), c[1], 1e-12);
+                    assertEquals(StatUtils.covariance(D[i], D[j]) / StatUtils.variance(D[j]),
+                            PairwiseOrienter.slope(D[i], D[j]), 1e-10);
+                }
+            }
+
+            // Results come back in index order however the work is split.
+            List<Integer> squares = orienter.map(1000, i -> i * i);
+            for (int i = 0; i < 1000; i++) assertEquals(i * i, (int) squares.get(i));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testOrientation() {
+        DataSet data = simulate(2, 2000);
+        Node x = data.getVariable(0);
+        Node y = data.getVariable(1);
+
+        Fask fask = new Fask(data, new IndTestFisherZ(data, 0.001));
+        Graph faskGraph = fask.search();
+        assertTrue(faskGraph.isParentOf(x, y));
+        assertTrue(fask.getLrScores()[0][1] > 0);
+
+        Graph pattern = new EdgeListGraph(data.getVariables());
+        pattern.addUndirectedEdge(x, y);
+
+        for (Lofs2.Rule rule : new Lofs2.Rule[]{Lofs2.Rule.Tanh, Lofs2.Rule.SkewE, Lofs2.Rule.RSkewE}) {
+            Lofs2 lofs = new Lofs2(pattern, Collections.singletonList(data));
+            lofs.setRule(rule);
+            Graph graph = lofs.orient();
+            assertTrue(rule.toString(), graph.isParentOf(graph.getNode("X1"), graph.getNode("X2")));
+        }
+    }
+
+    // A chain X1 -> X2 -> ... with exponential errors.
+    private DataSet simulate(int numVars, int sampleSize) {
+        RandomUtil.getInstance().setSeed(2938472L);
+
+        List<Node> variables = new ArrayList<>();
+        for (int i = 0; i < numVars; i++) variables.add(new ContinuousVariable("X" + (i + 1)));
+
+        double[][] d = new double[sampleSize][numVars];
+
+        for (int r = 0; r < sampleSize; r++) {
+            for (int i = 0; i < numVars; i++) {
+                double e = -Math.log(RandomUtil.getInstance().nextUniform(0, 1));
+                d[r][i] = (i > 0 ? 0.8 * d[r][i - 1] : 0) + e;
+            }
+        }
+
+        return new BoxDataSet(new DoubleDataBox(d), variables);
+    }
+
+    private static double correxp(double[] x, double[] y, double[] z) {
+        return E(x, y, z) / Math.sqrt(E(x, x, z) * E(y, y, z));
+    }
+
+    private static double E(double[] x, double[] y, double[] z) {
+        double exy = 0.0;
+        int n = 0;
+
+        for (int k = 0; k < x.length; k++) {
+            if (z[k] > 0) {
+                exy += x[k] * y[k];
+                n++;
+            }
+        }
+
+        return exy / n;
+    }
+}
@@ -0,0 +1,101 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.pitt.dbmi.algo.resampling.ResamplingEdgeCounts;
+import edu.pitt.dbmi.algo.resampling.ResamplingEdgeEnsemble;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the streaming edge type counts for resampling.
+ */
+public class TestResamplingEdgeCounts {
+
+    @Test
+    public void testCounts() {
+        ResamplingEdgeCounts counts = counts();
+        Graph g = GraphConverter.convert("X1-->X2,X2-->X3");
+        Node x1 = g.getNode("X1");
+        Node x2 = g.getNode("X2");
+        Node x3 = g.getNode("X3");
+
+        assertEquals(4, counts.getNumGraphs());
+        assertEquals(1.0, counts.getFrequency(x1, x2), 0.0);
+        assertEquals(0.75, counts.getFrequency(x3, x2), 0.0);
+        assertEquals(0.0, counts.getFrequency(x1, x3), 0.0);
+        assertNull(counts.getProbabilities(x1, x3));
+
+        // Stored relative to the sorted nodes, reported relative to the nodes asked about.
+        assertEquals(0.75, probability(counts.getProbabilities(x1, x2), EdgeType.ta), 0.0);
+        assertEquals(0.75, probability(counts.getProbabilities(x2, x1), EdgeType.at), 0.0);
+        assertEquals(0.25, probability(counts.getProbabilities(x2, x1), EdgeType.ta), 0.0);
+        assertEquals(0.25, probability(counts.getProbabilities(x2, x3), EdgeType.nil), 0.0);
+        assertEquals(0.5, probability(counts.getProbabilities(x2, x3), EdgeType.tt), 0.0);
+    }
+
+    @Test
+    public void testEnsembles() {
+        ResamplingEdgeCounts counts = counts();
+
+        Graph preserved = counts.getEnsembleGraph(ResamplingEdgeEnsemble.Preserved);
+        assertEquals(3, preserved.getNumNodes());
+        assertEquals(2, preserved.getNumEdges());
+        assertTrue(preserved.isParentOf(preserved.getNode("X1"), preserved.getNode("X2")));
+        assertTrue(preserved.isUndirectedFromTo(preserved.getNode("X2"), preserved.getNode("X3")));
+        assertEquals(2, preserved.getEdge(preserved.getNode("X1"), preserved.getNode("X2"))
+                .getEdgeTypeProbabilities().size());
+
+        Graph majority = counts.getEnsembleGraph(ResamplingEdgeEnsemble.Majority);
+        assertEquals(2, majority.getNumEdges());
+
+        counts.add(GraphConverter.convert("X1-->X2,X3"));
+        counts.add(GraphConverter.convert("X1-->X2,X3"));
+
+        // X2---X3 now has probability 1/3 against 1/2 for no edge.
+        assertEquals(1, counts.getEnsembleGraph(ResamplingEdgeEnsemble.Majority).getNumEdges());
+        assertEquals(1, counts.getEnsembleGraph(ResamplingEdgeEnsemble.Highest).getNumEdges());
+        assertEquals(2, counts.getEnsembleGraph(ResamplingEdgeEnsemble.Preserved).getNumEdges());
+    }
+
+    private ResamplingEdgeCounts counts() {
+        ResamplingEdgeCounts counts = new ResamplingEdgeCounts();
+        counts.add(GraphConverter.convert("X1-->X2,X2---X3"));
+        counts.add(GraphConverter.convert("X1-->X2,X3---X2"));
+        counts.add(GraphConverter.convert("X2-->X1,X2-->X3"));
+        counts.add(GraphConverter.convert("X1-->X2,X3"));
+        return counts;
+    }
+
+    private double probability(List<EdgeTypeProbability> probabilities, EdgeType edgeType) {
+        for (EdgeTypeProbability etp : probabilities) {
+            if (etp.getEdgeType() == edgeType) return etp.getProbability();
+        }
+
+        return 0.0;
+    }
+}
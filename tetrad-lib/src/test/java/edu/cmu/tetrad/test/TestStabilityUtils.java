@@ -0,0 +1,116 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import cern.colt.matrix.DoubleMatrix2D;
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.pitt.csb.stability.DataGraphSearch;
+import edu.pitt.csb.stability.SearchWrappers;
+import edu.pitt.csb.stability.StabilityUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests stability selection over subsamples.
+ */
+public class TestStabilityUtils {
+
+    @Test
+    public void testParallelMatchesSerial() {
+        DataSet data = simulate();
+        DataGraphSearch search = new SearchWrappers.FgesWrapper(2.0);
+
+        RandomUtil.getInstance().setSeed(4829392L);
+        DoubleMatrix2D serial = StabilityUtils.StabilitySearch(data, search, 12, 150);
+
+        RandomUtil.getInstance().setSeed(4829392L);
+        DoubleMatrix2D parallel = StabilityUtils.StabilitySearchPar(data, search, 12, 150);
+
+        assertEquals(serial.rows(), parallel.rows());
+
+        for (int i = 0; i < serial.rows(); i++) {
+            for (int j = 0; j < serial.columns(); j++) {
+                assertEquals(serial.get(i, j), parallel.get(i, j), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testGrid() {
+        DataSet data = simulate();
+        List<DataGraphSearch> searches = new ArrayList<>();
+
+        for (double penalty : new double[]{1.0, 2.0, 4.0}) {
+            searches.add(new SearchWrappers.FgesWrapper(penalty));
+        }
+
+        RandomUtil.getInstance().setSeed(4829393L);
+        DoubleMatrix2D[] grid = StabilityUtils.StabilitySearchPar(data, searches, 12, 150, 5, 0.0);
+
+        for (int k = 0; k < searches.size(); k++) {
+            RandomUtil.getInstance().setSeed(4829393L);
+            DoubleMatrix2D single = StabilityUtils.StabilitySearchPar(data, searches.get(k), 12, 150);
+
+            for (int i = 0; i < single.rows(); i++) {
+                for (int j = 0; j < single.columns(); j++) {
+                    assertEquals(single.get(i, j), grid[k].get(i, j), 1e-12);
+                }
+            }
+        }
+
+        // With a tolerance of 1 the run converges after the second round of 3 subsamples.
+        RandomUtil.getInstance().setSeed(4829393L);
+        DoubleMatrix2D[] early = StabilityUtils.StabilitySearchPar(data, searches, 12, 150, 3, 1.0);
+
+        for (DoubleMatrix2D theta : early) {
+            for (int i = 0; i < theta.rows(); i++) {
+                for (int j = 0; j < theta.columns(); j++) {
+                    double count = theta.get(i, j) * 6;
+                    assertEquals(Math.rint(count), count, 1e-9);
+                }
+            }
+        }
+    }
+
+    private DataSet simulate() {
+        RandomUtil.getInstance().setSeed(4829391L);
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            nodes.add(new ContinuousVariable("X" + (i + 1)));
+        }
+
+        Graph graph = new Dag(GraphUtils.randomGraph(nodes, 0, 12,
+                30, 15, 15, false));
+        SemIm im = new SemIm(new SemPm(graph));
+        return im.simulateData(300, false);
+    }
+}
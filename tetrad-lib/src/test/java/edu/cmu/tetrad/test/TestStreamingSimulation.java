@@ -0,0 +1,130 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.algcomparison.graph.RandomForward;
+import edu.cmu.tetrad.algcomparison.simulation.BayesNetSimulation;
+import edu.cmu.tetrad.algcomparison.simulation.SemSimulation;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataWriter;
+import edu.cmu.tetrad.data.TabularDataSink;
+import edu.cmu.tetrad.util.DataConvertUtils;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.pitt.dbmi.data.reader.Data;
+import edu.pitt.dbmi.data.reader.DataColumn;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.data.reader.tabular.TabularColumnFileReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularColumnReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularDataFileReader;
+import edu.pitt.dbmi.data.reader.tabular.TabularDataReader;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests streaming simulated data to disk a chunk of rows at a time.
+ */
+public class TestStreamingSimulation {
+
+    @Test
+    public void testChunkedTextMatchesDataWriter() throws IOException {
+        RandomUtil.getInstance().setSeed(302040392L);
+        File dir = new File("target/test_data");
+        dir.mkdirs();
+
+        SemSimulation simulation = new SemSimulation(new RandomForward());
+        Parameters parameters = getParameters(95);
+        simulation.createData(parameters);
+        DataSet dataSet = (DataSet) simulation.getDataModel(0);
+
+        File expected = new File(dir, "streaming_expected.txt");
+        DataWriter.writeRectangularData(dataSet, new FileWriter(expected), '\t');
+
+        File actual = new File(dir, "streaming_actual.txt");
+
+        try (TabularDataSink sink = new TabularDataSink(actual, '\t', false)) {
+            sink.open(dataSet.getVariables());
+
+            for (int start = 0; start < dataSet.getNumRows(); start += 20) {
+                int[] rows = new int[Math.min(20, dataSet.getNumRows() - start)];
+
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = start + i;
+                }
+
+                sink.write(dataSet.subsetRows(rows));
+            }
+        }
+
+        assertTrue(new String(Files.readAllBytes(expected.toPath()))
+                .equals(new String(Files.readAllBytes(actual.toPath()))));
+    }
+
+    @Test
+    public void testStreamGzippedBayesNetData() throws IOException {
+        RandomUtil.getInstance().setSeed(302040392L);
+        File dir = new File("target/test_data");
+        dir.mkdirs();
+
+        Parameters parameters = getParameters(1050);
+        parameters.set(Params.NUM_RUNS, 2);
+        parameters.set(Params.RANDOMIZE_COLUMNS, true);
+
+        BayesNetSimulation simulation = new BayesNetSimulation(new RandomForward());
+        simulation.createData(parameters, index -> new TabularDataSink(
+                new File(dir, "streaming." + (index + 1) + ".txt.gz"), '\t', true), 100);
+
+        assertEquals(0, simulation.getNumDataModels());
+
+        for (int i = 0; i < 2; i++) {
+            File file = new File(dir, "streaming." + (i + 1) + ".txt.gz");
+
+            TabularColumnReader columnReader = new TabularColumnFileReader(file.toPath(), Delimiter.TAB);
+            DataColumn[] columns = columnReader.readInDataColumns(true);
+
+            TabularDataReader dataReader = new TabularDataFileReader(file.toPath(), Delimiter.TAB);
+            Data data = dataReader.read(columns, true);
+            DataSet dataSet = (DataSet) DataConvertUtils.toDataModel(data);
+
+            assertEquals(10, dataSet.getNumColumns());
+            assertEquals(1050, dataSet.getNumRows());
+            assertEquals(10, simulation.getTrueGraph(i).getNumNodes());
+        }
+    }
+
+    private Parameters getParameters(int sampleSize) {
+        Parameters parameters = new Parameters();
+        parameters.set(Params.NUM_MEASURES, 10);
+        parameters.set(Params.AVG_DEGREE, 2);
+        parameters.set(Params.NUM_RUNS, 1);
+        parameters.set(Params.SAMPLE_SIZE, sampleSize);
+        return parameters;
+    }
+}
@@ -0,0 +1,153 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+// Copyright (C) 1998, 1999, 2000, 2001, 2002, 2003, 2004, 2005, 2006,       //
+// 2007, 2008, 2009, 2010, 2014, 2015 by Peter Spirtes, Richard Scheines, Joseph   //
+// Ramsey, and Clark Glymour.                                                //
+//                                                                           //
+// This program is free software; you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation; either version 2 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program; if not, write to the Free Software               //
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.TimeSeriesUtils;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests lagged views of time series.
+ */
+public class TestTimeSeriesUtils {
+
+    @Test
+    public void testLagView() {
+        int numLags = 3;
+        DataSet series = series(50, 4);
+        DataSet lagged = TimeSeriesUtils.createLagData(series, numLags);
+
+        assertTrue(((BoxDataSet) lagged).getDataBox() instanceof LaggedDataBox);
+        assertEquals(50 - numLags, lagged.getNumRows());
+        assertEquals(4 * (numLags + 1), lagged.getNumColumns());
+        assertEquals("X2:3", lagged.getVariable(3 * 4 + 2).getName());
+
+        for (int lag = 0; lag <= numLags; lag++) {
+            for (int j = 0; j < 4; j++) {
+                for (int r = 0; r < lagged.getNumRows(); r++) {
+                    assertEquals(series.getDouble(r + numLags - lag, j), lagged.getDouble(r, lag * 4 + j), 0.0);
+                }
+            }
+        }
+
+        DataSet copy = lagged.copy();
+        copy.setDouble(0, 0, 100);
+        assertEquals(100, copy.getDouble(0, 0), 0.0);
+        assertTrue(series.getDouble(numLags, 0) != 100);
+    }
+
+    @Test
+    public void testEditingLagsLeavesSeries() {
+        int numLags = 2;
+        DataSet series = series(30, 3);
+        DataSet original = series.copy();
+        DataSet lagged = TimeSeriesUtils.createLagData(series, numLags);
+        double lag1 = lagged.getDouble(1, 3);
+
+        lagged.setDouble(0, 0, 100);
+
+        assertEquals(100, lagged.getDouble(0, 0), 0.0);
+        assertEquals(lag1, lagged.getDouble(1, 3), 0.0);
+
+        for (int r = 0; r < series.getNumRows(); r++) {
+            for (int j = 0; j < series.getNumColumns(); j++) {
+                assertEquals(original.getDouble(r, j), series.getDouble(r, j), 0.0);
+            }
+        }
+
+        DataSet expanded = new BoxDataSet(new DoubleDataBox(lagged.getDoubleData().toArray()),
+                lagged.getVariables());
+        ICovarianceMatrix cov = new CovarianceMatrix(lagged, true);
+        ICovarianceMatrix expected = new CovarianceMatrix(expanded, true);
+
+        for (int i = 0; i < expected.getDimension(); i++) {
+            for (int j = 0; j < expected.getDimension(); j++) {
+                assertEquals(expected.getValue(i, j), cov.getValue(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testEditingSeriesLeavesLags() {
+        int numLags = 2;
+        DataSet series = series(30, 3);
+        DataSet lagged = TimeSeriesUtils.createLagData(series, numLags);
+        double value = lagged.getDouble(0, 0);
+
+        series.setDouble(numLags, 0, value + 100);
+
+        assertEquals(value, lagged.getDouble(0, 0), 0.0);
+    }
+
+    @Test
+    public void testLaggedCovariances() {
+        int numLags = 4;
+        DataSet lagged = TimeSeriesUtils.createLagData(series(300, 5), numLags);
+        DataSet expanded = new BoxDataSet(new DoubleDataBox(lagged.getDoubleData().toArray()),
+                lagged.getVariables());
+
+        for (boolean biasCorrected : new boolean[]{true, false}) {
+            ICovarianceMatrix cov = new CovarianceMatrix(lagged, biasCorrected);
+            ICovarianceMatrix expected = new CovarianceMatrix(expanded, biasCorrected);
+
+            assertEquals(expected.getSampleSize(), cov.getSampleSize());
+            assertEquals(expected.getVariables(), cov.getVariables());
+
+            for (int i = 0; i < expected.getDimension(); i++) {
+                for (int j = 0; j < expected.getDimension(); j++) {
+                    assertEquals(expected.getValue(i, j), cov.getValue(i, j), 1e-9);
+                }
+            }
+        }
+    }
+
+    // An autoregressive series with a nonzero mean.
+    private DataSet series(int numRows, int numVars) {
+        RandomUtil.getInstance().setSeed(2938493L);
+        List<Node> variables = new ArrayList<>();
+
+        for (int j = 0; j < numVars; j++) {
+            variables.add(new ContinuousVariable("X" + j));
+        }
+
+        DataSet data = new BoxDataSet(new VerticalDoubleDataBox(numRows, numVars), variables);
+
+        for (int r = 0; r < numRows; r++) {
+            for (int j = 0; j < numVars; j++) {
+                double value = 10 + RandomUtil.getInstance().nextNormal(0, 1);
+                if (r > 0) value += 0.5 * (data.getDouble(r - 1, j) - 10);
+                if (j > 0) value += 0.3 * data.getDouble(r, j - 1);
+                data.setDouble(r, j, value);
+            }
+        }
+
+        return data;
+    }
+}